@@ -65,3 +65,25 @@ create table chat_history
     INDEX idx_createTime (createTime),             -- 提升基于时间的查询性能
     INDEX idx_appId_createTime (appId, createTime) -- 游标查询核心索引
 ) comment '对话历史' collate = utf8mb4_unicode_ci;
+
+-- token 用量表
+create table if not exists token_usage
+(
+    id           bigint auto_increment comment 'id' primary key,
+    statDate     date                               not null comment '统计日期',
+    userId       bigint   default 0                 not null comment '用户id，0 表示非应用调用',
+    appId        bigint   default 0                 not null comment '应用id，0 表示非应用调用',
+    modelName    varchar(128)                       not null comment '模型名称',
+    codeGenType  varchar(64) default ''             not null comment '代码生成类型',
+    requestCount bigint   default 0                 not null comment '请求次数',
+    errorCount   bigint   default 0                 not null comment '失败次数',
+    inputTokens  bigint   default 0                 not null comment '输入 token 数',
+    outputTokens bigint   default 0                 not null comment '输出 token 数',
+    totalTokens  bigint   default 0                 not null comment '总 token 数',
+    createTime   datetime default CURRENT_TIMESTAMP not null comment '创建时间',
+    updateTime   datetime default CURRENT_TIMESTAMP not null on update CURRENT_TIMESTAMP comment '更新时间',
+    isDelete     tinyint  default 0                 not null comment '是否删除',
+    UNIQUE KEY uk_stat (statDate, appId, userId, modelName, codeGenType), -- 按天聚合，批量累加写入
+    INDEX idx_userId_statDate (userId, statDate),
+    INDEX idx_appId_statDate (appId, statDate)
+) comment 'token 用量' collate = utf8mb4_unicode_ci;
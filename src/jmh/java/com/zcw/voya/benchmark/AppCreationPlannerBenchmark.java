@@ -0,0 +1,90 @@
+package com.zcw.voya.benchmark;
+
+import com.zcw.voya.ai.AppCreationPlanner;
+import com.zcw.voya.ai.model.enums.CodeGenTypeEnum;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * 创建应用前路由和命名的基准
+ * 两个模型调用都是固定延迟的桩，sequential 为原来先路由再命名的做法，parallel 为 AppCreationPlanner 的并行做法，
+ * 预期前者约为两者延迟之和，后者约为较慢的一个：
+ * ./mvnw -Pjmh test-compile exec:exec -Djmh.args="AppCreationPlannerBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AppCreationPlannerBenchmark {
+
+    private static final String PROMPT = "做一个电商管理系统，包含用户管理、商品管理和订单统计";
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    /**
+     * 路由模型的延迟（毫秒）
+     */
+    @Param({"50"})
+    public long routeLatencyMs;
+
+    /**
+     * 命名模型的延迟（毫秒）
+     */
+    @Param({"80"})
+    public long nameLatencyMs;
+
+    private ExecutorService executor;
+    private Function<String, CodeGenTypeEnum> router;
+    private Function<String, String> namer;
+
+    @Setup
+    public void setUp() {
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        router = stubModel(routeLatencyMs, CodeGenTypeEnum.VUE_PROJECT);
+        namer = stubModel(nameLatencyMs, "电商后台");
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public AppCreationPlanner.AppCreationPlan sequential() {
+        return new AppCreationPlanner.AppCreationPlan(router.apply(PROMPT), namer.apply(PROMPT));
+    }
+
+    @Benchmark
+    public AppCreationPlanner.AppCreationPlan parallel() {
+        return AppCreationPlanner.plan(PROMPT, router, namer, TIMEOUT, TIMEOUT, executor);
+    }
+
+    private static <T> Function<String, T> stubModel(long latencyMs, T result) {
+        return prompt -> {
+            try {
+                Thread.sleep(latencyMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return result;
+        };
+    }
+}
@@ -0,0 +1,114 @@
+package com.zcw.voya.benchmark;
+
+import com.zcw.voya.ai.model.HtmlCodeResult;
+import com.zcw.voya.ai.model.MultiFileCodeResult;
+import com.zcw.voya.core.parser.CodeBlockListener;
+import com.zcw.voya.core.parser.HtmlCodeParser;
+import com.zcw.voya.core.parser.MultiFileCodeParser;
+import com.zcw.voya.core.parser.StreamingCodeBlockParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 代码块解析基准
+ * 对比整段输出上的正则解析（HtmlCodeParser / MultiFileCodeParser 的惰性 [\s\S]*?）
+ * 与按片段增量解析的 StreamingCodeBlockParser，截断的输出是正则的最坏情况
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CodeParserBenchmark {
+
+    @Param({"small", "50kb", "500kb"})
+    public String size;
+
+    /**
+     * 是否缺少最后的闭合围栏
+     */
+    @Param({"false", "true"})
+    public boolean truncated;
+
+    private final HtmlCodeParser htmlCodeParser = new HtmlCodeParser();
+    private final MultiFileCodeParser multiFileCodeParser = new MultiFileCodeParser();
+
+    private String htmlOutput;
+    private String multiFileOutput;
+    private List<String> multiFileChunks;
+
+    @Setup
+    public void setUp() {
+        int chars = ModelOutputCorpus.size(size);
+        htmlOutput = ModelOutputCorpus.html(chars, truncated);
+        multiFileOutput = ModelOutputCorpus.multiFile(chars, truncated);
+        multiFileChunks = ModelOutputCorpus.chunks(multiFileOutput);
+    }
+
+    @Benchmark
+    public HtmlCodeResult htmlRegex() {
+        return htmlCodeParser.parser(htmlOutput);
+    }
+
+    @Benchmark
+    public MultiFileCodeResult multiFileRegex() {
+        return multiFileCodeParser.parser(multiFileOutput);
+    }
+
+    /**
+     * 增量解析同一份多文件输出，按语言收集代码块内容
+     */
+    @Benchmark
+    public int multiFileStreaming() {
+        CollectingListener listener = new CollectingListener();
+        StreamingCodeBlockParser parser = new StreamingCodeBlockParser(listener);
+        for (String chunk : multiFileChunks) {
+            parser.append(chunk);
+        }
+        parser.finish();
+        return listener.html.length() + listener.css.length() + listener.js.length();
+    }
+
+    private static final class CollectingListener implements CodeBlockListener {
+
+        private final StringBuilder html = new StringBuilder();
+        private final StringBuilder css = new StringBuilder();
+        private final StringBuilder js = new StringBuilder();
+        private StringBuilder current;
+
+        @Override
+        public void onBlockStart(String language) {
+            current = switch (language) {
+                case "html" -> html;
+                case "css" -> css;
+                case "js", "javascript" -> js;
+                default -> null;
+            };
+        }
+
+        @Override
+        public void onBlockContent(CharSequence content) {
+            if (current != null) {
+                current.append(content);
+            }
+        }
+
+        @Override
+        public void onBlockEnd(String language) {
+            current = null;
+        }
+    }
+}
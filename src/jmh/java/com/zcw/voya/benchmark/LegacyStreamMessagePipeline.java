@@ -0,0 +1,151 @@
+package com.zcw.voya.benchmark;
+
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import com.zcw.voya.ai.model.message.AiResponseMessage;
+import com.zcw.voya.ai.model.message.StreamMessage;
+import com.zcw.voya.ai.model.message.StreamMessageTypeEnum;
+import com.zcw.voya.ai.model.message.ToolExecutedMessage;
+import com.zcw.voya.ai.model.message.ToolRequestMessage;
+import com.zcw.voya.ai.tools.BaseTool;
+import com.zcw.voya.ai.tools.ToolManager;
+import com.zcw.voya.model.entity.User;
+import com.zcw.voya.model.enums.ChatHistoryMessageTypeEnum;
+import com.zcw.voya.service.ChatHistoryService;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import reactor.core.publisher.Flux;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 类型化之前的流式消息链路，作为基准对照：
+ * 门面把每条消息 toJsonStr，JsonMessageStreamHandler 对每条消息 toBean 两次，控制器包装成 Map 再 toJsonStr。
+ * 消息类为原来的可变 bean，处理逻辑照搬原实现
+ */
+public class LegacyStreamMessagePipeline {
+
+    private final ToolManager toolManager;
+
+    public LegacyStreamMessagePipeline(ToolManager toolManager) {
+        this.toolManager = toolManager;
+    }
+
+    /**
+     * 从门面下发到控制器编码为 SSE 数据的完整过程
+     */
+    public Flux<String> handle(Flux<StreamMessage> originFlux, ChatHistoryService chatHistoryService,
+                               long appId, User loginUser) {
+        StringBuilder chatHistoryStringBuilder = new StringBuilder();
+        Set<String> seenToolIds = new HashSet<>();
+        return originFlux
+                // 门面：消息对象序列化为 JSON 字符串
+                .map(message -> JSONUtil.toJsonStr(toLegacyMessage(message)))
+                .map(chunk -> handleJsonMessageChunk(chunk, chatHistoryStringBuilder, seenToolIds))
+                .filter(StrUtil::isNotEmpty)
+                .doOnComplete(() -> chatHistoryService.addChatHistory(appId, chatHistoryStringBuilder.toString(),
+                        ChatHistoryMessageTypeEnum.AI.getValue(), loginUser.getId()))
+                // 控制器：包装成 Map 再序列化
+                .map(chunk -> JSONUtil.toJsonStr(Map.of("d", chunk)));
+    }
+
+    private String handleJsonMessageChunk(String chunk, StringBuilder chatHistoryStringBuilder, Set<String> seenToolIds) {
+        LegacyStreamMessage streamMessage = JSONUtil.toBean(chunk, LegacyStreamMessage.class);
+        StreamMessageTypeEnum typeEnum = StreamMessageTypeEnum.getEnumByValue(streamMessage.getType());
+        switch (typeEnum) {
+            case AI_RESPONSE -> {
+                LegacyAiResponseMessage aiMessage = JSONUtil.toBean(chunk, LegacyAiResponseMessage.class);
+                String data = aiMessage.getData();
+                chatHistoryStringBuilder.append(data);
+                return data;
+            }
+            case TOOL_REQUEST -> {
+                LegacyToolRequestMessage toolRequestMessage = JSONUtil.toBean(chunk, LegacyToolRequestMessage.class);
+                String toolId = toolRequestMessage.getId();
+                if (toolId != null && !seenToolIds.contains(toolId)) {
+                    seenToolIds.add(toolId);
+                    BaseTool tool = toolManager.getTool(toolRequestMessage.getName());
+                    return tool.generateToolRequestResponse();
+                } else {
+                    return "";
+                }
+            }
+            case TOOL_EXECUTED -> {
+                LegacyToolExecutedMessage toolExecutedMessage = JSONUtil.toBean(chunk, LegacyToolExecutedMessage.class);
+                JSONObject jsonObject = JSONUtil.parseObj(toolExecutedMessage.getArguments());
+                BaseTool tool = toolManager.getTool(toolExecutedMessage.getName());
+                String result = tool.generateToolExecutedResult(jsonObject);
+                String output = String.format("\n\n%s\n\n", result);
+                chatHistoryStringBuilder.append(output);
+                return output;
+            }
+            default -> {
+                return "";
+            }
+        }
+    }
+
+    private static LegacyStreamMessage toLegacyMessage(StreamMessage message) {
+        return switch (message) {
+            case AiResponseMessage aiResponseMessage -> {
+                LegacyAiResponseMessage legacy = new LegacyAiResponseMessage();
+                legacy.setType(StreamMessageTypeEnum.AI_RESPONSE.getValue());
+                legacy.setData(aiResponseMessage.data());
+                yield legacy;
+            }
+            case ToolRequestMessage toolRequestMessage -> {
+                LegacyToolRequestMessage legacy = new LegacyToolRequestMessage();
+                legacy.setType(StreamMessageTypeEnum.TOOL_REQUEST.getValue());
+                legacy.setId(toolRequestMessage.id());
+                legacy.setName(toolRequestMessage.name());
+                legacy.setArguments(toolRequestMessage.arguments());
+                yield legacy;
+            }
+            case ToolExecutedMessage toolExecutedMessage -> {
+                LegacyToolExecutedMessage legacy = new LegacyToolExecutedMessage();
+                legacy.setType(StreamMessageTypeEnum.TOOL_EXECUTED.getValue());
+                legacy.setId(toolExecutedMessage.id());
+                legacy.setName(toolExecutedMessage.name());
+                legacy.setArguments(toolExecutedMessage.arguments());
+                legacy.setResult(toolExecutedMessage.result());
+                yield legacy;
+            }
+        };
+    }
+
+    @Data
+    @NoArgsConstructor
+    public static class LegacyStreamMessage {
+        private String type;
+    }
+
+    @Data
+    @EqualsAndHashCode(callSuper = true)
+    @NoArgsConstructor
+    public static class LegacyAiResponseMessage extends LegacyStreamMessage {
+        private String data;
+    }
+
+    @Data
+    @EqualsAndHashCode(callSuper = true)
+    @NoArgsConstructor
+    public static class LegacyToolRequestMessage extends LegacyStreamMessage {
+        private String id;
+        private String name;
+        private String arguments;
+    }
+
+    @Data
+    @EqualsAndHashCode(callSuper = true)
+    @NoArgsConstructor
+    public static class LegacyToolExecutedMessage extends LegacyStreamMessage {
+        private String id;
+        private String name;
+        private String arguments;
+        private String result;
+    }
+}
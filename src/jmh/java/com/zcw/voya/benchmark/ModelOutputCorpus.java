@@ -0,0 +1,159 @@
+package com.zcw.voya.benchmark;
+
+import cn.hutool.json.JSONUtil;
+import com.zcw.voya.ai.model.message.AiResponseMessage;
+import com.zcw.voya.ai.model.message.StreamMessage;
+import com.zcw.voya.ai.model.message.ToolExecutedMessage;
+import com.zcw.voya.ai.model.message.ToolRequestMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * 基准使用的模型输出语料
+ * 按线上输出的形态拼装：一段说明文字，随后是代码块，末尾一段总结；大小分为 small（约 2 KB）、
+ * 50kb 和 500kb 三档。截断版本去掉最后的闭合围栏，对应输出被 max_tokens 截断或生成被取消的情况，
+ * 这是惰性正则 [\s\S]*? 的最坏情况。使用固定种子，每次运行相同
+ */
+public final class ModelOutputCorpus {
+
+    private static final String HTML_SAMPLE = """
+            <section class="feature">
+              <h2 class="feature__title">数据看板</h2>
+              <p class="feature__desc">实时汇总访问量、转化率和留存，支持按渠道筛选。</p>
+              <ul class="feature__list"><li>访问量 <strong>12,480</strong></li><li>转化率 <strong>3.6%</strong></li></ul>
+            </section>
+            """;
+
+    private static final String CSS_SAMPLE = """
+            .feature { padding: 32px 48px; border-bottom: 1px solid #eee; }
+            .feature__title { font-size: 24px; color: #1f2937; margin: 0 0 12px; }
+            .feature__list li { display: inline-block; margin-right: 24px; color: #4b5563; }
+            """;
+
+    private static final String JS_SAMPLE = """
+            document.querySelectorAll('.feature').forEach((el, index) => {
+              el.style.animationDelay = `${index * 80}ms`;
+              el.addEventListener('click', () => el.classList.toggle('feature--active'));
+            });
+            """;
+
+    private static final String VUE_SAMPLE = """
+            <template>
+              <el-table :data="rows" border><el-table-column prop="name" label="名称" /><el-table-column prop="status" label="状态" /></el-table>
+            </template>
+            <script setup>
+            import { ref, onMounted } from 'vue'
+            const rows = ref([])
+            onMounted(async () => { rows.value = await fetch('/api/list').then(r => r.json()) })
+            </script>
+            """;
+
+    private static final String PREAMBLE = "好的，我会根据你的需求生成完整的代码，采用响应式布局并保证在移动端正常显示。\n\n";
+
+    private static final String SUMMARY = "\n\n以上代码可以直接在浏览器中打开，如需调整配色或布局请告诉我。\n";
+
+    private ModelOutputCorpus() {
+    }
+
+    /**
+     * 语料大小（字符数）
+     */
+    public static int size(String size) {
+        return switch (size) {
+            case "small" -> 2 * 1024;
+            case "50kb" -> 50 * 1024;
+            case "500kb" -> 500 * 1024;
+            default -> throw new IllegalArgumentException("未知语料大小：" + size);
+        };
+    }
+
+    /**
+     * 单个 html 代码块的完整输出
+     */
+    public static String html(int chars, boolean truncated) {
+        String output = PREAMBLE + "```html\n" + repeat(HTML_SAMPLE, chars) + "\n```" + SUMMARY;
+        return truncated ? truncate(output) : output;
+    }
+
+    /**
+     * html、css、js 三个代码块的完整输出，html 占一半，css 和 js 各占四分之一
+     */
+    public static String multiFile(int chars, boolean truncated) {
+        String output = PREAMBLE
+                + "```html\n" + repeat(HTML_SAMPLE, chars / 2) + "\n```\n\n"
+                + "```css\n" + repeat(CSS_SAMPLE, chars / 4) + "\n```\n\n"
+                + "```javascript\n" + repeat(JS_SAMPLE, chars / 4) + "\n```" + SUMMARY;
+        return truncated ? truncate(output) : output;
+    }
+
+    /**
+     * 把输出切成流式片段，每片 1~6 个字符
+     */
+    public static List<String> chunks(String output) {
+        Random random = new Random(42);
+        List<String> chunks = new ArrayList<>(output.length() / 3 + 1);
+        for (int from = 0; from < output.length(); ) {
+            int to = Math.min(output.length(), from + 1 + random.nextInt(6));
+            chunks.add(output.substring(from, to));
+            from = to;
+        }
+        return chunks;
+    }
+
+    /**
+     * Vue 项目生成的消息序列：一段说明，随后每个文件一次写文件调用（请求片段 + 执行结果）
+     *
+     * @param chars 所有文件内容的总字符数
+     */
+    public static List<StreamMessage> vueMessages(int chars) {
+        List<StreamMessage> messages = new ArrayList<>();
+        for (String chunk : chunks(PREAMBLE)) {
+            messages.add(new AiResponseMessage(chunk));
+        }
+        int files = Math.max(1, chars / 4096);
+        Random random = new Random(42);
+        for (int i = 0; i < files; i++) {
+            String id = "call_" + i;
+            String arguments = JSONUtil.toJsonStr(Map.of(
+                    "relativeFilePath", "src/components/Table" + i + ".vue",
+                    "content", repeat(VUE_SAMPLE, chars / files)));
+            // 参数按 4~16 个字符的片段流式到达，每个片段都是一条工具请求消息
+            for (int from = 0; from < arguments.length(); ) {
+                int to = Math.min(arguments.length(), from + 4 + random.nextInt(13));
+                messages.add(new ToolRequestMessage(id, "writeFile", arguments.substring(from, to)));
+                from = to;
+            }
+            messages.add(new ToolExecutedMessage(id, "writeFile", arguments, "文件写入成功"));
+        }
+        for (String chunk : chunks(SUMMARY)) {
+            messages.add(new AiResponseMessage(chunk));
+        }
+        return messages;
+    }
+
+    /**
+     * HTML / 多文件生成的消息序列
+     */
+    public static List<StreamMessage> textMessages(String output) {
+        List<StreamMessage> messages = new ArrayList<>();
+        for (String chunk : chunks(output)) {
+            messages.add(new AiResponseMessage(chunk));
+        }
+        return messages;
+    }
+
+    private static String truncate(String output) {
+        return output.substring(0, output.lastIndexOf("```"));
+    }
+
+    static String repeat(String sample, int targetChars) {
+        StringBuilder text = new StringBuilder(targetChars + sample.length());
+        while (text.length() < targetChars) {
+            text.append(sample);
+        }
+        return text.substring(0, targetChars);
+    }
+}
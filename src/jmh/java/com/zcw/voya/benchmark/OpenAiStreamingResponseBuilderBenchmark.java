@@ -0,0 +1,66 @@
+package com.zcw.voya.benchmark;
+
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.openai.OpenAiStreamingResponseBuilder;
+import dev.langchain4j.model.openai.internal.chat.ChatCompletionResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 流式响应拼装基准
+ * 回放一次完整生成的分片序列，对比优化前后的拼装开销，gc.alloc.rate.norm 即每次回放的分配量：
+ * ./mvnw -Pjmh test-compile exec:exec -Djmh.args="OpenAiStreamingResponseBuilderBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OpenAiStreamingResponseBuilderBenchmark {
+
+    /**
+     * html：约 2 万字符的正文；vue：8 个文件的写文件工具调用
+     */
+    @Param({"html", "vue"})
+    public String scenario;
+
+    private List<ChatCompletionResponse> chunks;
+
+    @Setup
+    public void setUp() {
+        chunks = "html".equals(scenario)
+                ? StreamChunkRecordings.html(20_000)
+                : StreamChunkRecordings.vue(8, 3_000);
+    }
+
+    @Benchmark
+    public ChatResponse current() {
+        OpenAiStreamingResponseBuilder builder = new OpenAiStreamingResponseBuilder();
+        for (ChatCompletionResponse chunk : chunks) {
+            builder.append(chunk);
+        }
+        return builder.build();
+    }
+
+    @Benchmark
+    public ChatResponse legacy() {
+        LegacyOpenAiStreamingResponseBuilder builder = new LegacyOpenAiStreamingResponseBuilder();
+        for (ChatCompletionResponse chunk : chunks) {
+            builder.append(chunk);
+        }
+        return builder.build();
+    }
+}
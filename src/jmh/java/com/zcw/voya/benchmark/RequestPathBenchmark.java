@@ -0,0 +1,67 @@
+package com.zcw.voya.benchmark;
+
+import com.zcw.voya.ai.guardrail.PromptSafetyInputGuardrail;
+import com.zcw.voya.model.dto.app.AppQueryRequest;
+import com.zcw.voya.util.CacheKeyUtils;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.guardrail.InputGuardrailResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 请求路径上的小开销基准
+ * 精选应用列表的缓存 key（JSON 序列化 + MD5）和每次生成前的输入护轨检查。
+ * 护轨对超过 1000 字的输入直接拒绝，因此输入只取短句和接近上限的两档
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RequestPathBenchmark {
+
+    /**
+     * short：一句话需求；long：接近 1000 字上限的详细需求
+     */
+    @Param({"short", "long"})
+    public String prompt;
+
+    private final PromptSafetyInputGuardrail guardrail = new PromptSafetyInputGuardrail();
+
+    private AppQueryRequest appQueryRequest;
+    private UserMessage userMessage;
+
+    @Setup
+    public void setUp() {
+        appQueryRequest = new AppQueryRequest();
+        appQueryRequest.setCurrent(1);
+        appQueryRequest.setPageSize(20);
+        appQueryRequest.setAppName("待办");
+        appQueryRequest.setSortField("createTime");
+        appQueryRequest.setSortOrder("descend");
+        String text = "做一个待办事项管理页面，支持添加、完成和删除待办，数据保存在本地存储中，界面简洁。";
+        userMessage = UserMessage.from("short".equals(prompt) ? text : ModelOutputCorpus.repeat(text, 990));
+    }
+
+    @Benchmark
+    public String cacheKey() {
+        return CacheKeyUtils.generateKey(appQueryRequest);
+    }
+
+    @Benchmark
+    public InputGuardrailResult guardrailValidate() {
+        return guardrail.validate(userMessage);
+    }
+}
@@ -0,0 +1,137 @@
+package com.zcw.voya.benchmark;
+
+import dev.langchain4j.model.openai.internal.chat.ChatCompletionChoice;
+import dev.langchain4j.model.openai.internal.chat.ChatCompletionResponse;
+import dev.langchain4j.model.openai.internal.chat.Delta;
+import dev.langchain4j.model.openai.internal.chat.FunctionCall;
+import dev.langchain4j.model.openai.internal.chat.ToolCall;
+import dev.langchain4j.model.openai.internal.shared.Usage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 流式响应分片序列
+ * 按线上录制的流的形态生成：正文每片 1~6 个字符，工具参数每片 4~16 个字符，
+ * 末尾带 finish_reason 和 usage 分片。使用固定种子，每次运行的序列相同
+ */
+public final class StreamChunkRecordings {
+
+    private static final String HTML_SAMPLE = """
+            <!DOCTYPE html>
+            <html lang="zh-CN">
+            <head>
+              <meta charset="UTF-8">
+              <title>个人作品集</title>
+              <style>
+                body { margin: 0; font-family: -apple-system, "PingFang SC", sans-serif; background: #f7f7f9; }
+                .card { border-radius: 12px; box-shadow: 0 2px 12px rgba(0, 0, 0, .08); padding: 24px; }
+              </style>
+            </head>
+            <body>
+              <main class="container"><section class="card"><h1>你好，我是一名前端工程师</h1></section></main>
+              <script>document.querySelectorAll('.card').forEach(c => c.addEventListener('click', () => c.classList.toggle('active')));</script>
+            </body>
+            </html>
+            """;
+
+    private static final String VUE_SAMPLE = """
+            <template>
+              <div class="todo-list">
+                <input v-model="draft" @keyup.enter="add" placeholder="添加待办" />
+                <ul><li v-for="item in items" :key="item.id" :class="{ done: item.done }" @click="toggle(item)">{{ item.title }}</li></ul>
+              </div>
+            </template>
+            <script setup>
+            import { ref } from 'vue'
+            const draft = ref('')
+            const items = ref([])
+            const add = () => { if (draft.value.trim()) { items.value.push({ id: Date.now(), title: draft.value, done: false }); draft.value = '' } }
+            const toggle = (item) => { item.done = !item.done }
+            </script>
+            """;
+
+    private StreamChunkRecordings() {
+    }
+
+    /**
+     * 原生 HTML 生成：只有正文
+     */
+    public static List<ChatCompletionResponse> html(int targetChars) {
+        Random random = new Random(42);
+        List<ChatCompletionResponse> chunks = new ArrayList<>();
+        appendContent(chunks, repeat(HTML_SAMPLE, targetChars), random);
+        appendFinish(chunks, "stop");
+        return chunks;
+    }
+
+    /**
+     * Vue 项目生成：少量正文，随后多次写文件工具调用，参数为 JSON 转义后的文件内容
+     */
+    public static List<ChatCompletionResponse> vue(int files, int charsPerFile) {
+        Random random = new Random(42);
+        List<ChatCompletionResponse> chunks = new ArrayList<>();
+        appendContent(chunks, "好的，我来创建这个项目的文件结构。", random);
+        for (int i = 0; i < files; i++) {
+            String arguments = "{\"relativeFilePath\":\"src/components/Item" + i + ".vue\",\"content\":\""
+                    + escape(repeat(VUE_SAMPLE, charsPerFile)) + "\"}";
+            chunks.add(toolChunk(i, "call_" + i, "writeFile", null));
+            for (int from = 0; from < arguments.length(); ) {
+                int to = Math.min(arguments.length(), from + 4 + random.nextInt(13));
+                chunks.add(toolChunk(i, null, null, arguments.substring(from, to)));
+                from = to;
+            }
+        }
+        appendFinish(chunks, "tool_calls");
+        return chunks;
+    }
+
+    private static void appendContent(List<ChatCompletionResponse> chunks, String text, Random random) {
+        for (int from = 0; from < text.length(); ) {
+            int to = Math.min(text.length(), from + 1 + random.nextInt(6));
+            chunks.add(chunk(Delta.builder().content(text.substring(from, to)).build(), null));
+            from = to;
+        }
+    }
+
+    private static void appendFinish(List<ChatCompletionResponse> chunks, String finishReason) {
+        chunks.add(chunk(Delta.builder().build(), finishReason));
+        chunks.add(ChatCompletionResponse.builder()
+                .id("chatcmpl-bench")
+                .model("bench-model")
+                .choices(List.of())
+                .usage(Usage.builder().promptTokens(1200).completionTokens(chunks.size()).totalTokens(1200 + chunks.size()).build())
+                .build());
+    }
+
+    private static ChatCompletionResponse toolChunk(int index, String id, String name, String arguments) {
+        ToolCall toolCall = ToolCall.builder()
+                .index(index)
+                .id(id)
+                .function(FunctionCall.builder().name(name).arguments(arguments).build())
+                .build();
+        return chunk(Delta.builder().toolCalls(List.of(toolCall)).build(), null);
+    }
+
+    private static ChatCompletionResponse chunk(Delta delta, String finishReason) {
+        return ChatCompletionResponse.builder()
+                .id("chatcmpl-bench")
+                .created(1_700_000_000L)
+                .model("bench-model")
+                .choices(List.of(ChatCompletionChoice.builder().index(0).delta(delta).finishReason(finishReason).build()))
+                .build();
+    }
+
+    private static String repeat(String sample, int targetChars) {
+        StringBuilder text = new StringBuilder(targetChars + sample.length());
+        while (text.length() < targetChars) {
+            text.append(sample);
+        }
+        return text.substring(0, targetChars);
+    }
+
+    private static String escape(String text) {
+        return text.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,85 @@
+package com.zcw.voya.benchmark;
+
+import com.zcw.voya.ai.model.message.StreamMessage;
+import com.zcw.voya.ai.tools.BaseTool;
+import com.zcw.voya.ai.tools.ExitTool;
+import com.zcw.voya.ai.tools.FileWriteTool;
+import com.zcw.voya.ai.tools.ToolManager;
+import com.zcw.voya.config.AiServiceConfig;
+import com.zcw.voya.core.handler.JsonMessageStreamHandler;
+import com.zcw.voya.core.handler.SimpleTextStreamHandler;
+import com.zcw.voya.model.entity.User;
+import com.zcw.voya.service.ChatHistoryService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 流处理器基准
+ * 回放一次完整生成的消息序列，经过 JsonMessageStreamHandler（Vue 项目，含工具调用）
+ * 和 SimpleTextStreamHandler（HTML / 多文件），包括拼接对话记录和生成前端输出的全部开销。
+ * 对话记录的保存替换为空实现，不访问数据库
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StreamHandlerBenchmark {
+
+    @Param({"small", "50kb", "500kb"})
+    public String size;
+
+    private final User loginUser = User.builder().id(1L).build();
+
+    private JsonMessageStreamHandler jsonMessageStreamHandler;
+    private ChatHistoryService chatHistoryService;
+    private List<StreamMessage> vueMessages;
+    private List<StreamMessage> textMessages;
+
+    @Setup
+    public void setUp() {
+        int chars = ModelOutputCorpus.size(size);
+        vueMessages = ModelOutputCorpus.vueMessages(chars);
+        textMessages = ModelOutputCorpus.textMessages(ModelOutputCorpus.multiFile(chars, false));
+
+        ToolManager toolManager = new ToolManager();
+        ReflectionTestUtils.setField(toolManager, "tools", new BaseTool[]{new FileWriteTool(), new ExitTool()});
+        ReflectionTestUtils.setField(toolManager, "aiServiceConfig", new AiServiceConfig());
+        toolManager.init();
+        jsonMessageStreamHandler = new JsonMessageStreamHandler();
+        ReflectionTestUtils.setField(jsonMessageStreamHandler, "toolManager", toolManager);
+        chatHistoryService = (ChatHistoryService) Proxy.newProxyInstance(ChatHistoryService.class.getClassLoader(),
+                new Class<?>[]{ChatHistoryService.class},
+                (proxy, method, args) -> method.getReturnType() == boolean.class ? Boolean.TRUE : null);
+    }
+
+    @Benchmark
+    public Long jsonMessageStreamHandler() {
+        return jsonMessageStreamHandler.handle(Flux.fromIterable(vueMessages), chatHistoryService, 1L, loginUser)
+                .count()
+                .block();
+    }
+
+    @Benchmark
+    public Long simpleTextStreamHandler() {
+        return new SimpleTextStreamHandler().handler(Flux.fromIterable(textMessages), chatHistoryService, 1L, loginUser)
+                .count()
+                .block();
+    }
+}
@@ -0,0 +1,86 @@
+package com.zcw.voya.benchmark;
+
+import com.zcw.voya.ai.model.message.StreamMessage;
+import com.zcw.voya.ai.tools.BaseTool;
+import com.zcw.voya.ai.tools.ExitTool;
+import com.zcw.voya.ai.tools.FileWriteTool;
+import com.zcw.voya.ai.tools.ToolManager;
+import com.zcw.voya.config.AiServiceConfig;
+import com.zcw.voya.core.handler.JsonMessageStreamHandler;
+import com.zcw.voya.core.handler.StreamHandlerExecutor;
+import com.zcw.voya.model.entity.User;
+import com.zcw.voya.service.ChatHistoryService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 流式消息链路基准
+ * 回放一次 Vue 项目生成的消息序列（文本片段 + 写文件工具调用），从处理器一直到编码为 SSE 数据：
+ * legacy 为字符串 -> JSON -> 解析的旧链路，typed 为真实的 JsonMessageStreamHandler 加 SSE 出口编码。
+ * gc.alloc.rate.norm 即每次回放的分配量：
+ * ./mvnw -Pjmh test-compile exec:exec -Djmh.args="StreamMessagePipelineBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StreamMessagePipelineBenchmark {
+
+    @Param({"small", "50kb", "500kb"})
+    public String size;
+
+    private final User loginUser = User.builder().id(1L).build();
+
+    private JsonMessageStreamHandler jsonMessageStreamHandler;
+    private LegacyStreamMessagePipeline legacyStreamMessagePipeline;
+    private ChatHistoryService chatHistoryService;
+    private List<StreamMessage> messages;
+
+    @Setup
+    public void setUp() {
+        messages = ModelOutputCorpus.vueMessages(ModelOutputCorpus.size(size));
+
+        ToolManager toolManager = new ToolManager();
+        ReflectionTestUtils.setField(toolManager, "tools", new BaseTool[]{new FileWriteTool(), new ExitTool()});
+        ReflectionTestUtils.setField(toolManager, "aiServiceConfig", new AiServiceConfig());
+        toolManager.init();
+        jsonMessageStreamHandler = new JsonMessageStreamHandler();
+        ReflectionTestUtils.setField(jsonMessageStreamHandler, "toolManager", toolManager);
+        legacyStreamMessagePipeline = new LegacyStreamMessagePipeline(toolManager);
+        chatHistoryService = (ChatHistoryService) Proxy.newProxyInstance(ChatHistoryService.class.getClassLoader(),
+                new Class<?>[]{ChatHistoryService.class},
+                (proxy, method, args) -> method.getReturnType() == boolean.class ? Boolean.TRUE : null);
+    }
+
+    @Benchmark
+    public List<String> typed() {
+        return jsonMessageStreamHandler.handle(Flux.fromIterable(messages), chatHistoryService, 1L, loginUser)
+                .map(StreamHandlerExecutor::toSseData)
+                .collectList()
+                .block();
+    }
+
+    @Benchmark
+    public List<String> legacy() {
+        return legacyStreamMessagePipeline.handle(Flux.fromIterable(messages), chatHistoryService, 1L, loginUser)
+                .collectList()
+                .block();
+    }
+}
@@ -3,23 +3,34 @@ package com.zcw.voya.ai;
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
 import com.zcw.voya.ai.guardrail.PromptSafetyInputGuardrail;
+import com.zcw.voya.ai.memory.ChatMemoryHydrator;
+import com.zcw.voya.ai.memory.ChatMemorySummarizer;
+import com.zcw.voya.ai.memory.TokenBudgetChatMemory;
 import com.zcw.voya.ai.model.enums.CodeGenTypeEnum;
-import com.zcw.voya.ai.tools.*;
+import com.zcw.voya.ai.tools.ToolManager;
+import com.zcw.voya.config.AiServiceConfig;
+import com.zcw.voya.config.ChatMemoryConfig;
 import com.zcw.voya.exception.BusinessException;
 import com.zcw.voya.exception.ErrorCode;
 import com.zcw.voya.service.ChatHistoryService;
 import com.zcw.voya.util.SpringContextUtil;
-import dev.langchain4j.community.store.memory.chat.redis.RedisChatMemoryStore;
 import dev.langchain4j.data.message.ToolExecutionResultMessage;
-import dev.langchain4j.memory.chat.MessageWindowChatMemory;
+import dev.langchain4j.memory.ChatMemory;
+import dev.langchain4j.memory.chat.ChatMemoryProvider;
 import dev.langchain4j.model.chat.ChatModel;
 import dev.langchain4j.model.chat.StreamingChatModel;
 import dev.langchain4j.service.AiServices;
+import dev.langchain4j.store.memory.chat.ChatMemoryStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Configuration;
 
 import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Configuration
 @Slf4j
@@ -32,10 +43,48 @@ public class AiCodeGeneratorServiceFactory {
     private ChatHistoryService chatHistoryService;
 
     @Resource
-    private RedisChatMemoryStore redisChatMemoryStore;
+    private ChatMemoryStore redisChatMemoryStore;
+
+    @Resource
+    private ChatMemoryHydrator chatMemoryHydrator;
+
+    @Resource
+    private AiServiceConfig aiServiceConfig;
+
+    @Resource
+    private ToolManager toolManager;
+
+    @Resource
+    private ChatMemoryConfig chatMemoryConfig;
+
+    @Resource
+    private ChatMemorySummarizer chatMemorySummarizer;
+
+    @Resource
+    private MeterRegistry meterRegistry;
 
     /**
-     * AI 服务实例缓存
+     * 因超出预算被移出记忆的消息数
+     */
+    private Counter evictedCounter;
+
+    /**
+     * 输入护轨，无状态，所有实例共用
+     */
+    private final PromptSafetyInputGuardrail promptSafetyInputGuardrail = new PromptSafetyInputGuardrail();
+
+    /**
+     * 共用的 AI 服务实例，每种生成类型一个
+     */
+    private final Map<CodeGenTypeEnum, AiCodeGeneratorService> sharedServices = new ConcurrentHashMap<>();
+
+    /**
+     * 共用实例模式下的对话记忆缓存，记忆内容在 Redis 中，这里只缓存记忆对象，避免重复加载历史
+     */
+    private Cache<String, ChatMemory> chatMemoryCache;
+
+    /**
+     * AI 服务实例缓存（每个应用单独实例的模式）
      * 缓存策略：
      * - 最大缓存 1000 个实例
      * - 写入后 30 分钟过期
@@ -50,6 +99,17 @@ public class AiCodeGeneratorServiceFactory {
             })
             .build();
 
+    @PostConstruct
+    public void init() {
+        evictedCounter = Counter.builder("voya.chat_memory.evicted")
+                .description("因超出 token 预算被移出记忆的消息数")
+                .register(meterRegistry);
+        chatMemoryCache = Caffeine.newBuilder()
+                .maximumSize(aiServiceConfig.getMemoryCacheSize())
+                .expireAfterAccess(Duration.ofMinutes(aiServiceConfig.getMemoryExpireMinutes()))
+                .build();
+    }
+
     /**
      * 根据 appId 获取服务（带缓存）
      */
@@ -59,12 +119,26 @@ public class AiCodeGeneratorServiceFactory {
 
     /**
      * 根据 appId及生成类型 获取服务（带缓存）
+     * 共用实例模式下同一生成类型返回同一个实例，调用时通过 @MemoryId 区分应用
      */
     public AiCodeGeneratorService getAiCodeGeneratorService(long appId, CodeGenTypeEnum genTypeEnum) {
+        if (aiServiceConfig.isSharedProxy()) {
+            return sharedServices.computeIfAbsent(genTypeEnum, this::createSharedAiCodeGeneratorService);
+        }
         String cacheKey = genTypeEnum + "_" + appId;
         return serviceCache.get(cacheKey, key -> createAiCodeGeneratorService(appId, genTypeEnum));
     }
 
+    /**
+     * 创建某个生成类型共用的 AI 服务实例
+     *
+     * @param genTypeEnum 生成类型
+     */
+    private AiCodeGeneratorService createSharedAiCodeGeneratorService(CodeGenTypeEnum genTypeEnum) {
+        log.info("创建共用的 AI 服务实例，类型: {}", genTypeEnum.getValue());
+        return buildAiCodeGeneratorService(genTypeEnum, memoryId -> getChatMemory(memoryId, genTypeEnum));
+    }
+
     /**
      * 创建新的 AI 服务实例
      *
@@ -74,14 +148,17 @@ public class AiCodeGeneratorServiceFactory {
     private AiCodeGeneratorService createAiCodeGeneratorService(long appId, CodeGenTypeEnum genTypeEnum) {
         log.info("为 appId: {} 创建新的 AI 服务实例", appId);
         // 根据 appId 构建独立的对话记忆
-        MessageWindowChatMemory chatMemory = MessageWindowChatMemory
-                .builder()
-                .id(appId)
-                .chatMemoryStore(redisChatMemoryStore)
-                .maxMessages(50)
-                .build();
-        // 加载对话历史到对话记忆中
-        chatHistoryService.loadHistoryToMemory(appId, chatMemory, 20);
+        ChatMemory chatMemory = createChatMemory(appId, genTypeEnum);
+        return buildAiCodeGeneratorService(genTypeEnum, memoryId -> chatMemory);
+    }
+
+    /**
+     * 构建 AI 服务实例
+     *
+     * @param genTypeEnum        生成类型
+     * @param chatMemoryProvider 对话记忆提供者
+     */
+    private AiCodeGeneratorService buildAiCodeGeneratorService(CodeGenTypeEnum genTypeEnum, ChatMemoryProvider chatMemoryProvider) {
         return switch (genTypeEnum) {
             // 普通项目用默认模型
             case HTML, MULTI_FILE -> {
@@ -89,9 +166,9 @@ public class AiCodeGeneratorServiceFactory {
                 StreamingChatModel chatModel = SpringContextUtil.getBean("streamingChatModelPrototype", StreamingChatModel.class);
                 yield AiServices.builder(AiCodeGeneratorService.class)
                         .streamingChatModel(chatModel)
-                        .chatMemory(chatMemory)
+                        .chatMemoryProvider(chatMemoryProvider)
                         // 输入护轨
-                        .inputGuardrails(new PromptSafetyInputGuardrail())
+                        .inputGuardrails(promptSafetyInputGuardrail)
                         .build();
             }
             // Vue 项目用推理模型
@@ -100,15 +177,9 @@ public class AiCodeGeneratorServiceFactory {
                 yield AiServices.builder(AiCodeGeneratorService.class)
                         .chatModel(openAiChatModel)
                         .streamingChatModel(chatModel)
-                        .chatMemoryProvider(memoryId -> chatMemory)
-                        // 添加工具
-                        .tools(
-                                new FileWriteTool(),
-                                new FileReadTool(),
-                                new FileModifyTool(),
-                                new FileDeleteTool(),
-                                new FileDirReadTool()
-                        )
+                        .chatMemoryProvider(chatMemoryProvider)
+                        // 添加工具（工具均为无状态单例，通过 @ToolMemoryId 区分应用）
+                        .tools((Object[]) toolManager.getAllTools())
                         // 最大连续工具调用次数
                         .maxSequentialToolsInvocations(35)
                         // 幻觉工具名称处理（调用了不存在的工具）
@@ -116,11 +187,40 @@ public class AiCodeGeneratorServiceFactory {
                                 toolExecutionRequest, "Error:no tool called " + toolExecutionRequest.name()
                         ))
                         // 输入护轨
-                        .inputGuardrails(new PromptSafetyInputGuardrail())
+                        .inputGuardrails(promptSafetyInputGuardrail)
                         .build();
             }
             default -> throw new BusinessException(ErrorCode.PARAMS_ERROR, "不支持的生成类型");
         };
     }
 
+    /**
+     * 共用实例模式下按 appId 获取对话记忆（带缓存）
+     */
+    private ChatMemory getChatMemory(Object memoryId, CodeGenTypeEnum genTypeEnum) {
+        long appId = Long.parseLong(memoryId.toString());
+        return chatMemoryCache.get(genTypeEnum + "_" + appId, key -> createChatMemory(appId, genTypeEnum));
+    }
+
+    /**
+     * 创建应用的对话记忆并加载历史
+     * 记忆按生成类型的 token 预算裁剪，超出的较早对话在后台压缩成摘要
+     *
+     * @param appId       appId
+     * @param genTypeEnum 生成类型
+     */
+    private ChatMemory createChatMemory(long appId, CodeGenTypeEnum genTypeEnum) {
+        ChatMemory chatMemory = new TokenBudgetChatMemory(
+                appId,
+                redisChatMemoryStore,
+                chatMemoryConfig.getTokenBudget(genTypeEnum.getValue()),
+                chatMemoryConfig.getMaxMessages(),
+                chatMemorySummarizer,
+                evictedCounter,
+                chatMemoryConfig.getSummaryBatchTokens());
+        // 加载对话记忆：Redis 中有有效记忆时直接复用，否则从 MySQL 加载对话历史
+        chatMemoryHydrator.hydrate(appId, () -> chatHistoryService.loadHistoryToMemory(appId, chatMemory, 20, genTypeEnum));
+        return chatMemory;
+    }
+
 }
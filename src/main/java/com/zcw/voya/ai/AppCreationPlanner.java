@@ -0,0 +1,127 @@
+package com.zcw.voya.ai;
+
+import cn.hutool.core.util.StrUtil;
+import com.zcw.voya.ai.model.enums.CodeGenTypeEnum;
+import com.zcw.voya.ai.routing.CodeGenTypeRouter;
+import com.zcw.voya.config.AppCreationConfig;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * 创建应用前的准备工作
+ * 路由选择生成类型和生成应用名称互不依赖，在虚拟线程上并行调用，总耗时取两者较慢的一个；
+ * 每个调用单独超时，超时或失败时使用默认值，不影响创建应用
+ */
+@Slf4j
+@Component
+public class AppCreationPlanner {
+
+    /**
+     * 应用名称降级时取提示词的前缀长度
+     */
+    static final int NAME_FALLBACK_LENGTH = 12;
+
+    @Resource
+    private CodeGenTypeRouter codeGenTypeRouter;
+
+    @Resource
+    private AppNameGeneratorServiceFactory appNameGeneratorServiceFactory;
+
+    @Resource
+    private AppCreationConfig appCreationConfig;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * 创建应用所需的生成类型和名称
+     *
+     * @param codeGenType 生成类型
+     * @param appName     应用名称
+     */
+    public record AppCreationPlan(CodeGenTypeEnum codeGenType, String appName) {
+    }
+
+    /**
+     * 并行确定生成类型和应用名称
+     *
+     * @param initPrompt 初始提示词
+     * @return 生成类型和应用名称，均不为空
+     */
+    public AppCreationPlan plan(String initPrompt) {
+        return plan(initPrompt,
+                codeGenTypeRouter::route,
+                prompt -> appNameGeneratorServiceFactory.createAppNameGeneratorService().generateAppName(prompt),
+                Duration.ofMillis(appCreationConfig.getRouteTimeoutMs()),
+                Duration.ofMillis(appCreationConfig.getNameTimeoutMs()),
+                executor);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 并行执行路由和命名，调用可替换，便于用桩模型测试和做基准
+     *
+     * @param initPrompt   初始提示词
+     * @param router       路由调用
+     * @param namer        命名调用
+     * @param routeTimeout 路由超时
+     * @param nameTimeout  命名超时
+     * @param executor     执行器
+     * @return 生成类型和应用名称
+     */
+    public static AppCreationPlan plan(String initPrompt,
+                                       Function<String, CodeGenTypeEnum> router,
+                                       Function<String, String> namer,
+                                       Duration routeTimeout,
+                                       Duration nameTimeout,
+                                       ExecutorService executor) {
+        long start = System.nanoTime();
+        Future<CodeGenTypeEnum> routeFuture = executor.submit(() -> router.apply(initPrompt));
+        Future<String> nameFuture = executor.submit(() -> namer.apply(initPrompt));
+        // 两个调用同时开始，各自的截止时间都从开始时刻算起
+        CodeGenTypeEnum codeGenType = await(routeFuture, start + routeTimeout.toNanos(), "路由选择生成类型");
+        String appName = await(nameFuture, start + nameTimeout.toNanos(), "生成应用名称");
+        if (codeGenType == null) {
+            codeGenType = CodeGenTypeEnum.HTML;
+        }
+        if (StrUtil.isBlank(appName)) {
+            // 生成应用名称为空则使用提示词前12位
+            appName = initPrompt.substring(0, Math.min(initPrompt.length(), NAME_FALLBACK_LENGTH));
+        }
+        log.info("创建应用准备完成，类型：{}，名称：{}，耗时：{}ms", codeGenType.getValue(), appName,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return new AppCreationPlan(codeGenType, appName);
+    }
+
+    /**
+     * 等待结果直到截止时间，超时或失败时取消任务并返回 null
+     */
+    private static <T> T await(Future<T> future, long deadlineNanos, String taskName) {
+        try {
+            return future.get(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            log.warn("{}超时，使用默认值", taskName);
+        } catch (ExecutionException e) {
+            log.warn("{}失败，使用默认值：{}", taskName, e.getCause() == null ? e.getMessage() : e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,397 @@
+package com.zcw.voya.ai.failover;
+
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.model.ModelProvider;
+import dev.langchain4j.model.chat.Capability;
+import dev.langchain4j.model.chat.StreamingChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.request.ChatRequestParameters;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.StreamingCancellation;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 支持对冲请求与故障转移的流式模型
+ * 按健康度排序各端点，先向最优端点发请求；首个 token 超时未到达时向下一个端点发送对冲请求，
+ * 采用先产出内容的一路，取消其余请求。首个 token 之前失败的请求立即转移到下一个端点，
+ * 已经开始输出后失败则直接报错（部分内容已经下发，不能重放）。
+ * <p>
+ * 每一路请求使用独立的取消信号，整个流被取消时全部取消；监听器由各端点的模型自行触发，
+ * 请求原样交给各端点的模型，由它们合并各自的默认参数（如模型名称）
+ */
+@Slf4j
+public class HedgingStreamingChatModel implements StreamingChatModel {
+
+    /**
+     * 端点
+     *
+     * @param model  端点的模型
+     * @param health 端点健康度
+     */
+    public record Endpoint(StreamingChatModel model, LlmEndpointHealth health) {
+    }
+
+    private final List<Endpoint> endpoints;
+    private final LlmEndpointRegistry registry;
+    private final long firstTokenTimeoutMs;
+    private final int maxParallelAttempts;
+
+    public HedgingStreamingChatModel(List<Endpoint> endpoints, LlmEndpointRegistry registry,
+                                     long firstTokenTimeoutMs, int maxParallelAttempts) {
+        if (endpoints == null || endpoints.isEmpty()) {
+            throw new IllegalArgumentException("endpoints must not be empty");
+        }
+        this.endpoints = List.copyOf(endpoints);
+        this.registry = registry;
+        this.firstTokenTimeoutMs = Math.max(1, firstTokenTimeoutMs);
+        this.maxParallelAttempts = Math.max(1, maxParallelAttempts);
+    }
+
+    @Override
+    public void chat(ChatRequest chatRequest, StreamingChatResponseHandler handler) {
+        new Race(chatRequest, handler, orderedEndpoints()).start();
+    }
+
+    @Override
+    public ChatRequestParameters defaultRequestParameters() {
+        return primary().defaultRequestParameters();
+    }
+
+    @Override
+    public ModelProvider provider() {
+        return primary().provider();
+    }
+
+    @Override
+    public Set<Capability> supportedCapabilities() {
+        return primary().supportedCapabilities();
+    }
+
+    private StreamingChatModel primary() {
+        return endpoints.getFirst().model();
+    }
+
+    /**
+     * 可用的端点在前，再按分数排序；分数相同时保持配置顺序
+     */
+    private Deque<Endpoint> orderedEndpoints() {
+        List<Endpoint> ordered = new ArrayList<>(endpoints);
+        double defaultLatency = firstTokenTimeoutMs / 2.0;
+        ordered.sort(Comparator
+                .comparing((Endpoint endpoint) -> !endpoint.health().isAvailable())
+                .thenComparingDouble(endpoint -> endpoint.health().score(defaultLatency)));
+        return new ArrayDeque<>(ordered);
+    }
+
+    /**
+     * 一路请求
+     */
+    private static final class Attempt {
+
+        final Endpoint endpoint;
+        final StreamingCancellation cancellation;
+        final long startNanos = System.nanoTime();
+        volatile boolean finished;
+
+        Attempt(Endpoint endpoint, StreamingCancellation cancellation) {
+            this.endpoint = endpoint;
+            this.cancellation = cancellation;
+        }
+
+        double elapsedMillis() {
+            return (System.nanoTime() - startNanos) / 1_000_000.0;
+        }
+    }
+
+    /**
+     * 一次模型调用的多路请求竞速
+     */
+    private final class Race {
+
+        private final ChatRequest chatRequest;
+        private final StreamingChatResponseHandler handler;
+        private final StreamingCancellation outer;
+        private final Deque<Endpoint> remaining;
+        private final List<Attempt> attempts = new CopyOnWriteArrayList<>();
+        private final AtomicReference<Attempt> winner = new AtomicReference<>();
+        private ScheduledFuture<?> hedgeTimer;
+        /**
+         * 注销在整个流上登记的取消回调；同一个流的每次模型调用都会登记，结束后必须注销
+         */
+        private volatile Runnable cancelRegistration;
+
+        Race(ChatRequest chatRequest, StreamingChatResponseHandler handler, Deque<Endpoint> remaining) {
+            this.chatRequest = chatRequest;
+            this.handler = handler;
+            this.outer = handler.cancellation();
+            this.remaining = remaining;
+        }
+
+        void start() {
+            if (outer != null) {
+                cancelRegistration = outer.onCancel(this::cancelAll);
+            }
+            Attempt attempt;
+            synchronized (this) {
+                attempt = nextAttempt(true);
+            }
+            launch(attempt);
+        }
+
+        /**
+         * 取出下一个熔断器放行的端点，都不放行且必须发起请求时使用排在最前的端点
+         */
+        private Attempt nextAttempt(boolean mustStart) {
+            Endpoint fallback = null;
+            while (!remaining.isEmpty()) {
+                Endpoint endpoint = remaining.poll();
+                if (endpoint.health().tryAcquire()) {
+                    return newAttempt(endpoint);
+                }
+                registry.record("short_circuit", endpoint.health());
+                if (fallback == null) {
+                    fallback = endpoint;
+                }
+            }
+            return mustStart && fallback != null ? newAttempt(fallback) : null;
+        }
+
+        private Attempt newAttempt(Endpoint endpoint) {
+            Attempt attempt = new Attempt(endpoint, new StreamingCancellation(outer == null ? null : outer.memoryId()));
+            attempts.add(attempt);
+            return attempt;
+        }
+
+        /**
+         * 发起请求，并在还有备用端点时安排对冲
+         */
+        private void launch(Attempt attempt) {
+            if (attempt == null) {
+                return;
+            }
+            scheduleHedge();
+            try {
+                attempt.endpoint.model().chat(chatRequest, new AttemptHandler(attempt));
+            } catch (Exception e) {
+                new AttemptHandler(attempt).onError(e);
+            }
+        }
+
+        private synchronized void scheduleHedge() {
+            if (remaining.isEmpty() || winner.get() != null || runningAttempts() >= maxParallelAttempts) {
+                return;
+            }
+            if (hedgeTimer != null) {
+                hedgeTimer.cancel(false);
+            }
+            try {
+                hedgeTimer = registry.scheduler().schedule(this::hedge, firstTokenTimeoutMs, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // 应用关闭中，不再对冲
+                hedgeTimer = null;
+            }
+        }
+
+        private void hedge() {
+            Attempt attempt;
+            synchronized (this) {
+                hedgeTimer = null;
+                if (winner.get() != null || isOuterCancelled() || runningAttempts() >= maxParallelAttempts) {
+                    return;
+                }
+                attempt = nextAttempt(false);
+            }
+            if (attempt != null) {
+                registry.record("hedge", attempt.endpoint.health());
+                log.info("首个 token 超过 {}ms 未到达，向端点 {} 发送对冲请求", firstTokenTimeoutMs, attempt.endpoint.health().getName());
+                launch(attempt);
+            }
+        }
+
+        /**
+         * 尝试让该请求胜出，返回它是否为胜出的请求
+         */
+        private boolean claim(Attempt attempt) {
+            Attempt current = winner.get();
+            if (current == null && winner.compareAndSet(null, attempt)) {
+                onWin(attempt);
+                return true;
+            }
+            return winner.get() == attempt;
+        }
+
+        private void onWin(Attempt attempt) {
+            attempt.endpoint.health().onFirstToken(attempt.elapsedMillis());
+            synchronized (this) {
+                if (hedgeTimer != null) {
+                    hedgeTimer.cancel(false);
+                    hedgeTimer = null;
+                }
+            }
+            if (attempts.size() > 1) {
+                registry.record("won", attempt.endpoint.health());
+            }
+            for (Attempt other : attempts) {
+                if (other != attempt && !other.finished) {
+                    other.finished = true;
+                    other.cancellation.cancel();
+                    other.endpoint.health().onAbandoned(other.elapsedMillis(), true);
+                }
+            }
+        }
+
+        private void onAttemptError(Attempt attempt, Throwable error) {
+            if (attempt.cancellation.isCancelled() || isOuterCancelled()) {
+                // 被取消的请求（对冲落败或整个流被取消）不计失败
+                return;
+            }
+            Attempt current = winner.get();
+            if (current == attempt) {
+                attempt.finished = true;
+                attempt.endpoint.health().onFailure();
+                settle();
+                handler.onError(error);
+                return;
+            }
+            if (current != null || attempt.finished) {
+                return;
+            }
+            attempt.finished = true;
+            attempt.endpoint.health().onFailure();
+            Attempt next;
+            synchronized (this) {
+                if (winner.get() != null) {
+                    return;
+                }
+                next = nextAttempt(false);
+                if (next == null && runningAttempts() > 0) {
+                    // 还有进行中的请求，等待它的结果
+                    return;
+                }
+            }
+            if (next == null) {
+                settle();
+                handler.onError(error);
+                return;
+            }
+            registry.record("failover", next.endpoint.health());
+            log.warn("端点 {} 请求失败，转移到端点 {}，error：{}", attempt.endpoint.health().getName(),
+                    next.endpoint.health().getName(), error.getMessage());
+            launch(next);
+        }
+
+        /**
+         * 竞速结束（胜出的请求完成或最终失败）：停止对冲，注销取消回调
+         */
+        private void settle() {
+            synchronized (this) {
+                if (hedgeTimer != null) {
+                    hedgeTimer.cancel(false);
+                    hedgeTimer = null;
+                }
+            }
+            Runnable registration = cancelRegistration;
+            if (registration != null) {
+                cancelRegistration = null;
+                registration.run();
+            }
+        }
+
+        private void cancelAll() {
+            synchronized (this) {
+                if (hedgeTimer != null) {
+                    hedgeTimer.cancel(false);
+                    hedgeTimer = null;
+                }
+            }
+            for (Attempt attempt : attempts) {
+                if (!attempt.finished) {
+                    attempt.finished = true;
+                    attempt.cancellation.cancel();
+                    if (winner.get() == null) {
+                        attempt.endpoint.health().onAbandoned(attempt.elapsedMillis(), false);
+                    }
+                }
+            }
+        }
+
+        private int runningAttempts() {
+            int running = 0;
+            for (Attempt attempt : attempts) {
+                if (!attempt.finished) {
+                    running++;
+                }
+            }
+            return running;
+        }
+
+        private boolean isOuterCancelled() {
+            return outer != null && outer.isCancelled();
+        }
+
+        /**
+         * 单路请求的回调，只有胜出的请求的事件会转发给调用方
+         */
+        private final class AttemptHandler implements StreamingChatResponseHandler {
+
+            private final Attempt attempt;
+
+            AttemptHandler(Attempt attempt) {
+                this.attempt = attempt;
+            }
+
+            @Override
+            public void onPartialResponse(String partialResponse) {
+                if (claim(attempt)) {
+                    handler.onPartialResponse(partialResponse);
+                }
+            }
+
+            @Override
+            public void onPartialToolExecutionRequest(int index, ToolExecutionRequest partialToolExecutionRequest) {
+                if (claim(attempt)) {
+                    handler.onPartialToolExecutionRequest(index, partialToolExecutionRequest);
+                }
+            }
+
+            @Override
+            public void onCompleteToolExecutionRequest(int index, ToolExecutionRequest completeToolExecutionRequest) {
+                if (claim(attempt)) {
+                    handler.onCompleteToolExecutionRequest(index, completeToolExecutionRequest);
+                }
+            }
+
+            @Override
+            public void onCompleteResponse(ChatResponse completeResponse) {
+                if (claim(attempt)) {
+                    attempt.finished = true;
+                    settle();
+                    handler.onCompleteResponse(completeResponse);
+                }
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                onAttemptError(attempt, error);
+            }
+
+            @Override
+            public StreamingCancellation cancellation() {
+                return attempt.cancellation;
+            }
+        }
+    }
+}
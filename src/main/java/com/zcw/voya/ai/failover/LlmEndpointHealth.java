@@ -0,0 +1,147 @@
+package com.zcw.voya.ai.failover;
+
+/**
+ * 模型端点健康度
+ * 以首个 token 耗时和失败率的滑动平均打分，分数越低越优先；
+ * 连续失败达到阈值后熔断，熔断到期后只放行一个试探请求，试探成功恢复，失败继续熔断
+ */
+public class LlmEndpointHealth {
+
+    /**
+     * 滑动平均的权重
+     */
+    private static final double ALPHA = 0.2;
+
+    /**
+     * 失败率对分数的放大倍数
+     */
+    private static final double FAILURE_PENALTY = 4;
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openDurationNanos;
+
+    private State state = State.CLOSED;
+    private long openUntilNanos;
+    private int consecutiveFailures;
+    private boolean trialInFlight;
+
+    /**
+     * 首个 token 耗时的滑动平均（毫秒），负数表示尚无数据
+     */
+    private double firstTokenMillis = -1;
+    private double failureRate;
+
+    public LlmEndpointHealth(String name, int failureThreshold, long openDurationNanos) {
+        this.name = name;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openDurationNanos = openDurationNanos;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 熔断器是否放行一个请求，半开状态下只放行一个试探请求
+     */
+    public synchronized boolean tryAcquire() {
+        switch (state) {
+            case CLOSED -> {
+                return true;
+            }
+            case OPEN -> {
+                if (System.nanoTime() - openUntilNanos < 0) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                trialInFlight = true;
+                return true;
+            }
+            default -> {
+                if (trialInFlight) {
+                    return false;
+                }
+                trialInFlight = true;
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 是否可能放行请求（不占用试探名额），用于排序
+     */
+    public synchronized boolean isAvailable() {
+        return switch (state) {
+            case CLOSED -> true;
+            case OPEN -> System.nanoTime() - openUntilNanos >= 0;
+            case HALF_OPEN -> !trialInFlight;
+        };
+    }
+
+    /**
+     * 收到首个 token
+     *
+     * @param latencyMillis 首个 token 耗时
+     */
+    public synchronized void onFirstToken(double latencyMillis) {
+        recordLatency(latencyMillis);
+        failureRate = (1 - ALPHA) * failureRate;
+        consecutiveFailures = 0;
+        state = State.CLOSED;
+        trialInFlight = false;
+    }
+
+    /**
+     * 首个 token 之前失败
+     */
+    public synchronized void onFailure() {
+        failureRate = ALPHA + (1 - ALPHA) * failureRate;
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openUntilNanos = System.nanoTime() + openDurationNanos;
+        }
+        trialInFlight = false;
+    }
+
+    /**
+     * 请求在出结果前被放弃（对冲输给了其他端点，或客户端断开），不计失败
+     *
+     * @param elapsedMillis 放弃时已等待的时间，对冲落败时计入耗时，使慢端点排到后面
+     * @param slow          是否因为慢而落败
+     */
+    public synchronized void onAbandoned(double elapsedMillis, boolean slow) {
+        if (slow) {
+            recordLatency(elapsedMillis);
+        }
+        if (state == State.HALF_OPEN) {
+            trialInFlight = false;
+        }
+    }
+
+    /**
+     * 端点分数，越低越优先
+     *
+     * @param defaultLatencyMillis 尚无数据时使用的首个 token 耗时
+     */
+    public synchronized double score(double defaultLatencyMillis) {
+        double latency = firstTokenMillis < 0 ? defaultLatencyMillis : firstTokenMillis;
+        return latency * (1 + FAILURE_PENALTY * failureRate);
+    }
+
+    public synchronized State getState() {
+        if (state == State.OPEN && System.nanoTime() - openUntilNanos >= 0) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    private void recordLatency(double latencyMillis) {
+        firstTokenMillis = firstTokenMillis < 0 ? latencyMillis : ALPHA * latencyMillis + (1 - ALPHA) * firstTokenMillis;
+    }
+}
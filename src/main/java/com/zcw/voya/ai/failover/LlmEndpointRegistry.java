@@ -0,0 +1,99 @@
+package com.zcw.voya.ai.failover;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.util.StrUtil;
+import com.zcw.voya.config.LlmFailoverConfig;
+import dev.langchain4j.model.chat.StreamingChatModel;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * 模型端点注册表
+ * 保存各端点的健康度（多个模型实例共用，按端点名称区分），提供对冲计时线程，
+ * 并负责把主模型和备用端点组装成支持对冲与故障转移的模型
+ */
+@Slf4j
+@Component
+public class LlmEndpointRegistry {
+
+    @Resource
+    private LlmFailoverConfig llmFailoverConfig;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    private final Map<String, LlmEndpointHealth> healths = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("llm-hedge-timer").daemon().factory());
+
+    /**
+     * 组装支持对冲与故障转移的流式模型，未开启或没有备用端点时直接返回主模型
+     *
+     * @param primaryName  主端点名称，同时也是模型名称（streaming / reasoning），决定首个 token 的等待时间
+     * @param primary      主模型
+     * @param fallbacks    备用端点
+     * @param modelBuilder 按备用端点创建模型
+     * @return 模型
+     */
+    public StreamingChatModel withFailover(String primaryName, StreamingChatModel primary,
+                                           List<LlmFailoverConfig.Endpoint> fallbacks,
+                                           Function<LlmFailoverConfig.Endpoint, StreamingChatModel> modelBuilder) {
+        if (!llmFailoverConfig.isEnabled() || CollUtil.isEmpty(fallbacks)) {
+            return primary;
+        }
+        List<HedgingStreamingChatModel.Endpoint> endpoints = new ArrayList<>();
+        endpoints.add(new HedgingStreamingChatModel.Endpoint(primary, health(primaryName)));
+        for (int i = 0; i < fallbacks.size(); i++) {
+            LlmFailoverConfig.Endpoint fallback = fallbacks.get(i);
+            String name = StrUtil.blankToDefault(fallback.getName(), primaryName + "-backup-" + (i + 1));
+            endpoints.add(new HedgingStreamingChatModel.Endpoint(modelBuilder.apply(fallback), health(name)));
+        }
+        return new HedgingStreamingChatModel(endpoints, this,
+                llmFailoverConfig.firstTokenTimeoutMs(primaryName), llmFailoverConfig.getMaxParallelAttempts());
+    }
+
+    /**
+     * 获取端点的健康度，首次获取时创建并注册熔断状态指标
+     */
+    public LlmEndpointHealth health(String name) {
+        return healths.computeIfAbsent(name, key -> {
+            LlmEndpointHealth health = new LlmEndpointHealth(key, llmFailoverConfig.getFailureThreshold(),
+                    TimeUnit.SECONDS.toNanos(llmFailoverConfig.getOpenDurationSeconds()));
+            Gauge.builder("voya.llm.endpoint.state", health, h -> h.getState().ordinal())
+                    .description("端点熔断状态：0 关闭，1 熔断，2 半开")
+                    .tag("endpoint", key)
+                    .register(meterRegistry);
+            return health;
+        });
+    }
+
+    ScheduledExecutorService scheduler() {
+        return scheduler;
+    }
+
+    /**
+     * 记录对冲、故障转移等事件
+     */
+    void record(String event, LlmEndpointHealth health) {
+        meterRegistry.counter("voya.llm.failover", "event", event, "endpoint", health.getName()).increment();
+    }
+
+    @PreDestroy
+    public void destroy() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,159 @@
+package com.zcw.voya.ai.http;
+
+import dev.langchain4j.http.client.HttpClient;
+import dev.langchain4j.http.client.HttpRequest;
+import dev.langchain4j.http.client.SuccessfulHttpResponse;
+import dev.langchain4j.http.client.sse.ServerSentEvent;
+import dev.langchain4j.http.client.sse.ServerSentEventListener;
+import dev.langchain4j.http.client.sse.ServerSentEventParser;
+import dev.langchain4j.model.chat.response.StreamingCancellation;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 支持取消的 HTTP 客户端
+ * 流式请求发起时读取当前线程上的 {@link StreamingCancellation}，取消时关闭响应体，
+ * 从而中断与模型服务之间的 SSE 连接，不再继续消耗 token
+ */
+@Slf4j
+public class CancellableHttpClient implements HttpClient {
+
+    private final HttpClient delegate;
+
+    /**
+     * 共用客户端池，用于记录指标，可为空
+     */
+    private final LlmHttpClientPool pool;
+
+    public CancellableHttpClient(HttpClient delegate) {
+        this(delegate, null);
+    }
+
+    public CancellableHttpClient(HttpClient delegate, LlmHttpClientPool pool) {
+        this.delegate = delegate;
+        this.pool = pool;
+    }
+
+    @Override
+    public SuccessfulHttpResponse execute(HttpRequest request) {
+        if (pool == null) {
+            return delegate.execute(request);
+        }
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            SuccessfulHttpResponse response = delegate.execute(request);
+            success = true;
+            return response;
+        } finally {
+            pool.recordBlocking(start, success);
+        }
+    }
+
+    @Override
+    public void execute(HttpRequest request, ServerSentEventParser parser, ServerSentEventListener listener) {
+        StreamingCancellation cancellation = StreamingCancellation.current();
+        Runnable deregisterFinish = () -> {
+        };
+        if (pool != null) {
+            LlmHttpClientPool.MeteredListener meteredListener = pool.instrument(listener);
+            if (cancellation != null) {
+                // 取消后下游不再收到结束回调，这里单独结束计数
+                deregisterFinish = cancellation.onCancel(meteredListener::finish);
+            }
+            listener = meteredListener;
+        }
+        if (cancellation == null) {
+            delegate.execute(request, parser, listener);
+            return;
+        }
+        // 一次工具调用对应一轮请求，本轮结束后注销回调，避免在整个流的取消列表中堆积
+        ServerSentEventListener roundListener = new RoundListener(listener, deregisterFinish);
+        try {
+            delegate.execute(request, (body, eventListener) -> {
+                // 取消时关闭响应体，解析循环随即结束
+                Runnable deregisterClose = cancellation.onCancel(() -> closeQuietly(body));
+                try {
+                    parser.parse(body, new CancellableListener(eventListener, cancellation));
+                } finally {
+                    deregisterClose.run();
+                }
+            }, roundListener);
+        } catch (RuntimeException e) {
+            deregisterFinish.run();
+            throw e;
+        }
+    }
+
+    private static void closeQuietly(InputStream body) {
+        try {
+            body.close();
+        } catch (IOException e) {
+            log.debug("关闭响应体失败", e);
+        }
+    }
+
+    /**
+     * 本轮请求结束（正常关闭或出错）时注销取消回调
+     */
+    private record RoundListener(ServerSentEventListener delegate,
+                                 Runnable deregister) implements ServerSentEventListener {
+
+        @Override
+        public void onOpen(SuccessfulHttpResponse response) {
+            delegate.onOpen(response);
+        }
+
+        @Override
+        public void onEvent(ServerSentEvent event) {
+            delegate.onEvent(event);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            deregister.run();
+            delegate.onError(throwable);
+        }
+
+        @Override
+        public void onClose() {
+            deregister.run();
+            delegate.onClose();
+        }
+    }
+
+    /**
+     * 取消后不再向下游转发任何事件
+     */
+    private record CancellableListener(ServerSentEventListener delegate,
+                                       StreamingCancellation cancellation) implements ServerSentEventListener {
+
+        @Override
+        public void onOpen(SuccessfulHttpResponse response) {
+            delegate.onOpen(response);
+        }
+
+        @Override
+        public void onEvent(ServerSentEvent event) {
+            if (!cancellation.isCancelled()) {
+                delegate.onEvent(event);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            if (!cancellation.isCancelled()) {
+                delegate.onError(throwable);
+            }
+        }
+
+        @Override
+        public void onClose() {
+            if (!cancellation.isCancelled()) {
+                delegate.onClose();
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.zcw.voya.ai.http;
+
+import dev.langchain4j.http.client.HttpClient;
+import dev.langchain4j.http.client.HttpClientBuilder;
+import dev.langchain4j.http.client.jdk.JdkHttpClient;
+import dev.langchain4j.http.client.jdk.JdkHttpClientBuilder;
+
+import java.time.Duration;
+
+/**
+ * 构建 {@link CancellableHttpClient}，底层使用 JDK HttpClient
+ * 通过 {@link LlmHttpClientPool} 创建时共用同一个 JDK HttpClient，否则每次构建新的客户端
+ */
+public class CancellableHttpClientBuilder implements HttpClientBuilder {
+
+    private final JdkHttpClientBuilder delegate = JdkHttpClient.builder();
+
+    private final LlmHttpClientPool pool;
+
+    public CancellableHttpClientBuilder() {
+        this.pool = null;
+    }
+
+    CancellableHttpClientBuilder(LlmHttpClientPool pool) {
+        this.pool = pool;
+        delegate.httpClientBuilder(pool.sharedJdkHttpClientBuilder());
+    }
+
+    @Override
+    public Duration connectTimeout() {
+        return delegate.connectTimeout();
+    }
+
+    @Override
+    public CancellableHttpClientBuilder connectTimeout(Duration timeout) {
+        delegate.connectTimeout(timeout);
+        return this;
+    }
+
+    @Override
+    public Duration readTimeout() {
+        return delegate.readTimeout();
+    }
+
+    @Override
+    public CancellableHttpClientBuilder readTimeout(Duration timeout) {
+        delegate.readTimeout(timeout);
+        return this;
+    }
+
+    @Override
+    public HttpClient build() {
+        return new CancellableHttpClient(delegate.build(), pool);
+    }
+}
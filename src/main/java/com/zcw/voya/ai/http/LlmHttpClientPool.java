@@ -0,0 +1,149 @@
+package com.zcw.voya.ai.http;
+
+import com.zcw.voya.config.LlmHttpClientConfig;
+import dev.langchain4j.http.client.SuccessfulHttpResponse;
+import dev.langchain4j.http.client.sse.ServerSentEvent;
+import dev.langchain4j.http.client.sse.ServerSentEventListener;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 大模型 HTTP 客户端池
+ * 持有所有模型共用的 JDK HttpClient：HTTP/2 下同一连接多路复用多个流，HTTP/1.1 下复用保活连接，
+ * 新建模型实例（原型 Bean）时不再重新握手，首 token 延迟不再包含建连时间
+ */
+@Slf4j
+@Component
+public class LlmHttpClientPool {
+
+    private final HttpClient httpClient;
+
+    /**
+     * 流式请求收到响应头的耗时，连接被复用时明显更短
+     */
+    private final Timer streamOpenTimer;
+
+    /**
+     * 非流式请求的总耗时
+     */
+    private final Timer blockingTimer;
+
+    private final Counter errorCounter;
+
+    private final AtomicInteger activeStreams = new AtomicInteger();
+
+    public LlmHttpClientPool(LlmHttpClientConfig config, MeterRegistry meterRegistry) {
+        this.httpClient = HttpClient.newBuilder()
+                .version(config.isHttp2() ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(config.getConnectTimeoutSeconds()))
+                .build();
+        log.info("大模型 HTTP 客户端已创建，协议：{}，连接池大小：{}，保活：{}s",
+                httpClient.version(),
+                System.getProperty("jdk.httpclient.connectionPoolSize", "0"),
+                System.getProperty("jdk.httpclient.keepalive.timeout", "30"));
+        this.streamOpenTimer = Timer.builder("voya.llm.http.open")
+                .description("流式请求收到响应头的耗时")
+                .tag("mode", "stream")
+                .register(meterRegistry);
+        this.blockingTimer = Timer.builder("voya.llm.http.open")
+                .description("非流式请求的耗时")
+                .tag("mode", "blocking")
+                .register(meterRegistry);
+        this.errorCounter = Counter.builder("voya.llm.http.errors")
+                .description("大模型 HTTP 请求失败次数")
+                .register(meterRegistry);
+        Gauge.builder("voya.llm.http.streams.active", activeStreams, AtomicInteger::get)
+                .description("进行中的流式请求数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 创建使用共用客户端的 HTTP 客户端构建器，供模型的 httpClientBuilder 使用
+     */
+    public CancellableHttpClientBuilder newHttpClientBuilder() {
+        return new CancellableHttpClientBuilder(this);
+    }
+
+    HttpClient.Builder sharedJdkHttpClientBuilder() {
+        return new SharedJdkHttpClientBuilder(httpClient);
+    }
+
+    /**
+     * 记录非流式请求耗时
+     */
+    void recordBlocking(long startNanos, boolean success) {
+        blockingTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        if (!success) {
+            errorCounter.increment();
+        }
+    }
+
+    /**
+     * 包装流式请求的监听器，记录建连耗时和进行中的流数量
+     */
+    MeteredListener instrument(ServerSentEventListener listener) {
+        activeStreams.incrementAndGet();
+        return new MeteredListener(listener, System.nanoTime());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        httpClient.close();
+    }
+
+    final class MeteredListener implements ServerSentEventListener {
+
+        private final ServerSentEventListener delegate;
+        private final long startNanos;
+        private final AtomicBoolean finished = new AtomicBoolean();
+
+        private MeteredListener(ServerSentEventListener delegate, long startNanos) {
+            this.delegate = delegate;
+            this.startNanos = startNanos;
+        }
+
+        @Override
+        public void onOpen(SuccessfulHttpResponse response) {
+            streamOpenTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+            delegate.onOpen(response);
+        }
+
+        @Override
+        public void onEvent(ServerSentEvent event) {
+            delegate.onEvent(event);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            errorCounter.increment();
+            finish();
+            delegate.onError(throwable);
+        }
+
+        @Override
+        public void onClose() {
+            finish();
+            delegate.onClose();
+        }
+
+        /**
+         * 流结束（正常结束、出错或被取消），重复调用无影响
+         */
+        void finish() {
+            if (finished.compareAndSet(false, true)) {
+                activeStreams.decrementAndGet();
+            }
+        }
+    }
+}
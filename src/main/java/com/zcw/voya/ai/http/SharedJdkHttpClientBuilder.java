@@ -0,0 +1,113 @@
+package com.zcw.voya.ai.http;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.Authenticator;
+import java.net.CookieHandler;
+import java.net.InetAddress;
+import java.net.ProxySelector;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLParameters;
+
+/**
+ * 总是返回同一个 JDK HttpClient 的构建器
+ * JdkHttpClient 每次构建都会调用 {@link HttpClient.Builder#build()}，交给它这个构建器即可让所有模型共用连接池。
+ * 共用客户端的参数已统一配置，这里的设置方法均被忽略（读超时按请求设置，不受影响），忽略时记录日志
+ */
+@Slf4j
+class SharedJdkHttpClientBuilder implements HttpClient.Builder {
+
+    /**
+     * 模型的连接超时与共用客户端不一致时只告警一次，模型实例按请求创建，避免刷屏
+     */
+    private static final AtomicBoolean CONNECT_TIMEOUT_WARNED = new AtomicBoolean();
+
+    private final HttpClient httpClient;
+
+    SharedJdkHttpClientBuilder(HttpClient httpClient) {
+        this.httpClient = httpClient;
+    }
+
+    @Override
+    public HttpClient.Builder cookieHandler(CookieHandler cookieHandler) {
+        ignored("cookieHandler", cookieHandler);
+        return this;
+    }
+
+    @Override
+    public HttpClient.Builder connectTimeout(Duration duration) {
+        Duration shared = httpClient.connectTimeout().orElse(null);
+        if (!duration.equals(shared) && CONNECT_TIMEOUT_WARNED.compareAndSet(false, true)) {
+            log.warn("模型配置的连接超时 {} 被忽略，共用 HTTP 客户端使用 {}（voya.llm.http-client.connect-timeout-seconds）",
+                    duration, shared);
+        }
+        return this;
+    }
+
+    @Override
+    public HttpClient.Builder sslContext(SSLContext sslContext) {
+        ignored("sslContext", sslContext);
+        return this;
+    }
+
+    @Override
+    public HttpClient.Builder sslParameters(SSLParameters sslParameters) {
+        ignored("sslParameters", sslParameters);
+        return this;
+    }
+
+    @Override
+    public HttpClient.Builder executor(Executor executor) {
+        ignored("executor", executor);
+        return this;
+    }
+
+    @Override
+    public HttpClient.Builder followRedirects(HttpClient.Redirect policy) {
+        ignored("followRedirects", policy);
+        return this;
+    }
+
+    @Override
+    public HttpClient.Builder version(HttpClient.Version version) {
+        ignored("version", version);
+        return this;
+    }
+
+    @Override
+    public HttpClient.Builder priority(int priority) {
+        ignored("priority", priority);
+        return this;
+    }
+
+    @Override
+    public HttpClient.Builder proxy(ProxySelector proxySelector) {
+        ignored("proxy", proxySelector);
+        return this;
+    }
+
+    @Override
+    public HttpClient.Builder authenticator(Authenticator authenticator) {
+        ignored("authenticator", authenticator);
+        return this;
+    }
+
+    @Override
+    public HttpClient.Builder localAddress(InetAddress localAddr) {
+        ignored("localAddress", localAddr);
+        return this;
+    }
+
+    @Override
+    public HttpClient build() {
+        return httpClient;
+    }
+
+    private static void ignored(String setting, Object value) {
+        log.debug("共用 HTTP 客户端忽略模型的 {} 设置：{}", setting, value);
+    }
+}
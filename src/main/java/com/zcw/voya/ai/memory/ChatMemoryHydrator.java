@@ -0,0 +1,137 @@
+package com.zcw.voya.ai.memory;
+
+import com.zcw.voya.config.RedisChatMemoryStoreConfig;
+import dev.langchain4j.community.store.memory.chat.redis.RedisChatMemoryStore;
+import dev.langchain4j.data.message.ChatMessage;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.IntSupplier;
+
+/**
+ * 对话记忆加载器
+ * 创建 AI 服务实例时优先复用 Redis 中已有的对话记忆，只有缺失或过期时才从 MySQL 重新加载。
+ * <p>
+ * 通过版本标记判断 Redis 中的记忆是否可信：标记为 {格式版本}:{历史纪元}，
+ * 删除对话历史时纪元自增，记忆格式变化时提升格式版本，两种情况都会让旧记忆失效并回源 MySQL
+ */
+@Slf4j
+@Component
+public class ChatMemoryHydrator {
+
+    /**
+     * 记忆格式版本，记忆的存储结构变化时提升
+     * 2：历史 AI 回复中的代码块替换为引用
+     */
+    static final int FORMAT_VERSION = 2;
+
+    private static final String EPOCH_KEY_PREFIX = "voya:chat_memory:epoch:";
+
+    private static final String MARKER_KEY_PREFIX = "voya:chat_memory:version:";
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Resource
+    private RedisChatMemoryStore redisChatMemoryStore;
+
+    @Resource
+    private RedisChatMemoryStoreConfig redisChatMemoryStoreConfig;
+
+    @Resource
+    private ChatMemorySummarizer chatMemorySummarizer;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 加载对话记忆
+     *
+     * @param appId       应用ID（即记忆ID）
+     * @param mysqlLoader 从 MySQL 加载历史到记忆中，返回加载的条数
+     * @return 记忆来源
+     */
+    public HydrationSource hydrate(long appId, IntSupplier mysqlLoader) {
+        long start = System.nanoTime();
+        String reason;
+        String expectedVersion = null;
+        try {
+            List<String> values = stringRedisTemplate.opsForValue().multiGet(List.of(markerKey(appId), epochKey(appId)));
+            String marker = values == null ? null : values.get(0);
+            expectedVersion = version(values == null ? null : values.get(1));
+            if (expectedVersion.equals(marker)) {
+                List<ChatMessage> messages = redisChatMemoryStore.getMessages(appId);
+                if (!messages.isEmpty()) {
+                    // 记忆仍然有效，延长标记的有效期
+                    stringRedisTemplate.expire(markerKey(appId), ttl());
+                    log.info("appId:{}复用Redis中的{}条对话记忆", appId, messages.size());
+                    return record(HydrationSource.REDIS, "hit", start);
+                }
+                reason = "miss";
+            } else {
+                reason = marker == null ? "miss" : "stale";
+            }
+        } catch (Exception e) {
+            log.warn("读取对话记忆版本失败，回源MySQL，appId:{}，error:{}", appId, e.getMessage());
+            reason = "error";
+        }
+        mysqlLoader.getAsInt();
+        if (expectedVersion != null) {
+            try {
+                stringRedisTemplate.opsForValue().set(markerKey(appId), expectedVersion, ttl());
+            } catch (Exception e) {
+                log.warn("写入对话记忆版本失败，appId:{}，error:{}", appId, e.getMessage());
+            }
+        }
+        return record(HydrationSource.MYSQL, reason, start);
+    }
+
+    /**
+     * 使应用的对话记忆失效，下次加载时回源 MySQL
+     *
+     * @param appId 应用ID
+     */
+    public void invalidate(long appId) {
+        try {
+            stringRedisTemplate.opsForValue().increment(epochKey(appId));
+            stringRedisTemplate.delete(markerKey(appId));
+            redisChatMemoryStore.deleteMessages(appId);
+            chatMemorySummarizer.deleteSummary(appId);
+        } catch (Exception e) {
+            log.warn("使对话记忆失效失败，appId:{}，error:{}", appId, e.getMessage());
+        }
+    }
+
+    private HydrationSource record(HydrationSource source, String reason, long start) {
+        meterRegistry.counter("voya.chat_memory.hydration", "source", source.getValue(), "reason", reason).increment();
+        Timer.builder("voya.chat_memory.hydration.duration")
+                .description("对话记忆加载耗时")
+                .tag("source", source.getValue())
+                .register(meterRegistry)
+                .record(Duration.ofNanos(System.nanoTime() - start));
+        return source;
+    }
+
+    private Duration ttl() {
+        long ttl = redisChatMemoryStoreConfig.getTtl();
+        return Duration.ofSeconds(ttl > 0 ? ttl : 3600);
+    }
+
+    static String version(String epoch) {
+        return FORMAT_VERSION + ":" + (epoch == null ? "0" : epoch);
+    }
+
+    private static String epochKey(long appId) {
+        return EPOCH_KEY_PREFIX + appId;
+    }
+
+    private static String markerKey(long appId) {
+        return MARKER_KEY_PREFIX + appId;
+    }
+}
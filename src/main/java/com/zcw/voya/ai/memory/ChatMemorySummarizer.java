@@ -0,0 +1,231 @@
+package com.zcw.voya.ai.memory;
+
+import cn.hutool.core.util.StrUtil;
+import com.zcw.voya.config.ChatMemoryConfig;
+import com.zcw.voya.config.RedisChatMemoryStoreConfig;
+import com.zcw.voya.util.SpringContextUtil;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.chat.ChatModel;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * 对话记忆摘要器
+ * 把移出记忆的较早对话和已有摘要合并成新的摘要，使用简单任务模型在后台执行，不占用生成请求的时间。
+ * 摘要保存在 Redis 中，与对话记忆的过期时间一致；同一记忆的压缩任务串行执行，避免互相覆盖。
+ * 删除摘要时纪元自增，压缩任务只在纪元未变时写回，清空对话后仍在执行的任务不会带回已删除的历史
+ */
+@Slf4j
+@Component
+public class ChatMemorySummarizer {
+
+    private static final String SUMMARY_KEY_PREFIX = "voya:chat_memory:summary:";
+
+    private static final String EPOCH_KEY_PREFIX = "voya:chat_memory:summary_epoch:";
+
+    /**
+     * 纪元未变时才写入摘要，KEYS[1] 摘要 key，KEYS[2] 纪元 key，ARGV 依次为提交任务时的纪元、摘要、过期时间（秒）
+     */
+    private static final RedisScript<Long> SET_IF_EPOCH_SCRIPT = new DefaultRedisScript<>("""
+            local epoch = redis.call('GET', KEYS[2]) or '0'
+            if epoch ~= ARGV[1] then
+                return 0
+            end
+            redis.call('SET', KEYS[1], ARGV[2], 'EX', ARGV[3])
+            return 1""", Long.class);
+
+    private static final String SYSTEM_PROMPT = """
+            你是对话摘要助手，负责压缩一段代码生成对话的历史。
+            请把【已有摘要】和【新增对话】合并成一份新的中文摘要，要求：
+            1. 保留用户提出的需求、修改意见和偏好
+            2. 保留已经做出的设计决定、技术选型和已生成的文件列表
+            3. 不要包含代码，不要编造对话中没有的内容
+            4. 不超过 %d 字，直接输出摘要正文""";
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Resource
+    private ChatMemoryConfig chatMemoryConfig;
+
+    @Resource
+    private RedisChatMemoryStoreConfig redisChatMemoryStoreConfig;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * 每个记忆最近一次压缩任务，新任务排在其后执行
+     */
+    private final Map<Object, CompletableFuture<Void>> tails = new ConcurrentHashMap<>();
+
+    private volatile ChatModel chatModel;
+
+    /**
+     * 获取记忆的摘要
+     *
+     * @param memoryId 记忆ID
+     * @return 摘要，没有时返回 null
+     */
+    public String getSummary(Object memoryId) {
+        try {
+            return stringRedisTemplate.opsForValue().get(summaryKey(memoryId));
+        } catch (Exception e) {
+            log.warn("读取对话摘要失败，memoryId:{}，error:{}", memoryId, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 删除记忆的摘要，并使尚未完成的压缩任务失效
+     *
+     * @param memoryId 记忆ID
+     */
+    public void deleteSummary(Object memoryId) {
+        try {
+            stringRedisTemplate.opsForValue().increment(epochKey(memoryId));
+            stringRedisTemplate.expire(epochKey(memoryId), ttl());
+            stringRedisTemplate.delete(summaryKey(memoryId));
+        } catch (Exception e) {
+            log.warn("删除对话摘要失败，memoryId:{}，error:{}", memoryId, e.getMessage());
+        }
+    }
+
+    /**
+     * 异步把移出记忆的消息合并进摘要
+     *
+     * @param memoryId  记忆ID
+     * @param evicted   移出记忆的消息，按时间顺序
+     * @param onUpdated 摘要更新后的回调
+     */
+    public void summarizeAsync(Object memoryId, List<ChatMessage> evicted, Consumer<String> onUpdated) {
+        if (!chatMemoryConfig.isSummaryEnabled() || evicted.isEmpty()) {
+            return;
+        }
+        // 在调用方线程读取纪元，之后删除摘要的操作都会让这次压缩的结果作废
+        String epoch = getEpoch(memoryId);
+        if (epoch == null) {
+            return;
+        }
+        tails.compute(memoryId, (id, tail) -> {
+            CompletableFuture<Void> previous = tail == null ? CompletableFuture.completedFuture(null) : tail;
+            CompletableFuture<Void> next = previous.thenRunAsync(() -> summarize(memoryId, epoch, evicted, onUpdated), executor);
+            next.whenComplete((result, error) -> tails.remove(memoryId, next));
+            return next;
+        });
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private void summarize(Object memoryId, String epoch, List<ChatMessage> evicted, Consumer<String> onUpdated) {
+        try {
+            String previousSummary = getSummary(memoryId);
+            String input = buildInput(previousSummary, evicted);
+            String summary = getChatModel().chat(
+                    SystemMessage.from(SYSTEM_PROMPT.formatted(chatMemoryConfig.getSummaryMaxChars())),
+                    UserMessage.from(input)
+            ).aiMessage().text();
+            if (StrUtil.isBlank(summary)) {
+                return;
+            }
+            summary = summary.strip();
+            Long written = stringRedisTemplate.execute(SET_IF_EPOCH_SCRIPT,
+                    List.of(summaryKey(memoryId), epochKey(memoryId)),
+                    epoch, summary, String.valueOf(ttl().toSeconds()));
+            if (written == null || written == 0) {
+                meterRegistry.counter("voya.chat_memory.summaries", "result", "discarded").increment();
+                log.info("对话记忆已清空，丢弃压缩结果，memoryId:{}", memoryId);
+                return;
+            }
+            onUpdated.accept(summary);
+            meterRegistry.counter("voya.chat_memory.summaries", "result", "success").increment();
+            log.info("对话记忆已压缩，memoryId:{}，移出消息数:{}，摘要长度:{}", memoryId, evicted.size(), summary.length());
+        } catch (Exception e) {
+            meterRegistry.counter("voya.chat_memory.summaries", "result", "failure").increment();
+            log.warn("压缩对话记忆失败，memoryId:{}，error:{}", memoryId, e.getMessage());
+        }
+    }
+
+    private String buildInput(String previousSummary, List<ChatMessage> evicted) {
+        int maxChars = chatMemoryConfig.getSummaryInputMaxChars();
+        StringBuilder input = new StringBuilder("【已有摘要】\n")
+                .append(StrUtil.blankToDefault(previousSummary, "无"))
+                .append("\n\n【新增对话】\n");
+        for (ChatMessage message : evicted) {
+            String role = switch (message) {
+                case UserMessage ignored -> "用户";
+                case AiMessage ignored -> "AI";
+                case ToolExecutionResultMessage ignored -> "工具结果";
+                default -> null;
+            };
+            if (role == null) {
+                continue;
+            }
+            input.append(role).append("：")
+                    .append(StrUtil.maxLength(ChatMessageTokenEstimator.textOf(message), maxChars))
+                    .append('\n');
+        }
+        return input.toString();
+    }
+
+    private ChatModel getChatModel() {
+        if (chatModel == null) {
+            synchronized (this) {
+                if (chatModel == null) {
+                    chatModel = SpringContextUtil.getBean("simpleTaskChatModelPrototype", ChatModel.class);
+                }
+            }
+        }
+        return chatModel;
+    }
+
+    /**
+     * 读取记忆的摘要纪元，读取失败返回 null
+     */
+    private String getEpoch(Object memoryId) {
+        try {
+            String epoch = stringRedisTemplate.opsForValue().get(epochKey(memoryId));
+            return epoch == null ? "0" : epoch;
+        } catch (Exception e) {
+            log.warn("读取对话摘要纪元失败，跳过压缩，memoryId:{}，error:{}", memoryId, e.getMessage());
+            return null;
+        }
+    }
+
+    private Duration ttl() {
+        long ttl = redisChatMemoryStoreConfig.getTtl();
+        return Duration.ofSeconds(ttl > 0 ? ttl : 3600);
+    }
+
+    static String summaryKey(Object memoryId) {
+        return SUMMARY_KEY_PREFIX + memoryId;
+    }
+
+    private static String epochKey(Object memoryId) {
+        return EPOCH_KEY_PREFIX + memoryId;
+    }
+}
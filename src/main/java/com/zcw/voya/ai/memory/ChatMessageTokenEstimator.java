@@ -0,0 +1,89 @@
+package com.zcw.voya.ai.memory;
+
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.TextContent;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.data.message.UserMessage;
+
+/**
+ * 对话消息的 token 数估算
+ * 不依赖具体模型的分词器：ASCII 字符约 4 个一个 token，中文等其他字符约 1 个一个 token，
+ * 用于预算控制足够准确，且不需要加载词表
+ */
+public class ChatMessageTokenEstimator {
+
+    /**
+     * 每条消息的固定开销（角色、分隔符等）
+     */
+    private static final int MESSAGE_OVERHEAD = 4;
+
+    private ChatMessageTokenEstimator() {
+    }
+
+    /**
+     * 估算消息的 token 数
+     */
+    public static int estimate(ChatMessage message) {
+        return MESSAGE_OVERHEAD + estimate(textOf(message));
+    }
+
+    /**
+     * 估算文本的 token 数
+     */
+    public static int estimate(CharSequence text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        int ascii = 0;
+        int other = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                ascii++;
+            } else if (!Character.isLowSurrogate(c)) {
+                other++;
+            }
+        }
+        return (ascii + 3) / 4 + other;
+    }
+
+    /**
+     * 获取消息的文本内容，AI 消息包含工具调用的参数
+     */
+    public static String textOf(ChatMessage message) {
+        return switch (message) {
+            case SystemMessage systemMessage -> systemMessage.text();
+            case UserMessage userMessage -> userText(userMessage);
+            case AiMessage aiMessage -> aiText(aiMessage);
+            case ToolExecutionResultMessage toolMessage -> toolMessage.text();
+            default -> "";
+        };
+    }
+
+    private static String userText(UserMessage userMessage) {
+        if (userMessage.hasSingleText()) {
+            return userMessage.singleText();
+        }
+        StringBuilder text = new StringBuilder();
+        userMessage.contents().forEach(content -> {
+            if (content instanceof TextContent textContent) {
+                text.append(textContent.text());
+            }
+        });
+        return text.toString();
+    }
+
+    private static String aiText(AiMessage aiMessage) {
+        if (!aiMessage.hasToolExecutionRequests()) {
+            return aiMessage.text() == null ? "" : aiMessage.text();
+        }
+        StringBuilder text = new StringBuilder(aiMessage.text() == null ? "" : aiMessage.text());
+        for (ToolExecutionRequest request : aiMessage.toolExecutionRequests()) {
+            text.append(request.name()).append(request.arguments());
+        }
+        return text.toString();
+    }
+}
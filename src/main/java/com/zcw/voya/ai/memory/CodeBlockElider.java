@@ -0,0 +1,193 @@
+package com.zcw.voya.ai.memory;
+
+import com.zcw.voya.ai.model.enums.CodeGenTypeEnum;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 历史消息中的代码块省略
+ * 历史 AI 回复里的完整代码只是过去某个版本，最新版本已经保存在工作目录中。
+ * 加载历史时把代码块替换成简短的引用（文件名、行数、摘要），再一次性附上工作目录中各文件的最新内容
+ */
+@Slf4j
+public class CodeBlockElider {
+
+    /**
+     * 完整的围栏代码块，未闭合的代码块（被截断的回复）保持原样
+     */
+    private static final Pattern CODE_BLOCK_PATTERN = Pattern.compile("```([\\w+#.-]*)[^\\n]*\\n([\\s\\S]*?)```");
+
+    /**
+     * 原生模式下代码块语言对应的文件名
+     */
+    private static final Map<String, String> LANGUAGE_FILE_NAMES = Map.of(
+            "html", "index.html",
+            "css", "style.css",
+            "js", "script.js",
+            "javascript", "script.js"
+    );
+
+    /**
+     * 原生模式的文件，按此顺序附上
+     */
+    private static final List<String> NATIVE_FILES = List.of("index.html", "style.css", "script.js");
+
+    /**
+     * Vue 项目只列出文件，不附内容，跳过依赖和构建产物
+     */
+    private static final List<String> IGNORED_DIRS = List.of("node_modules", "dist", ".git", ".vite");
+
+    private static final int MAX_LISTED_FILES = 200;
+
+    private CodeBlockElider() {
+    }
+
+    /**
+     * 把文本中的代码块替换成引用
+     *
+     * @param text 历史 AI 回复
+     * @return 替换后的文本
+     */
+    public static String elide(String text) {
+        if (text == null || !text.contains("```")) {
+            return text;
+        }
+        Matcher matcher = CODE_BLOCK_PATTERN.matcher(text);
+        StringBuilder result = new StringBuilder(text.length() / 4);
+        while (matcher.find()) {
+            String language = matcher.group(1).toLowerCase();
+            String code = matcher.group(2);
+            String fileName = LANGUAGE_FILE_NAMES.getOrDefault(language, language.isEmpty() ? "代码" : language + " 代码");
+            String reference = "[已省略 %s：%d 行，sha=%s，以当前文件为准]".formatted(fileName, lineCount(code), shortSha(code));
+            matcher.appendReplacement(result, Matcher.quoteReplacement(reference));
+        }
+        matcher.appendTail(result);
+        return result.toString();
+    }
+
+    /**
+     * 生成工作目录的当前文件快照
+     * 原生模式附上各文件的完整内容（超出 token 上限时只列出文件），Vue 项目只列出文件，需要时由 AI 通过工具读取
+     *
+     * @param dir         工作目录
+     * @param codeGenType 生成类型
+     * @param maxTokens   附上文件内容的 token 上限，按 {@link ChatMessageTokenEstimator} 估算
+     * @return 快照文本，目录不存在或为空时返回 null
+     */
+    public static String snapshot(Path dir, CodeGenTypeEnum codeGenType, int maxTokens) {
+        if (dir == null || !Files.isDirectory(dir)) {
+            return null;
+        }
+        try {
+            if (codeGenType == CodeGenTypeEnum.VUE_PROJECT) {
+                return listFiles(dir);
+            }
+            StringBuilder snapshot = new StringBuilder("当前文件的最新版本如下（以此为准）：\n");
+            boolean hasFile = false;
+            for (String fileName : NATIVE_FILES) {
+                Path file = dir.resolve(fileName);
+                if (!Files.isRegularFile(file)) {
+                    continue;
+                }
+                String content = Files.readString(file, StandardCharsets.UTF_8);
+                String language = fileName.substring(fileName.lastIndexOf('.') + 1);
+                snapshot.append("```").append("js".equals(language) ? "javascript" : language).append('\n')
+                        .append(content);
+                if (!content.endsWith("\n")) {
+                    snapshot.append('\n');
+                }
+                snapshot.append("```\n");
+                hasFile = true;
+                if (ChatMessageTokenEstimator.estimate(snapshot) > maxTokens) {
+                    return listFiles(dir);
+                }
+            }
+            return hasFile ? snapshot.toString() : null;
+        } catch (IOException e) {
+            log.warn("读取工作目录失败: {}, error: {}", dir, e.getMessage());
+            return null;
+        }
+    }
+
+    private static String listFiles(Path dir) throws IOException {
+        List<Path> files = new ArrayList<>();
+        Files.walkFileTree(dir, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path path, BasicFileAttributes attrs) {
+                // 不进入依赖和构建产物目录
+                return !path.equals(dir) && IGNORED_DIRS.contains(path.getFileName().toString())
+                        ? FileVisitResult.SKIP_SUBTREE : FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (attrs.isRegularFile()) {
+                    files.add(dir.relativize(file));
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        if (files.isEmpty()) {
+            return null;
+        }
+        files.sort(null);
+        StringBuilder listing = new StringBuilder("当前项目文件（以此为准，需要时读取文件内容）：\n");
+        for (int i = 0; i < files.size(); i++) {
+            if (i >= MAX_LISTED_FILES) {
+                listing.append("- ……\n");
+                break;
+            }
+            Path relative = files.get(i);
+            // 按字节统计，图片等二进制文件也不会出错
+            byte[] content = Files.readAllBytes(dir.resolve(relative));
+            listing.append("- ").append(relative.toString().replace('\\', '/'))
+                    .append("（").append(lineCount(content)).append(" 行，sha=").append(shortSha(content)).append("）\n");
+        }
+        return listing.toString();
+    }
+
+    static int lineCount(String code) {
+        return lineCount(code.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static int lineCount(byte[] content) {
+        if (content.length == 0) {
+            return 0;
+        }
+        int lines = 1;
+        for (byte b : content) {
+            if (b == '\n') {
+                lines++;
+            }
+        }
+        return content[content.length - 1] == '\n' ? lines - 1 : lines;
+    }
+
+    static String shortSha(String code) {
+        return shortSha(code.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String shortSha(byte[] content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+            return HexFormat.of().formatHex(digest, 0, 4);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
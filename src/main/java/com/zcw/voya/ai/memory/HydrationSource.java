@@ -0,0 +1,22 @@
+package com.zcw.voya.ai.memory;
+
+import lombok.Getter;
+
+/**
+ * 对话记忆来源
+ */
+@Getter
+public enum HydrationSource {
+
+    REDIS("Redis 中已有的记忆", "redis"),
+    MYSQL("从 MySQL 历史重新加载", "mysql");
+
+    private final String text;
+
+    private final String value;
+
+    HydrationSource(String text, String value) {
+        this.text = text;
+        this.value = value;
+    }
+}
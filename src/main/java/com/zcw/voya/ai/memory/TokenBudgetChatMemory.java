@@ -0,0 +1,244 @@
+package com.zcw.voya.ai.memory;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.memory.ChatMemory;
+import dev.langchain4j.store.memory.chat.ChatMemoryStore;
+import io.micrometer.core.instrument.Counter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 按 token 预算裁剪的对话记忆
+ * 消息总量超出预算（或消息数超出上限）时，从最早的对话开始移出记忆，移出的消息先攒起来，
+ * 在一轮对话结束或攒够一定 token 后一次交给摘要器在后台压缩，工具调用循环中不会每轮都调用模型；
+ * 读取记忆时把摘要作为一条系统消息放在系统提示词之后，较早的上下文以摘要形式保留
+ * <p>
+ * AI 的工具调用请求和对应的工具结果一起移出，避免留下没有请求的工具结果；最新的一条用户消息始终保留，
+ * 长时间的工具调用循环中只会移出本轮较早的工具调用
+ */
+public class TokenBudgetChatMemory implements ChatMemory {
+
+    static final String SUMMARY_PREFIX = "以下是本次对话较早内容的摘要：\n";
+
+    private final Object id;
+    private final ChatMemoryStore store;
+    private final int tokenBudget;
+    private final int maxMessages;
+    private final ChatMemorySummarizer summarizer;
+    private final Counter evictedCounter;
+    private final int summaryBatchTokens;
+
+    /**
+     * 已移出、尚未交给摘要器的消息
+     */
+    private final List<ChatMessage> pendingEvicted = new ArrayList<>();
+
+    private int pendingEvictedTokens;
+
+    /**
+     * 清空记忆时自增，清空前提交的压缩结果不再写回本地
+     */
+    private long epoch;
+
+    /**
+     * 本地缓存的摘要，null 表示尚未从 Redis 读取
+     */
+    private volatile String summary;
+
+    private volatile boolean summaryLoaded;
+
+    /**
+     * @param summaryBatchTokens 一轮对话中移出的消息攒够多少 token 时提前压缩
+     */
+    public TokenBudgetChatMemory(Object id, ChatMemoryStore store, int tokenBudget, int maxMessages,
+                                 ChatMemorySummarizer summarizer, Counter evictedCounter, int summaryBatchTokens) {
+        this.id = id;
+        this.store = store;
+        this.tokenBudget = tokenBudget;
+        this.maxMessages = maxMessages;
+        this.summarizer = summarizer;
+        this.evictedCounter = evictedCounter;
+        this.summaryBatchTokens = summaryBatchTokens;
+    }
+
+    @Override
+    public Object id() {
+        return id;
+    }
+
+    @Override
+    public synchronized void add(ChatMessage message) {
+        List<ChatMessage> messages = new ArrayList<>(store.getMessages(id));
+        if (message instanceof SystemMessage) {
+            // 系统提示词只保留一条，且放在最前面
+            int index = indexOfSystemMessage(messages);
+            if (index >= 0) {
+                if (messages.get(index).equals(message)) {
+                    return;
+                }
+                messages.remove(index);
+            }
+            messages.addFirst(message);
+        } else {
+            messages.add(message);
+        }
+        List<ChatMessage> evicted = ensureCapacity(messages, tokenBudget - summaryTokens(), maxMessages);
+        store.updateMessages(id, messages);
+        if (!evicted.isEmpty() && evictedCounter != null) {
+            evictedCounter.increment(evicted.size());
+        }
+        if (summarizer == null) {
+            return;
+        }
+        for (ChatMessage removed : evicted) {
+            pendingEvicted.add(removed);
+            pendingEvictedTokens += ChatMessageTokenEstimator.estimate(removed);
+        }
+        // 一轮对话结束（最终回复或新的用户消息）或攒够 token 时压缩一次
+        boolean turnEnded = message instanceof UserMessage
+                || message instanceof AiMessage aiMessage && !aiMessage.hasToolExecutionRequests();
+        if (!pendingEvicted.isEmpty() && (turnEnded || pendingEvictedTokens >= summaryBatchTokens)) {
+            summarizePending();
+        }
+    }
+
+    private void summarizePending() {
+        List<ChatMessage> batch = new ArrayList<>(pendingEvicted);
+        pendingEvicted.clear();
+        pendingEvictedTokens = 0;
+        long submittedEpoch = epoch;
+        summarizer.summarizeAsync(id, batch, updated -> {
+            synchronized (this) {
+                if (epoch == submittedEpoch) {
+                    summary = updated;
+                    summaryLoaded = true;
+                }
+            }
+        });
+    }
+
+    @Override
+    public List<ChatMessage> messages() {
+        List<ChatMessage> messages = new ArrayList<>(store.getMessages(id));
+        String currentSummary = loadSummary();
+        if (currentSummary == null || currentSummary.isBlank()) {
+            return messages;
+        }
+        int index = indexOfSystemMessage(messages);
+        messages.add(index + 1, SystemMessage.from(SUMMARY_PREFIX + currentSummary));
+        return messages;
+    }
+
+    @Override
+    public synchronized void clear() {
+        store.deleteMessages(id);
+        epoch++;
+        pendingEvicted.clear();
+        pendingEvictedTokens = 0;
+        summary = null;
+        summaryLoaded = true;
+        if (summarizer != null) {
+            summarizer.deleteSummary(id);
+        }
+    }
+
+    private String loadSummary() {
+        if (!summaryLoaded && summarizer != null) {
+            summary = summarizer.getSummary(id);
+            summaryLoaded = true;
+        }
+        return summary;
+    }
+
+    private int summaryTokens() {
+        String currentSummary = loadSummary();
+        return currentSummary == null ? 0 : ChatMessageTokenEstimator.estimate(currentSummary);
+    }
+
+    /**
+     * 从最早的非系统消息开始移出，直到满足预算；最新的一条用户消息不会被移出，
+     * 仍超出预算时继续移出本轮中较早的工具调用，必要时只剩系统消息和最新的用户消息
+     * <p>
+     * AI 的工具调用请求和其后的工具结果总是一起移出，请求已被移出的工具结果也一并移出，
+     * 避免发给模型的消息中出现没有请求的工具结果
+     *
+     * @param messages    消息列表，会被修改
+     * @param tokenBudget token 预算
+     * @param maxMessages 最大消息数
+     * @return 被移出的消息，按时间顺序
+     */
+    static List<ChatMessage> ensureCapacity(List<ChatMessage> messages, int tokenBudget, int maxMessages) {
+        int totalTokens = 0;
+        for (ChatMessage message : messages) {
+            totalTokens += ChatMessageTokenEstimator.estimate(message);
+        }
+        List<ChatMessage> evicted = new ArrayList<>();
+        int lastUserIndex = lastIndexOfUserMessage(messages);
+        int index = !messages.isEmpty() && messages.getFirst() instanceof SystemMessage ? 1 : 0;
+        while (totalTokens > tokenBudget || messages.size() > maxMessages) {
+            if (index == lastUserIndex) {
+                // 跳过最新的用户消息，继续移出本轮中较早的工具调用
+                index++;
+            }
+            if (index >= messages.size()) {
+                break;
+            }
+            ChatMessage removed = messages.remove(index);
+            evicted.add(removed);
+            totalTokens -= ChatMessageTokenEstimator.estimate(removed);
+            if (index < lastUserIndex) {
+                lastUserIndex--;
+            }
+            if (removed instanceof AiMessage aiMessage && aiMessage.hasToolExecutionRequests()) {
+                // 工具结果必须跟在对应的工具调用请求之后，一起移出
+                while (index < messages.size() && messages.get(index) instanceof ToolExecutionResultMessage) {
+                    ChatMessage toolResult = messages.remove(index);
+                    evicted.add(toolResult);
+                    totalTokens -= ChatMessageTokenEstimator.estimate(toolResult);
+                    if (index < lastUserIndex) {
+                        lastUserIndex--;
+                    }
+                }
+            }
+        }
+        // 工具调用请求在上一次裁剪中被移出后才写入的工具结果
+        for (int i = 0; i < messages.size(); i++) {
+            if (messages.get(i) instanceof ToolExecutionResultMessage && !followsToolRequest(messages, i)) {
+                evicted.add(messages.remove(i--));
+            }
+        }
+        return evicted;
+    }
+
+    private static boolean followsToolRequest(List<ChatMessage> messages, int index) {
+        if (index == 0) {
+            return false;
+        }
+        ChatMessage previous = messages.get(index - 1);
+        return previous instanceof ToolExecutionResultMessage
+                || previous instanceof AiMessage aiMessage && aiMessage.hasToolExecutionRequests();
+    }
+
+    private static int lastIndexOfUserMessage(List<ChatMessage> messages) {
+        for (int i = messages.size() - 1; i >= 0; i--) {
+            if (messages.get(i) instanceof UserMessage) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int indexOfSystemMessage(List<ChatMessage> messages) {
+        for (int i = 0; i < messages.size(); i++) {
+            if (messages.get(i) instanceof SystemMessage) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
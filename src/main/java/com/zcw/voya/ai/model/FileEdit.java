@@ -0,0 +1,21 @@
+package com.zcw.voya.ai.model;
+
+import dev.langchain4j.model.output.structured.Description;
+import lombok.Data;
+
+/**
+ * 批量修改中的一处修改
+ */
+@Data
+@Description("一处文件修改：在指定文件中把旧内容替换为新内容")
+public class FileEdit {
+
+    @Description(value = "文件的相对路径")
+    private String relativeFilePath;
+
+    @Description(value = "要替换的旧内容")
+    private String oldContent;
+
+    @Description(value = "替换后的新内容")
+    private String newContent;
+}
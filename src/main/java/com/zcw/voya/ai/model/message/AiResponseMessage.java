@@ -1,21 +1,14 @@
 package com.zcw.voya.ai.model.message;
 
-import lombok.Data;
-import lombok.EqualsAndHashCode;
-import lombok.NoArgsConstructor;
-
 /**
  * AI 响应消息
+ *
+ * @param data 响应片段
  */
-@EqualsAndHashCode(callSuper = true)
-@Data
-@NoArgsConstructor
-public class AiResponseMessage extends StreamMessage {
-
-    private String data;
+public record AiResponseMessage(String data) implements StreamMessage {
 
-    public AiResponseMessage(String data) {
-        super(StreamMessageTypeEnum.AI_RESPONSE.getValue());
-        this.data = data;
+    @Override
+    public StreamMessageTypeEnum type() {
+        return StreamMessageTypeEnum.AI_RESPONSE;
     }
 }
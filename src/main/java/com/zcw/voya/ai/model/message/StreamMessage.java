@@ -1,15 +1,13 @@
 package com.zcw.voya.ai.model.message;
 
-import lombok.AllArgsConstructor;
-import lombok.Data;
-import lombok.NoArgsConstructor;
-
 /**
- * 流式消息响应基类
+ * 流式消息
+ * 在进程内以类型化对象流转，只在 SSE 出口处序列化一次
  */
-@Data
-@AllArgsConstructor
-@NoArgsConstructor
-public class StreamMessage {
-    private String type;
+public sealed interface StreamMessage permits AiResponseMessage, ToolRequestMessage, ToolExecutedMessage {
+
+    /**
+     * 消息类型
+     */
+    StreamMessageTypeEnum type();
 }
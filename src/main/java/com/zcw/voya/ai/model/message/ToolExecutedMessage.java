@@ -1,31 +1,24 @@
 package com.zcw.voya.ai.model.message;
 
 import dev.langchain4j.service.tool.ToolExecution;
-import lombok.Data;
-import lombok.EqualsAndHashCode;
-import lombok.NoArgsConstructor;
 
 /**
  * 工具执行结果消息
+ *
+ * @param id        工具调用 ID
+ * @param name      工具名称
+ * @param arguments 工具参数
+ * @param result    执行结果
  */
-@Data
-@EqualsAndHashCode(callSuper = true)
-@NoArgsConstructor
-public class ToolExecutedMessage extends StreamMessage {
-
-    private String id;
-
-    private String name;
-
-    private String arguments;
-
-    private String result;
+public record ToolExecutedMessage(String id, String name, String arguments, String result) implements StreamMessage {
 
     public ToolExecutedMessage(ToolExecution toolExecution) {
-        super(StreamMessageTypeEnum.TOOL_EXECUTED.getValue());
-        this.id = toolExecution.request().id();
-        this.name = toolExecution.request().name();
-        this.arguments = toolExecution.request().arguments();
-        this.result = toolExecution.result();
+        this(toolExecution.request().id(), toolExecution.request().name(),
+                toolExecution.request().arguments(), toolExecution.result());
+    }
+
+    @Override
+    public StreamMessageTypeEnum type() {
+        return StreamMessageTypeEnum.TOOL_EXECUTED;
     }
 }
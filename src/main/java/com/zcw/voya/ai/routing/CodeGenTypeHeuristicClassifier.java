@@ -0,0 +1,88 @@
+package com.zcw.voya.ai.routing;
+
+import com.zcw.voya.ai.model.enums.CodeGenTypeEnum;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * 代码生成类型的本地关键词判断
+ * 只处理特征明确的需求，拿不准时返回 null 交给模型判断，宁可少判也不误判
+ */
+public class CodeGenTypeHeuristicClassifier {
+
+    /**
+     * 复杂项目的特征：框架、系统类应用、交互和数据管理
+     */
+    private static final List<String> VUE_KEYWORDS = List.of(
+            "vue", "react", "管理系统", "后台", "admin", "dashboard", "仪表盘", "路由", "状态管理",
+            "登录注册", "用户管理", "权限", "增删改查", "crud", "购物车", "电商", "单页应用", "spa", "数据管理", "组件"
+    );
+
+    /**
+     * 多页面静态站点的特征
+     */
+    private static final List<String> MULTI_FILE_KEYWORDS = List.of(
+            "多个页面", "多页面", "多页", "官网", "关于我们", "联系我们", "分离css", "分离js", "独立的css", "独立的js"
+    );
+
+    /**
+     * 简单单页的特征
+     */
+    private static final List<String> HTML_KEYWORDS = List.of(
+            "简单", "单个页面", "一个页面", "单页面", "落地页", "landing", "个人介绍", "个人主页", "简历", "名片",
+            "单个html", "一个html", "倒计时", "展示页"
+    );
+
+    /**
+     * “三个页面”“3 个页面”这类明确的页面数量
+     */
+    private static final Pattern PAGE_COUNT_PATTERN = Pattern.compile("([2-9]|[二两三四五六七八九])\\s*个\\s*(页面|页)");
+
+    /**
+     * 超过该长度的简单需求也交给模型判断，长描述往往隐含复杂功能
+     */
+    private static final int SIMPLE_PROMPT_MAX_LENGTH = 80;
+
+    /**
+     * 判断代码生成类型
+     *
+     * @param normalizedPrompt 归一化后的提示词（小写、去空白）
+     * @return 生成类型，没有把握时返回 null
+     */
+    public CodeGenTypeEnum classify(String normalizedPrompt) {
+        if (normalizedPrompt == null || normalizedPrompt.isEmpty()) {
+            return null;
+        }
+        int vueScore = count(normalizedPrompt, VUE_KEYWORDS);
+        int multiFileScore = count(normalizedPrompt, MULTI_FILE_KEYWORDS);
+        if (PAGE_COUNT_PATTERN.matcher(normalizedPrompt).find()) {
+            multiFileScore++;
+        }
+        int htmlScore = count(normalizedPrompt, HTML_KEYWORDS);
+        // 多个复杂特征且没有“简单”之类的反向特征
+        if (vueScore >= 2 && htmlScore == 0) {
+            return CodeGenTypeEnum.VUE_PROJECT;
+        }
+        if (vueScore > 0) {
+            return null;
+        }
+        if (multiFileScore >= 2 && htmlScore == 0) {
+            return CodeGenTypeEnum.MULTI_FILE;
+        }
+        if (multiFileScore == 0 && htmlScore > 0 && normalizedPrompt.length() <= SIMPLE_PROMPT_MAX_LENGTH) {
+            return CodeGenTypeEnum.HTML;
+        }
+        return null;
+    }
+
+    private static int count(String text, List<String> keywords) {
+        int score = 0;
+        for (String keyword : keywords) {
+            if (text.contains(keyword)) {
+                score++;
+            }
+        }
+        return score;
+    }
+}
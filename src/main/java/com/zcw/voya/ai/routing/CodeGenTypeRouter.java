@@ -0,0 +1,143 @@
+package com.zcw.voya.ai.routing;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.zcw.voya.ai.CodeGenTypeRoutingService;
+import com.zcw.voya.ai.model.enums.CodeGenTypeEnum;
+import com.zcw.voya.config.CodeGenRoutingConfig;
+import com.zcw.voya.util.CacheKeyUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.regex.Pattern;
+
+/**
+ * 代码生成类型路由器
+ * 依次尝试：本地缓存 -> 本地关键词判断 -> Redis 缓存 -> 模型判断，模型调用失败时降级为 HTML。
+ * 缓存以归一化后的提示词为键，相同需求只调用一次模型
+ */
+@Slf4j
+@Component
+public class CodeGenTypeRouter {
+
+    private static final String REDIS_KEY_PREFIX = "voya:routing:";
+
+    private static final Pattern WHITESPACE_PATTERN = Pattern.compile("\\s+");
+
+    /**
+     * 共用的路由服务，无对话记忆，可并发调用
+     */
+    @Resource
+    private CodeGenTypeRoutingService aiCodeGenTypeRoutingService;
+
+    @Resource
+    private CodeGenRoutingConfig codeGenRoutingConfig;
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    private final CodeGenTypeHeuristicClassifier heuristicClassifier = new CodeGenTypeHeuristicClassifier();
+
+    private Cache<String, CodeGenTypeEnum> localCache;
+
+    @PostConstruct
+    public void init() {
+        localCache = Caffeine.newBuilder()
+                .maximumSize(codeGenRoutingConfig.getLocalCacheSize())
+                .expireAfterWrite(Duration.ofMinutes(codeGenRoutingConfig.getLocalExpireMinutes()))
+                .build();
+    }
+
+    /**
+     * 根据用户需求选择代码生成类型
+     *
+     * @param userPrompt 用户提示词
+     * @return 生成类型，不会为空
+     */
+    public CodeGenTypeEnum route(String userPrompt) {
+        long start = System.nanoTime();
+        String normalizedPrompt = normalize(userPrompt);
+        String cacheKey = CacheKeyUtils.generateKey(normalizedPrompt);
+        // 1. 本地缓存
+        CodeGenTypeEnum codeGenType = localCache.getIfPresent(cacheKey);
+        if (codeGenType != null) {
+            return record(codeGenType, "local_cache", start);
+        }
+        // 2. 本地关键词判断
+        if (codeGenRoutingConfig.isHeuristicEnabled()) {
+            codeGenType = heuristicClassifier.classify(normalizedPrompt);
+            if (codeGenType != null) {
+                localCache.put(cacheKey, codeGenType);
+                return record(codeGenType, "heuristic", start);
+            }
+        }
+        // 3. Redis 缓存
+        codeGenType = getFromRedis(cacheKey);
+        if (codeGenType != null) {
+            localCache.put(cacheKey, codeGenType);
+            return record(codeGenType, "redis_cache", start);
+        }
+        // 4. 模型判断
+        try {
+            codeGenType = aiCodeGenTypeRoutingService.routeCodeGenType(userPrompt);
+        } catch (Exception e) {
+            log.error("AI智能路由失败，使用默认HTML类型: {}", e.getMessage());
+        }
+        if (codeGenType == null) {
+            // 降级结果不缓存，下次仍尝试模型
+            return record(CodeGenTypeEnum.HTML, "fallback", start);
+        }
+        localCache.put(cacheKey, codeGenType);
+        putToRedis(cacheKey, codeGenType);
+        return record(codeGenType, "model", start);
+    }
+
+    /**
+     * 归一化提示词：去掉首尾和内部空白，统一小写
+     */
+    static String normalize(String userPrompt) {
+        if (userPrompt == null) {
+            return "";
+        }
+        return WHITESPACE_PATTERN.matcher(userPrompt.strip()).replaceAll("").toLowerCase();
+    }
+
+    private CodeGenTypeEnum getFromRedis(String cacheKey) {
+        try {
+            String value = stringRedisTemplate.opsForValue().get(REDIS_KEY_PREFIX + cacheKey);
+            return CodeGenTypeEnum.getEnumByValue(value);
+        } catch (Exception e) {
+            log.warn("读取路由缓存失败: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void putToRedis(String cacheKey, CodeGenTypeEnum codeGenType) {
+        try {
+            stringRedisTemplate.opsForValue().set(REDIS_KEY_PREFIX + cacheKey, codeGenType.getValue(),
+                    Duration.ofHours(codeGenRoutingConfig.getRedisTtlHours()));
+        } catch (Exception e) {
+            log.warn("写入路由缓存失败: {}", e.getMessage());
+        }
+    }
+
+    private CodeGenTypeEnum record(CodeGenTypeEnum codeGenType, String source, long start) {
+        meterRegistry.counter("voya.routing", "source", source, "type", codeGenType.getValue()).increment();
+        Timer.builder("voya.routing.duration")
+                .description("代码生成类型路由耗时")
+                .tag("source", source)
+                .register(meterRegistry)
+                .record(Duration.ofNanos(System.nanoTime() - start));
+        log.info("智能路由完成，来源: {}，选择类型: {} ({})", source, codeGenType.getValue(), codeGenType.getText());
+        return codeGenType;
+    }
+}
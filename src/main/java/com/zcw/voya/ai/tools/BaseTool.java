@@ -22,6 +22,17 @@ public abstract class BaseTool {
      */
     public abstract String getDisplayName();
 
+    /**
+     * 获取冲突参数名
+     * 工具调用之间只通过该参数指定的对象（如文件路径）相互影响时，返回该参数名，
+     * 同一轮中操作不同对象的调用可以并行执行；不能并行时返回 null
+     *
+     * @return 冲突参数名
+     */
+    public String getConflictArgument() {
+        return null;
+    }
+
     /**
      * 生成工具请求时的返回值（显示给用户）
      *
@@ -0,0 +1,132 @@
+package com.zcw.voya.ai.tools;
+
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.json.JSONArray;
+import cn.hutool.json.JSONObject;
+import com.zcw.voya.ai.model.FileEdit;
+import com.zcw.voya.core.workspace.ProjectWorkspace;
+import com.zcw.voya.core.workspace.ProjectWorkspaceManager;
+import dev.langchain4j.agent.tool.P;
+import dev.langchain4j.agent.tool.Tool;
+import dev.langchain4j.agent.tool.ToolMemoryId;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 文件批量修改工具
+ * 一次调用完成多处修改（可跨多个文件），每个文件只读写一次；
+ * 所有修改要么全部生效，要么全部不生效，并逐条返回每处修改的结果
+ */
+@Slf4j
+@Component
+public class FileBatchModifyTool extends BaseTool {
+
+    @Resource
+    private ProjectWorkspaceManager projectWorkspaceManager;
+
+    @Tool("批量修改文件内容，一次提交多处修改（可跨多个文件），按顺序用新内容替换旧内容；任意一处失败则所有修改都不生效")
+    public String modifyFiles(
+            @P("修改列表，同一文件的多处修改按列表顺序依次应用")
+            List<FileEdit> edits,
+            @ToolMemoryId Long appId
+    ) {
+        if (edits == null || edits.isEmpty()) {
+            return "错误：修改列表为空";
+        }
+        ProjectWorkspace workspace = projectWorkspaceManager.open(appId);
+        // 持有工作区的锁，检查和写入之间不会插入其他修改
+        synchronized (workspace) {
+            // 规范化路径 -> 应用修改后的内容，每个文件只读取一次
+            Map<String, String> contents = new LinkedHashMap<>();
+            List<String> results = new ArrayList<>(edits.size());
+            boolean failed = false;
+            for (FileEdit edit : edits) {
+                String result;
+                try {
+                    result = apply(workspace, contents, edit);
+                } catch (IOException e) {
+                    log.error("批量修改读取文件失败: {}", edit.getRelativeFilePath(), e);
+                    result = "读取文件失败: " + e.getMessage();
+                }
+                if (result != null) {
+                    failed = true;
+                }
+                results.add(result);
+            }
+            StringBuilder report = new StringBuilder();
+            if (failed) {
+                report.append("批量修改失败，所有文件均未修改，请修正后重新提交全部修改：\n");
+            } else {
+                // 每个文件只写一次
+                contents.forEach(workspace::write);
+                log.info("批量修改成功: {} 处修改，{} 个文件", edits.size(), contents.size());
+                report.append("批量修改成功，共 ").append(edits.size()).append(" 处修改，")
+                        .append(contents.size()).append(" 个文件：\n");
+            }
+            for (int i = 0; i < edits.size(); i++) {
+                String result = results.get(i);
+                report.append(i + 1).append(". ").append(edits.get(i).getRelativeFilePath()).append("：")
+                        .append(result == null ? (failed ? "可以修改" : "修改成功") : result).append('\n');
+            }
+            return report.toString();
+        }
+    }
+
+    /**
+     * 在内存中应用一处修改
+     *
+     * @return 失败原因，成功时返回 null
+     */
+    private String apply(ProjectWorkspace workspace, Map<String, String> contents, FileEdit edit) throws IOException {
+        String path = workspace.normalize(edit.getRelativeFilePath());
+        if (path == null || path.isEmpty()) {
+            return "错误：只能修改项目目录内的文件";
+        }
+        if (StrUtil.isEmpty(edit.getOldContent()) || edit.getNewContent() == null) {
+            return "错误：旧内容不能为空，新内容不能缺失";
+        }
+        String content = contents.get(path);
+        if (content == null) {
+            content = workspace.read(path);
+            if (content == null) {
+                return "错误：文件不存在或不是文件";
+            }
+        }
+        if (!content.contains(edit.getOldContent())) {
+            return "警告：文件中未找到要替换的内容（如同一文件有多处修改，以前面修改后的内容为准）";
+        }
+        contents.put(path, content.replace(edit.getOldContent(), edit.getNewContent()));
+        return null;
+    }
+
+    @Override
+    public String getToolName() {
+        return "modifyFiles";
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "批量修改";
+    }
+
+    @Override
+    public String generateToolExecutedResult(JSONObject arguments) {
+        JSONArray edits = arguments.getJSONArray("edits");
+        Set<String> files = new LinkedHashSet<>();
+        if (edits != null) {
+            for (int i = 0; i < edits.size(); i++) {
+                files.add(edits.getJSONObject(i).getStr("relativeFilePath"));
+            }
+        }
+        return String.format("🔧%s %d 处：%s", getDisplayName(), edits == null ? 0 : edits.size(), String.join("、", files));
+    }
+}
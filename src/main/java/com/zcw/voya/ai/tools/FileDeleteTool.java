@@ -1,18 +1,15 @@
 package com.zcw.voya.ai.tools;
 
 import cn.hutool.json.JSONObject;
-import com.zcw.voya.constant.AppConstant;
+import com.zcw.voya.core.workspace.ProjectWorkspace;
+import com.zcw.voya.core.workspace.ProjectWorkspaceManager;
 import dev.langchain4j.agent.tool.P;
 import dev.langchain4j.agent.tool.Tool;
 import dev.langchain4j.agent.tool.ToolMemoryId;
+import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
-import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-
 /**
  * 文件删除工具
  * 支持 AI 通过工具调用的方式删除文件
@@ -21,38 +18,31 @@ import java.nio.file.Paths;
 @Component
 public class FileDeleteTool extends BaseTool{
 
+    @Resource
+    private ProjectWorkspaceManager projectWorkspaceManager;
+
     @Tool("删除指定路径的文件")
     public String deleteFile(
             @P("文件的相对路径")
             String relativeFilePath,
             @ToolMemoryId Long appId
     ) {
-        try {
-            Path path = Paths.get(relativeFilePath);
-            if (!path.isAbsolute()) {
-                String projectDirName = "vue_project_" + appId;
-                Path projectRoot = Paths.get(AppConstant.CODE_OUTPUT_ROOT_DIR, projectDirName);
-                path = projectRoot.resolve(relativeFilePath);
-            }
-            if (!Files.exists(path)) {
-                return "警告：文件不存在，无需删除 - " + relativeFilePath;
-            }
-            if (!Files.isRegularFile(path)) {
-                return "错误：指定路径不是文件，无法删除 - " + relativeFilePath;
-            }
-            // 安全检查：避免删除重要文件
-            String fileName = path.getFileName().toString();
-            if (isImportantFile(fileName)) {
-                return "错误：不允许删除重要文件 - " + fileName;
-            }
-            Files.delete(path);
-            log.info("成功删除文件: {}", path.toAbsolutePath());
-            return "文件删除成功: " + relativeFilePath;
-        } catch (IOException e) {
-            String errorMessage = "删除文件失败: " + relativeFilePath + ", 错误: " + e.getMessage();
-            log.error(errorMessage, e);
-            return errorMessage;
+        ProjectWorkspace workspace = projectWorkspaceManager.open(appId);
+        String path = workspace.normalize(relativeFilePath);
+        if (path == null || !(workspace.isFile(path) || workspace.isDirectory(path))) {
+            return "警告：文件不存在，无需删除 - " + relativeFilePath;
         }
+        if (!workspace.isFile(path)) {
+            return "错误：指定路径不是文件，无法删除 - " + relativeFilePath;
+        }
+        // 安全检查：避免删除重要文件
+        String fileName = path.substring(path.lastIndexOf('/') + 1);
+        if (isImportantFile(fileName)) {
+            return "错误：不允许删除重要文件 - " + fileName;
+        }
+        workspace.delete(path);
+        log.info("成功删除文件: {}", path);
+        return "文件删除成功: " + relativeFilePath;
     }
 
     /**
@@ -78,6 +68,11 @@ public class FileDeleteTool extends BaseTool{
         return "deleteFile";
     }
 
+    @Override
+    public String getConflictArgument() {
+        return "relativeFilePath";
+    }
+
     @Override
     public String getDisplayName() {
         return "文件删除";
@@ -1,18 +1,16 @@
 package com.zcw.voya.ai.tools;
 
 import cn.hutool.json.JSONObject;
-import com.zcw.voya.constant.AppConstant;
+import com.zcw.voya.core.workspace.ProjectWorkspace;
+import com.zcw.voya.core.workspace.ProjectWorkspaceManager;
 import dev.langchain4j.agent.tool.P;
 import dev.langchain4j.agent.tool.Tool;
 import dev.langchain4j.agent.tool.ToolMemoryId;
+import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardOpenOption;
 
 /**
  * 文件修改工具
@@ -22,6 +20,9 @@ import java.nio.file.StandardOpenOption;
 @Component
 public class FileModifyTool extends BaseTool {
 
+    @Resource
+    private ProjectWorkspaceManager projectWorkspaceManager;
+
     @Tool("修改文件内容，用新内容替换指定的旧内容")
     public String modifyFile(
             @P("文件的相对路径")
@@ -33,16 +34,12 @@ public class FileModifyTool extends BaseTool {
             @ToolMemoryId Long appId
     ) {
         try {
-            Path path = Paths.get(relativeFilePath);
-            if (!path.isAbsolute()) {
-                String projectDirName = "vue_project_" + appId;
-                Path projectRoot = Paths.get(AppConstant.CODE_OUTPUT_ROOT_DIR, projectDirName);
-                path = projectRoot.resolve(relativeFilePath);
-            }
-            if (!Files.exists(path) || !Files.isRegularFile(path)) {
+            ProjectWorkspace workspace = projectWorkspaceManager.open(appId);
+            String path = workspace.normalize(relativeFilePath);
+            String originalContent = path == null ? null : workspace.read(path);
+            if (originalContent == null) {
                 return "错误：文件不存在或不是文件 - " + relativeFilePath;
             }
-            String originalContent = Files.readString(path);
             if (!originalContent.contains(oldContent)) {
                 return "警告：文件中未找到要替换的内容，文件未修改 - " + relativeFilePath;
             }
@@ -50,8 +47,8 @@ public class FileModifyTool extends BaseTool {
             if (originalContent.equals(modifiedContent)) {
                 return "信息：替换后文件内容未发生变化 - " + relativeFilePath;
             }
-            Files.writeString(path, modifiedContent, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
-            log.info("成功修改文件: {}", path.toAbsolutePath());
+            workspace.write(path, modifiedContent);
+            log.info("成功修改文件: {}", path);
             return "文件修改成功: " + relativeFilePath;
         } catch (IOException e) {
             String errorMessage = "修改文件失败: " + relativeFilePath + ", 错误: " + e.getMessage();
@@ -65,6 +62,11 @@ public class FileModifyTool extends BaseTool {
         return "modifyFile";
     }
 
+    @Override
+    public String getConflictArgument() {
+        return "relativeFilePath";
+    }
+
     @Override
     public String getDisplayName() {
         return "文件修改";
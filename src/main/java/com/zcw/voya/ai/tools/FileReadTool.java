@@ -1,17 +1,16 @@
 package com.zcw.voya.ai.tools;
 
 import cn.hutool.json.JSONObject;
-import com.zcw.voya.constant.AppConstant;
+import com.zcw.voya.core.workspace.ProjectWorkspace;
+import com.zcw.voya.core.workspace.ProjectWorkspaceManager;
 import dev.langchain4j.agent.tool.P;
 import dev.langchain4j.agent.tool.Tool;
 import dev.langchain4j.agent.tool.ToolMemoryId;
+import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 
 /**
  * 文件读取工具
@@ -21,6 +20,9 @@ import java.nio.file.Paths;
 @Component
 public class FileReadTool extends BaseTool{
 
+    @Resource
+    private ProjectWorkspaceManager projectWorkspaceManager;
+
     @Tool("读取指定路径的文件内容")
     public String readFile(
             @P("文件的相对路径")
@@ -28,16 +30,13 @@ public class FileReadTool extends BaseTool{
             @ToolMemoryId Long appId
     ) {
         try {
-            Path path = Paths.get(relativeFilePath);
-            if (!path.isAbsolute()) {
-                String projectDirName = "vue_project_" + appId;
-                Path projectRoot = Paths.get(AppConstant.CODE_OUTPUT_ROOT_DIR, projectDirName);
-                path = projectRoot.resolve(relativeFilePath);
-            }
-            if (!Files.exists(path) || !Files.isRegularFile(path)) {
+            ProjectWorkspace workspace = projectWorkspaceManager.open(appId);
+            String path = workspace.normalize(relativeFilePath);
+            String content = path == null ? null : workspace.read(path);
+            if (content == null) {
                 return "错误：文件不存在或不是文件 - " + relativeFilePath;
             }
-            return Files.readString(path);
+            return content;
         } catch (IOException e) {
             String errorMessage = "读取文件失败: " + relativeFilePath + ", 错误: " + e.getMessage();
             log.error(errorMessage, e);
@@ -50,6 +49,11 @@ public class FileReadTool extends BaseTool{
         return "readFile";
     }
 
+    @Override
+    public String getConflictArgument() {
+        return "relativeFilePath";
+    }
+
     @Override
     public String getDisplayName() {
         return "文件读取";
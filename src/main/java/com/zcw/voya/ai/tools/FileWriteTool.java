@@ -1,19 +1,15 @@
 package com.zcw.voya.ai.tools;
 
 import cn.hutool.json.JSONObject;
-import com.zcw.voya.constant.AppConstant;
+import com.zcw.voya.core.workspace.ProjectWorkspace;
+import com.zcw.voya.core.workspace.ProjectWorkspaceManager;
 import dev.langchain4j.agent.tool.P;
 import dev.langchain4j.agent.tool.Tool;
 import dev.langchain4j.agent.tool.ToolMemoryId;
+import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
-import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardOpenOption;
-
 /**
  * 文件写入工具
  * 支持 AI 通过工具调用的方式写入文件
@@ -22,6 +18,9 @@ import java.nio.file.StandardOpenOption;
 @Component
 public class FileWriteTool extends BaseTool {
 
+    @Resource
+    private ProjectWorkspaceManager projectWorkspaceManager;
+
     @Tool("写入文件到指定路径")
     public String writeFile(
             @P("文件的相对路径")
@@ -30,31 +29,16 @@ public class FileWriteTool extends BaseTool {
             String content,
             @ToolMemoryId Long appId
     ) {
-        try {
-            Path path = Paths.get(relativeFilePath);
-            if (!path.isAbsolute()) {
-                // 相对路径处理，创建基于 appId 的项目目录
-                String projectDirName = "vue_project_" + appId;
-                Path projectRoot = Paths.get(AppConstant.CODE_OUTPUT_ROOT_DIR, projectDirName);
-                path = projectRoot.resolve(relativeFilePath);
-            }
-            // 创建父目录（如果不存在）
-            Path parentDir = path.getParent();
-            if (parentDir != null) {
-                Files.createDirectories(parentDir);
-            }
-            // 写入文件内容
-            Files.write(path, content.getBytes(),
-                    StandardOpenOption.CREATE,
-                    StandardOpenOption.TRUNCATE_EXISTING);
-            log.info("成功写入文件: {}", path.toAbsolutePath());
-            // 注意要返回相对路径，不能让 AI 把文件绝对路径返回给用户
-            return "文件写入成功: " + relativeFilePath;
-        } catch (IOException e) {
-            String errorMessage = "文件写入失败: " + relativeFilePath + ", 错误: " + e.getMessage();
-            log.error(errorMessage, e);
-            return errorMessage;
+        // 写入内存工作区，生成结束后统一写回磁盘
+        ProjectWorkspace workspace = projectWorkspaceManager.open(appId);
+        String path = workspace.normalize(relativeFilePath);
+        if (path == null || path.isEmpty()) {
+            return "错误：只能写入项目目录内的文件 - " + relativeFilePath;
         }
+        workspace.write(path, content);
+        log.info("成功写入文件: {}", path);
+        // 注意要返回相对路径，不能让 AI 把文件绝对路径返回给用户
+        return "文件写入成功: " + relativeFilePath;
     }
 
     @Override
@@ -62,6 +46,11 @@ public class FileWriteTool extends BaseTool {
         return "writeFile";
     }
 
+    @Override
+    public String getConflictArgument() {
+        return "relativeFilePath";
+    }
+
     @Override
     public String getDisplayName() {
         return "文件写入";
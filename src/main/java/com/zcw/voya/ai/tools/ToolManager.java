@@ -1,5 +1,7 @@
 package com.zcw.voya.ai.tools;
 
+import com.zcw.voya.config.AiServiceConfig;
+import dev.langchain4j.service.ParallelToolExecution;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
@@ -26,6 +28,14 @@ public class ToolManager {
     @Resource
     private BaseTool[] tools;
 
+    @Resource
+    private AiServiceConfig aiServiceConfig;
+
+    /**
+     * 同一轮内哪些工具调用可以并行执行，未开启时逐个执行
+     */
+    private ParallelToolExecution parallelToolExecution = ParallelToolExecution.DISABLED;
+
     /**
      * 初始化工具映射
      */
@@ -36,6 +46,17 @@ public class ToolManager {
             log.info("工具 {} 注册成功",tool.getToolName());
         }
         log.info("工具管理器初始化完成，共注册：{}个工具",map.size());
+        // 声明了冲突参数的工具允许同一轮内并行执行
+        if (aiServiceConfig.isParallelTools()) {
+            Map<String, String> isolatedTools = new HashMap<>();
+            for (BaseTool tool : tools) {
+                if (tool.getConflictArgument() != null) {
+                    isolatedTools.put(tool.getToolName(), tool.getConflictArgument());
+                }
+            }
+            parallelToolExecution = new ParallelToolExecution(isolatedTools);
+            log.info("已开启工具并行执行：{}", isolatedTools.keySet());
+        }
     }
 
     /**
@@ -54,4 +75,12 @@ public class ToolManager {
     public BaseTool[] getAllTools(){
         return tools;
     }
+
+    /**
+     * 获取工具并行执行计划，设置到使用工具的 TokenStream 上
+     * @return 工具并行执行计划
+     */
+    public ParallelToolExecution getParallelToolExecution(){
+        return parallelToolExecution;
+    }
 }
@@ -0,0 +1,34 @@
+package com.zcw.voya.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * AI 代码生成服务配置
+ */
+@Configuration
+@ConfigurationProperties(prefix = "voya.ai-service")
+@Data
+public class AiServiceConfig {
+
+    /**
+     * 是否每种生成类型共用一个 AI 服务实例（对话记忆按 appId 区分），关闭后每个应用单独创建实例
+     */
+    private boolean sharedProxy = true;
+
+    /**
+     * 共用实例模式下缓存的对话记忆数量
+     */
+    private long memoryCacheSize = 1000;
+
+    /**
+     * 共用实例模式下对话记忆访问后的过期时间（分钟）
+     */
+    private long memoryExpireMinutes = 10;
+
+    /**
+     * 是否并行执行同一轮中相互独立的工具调用（仅限声明了冲突参数的工具，且操作对象不同）
+     */
+    private boolean parallelTools = false;
+}
@@ -0,0 +1,24 @@
+package com.zcw.voya.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 创建应用配置
+ */
+@Configuration
+@ConfigurationProperties(prefix = "voya.app-creation")
+@Data
+public class AppCreationConfig {
+
+    /**
+     * 路由选择生成类型的超时时间（毫秒），超时使用默认类型
+     */
+    private long routeTimeoutMs = 5000;
+
+    /**
+     * 生成应用名称的超时时间（毫秒），超时使用提示词前缀
+     */
+    private long nameTimeoutMs = 5000;
+}
@@ -0,0 +1,35 @@
+package com.zcw.voya.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 对话历史异步批量写入配置
+ * 对话历史先进入内存队列，由后台线程合并成多行 INSERT 写入数据库
+ */
+@Configuration
+@ConfigurationProperties(prefix = "voya.chat-history.write-behind")
+@Data
+public class ChatHistoryWriteBehindConfig {
+
+    /**
+     * 是否开启异步批量写入，关闭后每条记录同步写入
+     */
+    private boolean enabled = true;
+
+    /**
+     * 队列容量，队列满时退化为同步写入
+     */
+    private int capacity = 10000;
+
+    /**
+     * 单次批量写入的最大行数
+     */
+    private int batchSize = 200;
+
+    /**
+     * 定时刷写间隔（毫秒）
+     */
+    private long flushIntervalMs = 500;
+}
@@ -0,0 +1,87 @@
+package com.zcw.voya.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 对话记忆配置
+ * 按生成类型限制记忆的 token 数，超出时较早的对话被移出记忆并异步压缩成摘要
+ */
+@Configuration
+@ConfigurationProperties(prefix = "voya.chat-memory")
+@Data
+public class ChatMemoryConfig {
+
+    /**
+     * 各生成类型的 token 预算，键为生成类型的 value
+     */
+    private Map<String, Integer> tokenBudget = new HashMap<>(Map.of(
+            "html", 8000,
+            "multi_file", 8000,
+            "vue_project", 24000
+    ));
+
+    /**
+     * 未配置预算的生成类型使用的默认预算
+     */
+    private int defaultTokenBudget = 8000;
+
+    /**
+     * 记忆中最多保留的消息数
+     */
+    private int maxMessages = 50;
+
+    /**
+     * 是否把移出记忆的对话压缩成摘要
+     */
+    private boolean summaryEnabled = true;
+
+    /**
+     * 摘要的最大字数
+     */
+    private int summaryMaxChars = 800;
+
+    /**
+     * 压缩时每条消息最多取的字数，生成的代码只需要保留开头
+     */
+    private int summaryInputMaxChars = 2000;
+
+    /**
+     * 一轮对话中移出的消息超过该 token 数时提前压缩，否则在一轮结束时压缩一次
+     */
+    private int summaryBatchTokens = 8000;
+
+    /**
+     * 加载历史时是否把 AI 回复中的代码块替换成引用，并一次性附上工作目录中的最新文件
+     */
+    private boolean elideCodeBlocks = true;
+
+    /**
+     * 附上的最新文件内容最多占该生成类型 token 预算的比例，超出时只列出文件
+     */
+    private double workspaceSnapshotBudgetRatio = 0.5;
+
+    /**
+     * 获取生成类型的 token 预算
+     *
+     * @param codeGenType 生成类型的 value
+     * @return token 预算
+     */
+    public int getTokenBudget(String codeGenType) {
+        return tokenBudget.getOrDefault(codeGenType, defaultTokenBudget);
+    }
+
+    /**
+     * 获取生成类型附上最新文件内容的 token 上限
+     *
+     * @param codeGenType 生成类型的 value
+     * @return token 上限
+     */
+    public int getWorkspaceSnapshotMaxTokens(String codeGenType) {
+        return (int) (getTokenBudget(codeGenType) * workspaceSnapshotBudgetRatio);
+    }
+}
@@ -1,9 +1,14 @@
 package com.zcw.voya.config;
 
+import com.zcw.voya.manager.TokenUsageAggregator;
+import dev.langchain4j.model.chat.listener.ChatModelErrorContext;
 import dev.langchain4j.model.chat.listener.ChatModelListener;
 import dev.langchain4j.model.chat.listener.ChatModelResponseContext;
+import dev.langchain4j.model.chat.request.ChatRequest;
 import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.StreamingCancellation;
 import dev.langchain4j.model.output.TokenUsage;
+import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -15,18 +20,35 @@ import org.springframework.context.annotation.Configuration;
 @Slf4j
 public class ChatModelListenerConfig {
 
+    @Resource
+    private TokenUsageAggregator tokenUsageAggregator;
+
     @Bean
     ChatModelListener chatModelListener() {
         return new ChatModelListener(){
             @Override
             public void onResponse(ChatModelResponseContext responseContext) {
-                // 记录每次请求消耗的Token
+                // 记录每次请求消耗的Token，按用户、应用、模型、生成类型聚合
                 ChatResponse chatResponse = responseContext.chatResponse();
                 TokenUsage tokenUsage = chatResponse.tokenUsage();
-                log.info("输入的token：{}", tokenUsage.inputTokenCount());
-                log.info("输出的token：{}", tokenUsage.outputTokenCount());
-                log.info("总token：{}", tokenUsage.totalTokenCount());
+                Object memoryId = responseContext.attributes().get(StreamingCancellation.MEMORY_ID_ATTRIBUTE);
+                String modelName = chatResponse.modelName() != null
+                        ? chatResponse.modelName() : modelName(responseContext.chatRequest());
+                Integer inputTokens = tokenUsage == null ? null : tokenUsage.inputTokenCount();
+                Integer outputTokens = tokenUsage == null ? null : tokenUsage.outputTokenCount();
+                tokenUsageAggregator.record(memoryId, modelName, inputTokens, outputTokens, true);
+                log.debug("模型：{}，memoryId：{}，输入的token：{}，输出的token：{}", modelName, memoryId, inputTokens, outputTokens);
+            }
+
+            @Override
+            public void onError(ChatModelErrorContext errorContext) {
+                Object memoryId = errorContext.attributes().get(StreamingCancellation.MEMORY_ID_ATTRIBUTE);
+                tokenUsageAggregator.record(memoryId, modelName(errorContext.chatRequest()), null, null, false);
             }
         };
     }
+
+    private static String modelName(ChatRequest chatRequest) {
+        return chatRequest == null || chatRequest.parameters() == null ? null : chatRequest.parameters().modelName();
+    }
 }
@@ -0,0 +1,34 @@
+package com.zcw.voya.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 代码生成类型路由配置
+ */
+@Configuration
+@ConfigurationProperties(prefix = "voya.routing")
+@Data
+public class CodeGenRoutingConfig {
+
+    /**
+     * 是否启用本地关键词判断，命中明确特征时不调用模型
+     */
+    private boolean heuristicEnabled = true;
+
+    /**
+     * 本地缓存的路由结果数量
+     */
+    private long localCacheSize = 10000;
+
+    /**
+     * 本地缓存写入后的过期时间（分钟）
+     */
+    private long localExpireMinutes = 60;
+
+    /**
+     * Redis 缓存的过期时间（小时）
+     */
+    private long redisTtlHours = 168;
+}
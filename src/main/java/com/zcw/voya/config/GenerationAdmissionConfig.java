@@ -0,0 +1,49 @@
+package com.zcw.voya.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 生成准入控制配置
+ * 按模型限制同时进行的流式生成数，超出的请求按优先级排队，等待超时或队列已满时直接拒绝，
+ * 避免流量高峰时打满上游配额导致所有请求一起失败
+ */
+@Configuration
+@ConfigurationProperties(prefix = "voya.generation.admission")
+@Data
+public class GenerationAdmissionConfig {
+
+    /**
+     * 是否开启准入控制
+     */
+    private boolean enabled = true;
+
+    /**
+     * 各模型同时进行的流式生成数上限，key 为模型（streaming / reasoning）
+     */
+    private Map<String, Integer> maxConcurrentStreams = new HashMap<>();
+
+    /**
+     * 未单独配置的模型使用的上限
+     */
+    private int defaultMaxConcurrentStreams = 16;
+
+    /**
+     * 每个模型最多排队的请求数
+     */
+    private int maxQueueSize = 200;
+
+    /**
+     * 最长排队时间（秒），超时的请求直接拒绝
+     */
+    private long queueTimeoutSeconds = 60;
+
+    public int maxConcurrentStreams(String model) {
+        Integer limit = maxConcurrentStreams.get(model);
+        return Math.max(1, limit == null ? defaultMaxConcurrentStreams : limit);
+    }
+}
@@ -0,0 +1,35 @@
+package com.zcw.voya.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 生成会话配置
+ * 断线重连时通过 Last-Event-ID 接回正在进行或已完成的生成，避免重复调用模型和扣减额度
+ */
+@Configuration
+@ConfigurationProperties(prefix = "voya.stream.session")
+@Data
+public class GenerationSessionConfig {
+
+    /**
+     * 内存中保留的事件数（环形缓冲区大小）
+     */
+    private int bufferSize = 2048;
+
+    /**
+     * 所有客户端断开后，继续生成等待重连的时间（秒），超时后取消生成
+     */
+    private long detachTimeoutSeconds = 60;
+
+    /**
+     * 生成结束后会话保留的时间（秒），期间可以重放
+     */
+    private long retentionSeconds = 300;
+
+    /**
+     * 是否把事件溢写到 Redis（超出缓冲区的事件和已完成会话的事件）
+     */
+    private boolean redisSpill = false;
+}
@@ -0,0 +1,91 @@
+package com.zcw.voya.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 流式模型对冲请求与多端点故障转移配置
+ * 配置了备用端点时，首个 token 超时未到达就向下一个端点发送对冲请求，采用先出结果的一路并取消另一路；
+ * 每个端点单独统计健康度并熔断
+ */
+@Configuration
+@ConfigurationProperties(prefix = "voya.llm.failover")
+@Data
+public class LlmFailoverConfig {
+
+    /**
+     * 是否开启，未配置备用端点时不生效
+     */
+    private boolean enabled = true;
+
+    /**
+     * 各模型首个 token 的等待时间（毫秒），超时后发送对冲请求，key 为模型（streaming / reasoning）。
+     * 推理模型先输出思考过程，正文的首个 token 要晚得多，需要单独配置更长的时间
+     */
+    private Map<String, Long> firstTokenTimeoutMs = new HashMap<>();
+
+    /**
+     * 未单独配置的模型首个 token 的等待时间（毫秒）
+     */
+    private long defaultFirstTokenTimeoutMs = 8000;
+
+    /**
+     * 同时进行的最大请求数（含首个请求）
+     */
+    private int maxParallelAttempts = 2;
+
+    /**
+     * 连续失败多少次后熔断端点
+     */
+    private int failureThreshold = 3;
+
+    /**
+     * 熔断持续时间（秒），到期后放行一个试探请求
+     */
+    private long openDurationSeconds = 30;
+
+    /**
+     * 普通流式模型的备用端点，按优先级排列
+     */
+    private List<Endpoint> streamingEndpoints = new ArrayList<>();
+
+    /**
+     * 推理流式模型的备用端点，按优先级排列
+     */
+    private List<Endpoint> reasoningEndpoints = new ArrayList<>();
+
+    public long firstTokenTimeoutMs(String model) {
+        Long timeout = firstTokenTimeoutMs.get(model);
+        return timeout == null ? defaultFirstTokenTimeoutMs : timeout;
+    }
+
+    /**
+     * 备用端点
+     */
+    @Data
+    public static class Endpoint {
+
+        /**
+         * 端点名称，用于监控指标
+         */
+        private String name;
+
+        private String baseUrl;
+
+        /**
+         * 为空时使用主端点的 apiKey
+         */
+        private String apiKey;
+
+        /**
+         * 为空时使用主端点的模型
+         */
+        private String modelName;
+    }
+}
@@ -0,0 +1,28 @@
+package com.zcw.voya.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 大模型 HTTP 客户端配置
+ * 所有模型实例共用一个 JDK HttpClient，复用连接，避免每次创建模型都重新建立 TCP/TLS 连接
+ * <p>
+ * 连接池大小和保活时间是 JDK 的系统属性，只在 HttpClient 类首次加载时读取一次，
+ * 需要在启动参数中设置，例如 -Djdk.httpclient.connectionPoolSize=0 -Djdk.httpclient.keepalive.timeout=300
+ */
+@Configuration
+@ConfigurationProperties(prefix = "voya.llm.http-client")
+@Data
+public class LlmHttpClientConfig {
+
+    /**
+     * 是否优先使用 HTTP/2（HTTPS 下通过 ALPN 协商，同一连接上多路复用多个流）
+     */
+    private boolean http2 = true;
+
+    /**
+     * 连接超时（秒）
+     */
+    private long connectTimeoutSeconds = 15;
+}
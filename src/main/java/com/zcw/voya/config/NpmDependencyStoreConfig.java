@@ -0,0 +1,37 @@
+package com.zcw.voya.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * npm 依赖库配置
+ * Vue 项目按依赖声明的哈希共享 node_modules，只有依赖组合第一次出现时才执行 npm install
+ */
+@Configuration
+@ConfigurationProperties(prefix = "voya.build.npm-store")
+@Data
+public class NpmDependencyStoreConfig {
+
+    /**
+     * 是否启用共享依赖库，关闭后每个项目单独执行 npm install
+     */
+    private boolean enabled = true;
+
+    /**
+     * 依赖库目录，每种依赖组合一个子目录 {hash}/node_modules
+     */
+    private String storeDir = System.getProperty("user.dir") + "/tmp/npm_store";
+
+    /**
+     * npm 下载缓存目录，npm install 使用 --prefer-offline 优先从这里取包
+     */
+    private String cacheDir = System.getProperty("user.dir") + "/tmp/npm_cache";
+
+    /**
+     * node_modules 接入项目的方式：hardlink（逐个文件硬链接）或 symlink（符号链接），符号链接失败时自动改用硬链接
+     * <p>
+     * symlink 模式下构建写入 node_modules 的缓存（如 .vite、.cache）会落在共享条目中，并发构建会互相影响
+     */
+    private String linkMode = "hardlink";
+}
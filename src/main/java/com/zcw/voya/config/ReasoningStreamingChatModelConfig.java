@@ -1,13 +1,19 @@
 package com.zcw.voya.config;
 
+import cn.hutool.core.util.StrUtil;
+import com.zcw.voya.ai.failover.LlmEndpointRegistry;
+import com.zcw.voya.ai.http.LlmHttpClientPool;
 import dev.langchain4j.model.chat.StreamingChatModel;
 import dev.langchain4j.model.openai.OpenAiStreamingChatModel;
+import jakarta.annotation.Resource;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Scope;
 
+import java.util.List;
+
 /**
  * 构造用户生成vue项目的流式推理模型对象
  */
@@ -16,6 +22,18 @@ import org.springframework.context.annotation.Scope;
 @Data
 public class ReasoningStreamingChatModelConfig {
 
+    @Resource
+    private ChatModelListenerConfig chatModelListenerConfig;
+
+    @Resource
+    private LlmHttpClientPool llmHttpClientPool;
+
+    @Resource
+    private LlmEndpointRegistry llmEndpointRegistry;
+
+    @Resource
+    private LlmFailoverConfig llmFailoverConfig;
+
     private String apiKey;
 
     private String baseUrl;
@@ -31,6 +49,15 @@ public class ReasoningStreamingChatModelConfig {
     @Bean
     @Scope("prototype")
     public StreamingChatModel reasoningStreamingChatModelPrototype() {
+        StreamingChatModel primary = buildModel(baseUrl, apiKey, modelName);
+        // 配置了备用端点时包装为支持对冲与故障转移的模型
+        return llmEndpointRegistry.withFailover("reasoning", primary, llmFailoverConfig.getReasoningEndpoints(),
+                endpoint -> buildModel(endpoint.getBaseUrl(),
+                        StrUtil.blankToDefault(endpoint.getApiKey(), apiKey),
+                        StrUtil.blankToDefault(endpoint.getModelName(), modelName)));
+    }
+
+    private StreamingChatModel buildModel(String baseUrl, String apiKey, String modelName) {
         return OpenAiStreamingChatModel.builder()
                 .apiKey(apiKey)
                 .baseUrl(baseUrl)
@@ -38,6 +65,9 @@ public class ReasoningStreamingChatModelConfig {
                 .maxTokens(maxTokens)
                 .logRequests(true)
                 .logResponses(true)
+                .listeners(List.of(chatModelListenerConfig.chatModelListener()))
+                // 共用 HTTP 客户端，支持客户端断开后中断上游 SSE 连接
+                .httpClientBuilder(llmHttpClientPool.newHttpClientBuilder())
                 .build();
     }
 }
@@ -1,13 +1,17 @@
 package com.zcw.voya.config;
 
+import com.zcw.voya.ai.http.LlmHttpClientPool;
 import dev.langchain4j.model.chat.ChatModel;
 import dev.langchain4j.model.openai.OpenAiChatModel;
+import jakarta.annotation.Resource;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Scope;
 
+import java.util.List;
+
 /**
  * 简单任务的模型配置
  */
@@ -16,6 +20,12 @@ import org.springframework.context.annotation.Scope;
 @Data
 public class SimpleAiTaskModelConfig {
 
+    @Resource
+    private ChatModelListenerConfig chatModelListenerConfig;
+
+    @Resource
+    private LlmHttpClientPool llmHttpClientPool;
+
     private String baseUrl;
 
     private String apiKey;
@@ -44,6 +54,9 @@ public class SimpleAiTaskModelConfig {
                 .temperature(temperature)
                 .logRequests(logRequests)
                 .logResponses(logResponses)
+                .listeners(List.of(chatModelListenerConfig.chatModelListener()))
+                // 共用 HTTP 客户端，复用连接
+                .httpClientBuilder(llmHttpClientPool.newHttpClientBuilder())
                 .build();
     }
 }
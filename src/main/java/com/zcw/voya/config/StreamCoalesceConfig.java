@@ -0,0 +1,30 @@
+package com.zcw.voya.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * SSE 输出合并配置
+ * 模型的增量片段通常只有 1-3 个字符，按时间或大小合并后再下发
+ */
+@Configuration
+@ConfigurationProperties(prefix = "voya.stream.coalesce")
+@Data
+public class StreamCoalesceConfig {
+
+    /**
+     * 是否开启合并
+     */
+    private boolean enabled = true;
+
+    /**
+     * 最长合并时间（毫秒），缓冲区中第一个片段最多等待这么久就会下发
+     */
+    private long maxDelayMs = 40;
+
+    /**
+     * 单帧最大字节数（UTF-8），达到后立即下发
+     */
+    private int maxBytes = 2048;
+}
@@ -1,5 +1,8 @@
 package com.zcw.voya.config;
 
+import cn.hutool.core.util.StrUtil;
+import com.zcw.voya.ai.failover.LlmEndpointRegistry;
+import com.zcw.voya.ai.http.LlmHttpClientPool;
 import dev.langchain4j.model.chat.StreamingChatModel;
 import dev.langchain4j.model.openai.OpenAiStreamingChatModel;
 import jakarta.annotation.Resource;
@@ -22,6 +25,15 @@ public class StreamingChatModelConfig {
     @Resource
     private ChatModelListenerConfig chatModelListenerConfig;
 
+    @Resource
+    private LlmHttpClientPool llmHttpClientPool;
+
+    @Resource
+    private LlmEndpointRegistry llmEndpointRegistry;
+
+    @Resource
+    private LlmFailoverConfig llmFailoverConfig;
+
     private String baseUrl;
 
     private String apiKey;
@@ -42,6 +54,15 @@ public class StreamingChatModelConfig {
     @Bean
     @Scope("prototype")
     public StreamingChatModel streamingChatModelPrototype() {
+        StreamingChatModel primary = buildModel(baseUrl, apiKey, modelName);
+        // 配置了备用端点时包装为支持对冲与故障转移的模型
+        return llmEndpointRegistry.withFailover("streaming", primary, llmFailoverConfig.getStreamingEndpoints(),
+                endpoint -> buildModel(endpoint.getBaseUrl(),
+                        StrUtil.blankToDefault(endpoint.getApiKey(), apiKey),
+                        StrUtil.blankToDefault(endpoint.getModelName(), modelName)));
+    }
+
+    private StreamingChatModel buildModel(String baseUrl, String apiKey, String modelName) {
         return OpenAiStreamingChatModel.builder()
                 .apiKey(apiKey)
                 .baseUrl(baseUrl)
@@ -51,6 +72,8 @@ public class StreamingChatModelConfig {
                 .logRequests(logRequests)
                 .logResponses(logResponses)
                 .listeners(List.of(chatModelListenerConfig.chatModelListener()))
+                // 共用 HTTP 客户端，支持客户端断开后中断上游 SSE 连接
+                .httpClientBuilder(llmHttpClientPool.newHttpClientBuilder())
                 .build();
     }
 }
\ No newline at end of file
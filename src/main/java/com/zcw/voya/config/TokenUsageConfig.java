@@ -0,0 +1,35 @@
+package com.zcw.voya.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * token 用量统计配置
+ * 模型调用的 token 用量先在内存中按天、用户、应用、模型、生成类型聚合，再定时批量累加写入数据库
+ */
+@Configuration
+@ConfigurationProperties(prefix = "voya.token-usage")
+@Data
+public class TokenUsageConfig {
+
+    /**
+     * 是否把用量写入数据库，关闭后只记录监控指标
+     */
+    private boolean persistEnabled = true;
+
+    /**
+     * 定时刷写间隔（毫秒）
+     */
+    private long flushIntervalMs = 10000;
+
+    /**
+     * 单次批量写入的最大行数
+     */
+    private int batchSize = 500;
+
+    /**
+     * 应用归属（用户、生成类型）本地缓存的最大条数
+     */
+    private int appCacheSize = 10000;
+}
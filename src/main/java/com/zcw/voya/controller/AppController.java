@@ -1,6 +1,5 @@
 package com.zcw.voya.controller;
 
-import cn.hutool.json.JSONUtil;
 import com.mybatisflex.core.paginate.Page;
 import com.zcw.voya.annotation.AuthCheck;
 import com.zcw.voya.common.BaseResponse;
@@ -8,6 +7,8 @@ import com.zcw.voya.common.DeleteRequest;
 import com.zcw.voya.common.ResultUtils;
 import com.zcw.voya.constant.AppConstant;
 import com.zcw.voya.constant.UserConstant;
+import com.zcw.voya.core.handler.StreamHandlerExecutor;
+import com.zcw.voya.core.session.GenerationSessionManager;
 import com.zcw.voya.exception.BusinessException;
 import com.zcw.voya.exception.ErrorCode;
 import com.zcw.voya.exception.ThrowUtils;
@@ -18,8 +19,6 @@ import com.zcw.voya.model.dto.app.AppUpdateRequest;
 import com.zcw.voya.model.entity.App;
 import com.zcw.voya.model.entity.User;
 import com.zcw.voya.model.vo.AppVO;
-import com.zcw.voya.ratelimiter.annotation.RateLimit;
-import com.zcw.voya.ratelimiter.enums.RateLimitType;
 import com.zcw.voya.service.AppService;
 import com.zcw.voya.service.ProjectDownloadService;
 import com.zcw.voya.service.UserService;
@@ -32,7 +31,6 @@ import org.springframework.http.MediaType;
 import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
-import reactor.core.publisher.Mono;
 
 import java.io.File;
 import java.util.HashMap;
@@ -53,6 +51,8 @@ public class AppController {
     private UserService userService;
     @Resource
     private ProjectDownloadService projectDownloadService;
+    @Resource
+    private GenerationSessionManager generationSessionManager;
 
     /**
      * 应用部署
@@ -70,34 +70,26 @@ public class AppController {
 
     /**
      * 聊天生成代码（SSE）
+     * 连接断开后浏览器会带上 Last-Event-ID 自动重连，接回同一次生成并补发错过的事件，不会重复生成和扣减额度，也不计入限流（限流在开始生成时才计入）
      *
-     * @param appId   应用id
-     * @param message 初始prompt
-     * @param request 请求
+     * @param appId       应用id
+     * @param message     初始prompt
+     * @param requestId   请求id（可选），同一个 requestId 只生成一次
+     * @param lastEventId 重连时浏览器带上的最后一个事件 id
+     * @param request     请求
      * @return SSE流
      */
     @GetMapping(value = "/chat/gen/code", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
-    @RateLimit(limitType = RateLimitType.USER,rate = 5, rateInterval = 60,message = "请求过于频繁，请稍后再试")
-    public Flux<ServerSentEvent<String>> chatToGenCode(@RequestParam Long appId, @RequestParam String message, HttpServletRequest request) {
+    public Flux<ServerSentEvent<String>> chatToGenCode(@RequestParam Long appId, @RequestParam String message,
+                                                       @RequestParam(required = false) String requestId,
+                                                       @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+                                                       HttpServletRequest request) {
         ThrowUtils.throwIf(appId == null || appId <= 0, ErrorCode.PARAMS_ERROR, "应用id无效");
         ThrowUtils.throwIf(message == null || message.isEmpty(), ErrorCode.PARAMS_ERROR, "初始prompt不能为空");
         User loginUser = userService.getLoginUser(request);
-        Flux<String> flux = appService.chatToGenCode(appId, message, loginUser);
-        return flux
-                .map(chunk -> {
-                    // 包装成json
-                    Map<String, String> map = Map.of("d", chunk);
-                    String jsonStr = JSONUtil.toJsonStr(map);
-                    return ServerSentEvent.<String>builder()
-                            .data(jsonStr)
-                            .build();
-                }).concatWith(Mono.just(
-                        // 发送结束事件
-                        ServerSentEvent.<String>builder()
-                                .data("")
-                                .event("done")
-                                .build()
-                ));
+        return generationSessionManager.attachOrStart(appId, loginUser.getId(), requestId, lastEventId,
+                () -> appService.chatToGenCode(appId, message, loginUser)
+                        .map(StreamHandlerExecutor::toSseData));
     }
 
     /**
@@ -0,0 +1,82 @@
+package com.zcw.voya.controller;
+
+import com.zcw.voya.annotation.AuthCheck;
+import com.zcw.voya.common.BaseResponse;
+import com.zcw.voya.common.ResultUtils;
+import com.zcw.voya.constant.UserConstant;
+import com.zcw.voya.model.entity.TokenUsage;
+import com.zcw.voya.service.TokenUsageService;
+import jakarta.annotation.Resource;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * token 用量 控制层。
+ * 仅管理员可用，数据来自按天聚合的用量表
+ *
+ * @author zcw
+ */
+@RestController
+@RequestMapping("/tokenUsage")
+public class TokenUsageController {
+
+    @Resource
+    private TokenUsageService tokenUsageService;
+
+    /**
+     * 管理员查询用量最高的应用
+     *
+     * @param startDate 开始日期（含），默认当天
+     * @param endDate   结束日期（含），默认当天
+     * @param limit     最大条数
+     * @return 每个应用的用量
+     */
+    @GetMapping("/admin/top/app")
+    @AuthCheck(mustRole = UserConstant.ADMIN_ROLE)
+    public BaseResponse<List<TokenUsage>> listTopApps(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+                                                      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+                                                      @RequestParam(defaultValue = "20") int limit) {
+        LocalDate today = LocalDate.now();
+        return ResultUtils.success(tokenUsageService.listTopApps(
+                startDate == null ? today : startDate, endDate == null ? today : endDate, limit));
+    }
+
+    /**
+     * 管理员查询用量最高的用户
+     *
+     * @param startDate 开始日期（含），默认当天
+     * @param endDate   结束日期（含），默认当天
+     * @param limit     最大条数
+     * @return 每个用户的用量
+     */
+    @GetMapping("/admin/top/user")
+    @AuthCheck(mustRole = UserConstant.ADMIN_ROLE)
+    public BaseResponse<List<TokenUsage>> listTopUsers(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+                                                       @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+                                                       @RequestParam(defaultValue = "20") int limit) {
+        LocalDate today = LocalDate.now();
+        return ResultUtils.success(tokenUsageService.listTopUsers(
+                startDate == null ? today : startDate, endDate == null ? today : endDate, limit));
+    }
+
+    /**
+     * 管理员查询应用每天、每个模型的用量
+     *
+     * @param appId     应用ID
+     * @param startDate 开始日期（含），默认 30 天前
+     * @param endDate   结束日期（含），默认当天
+     * @return 用量明细
+     */
+    @GetMapping("/admin/app/{appId}")
+    @AuthCheck(mustRole = UserConstant.ADMIN_ROLE)
+    public BaseResponse<List<TokenUsage>> listAppUsage(@PathVariable Long appId,
+                                                       @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+                                                       @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        LocalDate today = LocalDate.now();
+        return ResultUtils.success(tokenUsageService.listAppUsage(appId,
+                startDate == null ? today.minusDays(30) : startDate, endDate == null ? today : endDate));
+    }
+}
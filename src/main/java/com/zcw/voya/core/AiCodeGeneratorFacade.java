@@ -1,27 +1,38 @@
 package com.zcw.voya.core;
 
-import cn.hutool.json.JSONUtil;
 import com.zcw.voya.ai.AiCodeGeneratorService;
 import com.zcw.voya.ai.AiCodeGeneratorServiceFactory;
 import com.zcw.voya.ai.model.HtmlCodeResult;
 import com.zcw.voya.ai.model.MultiFileCodeResult;
 import com.zcw.voya.ai.model.enums.CodeGenTypeEnum;
 import com.zcw.voya.ai.model.message.AiResponseMessage;
+import com.zcw.voya.ai.model.message.StreamMessage;
 import com.zcw.voya.ai.model.message.ToolExecutedMessage;
 import com.zcw.voya.ai.model.message.ToolRequestMessage;
+import com.zcw.voya.ai.tools.ToolManager;
 import com.zcw.voya.constant.AppConstant;
+import com.zcw.voya.core.admission.AdmissionPriority;
+import com.zcw.voya.core.admission.GenerationAdmissionController;
 import com.zcw.voya.core.build.VueProjectBuilder;
-import com.zcw.voya.core.parser.CodeParserExecutor;
 import com.zcw.voya.core.saver.CodeFileSaverExecutor;
+import com.zcw.voya.core.saver.StreamingCodeFileSaver;
+import com.zcw.voya.core.workspace.ProjectWorkspaceManager;
 import com.zcw.voya.exception.BusinessException;
 import com.zcw.voya.exception.ErrorCode;
+import com.zcw.voya.monitor.GenerationLatencyMetrics;
+import com.zcw.voya.monitor.StreamCancellationMetrics;
+import dev.langchain4j.model.output.TokenUsage;
 import dev.langchain4j.service.TokenStream;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.BufferOverflowStrategy;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import java.io.File;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Ai 代码生成门面类，组合代码生成和文件写入
@@ -36,6 +47,26 @@ public class AiCodeGeneratorFacade {
     @Resource
     private VueProjectBuilder vueProjectBuilder;
 
+    @Resource
+    private StreamCancellationMetrics streamCancellationMetrics;
+
+    @Resource
+    private GenerationLatencyMetrics generationLatencyMetrics;
+
+    @Resource
+    private GenerationAdmissionController generationAdmissionController;
+
+    @Resource
+    private ProjectWorkspaceManager projectWorkspaceManager;
+
+    @Resource
+    private ToolManager toolManager;
+
+    /**
+     * 单个流最多缓冲的消息数
+     */
+    private static final int MAX_BUFFERED_MESSAGES = 8192;
+
     /**
      * 统一入口：根据类型生成代码并保存（阻塞）
      *
@@ -50,11 +81,11 @@ public class AiCodeGeneratorFacade {
         }
         return switch (codeGenTypeEnum) {
             case HTML -> {
-                HtmlCodeResult htmlCodeResult = aiCodeGeneratorService.generateHtmlCode(prompt);
+                HtmlCodeResult htmlCodeResult = aiCodeGeneratorService.generateHtmlCode(appId, prompt);
                 yield CodeFileSaverExecutor.executorSaver(htmlCodeResult, codeGenTypeEnum, appId);
             }
             case MULTI_FILE -> {
-                MultiFileCodeResult multiFileCodeResult = aiCodeGeneratorService.generateMultiFileCode(prompt);
+                MultiFileCodeResult multiFileCodeResult = aiCodeGeneratorService.generateMultiFileCode(appId, prompt);
                 yield CodeFileSaverExecutor.executorSaver(multiFileCodeResult, codeGenTypeEnum, appId);
             }
             default -> {
@@ -70,10 +101,38 @@ public class AiCodeGeneratorFacade {
      * @param codeGenTypeEnum
      * @return
      */
-    public Flux<String> generateCodeStream(String prompt, CodeGenTypeEnum codeGenTypeEnum, Long appId) {
+    public Flux<StreamMessage> generateCodeStream(String prompt, CodeGenTypeEnum codeGenTypeEnum, Long appId) {
+        return generateCodeStream(prompt, codeGenTypeEnum, appId, AdmissionPriority.NORMAL, null);
+    }
+
+    /**
+     * 统一入口：根据类型生成代码并保存（流式），经过准入控制
+     * 模型并发额度用完时按优先级排队，获得准入后才加载记忆、请求模型
+     *
+     * @param prompt          用户提示词
+     * @param codeGenTypeEnum 生成类型
+     * @param appId           应用ID
+     * @param priority        排队优先级
+     * @param onAdmitted      获得准入后、开始生成前执行（如保存用户消息、扣减额度），排队被拒绝时不执行，可为 null
+     * @return 生成流
+     */
+    public Flux<StreamMessage> generateCodeStream(String prompt, CodeGenTypeEnum codeGenTypeEnum, Long appId,
+                                                  AdmissionPriority priority, Runnable onAdmitted) {
         if (codeGenTypeEnum == null) {
             throw new BusinessException(ErrorCode.PARAMS_ERROR, "请选择代码生成类型");
         }
+        return generationAdmissionController.admit(admissionModel(codeGenTypeEnum), priority, () -> {
+            if (onAdmitted == null) {
+                return generate(prompt, codeGenTypeEnum, appId);
+            }
+            // 准入可能在其他生成结束的线程上发放，数据库操作放到弹性线程池
+            return Mono.fromRunnable(onAdmitted)
+                    .subscribeOn(Schedulers.boundedElastic())
+                    .thenMany(Flux.defer(() -> generate(prompt, codeGenTypeEnum, appId)));
+        });
+    }
+
+    private Flux<StreamMessage> generate(String prompt, CodeGenTypeEnum codeGenTypeEnum, Long appId) {
         log.info("即将开始生成，类型为:{}", codeGenTypeEnum.getValue());
         return switch (codeGenTypeEnum) {
             case HTML -> generateHtmlCodeStream(prompt, appId);
@@ -85,6 +144,13 @@ public class AiCodeGeneratorFacade {
         };
     }
 
+    /**
+     * 生成类型使用的模型，与模型端点名称一致：Vue 项目使用推理模型，其余使用流式模型
+     */
+    private static String admissionModel(CodeGenTypeEnum codeGenTypeEnum) {
+        return codeGenTypeEnum == CodeGenTypeEnum.VUE_PROJECT ? "reasoning" : "streaming";
+    }
+
     /**
      * 生成Vue项目代码流
      *
@@ -92,46 +158,79 @@ public class AiCodeGeneratorFacade {
      * @param appId
      * @return
      */
-    private Flux<String> generateVueProjectStream(String prompt, Long appId) {
+    private Flux<StreamMessage> generateVueProjectStream(String prompt, Long appId) {
         AiCodeGeneratorService service = aiCodeGeneratorServiceFactory.getAiCodeGeneratorService(appId, CodeGenTypeEnum.VUE_PROJECT);
-        TokenStream tokenStream = service.generateVueProjectCodeStream(appId, prompt);
-        return processTokenStream(tokenStream,appId);
+        TokenStream tokenStream = service.generateVueProjectCodeStream(appId, prompt)
+                // 读写不同文件的工具调用并行执行
+                .parallelToolExecution(toolManager.getParallelToolExecution());
+        return processTokenStream(tokenStream, CodeGenTypeEnum.VUE_PROJECT, () -> {
+                    // 工具只写了内存工作区，构建前先写回磁盘
+                    projectWorkspaceManager.close(appId);
+                    // 构建vue项目
+                    String projectPath = AppConstant.CODE_OUTPUT_ROOT_DIR + "/vue_project_" + appId;
+                    vueProjectBuilder.buildProjectAsync(projectPath);
+                })
+                // 失败或取消时也写回已生成的文件并释放工作区
+                .doFinally(signal -> projectWorkspaceManager.close(appId));
     }
 
     /**
      * 处理token流转化为Flux流
+     * 直接下发类型化的消息对象，不在此处序列化
+     * 下游取消（如客户端断开）时取消 TokenStream，中断上游模型请求和后续的工具调用
+     *
+     * @param tokenStream     模型输出流
+     * @param codeGenTypeEnum 生成类型
+     * @param onComplete      生成完成后的回调，可为空
      */
-    private Flux<String> processTokenStream(TokenStream tokenStream,Long appId) {
-        return Flux.create(sink -> {
-            // 部分响应
-            tokenStream.onPartialResponse(partialResponse -> {
-                        AiResponseMessage aiResponseMessage = new AiResponseMessage(partialResponse);
-                        sink.next(JSONUtil.toJsonStr(aiResponseMessage));
-                    })
-                    // 工具请求
-                    .onPartialToolExecutionRequest((index, toolExecutionRequest) -> {
-                        ToolRequestMessage toolRequestMessage = new ToolRequestMessage(toolExecutionRequest);
-                        sink.next(JSONUtil.toJsonStr(toolRequestMessage));
-                    })
-                    // 执行工具
-                    .onToolExecuted(toolExecution -> {
-                        ToolExecutedMessage toolExecutedMessage = new ToolExecutedMessage(toolExecution);
-                        sink.next(JSONUtil.toJsonStr(toolExecutedMessage));
-                    })
-                    // 完成响应
-                    .onCompleteResponse(completeResponse -> {
-                        // 构建vue项目
-                        String projectPath = AppConstant.CODE_OUTPUT_ROOT_DIR + "/vue_project_" + appId;
-                        vueProjectBuilder.buildProjectAsync(projectPath);
-                        sink.complete();
-                    })
-                    .onError(error -> {
-                        error.printStackTrace();
-                        sink.error(error);
-                    })
-                    .start();
-        });
-
+    private Flux<StreamMessage> processTokenStream(TokenStream tokenStream, CodeGenTypeEnum codeGenTypeEnum, Runnable onComplete) {
+        // 已下发的增量片段数，近似等于输出 token 数
+        AtomicLong deliveredTokens = new AtomicLong();
+        return Flux.<StreamMessage>create(sink -> {
+                    GenerationLatencyMetrics.Trace trace = generationLatencyMetrics.start(codeGenTypeEnum);
+                    sink.onCancel(() -> {
+                        tokenStream.cancel();
+                        trace.cancel();
+                        streamCancellationMetrics.recordCancelled(codeGenTypeEnum, deliveredTokens.get());
+                        log.info("生成已取消，类型：{}，已输出片段数：{}", codeGenTypeEnum.getValue(), deliveredTokens.get());
+                    });
+                    // 部分响应
+                    tokenStream.onPartialResponse(partialResponse -> {
+                                deliveredTokens.incrementAndGet();
+                                trace.onOutput(partialResponse);
+                                sink.next(new AiResponseMessage(partialResponse));
+                            })
+                            // 工具请求
+                            .onPartialToolExecutionRequest((index, toolExecutionRequest) -> {
+                                trace.onOutput(toolExecutionRequest.arguments());
+                                sink.next(new ToolRequestMessage(toolExecutionRequest));
+                            })
+                            // 执行工具
+                            .onToolExecuted(toolExecution -> {
+                                sink.next(new ToolExecutedMessage(toolExecution));
+                            })
+                            // 完成响应
+                            .onCompleteResponse(completeResponse -> {
+                                trace.complete(completeResponse.modelName());
+                                TokenUsage tokenUsage = completeResponse.tokenUsage();
+                                streamCancellationMetrics.recordCompleted(codeGenTypeEnum,
+                                        tokenUsage == null ? null : tokenUsage.outputTokenCount());
+                                if (onComplete != null) {
+                                    onComplete.run();
+                                }
+                                sink.complete();
+                            })
+                            .onError(error -> {
+                                log.error("代码生成失败：{}", error.getMessage(), error);
+                                trace.error();
+                                sink.error(error);
+                            })
+                            .start();
+                })
+                // 有界缓冲：下游长时间不消费时报错并取消上游，避免无限堆积
+                .onBackpressureBuffer(MAX_BUFFERED_MESSAGES,
+                        dropped -> log.warn("流式输出缓冲区已满，类型：{}", codeGenTypeEnum.getValue()),
+                        BufferOverflowStrategy.ERROR);
     }
 
     /**
@@ -141,9 +240,10 @@ public class AiCodeGeneratorFacade {
      * @param appId
      * @return
      */
-    private Flux<String> generateMultiFileCodeStream(String prompt, Long appId) {
+    private Flux<StreamMessage> generateMultiFileCodeStream(String prompt, Long appId) {
         AiCodeGeneratorService aiCodeGeneratorService = aiCodeGeneratorServiceFactory.getAiCodeGeneratorService(appId,CodeGenTypeEnum.MULTI_FILE);
-        Flux<String> flux = aiCodeGeneratorService.generateMultiFileCodeStream(prompt);
+        TokenStream tokenStream = aiCodeGeneratorService.generateMultiFileCodeStream(appId, prompt);
+        Flux<StreamMessage> flux = processTokenStream(tokenStream, CodeGenTypeEnum.MULTI_FILE, null);
         return processStreamCode(flux, CodeGenTypeEnum.MULTI_FILE, prompt, appId);
     }
 
@@ -154,37 +254,40 @@ public class AiCodeGeneratorFacade {
      * @param appId
      * @return
      */
-    private Flux<String> generateHtmlCodeStream(String prompt, Long appId) {
+    private Flux<StreamMessage> generateHtmlCodeStream(String prompt, Long appId) {
         AiCodeGeneratorService aiCodeGeneratorService = aiCodeGeneratorServiceFactory.getAiCodeGeneratorService(appId);
-        Flux<String> flux = aiCodeGeneratorService.generateHtmlCodeStream(prompt);
+        TokenStream tokenStream = aiCodeGeneratorService.generateHtmlCodeStream(appId, prompt);
+        Flux<StreamMessage> flux = processTokenStream(tokenStream, CodeGenTypeEnum.HTML, null);
         return processStreamCode(flux, CodeGenTypeEnum.HTML, prompt, appId);
     }
 
     /**
      * 流式处理代码生成结果
+     * 边接收边解析代码块并写入文件，不再等待完整响应
      *
      * @param flux
      * @param codeGenTypeEnum
      * @param prompt
      * @return
      */
-    private Flux<String> processStreamCode(Flux<String> flux, CodeGenTypeEnum codeGenTypeEnum, String prompt, Long appId) {
+    private Flux<StreamMessage> processStreamCode(Flux<StreamMessage> flux, CodeGenTypeEnum codeGenTypeEnum, String prompt, Long appId) {
         log.info("开始生成代码：{}", prompt);
-        StringBuilder builder = new StringBuilder();
-        // 收集生成结果
-        return flux
-                .doOnNext(builder::append)
-                .doOnComplete(() -> {
-                    try {
-                        // 全部生成完毕后开始解析
-                        String completeResponse = builder.toString();
-                        Object codeResult = CodeParserExecutor.executeParser(completeResponse, codeGenTypeEnum);
-                        File saveDir = CodeFileSaverExecutor.executorSaver(codeResult, codeGenTypeEnum, appId);
-                        log.info("保存文件成功：{}", saveDir.getAbsolutePath());
-                    } catch (Exception e) {
-                        log.error("代码生成失败：{}", e.getMessage());
-                    }
-                });
-
+        return Flux.defer(() -> {
+            StreamingCodeFileSaver saver = new StreamingCodeFileSaver(codeGenTypeEnum, appId);
+            return flux
+                    .doOnNext(message -> {
+                        if (message instanceof AiResponseMessage(String data)) {
+                            saver.append(data);
+                        }
+                    })
+                    .doOnComplete(() -> {
+                        File saveDir = saver.complete();
+                        if (saveDir != null) {
+                            log.info("保存文件成功：{}", saveDir.getAbsolutePath());
+                        }
+                    })
+                    .doOnError(error -> saver.abort())
+                    .doOnCancel(saver::abort);
+        });
     }
 }
@@ -0,0 +1,38 @@
+package com.zcw.voya.core.admission;
+
+import com.zcw.voya.constant.UserConstant;
+import com.zcw.voya.model.entity.App;
+import com.zcw.voya.model.entity.User;
+import lombok.Getter;
+
+/**
+ * 生成请求排队优先级，声明顺序即优先顺序
+ */
+@Getter
+public enum AdmissionPriority {
+
+    ADMIN("admin", "管理员"),
+    FEATURED("featured", "精选应用"),
+    NORMAL("normal", "普通");
+
+    private final String value;
+    private final String text;
+
+    AdmissionPriority(String value, String text) {
+        this.value = value;
+        this.text = text;
+    }
+
+    /**
+     * 根据用户角色和应用是否精选确定优先级
+     */
+    public static AdmissionPriority of(User user, App app) {
+        if (user != null && UserConstant.ADMIN_ROLE.equals(user.getUserRole())) {
+            return ADMIN;
+        }
+        if (app != null && app.getPriority() != null && app.getPriority() > 0) {
+            return FEATURED;
+        }
+        return NORMAL;
+    }
+}
@@ -0,0 +1,328 @@
+package com.zcw.voya.core.admission;
+
+import cn.hutool.json.JSONUtil;
+import com.zcw.voya.config.GenerationAdmissionConfig;
+import com.zcw.voya.core.session.SessionEvent;
+import com.zcw.voya.core.session.SessionEventPublisher;
+import com.zcw.voya.exception.BusinessException;
+import com.zcw.voya.exception.ErrorCode;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 生成准入控制
+ * 每个模型一个并发额度，额度用完后请求进入优先级队列（管理员 > 精选应用 > 普通），
+ * 同优先级先到先得；排队期间通过会话的 queued 事件告知排队位置。
+ * 队列已满时，优先级更高的请求挤掉队尾优先级最低的请求，否则直接拒绝；排队超时的请求同样拒绝。
+ * 生成结束、失败或被取消时归还额度，唤醒队首请求
+ */
+@Slf4j
+@Component
+public class GenerationAdmissionController {
+
+    private static final Comparator<Waiter> WAITER_ORDER = Comparator
+            .comparing((Waiter waiter) -> waiter.priority)
+            .thenComparingLong(waiter -> waiter.seq);
+
+    private final GenerationAdmissionConfig generationAdmissionConfig;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, Lane> lanes = new ConcurrentHashMap<>();
+
+    public GenerationAdmissionController(GenerationAdmissionConfig generationAdmissionConfig, MeterRegistry meterRegistry) {
+        this.generationAdmissionConfig = generationAdmissionConfig;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * 获得准入后再开始生成
+     *
+     * @param model      模型（streaming / reasoning），每个模型单独计算并发额度
+     * @param priority   排队优先级
+     * @param generation 开始生成，获得准入后才调用
+     * @return 生成流，结束或取消时归还额度
+     */
+    public <T> Flux<T> admit(String model, AdmissionPriority priority, Supplier<Flux<T>> generation) {
+        if (!generationAdmissionConfig.isEnabled()) {
+            return Flux.defer(generation);
+        }
+        Lane lane = lanes.computeIfAbsent(model, Lane::new);
+        return Flux.deferContextual(context -> {
+            SessionEventPublisher publisher = context.getOrDefault(SessionEventPublisher.CONTEXT_KEY, null);
+            return Flux.usingWhen(lane.acquire(priority, publisher),
+                    permit -> permit.use() ? Flux.defer(generation) : Flux.<T>empty(),
+                    permit -> Mono.fromRunnable(permit::release));
+        });
+    }
+
+    /**
+     * 排队中的请求
+     */
+    private static final class Waiter {
+
+        final AdmissionPriority priority;
+        final long seq;
+        final MonoSink<Permit> sink;
+        final SessionEventPublisher publisher;
+        final long enqueueNanos = System.nanoTime();
+        Disposable timeoutTask;
+        Permit permit;
+        boolean queued = true;
+        int lastPosition;
+
+        Waiter(AdmissionPriority priority, long seq, MonoSink<Permit> sink, SessionEventPublisher publisher) {
+            this.priority = priority;
+            this.seq = seq;
+            this.sink = sink;
+            this.publisher = publisher;
+        }
+    }
+
+    /**
+     * 并发额度，只归还一次
+     */
+    private static final class Permit {
+
+        private static final int GRANTED = 0;
+        private static final int IN_USE = 1;
+        private static final int RELEASED = 2;
+
+        private final Lane lane;
+        private final AtomicInteger state = new AtomicInteger(GRANTED);
+
+        Permit(Lane lane) {
+            this.lane = lane;
+        }
+
+        /**
+         * 开始使用额度，额度已被归还（请求在获得准入的同时被取消）时返回 false
+         */
+        boolean use() {
+            return state.compareAndSet(GRANTED, IN_USE);
+        }
+
+        /**
+         * 归还尚未开始使用的额度
+         */
+        void releaseUnused() {
+            if (state.compareAndSet(GRANTED, RELEASED)) {
+                lane.release();
+            }
+        }
+
+        void release() {
+            if (state.getAndSet(RELEASED) != RELEASED) {
+                lane.release();
+            }
+        }
+    }
+
+    /**
+     * 单个模型的并发额度和等待队列
+     */
+    private final class Lane {
+
+        private final String model;
+        private final int limit;
+        private final TreeSet<Waiter> waiters = new TreeSet<>(WAITER_ORDER);
+        private int active;
+        private long nextSeq;
+
+        Lane(String model) {
+            this.model = model;
+            this.limit = generationAdmissionConfig.maxConcurrentStreams(model);
+            Gauge.builder("voya.generation.admission.active", this, lane -> lane.activeCount())
+                    .description("正在进行的流式生成数")
+                    .tag("model", model)
+                    .register(meterRegistry);
+            Gauge.builder("voya.generation.admission.queued", this, lane -> lane.queuedCount())
+                    .description("排队中的生成请求数")
+                    .tag("model", model)
+                    .register(meterRegistry);
+        }
+
+        Mono<Permit> acquire(AdmissionPriority priority, SessionEventPublisher publisher) {
+            return Mono.create(sink -> {
+                Waiter waiter;
+                Waiter evicted = null;
+                boolean rejected = false;
+                synchronized (this) {
+                    if (active < limit && waiters.isEmpty()) {
+                        active++;
+                        waiter = null;
+                    } else {
+                        waiter = new Waiter(priority, nextSeq++, sink, publisher);
+                        if (waiters.size() >= generationAdmissionConfig.getMaxQueueSize()) {
+                            Waiter last = waiters.isEmpty() ? null : waiters.last();
+                            if (last == null || WAITER_ORDER.compare(waiter, last) > 0) {
+                                // 队列已满且没有比它优先级更低的请求
+                                rejected = true;
+                            } else {
+                                waiters.pollLast();
+                                last.queued = false;
+                                evicted = last;
+                            }
+                        }
+                        if (!rejected) {
+                            Waiter queuedWaiter = waiter;
+                            waiter.timeoutTask = Schedulers.parallel().schedule(() -> expire(queuedWaiter),
+                                    generationAdmissionConfig.getQueueTimeoutSeconds(), TimeUnit.SECONDS);
+                            waiters.add(waiter);
+                        }
+                    }
+                }
+                if (rejected) {
+                    record("rejected");
+                    sink.error(busy());
+                    return;
+                }
+                if (waiter == null) {
+                    record("immediate");
+                    sink.success(new Permit(this));
+                    return;
+                }
+                if (evicted != null) {
+                    evicted.timeoutTask.dispose();
+                    record("evicted");
+                    evicted.sink.error(busy());
+                }
+                record("queued");
+                sink.onCancel(() -> cancel(waiter));
+                publishPositions();
+            });
+        }
+
+        /**
+         * 归还额度，按优先级唤醒排队的请求
+         */
+        void release() {
+            List<Waiter> granted = new ArrayList<>();
+            synchronized (this) {
+                active--;
+                while (active < limit && !waiters.isEmpty()) {
+                    Waiter waiter = waiters.pollFirst();
+                    waiter.queued = false;
+                    waiter.permit = new Permit(this);
+                    active++;
+                    granted.add(waiter);
+                }
+            }
+            for (Waiter waiter : granted) {
+                waiter.timeoutTask.dispose();
+                Timer.builder("voya.generation.admission.wait")
+                        .description("生成请求的排队时间")
+                        .tag("model", model)
+                        .tag("priority", waiter.priority.getValue())
+                        .register(meterRegistry)
+                        .record(System.nanoTime() - waiter.enqueueNanos, TimeUnit.NANOSECONDS);
+                waiter.sink.success(waiter.permit);
+            }
+            if (!granted.isEmpty()) {
+                publishPositions();
+            }
+        }
+
+        /**
+         * 排队期间客户端断开：移出队列；恰好已获得准入但还没开始生成时归还额度
+         */
+        private void cancel(Waiter waiter) {
+            Permit permit;
+            synchronized (this) {
+                if (waiter.queued) {
+                    waiters.remove(waiter);
+                    waiter.queued = false;
+                    permit = null;
+                } else {
+                    permit = waiter.permit;
+                }
+            }
+            waiter.timeoutTask.dispose();
+            if (permit != null) {
+                permit.releaseUnused();
+            } else {
+                publishPositions();
+            }
+        }
+
+        private void expire(Waiter waiter) {
+            synchronized (this) {
+                if (!waiter.queued) {
+                    return;
+                }
+                waiters.remove(waiter);
+                waiter.queued = false;
+            }
+            record("expired");
+            log.warn("生成请求排队超过 {} 秒，已拒绝，模型：{}，优先级：{}",
+                    generationAdmissionConfig.getQueueTimeoutSeconds(), model, waiter.priority.getValue());
+            waiter.sink.error(busy());
+            publishPositions();
+        }
+
+        /**
+         * 向位置发生变化的排队请求发送 queued 事件，位置从 1 开始
+         */
+        private void publishPositions() {
+            List<Waiter> changed = new ArrayList<>();
+            List<Integer> positions = new ArrayList<>();
+            synchronized (this) {
+                int position = 0;
+                for (Waiter waiter : waiters) {
+                    position++;
+                    if (waiter.publisher != null && waiter.lastPosition != position) {
+                        waiter.lastPosition = position;
+                        changed.add(waiter);
+                        positions.add(position);
+                    }
+                }
+            }
+            for (int i = 0; i < changed.size(); i++) {
+                changed.get(i).publisher.publish(SessionEvent.QUEUED,
+                        JSONUtil.toJsonStr(Map.of("position", positions.get(i))));
+            }
+        }
+
+        private synchronized int activeCount() {
+            return active;
+        }
+
+        private synchronized int queuedCount() {
+            return waiters.size();
+        }
+
+        private void record(String outcome) {
+            meterRegistry.counter("voya.generation.admission", "model", model, "outcome", outcome).increment();
+        }
+    }
+
+    /**
+     * 是否为排队被拒绝（队列已满、被挤出或排队超时）的错误，此时生成尚未开始
+     */
+    public static boolean isRejected(Throwable error) {
+        return error instanceof BusinessException businessException
+                && businessException.getCode() == ErrorCode.TOO_MANY_REQUEST.getCode();
+    }
+
+    private static BusinessException busy() {
+        return new BusinessException(ErrorCode.TOO_MANY_REQUEST, "当前生成人数较多，请稍后再试");
+    }
+}
@@ -0,0 +1,310 @@
+package com.zcw.voya.core.build;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.crypto.digest.DigestUtil;
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import com.zcw.voya.config.NpmDependencyStoreConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * 共享 npm 依赖库
+ * 以依赖声明（package.json 中的各类依赖字段 + lock 文件）的哈希为键，每个键保存一份安装好的 node_modules，
+ * 通过硬链接（默认）或符号链接接入项目。依赖组合第一次出现时在暂存目录中安装一次，完成后原子重命名为正式条目，
+ * 同一个键的并发构建只安装一次
+ * <p>
+ * 硬链接模式下项目拥有自己的目录树，构建在 node_modules 中新建的文件（如 .vite、.cache）只落在项目内；
+ * 符号链接模式下这些文件会写进共享条目，多个项目并发构建时会互相影响
+ */
+@Slf4j
+@Component
+public class NpmDependencyStore {
+
+    /**
+     * 依赖接入结果
+     */
+    public enum Result {
+        /**
+         * node_modules 已接入项目
+         */
+        LINKED,
+        /**
+         * 依赖安装失败，项目中重试也不会成功
+         */
+        INSTALL_FAILED,
+        /**
+         * 未使用依赖库（未启用或接入失败），由调用方在项目中安装
+         */
+        SKIPPED
+    }
+
+    private static final List<String> DEPENDENCY_FIELDS = List.of(
+            "dependencies", "devDependencies", "peerDependencies", "optionalDependencies", "overrides"
+    );
+
+    private static final List<String> LOCK_FILES = List.of("package-lock.json", "npm-shrinkwrap.json");
+
+    /**
+     * 条目安装完成的标记文件，内容为安装耗时（毫秒）
+     */
+    private static final String COMPLETE_MARKER = ".voya-complete";
+
+    private final NpmDependencyStoreConfig config;
+
+    /**
+     * 每个键的安装锁，没有构建在使用时移除，不会随依赖组合数量无限增长
+     */
+    private final Map<String, KeyLock> keyLocks = new ConcurrentHashMap<>();
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Counter skippedCounter;
+    private final Counter savedSecondsCounter;
+    private final Timer installTimer;
+
+    public NpmDependencyStore(NpmDependencyStoreConfig config, MeterRegistry meterRegistry) {
+        this.config = config;
+        this.hitCounter = outcomeCounter(meterRegistry, "hit");
+        this.missCounter = outcomeCounter(meterRegistry, "miss");
+        this.skippedCounter = outcomeCounter(meterRegistry, "skipped");
+        this.savedSecondsCounter = Counter.builder("voya.build.npm.store.saved")
+                .description("命中依赖库节省的 npm install 时间（按该依赖组合首次安装的耗时估算）")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        this.installTimer = Timer.builder("voya.build.npm.install")
+                .description("依赖库中 npm install 的耗时")
+                .register(meterRegistry);
+    }
+
+    private static Counter outcomeCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("voya.build.npm.store")
+                .description("Vue 项目依赖接入次数，按是否命中依赖库区分")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 把项目依赖对应的 node_modules 接入项目，依赖库中没有时先安装
+     *
+     * @param projectDir 项目目录（需包含 package.json）
+     * @param installer  在指定目录执行 npm install，返回是否成功
+     * @return 接入结果
+     */
+    public Result materialize(File projectDir, Predicate<File> installer) {
+        if (!config.isEnabled()) {
+            return Result.SKIPPED;
+        }
+        Path project = projectDir.toPath();
+        try {
+            String key = key(project);
+            Path entry = Path.of(config.getStoreDir(), key);
+            Long installMillis = readMarker(entry);
+            boolean hit = installMillis != null;
+            if (!hit) {
+                KeyLock lock = acquireLock(key);
+                try {
+                    synchronized (lock) {
+                        // 等锁期间可能已由其他构建安装完成
+                        installMillis = readMarker(entry);
+                        hit = installMillis != null;
+                        if (!hit && !populate(project, entry, installer)) {
+                            return Result.INSTALL_FAILED;
+                        }
+                    }
+                } finally {
+                    releaseLock(key);
+                }
+            }
+            link(entry.resolve("node_modules"), project.resolve("node_modules"));
+            if (hit) {
+                hitCounter.increment();
+                savedSecondsCounter.increment(installMillis / 1000.0);
+                log.info("命中 npm 依赖库 {}，跳过 npm install", key);
+            } else {
+                missCounter.increment();
+            }
+            return Result.LINKED;
+        } catch (IOException | RuntimeException e) {
+            log.warn("接入 npm 依赖库失败，改为在项目中安装: {}", projectDir.getAbsolutePath(), e);
+            try {
+                delete(project.resolve("node_modules"));
+            } catch (IOException ex) {
+                log.warn("清理 node_modules 失败: {}", projectDir.getAbsolutePath(), ex);
+            }
+            skippedCounter.increment();
+            return Result.SKIPPED;
+        }
+    }
+
+    /**
+     * 依赖库的键：依赖字段（按名称排序）+ lock 文件内容 + 平台的 SHA-256
+     */
+    private static String key(Path project) throws IOException {
+        JSONObject packageJson = JSONUtil.parseObj(Files.readString(project.resolve("package.json"), StandardCharsets.UTF_8));
+        StringBuilder source = new StringBuilder();
+        for (String field : DEPENDENCY_FIELDS) {
+            JSONObject dependencies = packageJson.getJSONObject(field);
+            if (dependencies != null) {
+                source.append(field).append('=').append(JSONUtil.toJsonStr(new TreeMap<>(dependencies))).append('\n');
+            }
+        }
+        for (String lockFile : LOCK_FILES) {
+            Path path = project.resolve(lockFile);
+            if (Files.isRegularFile(path)) {
+                source.append(lockFile).append('=').append(DigestUtil.sha256Hex(path.toFile())).append('\n');
+            }
+        }
+        // 原生模块与平台相关
+        source.append(System.getProperty("os.name")).append('/').append(System.getProperty("os.arch"));
+        return DigestUtil.sha256Hex(source.toString());
+    }
+
+    private KeyLock acquireLock(String key) {
+        return keyLocks.compute(key, (k, lock) -> {
+            KeyLock acquired = lock == null ? new KeyLock() : lock;
+            acquired.users++;
+            return acquired;
+        });
+    }
+
+    private void releaseLock(String key) {
+        keyLocks.computeIfPresent(key, (k, lock) -> --lock.users == 0 ? null : lock);
+    }
+
+    /**
+     * 读取条目的完成标记，条目不完整（没有标记或 node_modules 已丢失）时返回 null，随后重新安装
+     */
+    private static Long readMarker(Path entry) {
+        Path marker = entry.resolve(COMPLETE_MARKER);
+        if (!Files.isRegularFile(marker)) {
+            return null;
+        }
+        if (!Files.isDirectory(entry.resolve("node_modules"))) {
+            log.warn("npm 依赖库条目已损坏，重新安装: {}", entry.getFileName());
+            return null;
+        }
+        try {
+            return Long.parseLong(Files.readString(marker).trim());
+        } catch (IOException | NumberFormatException e) {
+            return 0L;
+        }
+    }
+
+    /**
+     * 在暂存目录中安装依赖，成功后重命名为正式条目
+     *
+     * @return 是否安装成功
+     */
+    private boolean populate(Path project, Path entry, Predicate<File> installer) throws IOException {
+        Path storeRoot = entry.getParent();
+        Files.createDirectories(storeRoot);
+        Path staging = Files.createTempDirectory(storeRoot, entry.getFileName() + ".staging-");
+        try {
+            Files.copy(project.resolve("package.json"), staging.resolve("package.json"));
+            for (String lockFile : LOCK_FILES) {
+                if (Files.isRegularFile(project.resolve(lockFile))) {
+                    Files.copy(project.resolve(lockFile), staging.resolve(lockFile));
+                }
+            }
+            log.info("npm 依赖库未命中，安装依赖: {}", entry.getFileName());
+            long start = System.nanoTime();
+            if (!installer.test(staging.toFile())) {
+                return false;
+            }
+            long elapsedNanos = System.nanoTime() - start;
+            // 没有依赖时 npm 不会创建 node_modules，补一个空目录便于链接
+            Files.createDirectories(staging.resolve("node_modules"));
+            installTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+            Files.writeString(staging.resolve(COMPLETE_MARKER), String.valueOf(TimeUnit.NANOSECONDS.toMillis(elapsedNanos)));
+            // 清理上次中断留下的不完整条目或已损坏的条目
+            FileUtil.del(entry);
+            try {
+                Files.move(staging, entry, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(staging, entry);
+            }
+            return true;
+        } finally {
+            FileUtil.del(staging);
+        }
+    }
+
+    /**
+     * 把依赖库中的 node_modules 接入项目，替换项目中已有的 node_modules
+     */
+    private void link(Path source, Path target) throws IOException {
+        delete(target);
+        if ("symlink".equalsIgnoreCase(config.getLinkMode())) {
+            try {
+                Files.createSymbolicLink(target, source.toAbsolutePath());
+                return;
+            } catch (IOException | UnsupportedOperationException e) {
+                log.warn("创建符号链接失败，改用硬链接: {}", e.getMessage());
+            }
+        }
+        hardLinkTree(source, target);
+    }
+
+    /**
+     * 删除项目中的 node_modules，符号链接只删除链接本身，不能删到依赖库里的内容
+     */
+    private static void delete(Path path) throws IOException {
+        if (Files.isSymbolicLink(path)) {
+            Files.delete(path);
+        } else if (Files.exists(path)) {
+            FileUtil.del(path);
+        }
+    }
+
+    /**
+     * 复制目录结构，文件以硬链接代替复制，目录中的符号链接（如 .bin）原样重建
+     */
+    private static void hardLinkTree(Path source, Path target) throws IOException {
+        Files.walkFileTree(source, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                Files.createDirectories(target.resolve(source.relativize(dir)));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Path link = target.resolve(source.relativize(file));
+                if (attrs.isSymbolicLink()) {
+                    Files.createSymbolicLink(link, Files.readSymbolicLink(file));
+                } else {
+                    Files.createLink(link, file);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * 安装锁，users 为正在使用该锁的构建数，只在 keyLocks 的 compute 中修改
+     */
+    private static final class KeyLock {
+        private int users;
+    }
+}
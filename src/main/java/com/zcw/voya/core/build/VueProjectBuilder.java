@@ -1,6 +1,8 @@
 package com.zcw.voya.core.build;
 
 import cn.hutool.core.util.RuntimeUtil;
+import com.zcw.voya.config.NpmDependencyStoreConfig;
+import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
@@ -14,6 +16,12 @@ import java.util.concurrent.TimeUnit;
 @Component
 public class VueProjectBuilder {
 
+    @Resource
+    private NpmDependencyStore npmDependencyStore;
+
+    @Resource
+    private NpmDependencyStoreConfig npmDependencyStoreConfig;
+
     /**
      * 异步构建Vue项目
      * @param projectPath 项目路径
@@ -70,12 +78,25 @@ public class VueProjectBuilder {
 
 
     /**
-     * 执行 npm install 命令
+     * 准备 node_modules
+     * 优先从共享依赖库接入，依赖库不可用时在项目中执行 npm install
      */
     private boolean executeNpmInstall(File projectDir) {
+        return switch (npmDependencyStore.materialize(projectDir, this::runNpmInstall)) {
+            case LINKED -> true;
+            case INSTALL_FAILED -> false;
+            case SKIPPED -> runNpmInstall(projectDir);
+        };
+    }
+
+    /**
+     * 执行 npm install 命令，优先使用本地下载缓存
+     */
+    private boolean runNpmInstall(File workingDir) {
         log.info("执行 npm install...");
-        String command = String.format("%s install", buildCommand("npm"));
-        return executeCommand(projectDir, command, 300); // 5分钟超时
+        return executeCommand(workingDir, 300, // 5分钟超时
+                buildCommand("npm"), "install", "--prefer-offline", "--no-audit", "--no-fund",
+                "--cache", npmDependencyStoreConfig.getCacheDir());
     }
 
     /**
@@ -83,8 +104,7 @@ public class VueProjectBuilder {
      */
     private boolean executeNpmBuild(File projectDir) {
         log.info("执行 npm run build...");
-        String command = String.format("%s run build", buildCommand("npm"));
-        return executeCommand(projectDir, command, 180); // 3分钟超时
+        return executeCommand(projectDir, 180, buildCommand("npm"), "run", "build"); // 3分钟超时
     }
 
 
@@ -92,17 +112,18 @@ public class VueProjectBuilder {
      * 执行命令
      *
      * @param workingDir     工作目录
-     * @param command        命令字符串
      * @param timeoutSeconds 超时时间（秒）
+     * @param command        命令及参数（参数中可以包含空格，如带空格的缓存目录）
      * @return 是否执行成功
      */
-    private boolean executeCommand(File workingDir, String command, int timeoutSeconds) {
+    private boolean executeCommand(File workingDir, int timeoutSeconds, String... command) {
+        String commandLine = String.join(" ", command);
         try {
-            log.info("在目录 {} 中执行命令: {}", workingDir.getAbsolutePath(), command);
+            log.info("在目录 {} 中执行命令: {}", workingDir.getAbsolutePath(), commandLine);
             Process process = RuntimeUtil.exec(
                     null,
                     workingDir,
-                    command.split("\\s+") // 命令分割为数组
+                    command
             );
             // 等待进程完成，设置超时
             boolean finished = process.waitFor(timeoutSeconds, TimeUnit.SECONDS);
@@ -113,14 +134,14 @@ public class VueProjectBuilder {
             }
             int exitCode = process.exitValue();
             if (exitCode == 0) {
-                log.info("命令执行成功: {}", command);
+                log.info("命令执行成功: {}", commandLine);
                 return true;
             } else {
                 log.error("命令执行失败，退出码: {}", exitCode);
                 return false;
             }
         } catch (Exception e) {
-            log.error("执行命令失败: {}, 错误信息: {}", command, e.getMessage());
+            log.error("执行命令失败: {}, 错误信息: {}", commandLine, e.getMessage());
             return false;
         }
     }
@@ -6,6 +6,7 @@ import cn.hutool.json.JSONUtil;
 import com.zcw.voya.ai.model.message.*;
 import com.zcw.voya.ai.tools.BaseTool;
 import com.zcw.voya.ai.tools.ToolManager;
+import com.zcw.voya.core.admission.GenerationAdmissionController;
 import com.zcw.voya.core.build.VueProjectBuilder;
 import com.zcw.voya.model.entity.User;
 import com.zcw.voya.model.enums.ChatHistoryMessageTypeEnum;
@@ -34,7 +35,7 @@ public class JsonMessageStreamHandler {
 
     /**
      * 处理 TokenStream（VUE_PROJECT）
-     * 解析 JSON 消息并重组为完整的响应格式
+     * 按消息类型重组为完整的响应格式
      *
      * @param originFlux         原始流
      * @param chatHistoryService 聊天历史服务
@@ -42,7 +43,7 @@ public class JsonMessageStreamHandler {
      * @param loginUser          登录用户
      * @return 处理后的流
      */
-    public Flux<String> handle(Flux<String> originFlux,
+    public Flux<String> handle(Flux<StreamMessage> originFlux,
                                ChatHistoryService chatHistoryService,
                                long appId, User loginUser) {
         // 收集数据用于生成后端记忆格式
@@ -50,10 +51,7 @@ public class JsonMessageStreamHandler {
         // 用于跟踪已经见过的工具ID，判断是否是第一次调用
         Set<String> seenToolIds = new HashSet<>();
         return originFlux
-                .map(chunk -> {
-                    // 解析每个 JSON 消息块
-                    return handleJsonMessageChunk(chunk, chatHistoryStringBuilder, seenToolIds);
-                })
+                .map(message -> handleStreamMessage(message, chatHistoryStringBuilder, seenToolIds))
                 .filter(StrUtil::isNotEmpty) // 过滤空字串
                 .doOnComplete(() -> {
                     // 流式响应完成后，添加 AI 消息到对话历史
@@ -61,6 +59,10 @@ public class JsonMessageStreamHandler {
                     chatHistoryService.addChatHistory(appId, aiResponse, ChatHistoryMessageTypeEnum.AI.getValue(), loginUser.getId());
                 })
                 .doOnError(error -> {
+                    // 排队被拒绝时用户消息尚未保存，不记录
+                    if (GenerationAdmissionController.isRejected(error)) {
+                        return;
+                    }
                     // 如果AI回复失败，也要记录错误消息
                     String errorMessage = "AI回复失败: " + error.getMessage();
                     chatHistoryService.addChatHistory(appId, errorMessage, ChatHistoryMessageTypeEnum.AI.getValue(), loginUser.getId());
@@ -68,51 +70,38 @@ public class JsonMessageStreamHandler {
     }
 
     /**
-     * 解析并收集 TokenStream 数据
+     * 收集 TokenStream 数据并转换为前端输出
      */
-    private String handleJsonMessageChunk(String chunk, StringBuilder chatHistoryStringBuilder, Set<String> seenToolIds) {
-        // 解析 JSON
-        StreamMessage streamMessage = JSONUtil.toBean(chunk, StreamMessage.class);
-        StreamMessageTypeEnum typeEnum = StreamMessageTypeEnum.getEnumByValue(streamMessage.getType());
+    private String handleStreamMessage(StreamMessage message, StringBuilder chatHistoryStringBuilder, Set<String> seenToolIds) {
         // 根据不同的消息类型进行处理
-        switch (typeEnum) {
-            case AI_RESPONSE -> {
-                AiResponseMessage aiMessage = JSONUtil.toBean(chunk, AiResponseMessage.class);
-                String data = aiMessage.getData();
+        return switch (message) {
+            case AiResponseMessage aiMessage -> {
+                String data = aiMessage.data();
                 // 直接拼接响应
                 chatHistoryStringBuilder.append(data);
-                return data;
+                yield data;
             }
-            case TOOL_REQUEST -> {
-                ToolRequestMessage toolRequestMessage = JSONUtil.toBean(chunk, ToolRequestMessage.class);
-                String toolId = toolRequestMessage.getId();
+            case ToolRequestMessage toolRequestMessage -> {
+                String toolId = toolRequestMessage.id();
                 // 检查是否是第一次看到这个工具 ID
-                if (toolId != null && !seenToolIds.contains(toolId)) {
-                    // 第一次调用这个工具，记录 ID 并完整返回工具信息
-                    seenToolIds.add(toolId);
-                    // 返回工具信息
-                    BaseTool tool = toolManager.getTool(toolRequestMessage.getName());
-                    return tool.generateToolRequestResponse();
-                } else {
-                    // 不是第一次调用这个工具，直接返回空
-                    return "";
+                if (toolId != null && seenToolIds.add(toolId)) {
+                    // 第一次调用这个工具，返回工具信息
+                    BaseTool tool = toolManager.getTool(toolRequestMessage.name());
+                    yield tool.generateToolRequestResponse();
                 }
+                // 不是第一次调用这个工具，直接返回空
+                yield "";
             }
-            case TOOL_EXECUTED -> {
-                ToolExecutedMessage toolExecutedMessage = JSONUtil.toBean(chunk, ToolExecutedMessage.class);
-                JSONObject jsonObject = JSONUtil.parseObj(toolExecutedMessage.getArguments());
+            case ToolExecutedMessage toolExecutedMessage -> {
+                JSONObject jsonObject = JSONUtil.parseObj(toolExecutedMessage.arguments());
                 // 获取工具实例
-                BaseTool tool = toolManager.getTool(toolExecutedMessage.getName());
+                BaseTool tool = toolManager.getTool(toolExecutedMessage.name());
                 String result = tool.generateToolExecutedResult(jsonObject);
                 // 输出前端和要持久化的内容
                 String output = String.format("\n\n%s\n\n", result);
                 chatHistoryStringBuilder.append(output);
-                return output;
-            }
-            default -> {
-                log.error("不支持的消息类型: {}", typeEnum);
-                return "";
+                yield output;
             }
-        }
+        };
     }
 }
@@ -1,6 +1,9 @@
 package com.zcw.voya.core.handler;
 
 import cn.hutool.core.util.StrUtil;
+import com.zcw.voya.ai.model.message.AiResponseMessage;
+import com.zcw.voya.ai.model.message.StreamMessage;
+import com.zcw.voya.core.admission.GenerationAdmissionController;
 import com.zcw.voya.model.entity.User;
 import com.zcw.voya.model.enums.ChatHistoryMessageTypeEnum;
 import com.zcw.voya.service.ChatHistoryService;
@@ -20,11 +23,13 @@ public class SimpleTextStreamHandler {
      * @param loginUser
      * @return
      */
-    public Flux<String> handler(Flux<String> flux, ChatHistoryService chatHistoryService,Long appId, User loginUser) {
+    public Flux<String> handler(Flux<StreamMessage> flux, ChatHistoryService chatHistoryService,Long appId, User loginUser) {
         StringBuilder builder = new StringBuilder();
         return flux
-                .map(chunk -> {
+                .filter(AiResponseMessage.class::isInstance)
+                .map(message -> {
                     // 收集ai响应的内容
+                    String chunk = ((AiResponseMessage) message).data();
                     builder.append(chunk);
                     return chunk;
                 })
@@ -35,6 +40,10 @@ public class SimpleTextStreamHandler {
                         chatHistoryService.addChatHistory(appId, completeResponse, ChatHistoryMessageTypeEnum.AI.getValue(), loginUser.getId());
                     }
                 }).doOnError(error -> {
+                    // 排队被拒绝时用户消息尚未保存，不记录
+                    if (GenerationAdmissionController.isRejected(error)) {
+                        return;
+                    }
                     // 如果响应错误同样保存记录
                     String errorMessage = error.getMessage();
                     chatHistoryService.addChatHistory(appId, errorMessage, ChatHistoryMessageTypeEnum.AI.getValue(), loginUser.getId());
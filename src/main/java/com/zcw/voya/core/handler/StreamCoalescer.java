@@ -0,0 +1,206 @@
+package com.zcw.voya.core.handler;
+
+import com.zcw.voya.ai.model.message.AiResponseMessage;
+import com.zcw.voya.ai.model.message.StreamMessage;
+import com.zcw.voya.config.StreamCoalesceConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.context.Context;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 流式输出合并器
+ * 把连续的 AI 文本片段按时间或大小合并成一帧，减少 SSE 帧数、flush 和系统调用
+ * <p>
+ * 首个片段立即下发，保证首字延迟不变；工具事件到达时先下发已缓冲的文本，再立即下发工具事件
+ */
+@Component
+public class StreamCoalescer {
+
+    private final StreamCoalesceConfig streamCoalesceConfig;
+
+    /**
+     * 模型原始增量片段数
+     */
+    private final Counter deltaCounter;
+
+    /**
+     * 合并后的文本帧数
+     */
+    private final Counter textFrameCounter;
+
+    /**
+     * 工具事件帧数
+     */
+    private final Counter toolFrameCounter;
+
+    /**
+     * 文本帧大小（字节）
+     */
+    private final DistributionSummary frameBytesSummary;
+
+    public StreamCoalescer(StreamCoalesceConfig streamCoalesceConfig, MeterRegistry meterRegistry) {
+        this.streamCoalesceConfig = streamCoalesceConfig;
+        this.deltaCounter = Counter.builder("voya.sse.deltas")
+                .description("模型原始增量片段数")
+                .register(meterRegistry);
+        this.textFrameCounter = Counter.builder("voya.sse.frames")
+                .description("下发的 SSE 帧数")
+                .tag("type", "text")
+                .register(meterRegistry);
+        this.toolFrameCounter = Counter.builder("voya.sse.frames")
+                .description("下发的 SSE 帧数")
+                .tag("type", "tool")
+                .register(meterRegistry);
+        this.frameBytesSummary = DistributionSummary.builder("voya.sse.frame.bytes")
+                .description("合并后文本帧的大小")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 合并流中的 AI 文本片段
+     *
+     * @param source 原始消息流
+     * @return 合并后的消息流
+     */
+    public Flux<StreamMessage> coalesce(Flux<StreamMessage> source) {
+        if (!streamCoalesceConfig.isEnabled()) {
+            return source;
+        }
+        long maxDelayMs = streamCoalesceConfig.getMaxDelayMs();
+        int maxBytes = streamCoalesceConfig.getMaxBytes();
+        return Flux.create(sink -> {
+            CoalescingBuffer buffer = new CoalescingBuffer(sink, maxDelayMs, maxBytes);
+            // 向上游传递下游的 Context
+            Disposable upstream = source.subscribe(buffer::onNext, buffer::onError, buffer::onComplete,
+                    Context.of(sink.contextView()));
+            sink.onDispose(() -> {
+                upstream.dispose();
+                buffer.dispose();
+            });
+        });
+    }
+
+    /**
+     * 单个流的合并缓冲区，上游回调和定时下发可能在不同线程，统一加锁
+     */
+    private final class CoalescingBuffer {
+
+        private final FluxSink<StreamMessage> sink;
+        private final long maxDelayMs;
+        private final int maxBytes;
+
+        private final StringBuilder buffer = new StringBuilder();
+        private int bufferedBytes;
+        private boolean firstSent;
+        private Disposable flushTask;
+
+        private CoalescingBuffer(FluxSink<StreamMessage> sink, long maxDelayMs, int maxBytes) {
+            this.sink = sink;
+            this.maxDelayMs = maxDelayMs;
+            this.maxBytes = maxBytes;
+        }
+
+        synchronized void onNext(StreamMessage message) {
+            if (message instanceof AiResponseMessage(String data)) {
+                deltaCounter.increment();
+                if (data == null || data.isEmpty()) {
+                    return;
+                }
+                if (!firstSent) {
+                    // 首个片段立即下发
+                    firstSent = true;
+                    emitText(data, utf8Length(data));
+                    return;
+                }
+                buffer.append(data);
+                bufferedBytes += utf8Length(data);
+                if (bufferedBytes >= maxBytes) {
+                    flush();
+                } else if (flushTask == null) {
+                    flushTask = Schedulers.parallel().schedule(this::onTimer, maxDelayMs, TimeUnit.MILLISECONDS);
+                }
+                return;
+            }
+            // 工具事件：先下发已缓冲的文本，保证顺序
+            flush();
+            toolFrameCounter.increment();
+            sink.next(message);
+        }
+
+        synchronized void onError(Throwable error) {
+            flush();
+            sink.error(error);
+        }
+
+        synchronized void onComplete() {
+            flush();
+            sink.complete();
+        }
+
+        synchronized void dispose() {
+            cancelFlushTask();
+            buffer.setLength(0);
+            bufferedBytes = 0;
+        }
+
+        private synchronized void onTimer() {
+            flushTask = null;
+            flush();
+        }
+
+        private void flush() {
+            cancelFlushTask();
+            if (buffer.isEmpty()) {
+                return;
+            }
+            String data = buffer.toString();
+            int bytes = bufferedBytes;
+            buffer.setLength(0);
+            bufferedBytes = 0;
+            emitText(data, bytes);
+        }
+
+        private void emitText(String data, int bytes) {
+            textFrameCounter.increment();
+            frameBytesSummary.record(bytes);
+            sink.next(new AiResponseMessage(data));
+        }
+
+        private void cancelFlushTask() {
+            if (flushTask != null) {
+                flushTask.dispose();
+                flushTask = null;
+            }
+        }
+    }
+
+    /**
+     * 计算 UTF-8 编码后的字节数，避免为统计大小而编码整个字符串
+     */
+    static int utf8Length(CharSequence text) {
+        int bytes = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                bytes++;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < text.length()) {
+                bytes += 4;
+                i++;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+}
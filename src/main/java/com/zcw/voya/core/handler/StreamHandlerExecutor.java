@@ -1,6 +1,8 @@
 package com.zcw.voya.core.handler;
 
+import cn.hutool.json.JSONUtil;
 import com.zcw.voya.ai.model.enums.CodeGenTypeEnum;
+import com.zcw.voya.ai.model.message.StreamMessage;
 import com.zcw.voya.model.entity.User;
 import com.zcw.voya.service.ChatHistoryService;
 import org.springframework.stereotype.Component;
@@ -18,6 +20,9 @@ public class StreamHandlerExecutor {
     @Resource
     private JsonMessageStreamHandler jsonMessageStreamHandler;
 
+    @Resource
+    private StreamCoalescer streamCoalescer;
+
     /**
      * 执行流处理器
      * @param originFlux 原始数据流
@@ -27,12 +32,23 @@ public class StreamHandlerExecutor {
      * @param codeGenTypeEnum 代码生成的类型
      * @return 处理后的数据流
      */
-    public Flux<String> doExecute(Flux<String> originFlux, ChatHistoryService chatHistoryService, long appId, User loginUser, CodeGenTypeEnum codeGenTypeEnum) {
+    public Flux<String> doExecute(Flux<StreamMessage> originFlux, ChatHistoryService chatHistoryService, long appId, User loginUser, CodeGenTypeEnum codeGenTypeEnum) {
+        // 合并细碎的文本片段，工具事件立即下发
+        Flux<StreamMessage> coalescedFlux = streamCoalescer.coalesce(originFlux);
         return switch (codeGenTypeEnum){
             // vue工程-使用json消息流处理器
-            case VUE_PROJECT -> jsonMessageStreamHandler.handle(originFlux, chatHistoryService, appId, loginUser);
+            case VUE_PROJECT -> jsonMessageStreamHandler.handle(coalescedFlux, chatHistoryService, appId, loginUser);
             // 其他类型-使用简单文本消息流处理器
-            case HTML,MULTI_FILE -> new SimpleTextStreamHandler().handler(originFlux, chatHistoryService, appId, loginUser);
+            case HTML,MULTI_FILE -> new SimpleTextStreamHandler().handler(coalescedFlux, chatHistoryService, appId, loginUser);
         };
     }
-}
\ No newline at end of file
+
+    /**
+     * 编码为 SSE 数据：包装成json {"d": chunk}，整条链路只在这里序列化一次
+     * @param chunk 处理器输出的片段
+     * @return SSE 数据
+     */
+    public static String toSseData(String chunk) {
+        return "{\"d\":" + JSONUtil.quote(chunk) + "}";
+    }
+}
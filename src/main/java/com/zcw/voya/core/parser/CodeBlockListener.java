@@ -0,0 +1,37 @@
+package com.zcw.voya.core.parser;
+
+/**
+ * 代码块事件监听器
+ * 配合 {@link StreamingCodeBlockParser} 使用，按到达顺序接收围栏代码块的各个片段
+ */
+public interface CodeBlockListener {
+
+    /**
+     * 代码块开始（已读取完 ```lang 所在行）
+     *
+     * @param language 小写的语言标识，可能为空字符串
+     */
+    void onBlockStart(String language);
+
+    /**
+     * 代码块内容片段
+     *
+     * @param content 内容片段，仅在回调期间有效
+     */
+    void onBlockContent(CharSequence content);
+
+    /**
+     * 代码块结束（遇到闭合的 ``` 或流结束）
+     *
+     * @param language 小写的语言标识
+     */
+    void onBlockEnd(String language);
+
+    /**
+     * 代码块之外的普通文本（默认忽略）
+     *
+     * @param text 文本片段，仅在回调期间有效
+     */
+    default void onText(CharSequence text) {
+    }
+}
@@ -0,0 +1,167 @@
+package com.zcw.voya.core.parser;
+
+/**
+ * 流式围栏代码块解析器（状态机）
+ * 逐个 token 消费模型输出，识别跨 chunk 边界的 ```html / ```css / ```js 等围栏，
+ * 不保留完整响应，解析过程中的内存占用与输出长度无关
+ * <p>
+ * 与 {@link HtmlCodeParser}、{@link MultiFileCodeParser} 的正则语义保持一致：
+ * 围栏行为 ```lang 加可选空白和换行，代码块遇到第一个 ``` 即结束
+ * <p>
+ * 非线程安全，一个实例只处理一次生成
+ */
+public class StreamingCodeBlockParser {
+
+    /**
+     * 围栏语言行的最大长度，超过则视为普通文本
+     */
+    private static final int MAX_HEADER_LENGTH = 32;
+
+    private enum State {
+        /**
+         * 代码块之外
+         */
+        TEXT,
+        /**
+         * 已读到 ```，正在读取语言标识
+         */
+        HEADER,
+        /**
+         * 代码块之内
+         */
+        CODE
+    }
+
+    private final CodeBlockListener listener;
+
+    private final StringBuilder header = new StringBuilder();
+
+    private final StringBuilder segment = new StringBuilder();
+
+    private State state = State.TEXT;
+
+    /**
+     * 连续反引号个数，可能跨越 chunk
+     */
+    private int ticks;
+
+    private String language;
+
+    public StreamingCodeBlockParser(CodeBlockListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * 追加一段模型输出
+     *
+     * @param chunk 输出片段
+     */
+    public void append(CharSequence chunk) {
+        if (chunk == null) {
+            return;
+        }
+        for (int i = 0; i < chunk.length(); i++) {
+            char c = chunk.charAt(i);
+            switch (state) {
+                case TEXT -> consumeText(c);
+                case HEADER -> consumeHeader(c);
+                case CODE -> consumeCode(c);
+            }
+        }
+        flushSegment();
+    }
+
+    /**
+     * 输出结束，处理未闭合的围栏和残留的反引号
+     */
+    public void finish() {
+        switch (state) {
+            case TEXT -> appendTicks();
+            case HEADER -> {
+                // 只有 ``` 没有换行，按普通文本处理
+                segment.append("```").append(header);
+                header.setLength(0);
+            }
+            case CODE -> {
+                // 未闭合的代码块（如输出被截断），在流结束时视为结束
+                appendTicks();
+                flushSegment();
+                listener.onBlockEnd(language);
+            }
+        }
+        flushSegment();
+        state = State.TEXT;
+    }
+
+    private void consumeText(char c) {
+        if (c == '`') {
+            if (++ticks == 3) {
+                ticks = 0;
+                flushSegment();
+                header.setLength(0);
+                state = State.HEADER;
+            }
+            return;
+        }
+        appendTicks();
+        segment.append(c);
+    }
+
+    private void consumeHeader(char c) {
+        if (c == '\n') {
+            language = header.toString().trim().toLowerCase();
+            header.setLength(0);
+            state = State.CODE;
+            listener.onBlockStart(language);
+            return;
+        }
+        if (c == '`' && header.isEmpty()) {
+            // ```` 等更长的围栏，多余的反引号直接跳过
+            return;
+        }
+        if (c == '`' || header.length() >= MAX_HEADER_LENGTH) {
+            // 行内的 ``` 不是围栏，回退为普通文本
+            segment.append("```").append(header);
+            header.setLength(0);
+            state = State.TEXT;
+            consumeText(c);
+            return;
+        }
+        header.append(c);
+    }
+
+    private void consumeCode(char c) {
+        if (c == '`') {
+            if (++ticks == 3) {
+                ticks = 0;
+                flushSegment();
+                state = State.TEXT;
+                listener.onBlockEnd(language);
+            }
+            return;
+        }
+        appendTicks();
+        segment.append(c);
+    }
+
+    /**
+     * 不足三个的反引号属于正文
+     */
+    private void appendTicks() {
+        for (; ticks > 0; ticks--) {
+            segment.append('`');
+        }
+    }
+
+    private void flushSegment() {
+        if (segment.isEmpty()) {
+            return;
+        }
+        if (state == State.CODE) {
+            listener.onBlockContent(segment);
+        } else {
+            listener.onText(segment);
+        }
+        segment.setLength(0);
+    }
+}
@@ -0,0 +1,393 @@
+package com.zcw.voya.core.saver;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.util.StrUtil;
+import com.zcw.voya.ai.model.enums.CodeGenTypeEnum;
+import com.zcw.voya.constant.AppConstant;
+import com.zcw.voya.core.parser.CodeBlockListener;
+import com.zcw.voya.core.parser.StreamingCodeBlockParser;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+
+/**
+ * 流式代码文件保存器
+ * 边接收 token 边解析围栏代码块，并把代码直接写入 tmp/code_output/{type}_{appId}
+ * 每个文件先写入临时文件，遇到闭合围栏后原子替换目标文件，预览随即可用
+ * <p>
+ * 落盘结果与 {@link CodeFileSaverExecutor} 保存正则解析结果一致：
+ * HTML 取第一个 html 代码块并去除首尾空白，没有有效代码块时保存完整输出；
+ * MULTI_FILE 按正则语义保留代码原文，缺少 html 代码时不写入任何文件
+ * <p>
+ * 适用于：HTML 和 MULTI_FILE 类型，非线程安全，一个实例只处理一次生成
+ */
+@Slf4j
+public class StreamingCodeFileSaver implements CodeBlockListener {
+
+    private static final String HTML_FILE_NAME = "index.html";
+    private static final String CSS_FILE_NAME = "style.css";
+    private static final String JS_FILE_NAME = "script.js";
+
+    /**
+     * 临时文件后缀
+     */
+    private static final String PART_SUFFIX = ".part";
+
+    private final CodeGenTypeEnum codeGenTypeEnum;
+
+    private final Path dirPath;
+
+    private final StreamingCodeBlockParser parser = new StreamingCodeBlockParser(this);
+
+    /**
+     * 已经处理过的文件，与正则一致，同一文件只取第一个代码块
+     */
+    private final Set<String> handledFiles = new HashSet<>();
+
+    /**
+     * 已经落盘的文件
+     */
+    private final Set<String> committedFiles = new HashSet<>();
+
+    /**
+     * MULTI_FILE 模式下先于 html 完成的文件，等 html 落盘后再提交
+     */
+    private final List<String> deferredFiles = new ArrayList<>();
+
+    /**
+     * 当前代码块的写入状态
+     */
+    private Writer currentWriter;
+    private String currentFileName;
+    /**
+     * 是否仍处于代码开头的空白部分
+     */
+    private boolean leading;
+    /**
+     * 代码块是否只有空白字符
+     */
+    private boolean blank;
+    private final StringBuilder pendingWhitespace = new StringBuilder();
+
+    /**
+     * HTML 模式下的完整输出，没有有效代码块时作为 index.html
+     */
+    private Writer rawWriter;
+
+    /**
+     * 输出已结束，此时关闭的代码块没有闭合围栏
+     */
+    private boolean finishing;
+
+    private boolean failed;
+
+    public StreamingCodeFileSaver(CodeGenTypeEnum codeGenTypeEnum, Long appId) {
+        this.codeGenTypeEnum = codeGenTypeEnum;
+        String dirName = StrUtil.format("{}_{}", codeGenTypeEnum.getValue(), appId);
+        this.dirPath = Path.of(AppConstant.CODE_OUTPUT_ROOT_DIR, dirName);
+        FileUtil.mkdir(dirPath.toFile());
+    }
+
+    /**
+     * 追加模型输出
+     *
+     * @param chunk 输出片段
+     */
+    public void append(String chunk) {
+        if (failed || chunk == null) {
+            return;
+        }
+        try {
+            appendRaw(chunk);
+            parser.append(chunk);
+        } catch (IOException e) {
+            fail(e);
+        } catch (UncheckedIOException e) {
+            fail(e.getCause());
+        }
+    }
+
+    /**
+     * 输出结束，提交剩余文件
+     *
+     * @return 代码目录，保存失败返回 null
+     */
+    public File complete() {
+        if (failed) {
+            return null;
+        }
+        try {
+            finishing = true;
+            parser.finish();
+            switch (codeGenTypeEnum) {
+                case HTML -> {
+                    if (!committedFiles.contains(HTML_FILE_NAME)) {
+                        // 如果没有找到代码块，将整个内容作为HTML
+                        commitRawContent();
+                    }
+                }
+                case MULTI_FILE -> {
+                    if (!committedFiles.contains(HTML_FILE_NAME)) {
+                        log.error("代码生成失败：html代码不能为空");
+                        abort();
+                        return null;
+                    }
+                    commitDeferredFiles();
+                    // css 和 js 可以为空，与 index.html 中的引用保持一致
+                    touchIfAbsent(CSS_FILE_NAME);
+                    touchIfAbsent(JS_FILE_NAME);
+                }
+                default -> {
+                }
+            }
+            return dirPath.toFile();
+        } catch (IOException | UncheckedIOException e) {
+            fail(e instanceof UncheckedIOException u ? u.getCause() : e);
+            return null;
+        } finally {
+            deleteRawPart();
+        }
+    }
+
+    /**
+     * 生成失败或取消，丢弃未完成的临时文件
+     */
+    public void abort() {
+        closeQuietly(currentWriter);
+        currentWriter = null;
+        if (currentFileName != null) {
+            FileUtil.del(partPath(currentFileName).toFile());
+            currentFileName = null;
+        }
+        for (String fileName : deferredFiles) {
+            FileUtil.del(partPath(fileName).toFile());
+        }
+        deferredFiles.clear();
+        deleteRawPart();
+    }
+
+    @Override
+    public void onBlockStart(String language) {
+        String fileName = resolveFileName(language);
+        if (fileName == null || !handledFiles.add(fileName)) {
+            return;
+        }
+        try {
+            currentWriter = Files.newBufferedWriter(partPath(fileName), StandardCharsets.UTF_8);
+            currentFileName = fileName;
+            leading = true;
+            blank = true;
+            pendingWhitespace.setLength(0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void onBlockContent(CharSequence content) {
+        if (currentWriter == null) {
+            return;
+        }
+        try {
+            if (codeGenTypeEnum == CodeGenTypeEnum.HTML) {
+                writeTrimmed(content);
+            } else {
+                writeVerbatim(content);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void onBlockEnd(String language) {
+        if (currentWriter == null) {
+            return;
+        }
+        String fileName = currentFileName;
+        try {
+            currentWriter.close();
+            currentWriter = null;
+            currentFileName = null;
+            if (blank || finishing) {
+                // 空代码块和未闭合的代码块都匹配不到正则，视为没有该文件
+                Files.deleteIfExists(partPath(fileName));
+                return;
+            }
+            if (codeGenTypeEnum == CodeGenTypeEnum.MULTI_FILE && !HTML_FILE_NAME.equals(fileName)
+                    && !committedFiles.contains(HTML_FILE_NAME)) {
+                deferredFiles.add(fileName);
+                return;
+            }
+            commitPart(fileName);
+            if (HTML_FILE_NAME.equals(fileName)) {
+                deleteRawPart();
+                commitDeferredFiles();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void onText(CharSequence text) {
+        // 代码块之外的文本只在 HTML 兜底时需要，已由 appendRaw 完整记录
+    }
+
+    /**
+     * 根据代码块语言获取要保存的文件名
+     *
+     * @param language 代码块语言
+     * @return 文件名，不需要保存则返回 null
+     */
+    private String resolveFileName(String language) {
+        return switch (codeGenTypeEnum) {
+            case HTML -> "html".equals(language) ? HTML_FILE_NAME : null;
+            case MULTI_FILE -> switch (language) {
+                case "html" -> HTML_FILE_NAME;
+                case "css" -> CSS_FILE_NAME;
+                case "js", "javascript" -> JS_FILE_NAME;
+                default -> null;
+            };
+            default -> null;
+        };
+    }
+
+    /**
+     * 与 String#trim 一致，去除代码首尾空白，尾部空白先暂存，遇到非空白字符再写出
+     */
+    private void writeTrimmed(CharSequence content) throws IOException {
+        for (int i = 0; i < content.length(); i++) {
+            char c = content.charAt(i);
+            if (c <= ' ') {
+                if (!leading) {
+                    pendingWhitespace.append(c);
+                }
+                continue;
+            }
+            leading = false;
+            blank = false;
+            if (!pendingWhitespace.isEmpty()) {
+                currentWriter.append(pendingWhitespace);
+                pendingWhitespace.setLength(0);
+            }
+            currentWriter.write(c);
+        }
+    }
+
+    /**
+     * 与正则 ```lang\s*\n 一致，只去掉开头的空白行，其余内容原样写出
+     */
+    private void writeVerbatim(CharSequence content) throws IOException {
+        for (int i = 0; i < content.length(); i++) {
+            char c = content.charAt(i);
+            if (c > ' ') {
+                blank = false;
+            }
+            if (leading) {
+                if (isRegexWhitespace(c)) {
+                    pendingWhitespace.append(c);
+                    continue;
+                }
+                leading = false;
+                int lastLineBreak = pendingWhitespace.lastIndexOf("\n");
+                currentWriter.append(pendingWhitespace, lastLineBreak + 1, pendingWhitespace.length());
+                pendingWhitespace.setLength(0);
+            }
+            currentWriter.write(c);
+        }
+    }
+
+    private void appendRaw(String chunk) throws IOException {
+        if (codeGenTypeEnum != CodeGenTypeEnum.HTML || committedFiles.contains(HTML_FILE_NAME)) {
+            return;
+        }
+        if (rawWriter == null) {
+            rawWriter = Files.newBufferedWriter(rawPartPath(), StandardCharsets.UTF_8);
+        }
+        rawWriter.write(chunk);
+    }
+
+    private void commitRawContent() throws IOException {
+        if (rawWriter == null) {
+            // 输出为空时与原保存逻辑一致，写入空的 index.html
+            Files.writeString(dirPath.resolve(HTML_FILE_NAME), "");
+        } else {
+            rawWriter.close();
+            rawWriter = null;
+            Files.move(rawPartPath(), dirPath.resolve(HTML_FILE_NAME),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        committedFiles.add(HTML_FILE_NAME);
+    }
+
+    private void commitDeferredFiles() throws IOException {
+        for (String fileName : deferredFiles) {
+            commitPart(fileName);
+        }
+        deferredFiles.clear();
+    }
+
+    private void commitPart(String fileName) throws IOException {
+        Files.move(partPath(fileName), dirPath.resolve(fileName),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        committedFiles.add(fileName);
+        log.info("代码文件已保存：{}", dirPath.resolve(fileName));
+    }
+
+    private void touchIfAbsent(String fileName) throws IOException {
+        if (!committedFiles.contains(fileName)) {
+            Files.writeString(dirPath.resolve(fileName), "");
+        }
+    }
+
+    private void fail(Throwable e) {
+        failed = true;
+        log.error("代码生成失败：{}", e.getMessage());
+        abort();
+    }
+
+    private void deleteRawPart() {
+        closeQuietly(rawWriter);
+        rawWriter = null;
+        FileUtil.del(rawPartPath().toFile());
+    }
+
+    private Path partPath(String fileName) {
+        return dirPath.resolve("." + fileName + PART_SUFFIX);
+    }
+
+    private Path rawPartPath() {
+        return dirPath.resolve("." + HTML_FILE_NAME + ".raw" + PART_SUFFIX);
+    }
+
+    /**
+     * 正则中的 \s
+     */
+    private static boolean isRegexWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    private static void closeQuietly(Writer writer) {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.close();
+        } catch (IOException ignored) {
+            // 临时文件随后会被删除
+        }
+    }
+}
@@ -0,0 +1,312 @@
+package com.zcw.voya.core.session;
+
+import cn.hutool.json.JSONUtil;
+import com.zcw.voya.exception.BusinessException;
+import com.zcw.voya.exception.ErrorCode;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.context.Context;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 一次生成会话
+ * 会话自己订阅生成流，客户端只是附着在会话上：断开不会中断生成，重连按序号补发错过的事件。
+ * 事件保存在有界环形缓冲区中，溢出的事件可以写入 Redis
+ */
+@Slf4j
+class GenerationSession {
+
+    /**
+     * 运行中会话溢写数据的过期时间（秒）
+     */
+    private static final long RUNNING_TTL_SECONDS = 3600;
+
+    @Getter
+    private final String key;
+
+    private final Long userId;
+
+    private final int capacity;
+
+    private final long detachTimeoutMs;
+
+    private final long retentionSeconds;
+
+    /**
+     * 溢写存储，未开启时为 null
+     */
+    private final RedisSessionEventStore eventStore;
+
+    /**
+     * 会话正常结束（完成或失败）后的回调
+     */
+    private final Consumer<GenerationSession> onFinished;
+
+    /**
+     * 会话被取消后的回调
+     */
+    private final Consumer<GenerationSession> onCancelled;
+
+    private final ArrayDeque<SessionEvent> ring;
+
+    private final List<FluxSink<SessionEvent>> subscribers = new ArrayList<>();
+
+    /**
+     * 已移出缓冲区、尚未确认写入 Redis 的事件，按序号排列
+     */
+    private final ArrayDeque<SessionEvent> spillQueue = new ArrayDeque<>();
+
+    /**
+     * 保证溢写按序进行；写 Redis 时只持有这把锁，不持有会话锁，不阻塞事件分发和附着
+     */
+    private final Object spillLock = new Object();
+
+    private long nextSeq = 1;
+
+    /**
+     * 内存中最早的事件序号，更早的事件已溢写或丢弃
+     */
+    private long firstSeq = 1;
+
+    private boolean finished;
+
+    private Disposable upstream;
+
+    private Disposable detachTask;
+
+    GenerationSession(String key, Long userId, int capacity, long detachTimeoutMs, long retentionSeconds,
+                      RedisSessionEventStore eventStore,
+                      Consumer<GenerationSession> onFinished, Consumer<GenerationSession> onCancelled) {
+        this.key = key;
+        this.userId = userId;
+        this.capacity = Math.max(2, capacity);
+        this.detachTimeoutMs = detachTimeoutMs;
+        this.retentionSeconds = retentionSeconds;
+        this.eventStore = eventStore;
+        this.onFinished = onFinished;
+        this.onCancelled = onCancelled;
+        this.ring = new ArrayDeque<>(this.capacity);
+    }
+
+    boolean isOwnedBy(Long userId) {
+        return this.userId.equals(userId);
+    }
+
+    /**
+     * 订阅生成流，只调用一次
+     *
+     * @param flux 已编码为 SSE 数据的生成流
+     */
+    void start(Flux<String> flux) {
+        // 生成链路可以通过 Context 中的发布器向会话发送具名事件（如排队位置）
+        SessionEventPublisher publisher = this::append;
+        Disposable disposable = flux.subscribe(
+                data -> append(null, data),
+                this::fail,
+                () -> finish(SessionEvent.DONE, ""),
+                Context.of(SessionEventPublisher.CONTEXT_KEY, publisher));
+        synchronized (this) {
+            upstream = disposable;
+        }
+    }
+
+    /**
+     * 生成失败，以业务错误事件结束会话
+     */
+    void fail(Throwable error) {
+        int code = ErrorCode.SYSTEM_ERROR.getCode();
+        String message = "系统错误";
+        if (error instanceof BusinessException businessException) {
+            code = businessException.getCode();
+            message = businessException.getMessage();
+        } else {
+            log.error("生成失败，会话：{}", key, error);
+        }
+        finish(SessionEvent.BUSINESS_ERROR, errorJson(code, message));
+    }
+
+    /**
+     * 附着到会话，先补发序号大于 lastSeq 的事件，再接收实时事件
+     *
+     * @param lastSeq 客户端已收到的最后一个事件序号，新连接为 0
+     */
+    Flux<SessionEvent> attach(long lastSeq) {
+        return Flux.create(sink -> {
+            synchronized (this) {
+                if (lastSeq + 1 < firstSeq && eventStore != null) {
+                    // 已写入 Redis 的部分从 Redis 读取，尚在溢写队列中的直接补发
+                    long spilledTo = spillQueue.isEmpty() ? firstSeq - 1 : spillQueue.peekFirst().seq() - 1;
+                    if (lastSeq < spilledTo) {
+                        eventStore.read(key, lastSeq + 1, spilledTo).forEach(sink::next);
+                    }
+                    for (SessionEvent event : spillQueue) {
+                        if (event.seq() > lastSeq && event.seq() < firstSeq) {
+                            sink.next(event);
+                        }
+                    }
+                }
+                for (SessionEvent event : ring) {
+                    if (event.seq() > lastSeq) {
+                        sink.next(event);
+                    }
+                }
+                if (finished) {
+                    sink.complete();
+                    return;
+                }
+                subscribers.add(sink);
+                cancelDetachTask();
+            }
+            sink.onDispose(() -> detach(sink));
+        });
+    }
+
+    private void append(String event, String data) {
+        boolean spill;
+        synchronized (this) {
+            spill = appendLocked(event, data);
+        }
+        if (spill) {
+            spill();
+        }
+    }
+
+    /**
+     * 持有会话锁时追加事件并分发给客户端
+     *
+     * @return 是否有事件进入溢写队列
+     */
+    private boolean appendLocked(String event, String data) {
+        if (finished) {
+            return false;
+        }
+        SessionEvent sessionEvent = new SessionEvent(nextSeq++, event, data);
+        boolean spill = false;
+        if (ring.size() == capacity) {
+            spill = evict();
+        }
+        ring.addLast(sessionEvent);
+        for (FluxSink<SessionEvent> subscriber : subscribers) {
+            subscriber.next(sessionEvent);
+        }
+        return spill;
+    }
+
+    /**
+     * 缓冲区已满，移出最早的一半事件，放入溢写队列（批量溢写，减少 Redis 往返）
+     *
+     * @return 是否有事件进入溢写队列
+     */
+    private boolean evict() {
+        int count = capacity / 2;
+        for (int i = 0; i < count; i++) {
+            SessionEvent evicted = ring.pollFirst();
+            if (eventStore != null) {
+                spillQueue.addLast(evicted);
+            }
+        }
+        firstSeq += count;
+        return eventStore != null;
+    }
+
+    /**
+     * 在会话锁外把溢写队列写入 Redis，写入成功后再出队，期间附着的客户端仍可从队列中补发
+     */
+    private void spill() {
+        synchronized (spillLock) {
+            while (true) {
+                List<SessionEvent> batch;
+                long ttlSeconds;
+                synchronized (this) {
+                    if (spillQueue.isEmpty()) {
+                        return;
+                    }
+                    batch = new ArrayList<>(spillQueue);
+                    // 已完成的会话完整写入 Redis，本机清理后仍可重放
+                    ttlSeconds = finished ? retentionSeconds : RUNNING_TTL_SECONDS;
+                }
+                eventStore.append(key, userId, batch, ttlSeconds);
+                synchronized (this) {
+                    for (int i = 0; i < batch.size(); i++) {
+                        spillQueue.pollFirst();
+                    }
+                }
+            }
+        }
+    }
+
+    private void finish(String event, String data) {
+        synchronized (this) {
+            if (finished) {
+                return;
+            }
+            appendLocked(event, data);
+            finished = true;
+            cancelDetachTask();
+            subscribers.forEach(FluxSink::complete);
+            subscribers.clear();
+            if (eventStore != null) {
+                spillQueue.addAll(ring);
+            }
+        }
+        if (eventStore != null) {
+            spill();
+        }
+        onFinished.accept(this);
+    }
+
+    private synchronized void detach(FluxSink<SessionEvent> sink) {
+        subscribers.remove(sink);
+        if (subscribers.isEmpty() && !finished && detachTask == null) {
+            detachTask = Schedulers.parallel().schedule(this::onDetachTimeout, detachTimeoutMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 客户端断开后迟迟没有重连，取消生成
+     */
+    private void onDetachTimeout() {
+        Disposable toCancel;
+        synchronized (this) {
+            detachTask = null;
+            if (finished || !subscribers.isEmpty()) {
+                return;
+            }
+            finished = true;
+            toCancel = upstream;
+        }
+        log.info("客户端断开超过 {} ms 未重连，取消生成，会话：{}", detachTimeoutMs, key);
+        if (toCancel != null) {
+            toCancel.dispose();
+        }
+        onCancelled.accept(this);
+    }
+
+    private void cancelDetachTask() {
+        if (detachTask != null) {
+            detachTask.dispose();
+            detachTask = null;
+        }
+    }
+
+    /**
+     * 与 GlobalExceptionHandler 中 SSE 业务错误的格式保持一致
+     */
+    static String errorJson(int code, String message) {
+        return JSONUtil.toJsonStr(Map.of(
+                "error", true,
+                "code", code,
+                "message", message
+        ));
+    }
+}
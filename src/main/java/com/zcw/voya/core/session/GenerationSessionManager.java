@@ -0,0 +1,142 @@
+package com.zcw.voya.core.session;
+
+import cn.hutool.core.util.IdUtil;
+import cn.hutool.core.util.NumberUtil;
+import cn.hutool.core.util.StrUtil;
+import com.zcw.voya.config.GenerationSessionConfig;
+import com.zcw.voya.exception.ErrorCode;
+import com.zcw.voya.exception.ThrowUtils;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * 生成会话管理器
+ * 以 appId + requestId 区分会话，同一个会话无论重连多少次都只生成一次。
+ * SSE 事件 ID 为 {requestId}:{seq}，浏览器自动重连时会带上 Last-Event-ID，据此接回会话并补发错过的事件。
+ * 只有新建会话时才调用生成（包括其上的限流和额度扣减），接回会话不计入
+ */
+@Slf4j
+@Component
+public class GenerationSessionManager {
+
+    private static final String KEY_PREFIX = "voya:gen_session:";
+
+    private static final Pattern REQUEST_ID_PATTERN = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+
+    @Resource
+    private GenerationSessionConfig generationSessionConfig;
+
+    @Resource
+    private RedisSessionEventStore redisSessionEventStore;
+
+    private final Map<String, GenerationSession> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * 接回已有的生成会话，或创建新会话并开始生成
+     *
+     * @param appId       应用ID
+     * @param userId      用户ID
+     * @param requestId   请求ID，为空时从 Last-Event-ID 中解析，仍为空则自动生成
+     * @param lastEventId 浏览器重连时带上的 Last-Event-ID
+     * @param generation  开始生成，返回已编码为 SSE 数据的生成流（只会调用一次）
+     * @return SSE 事件流
+     */
+    public Flux<ServerSentEvent<String>> attachOrStart(Long appId, Long userId, String requestId, String lastEventId,
+                                                       Supplier<Flux<String>> generation) {
+        long lastSeq = 0;
+        boolean resuming = StrUtil.isNotBlank(lastEventId);
+        if (resuming) {
+            int index = lastEventId.lastIndexOf(':');
+            ThrowUtils.throwIf(index <= 0, ErrorCode.PARAMS_ERROR, "Last-Event-ID 无效");
+            String eventRequestId = lastEventId.substring(0, index);
+            ThrowUtils.throwIf(requestId != null && !requestId.equals(eventRequestId), ErrorCode.PARAMS_ERROR, "Last-Event-ID 与 requestId 不匹配");
+            requestId = eventRequestId;
+            lastSeq = NumberUtil.parseLong(lastEventId.substring(index + 1), 0L);
+        }
+        if (StrUtil.isBlank(requestId)) {
+            requestId = IdUtil.fastSimpleUUID();
+        }
+        ThrowUtils.throwIf(!REQUEST_ID_PATTERN.matcher(requestId).matches(), ErrorCode.PARAMS_ERROR, "requestId 无效");
+        String key = KEY_PREFIX + appId + ":" + requestId;
+
+        GenerationSession session = sessions.get(key);
+        if (session == null && resuming) {
+            // 会话不在本机内存中，校验归属后重放已溢写的事件
+            return toServerSentEvents(requestId, replayFromStore(key, userId, lastSeq));
+        }
+        if (session == null) {
+            GenerationSession created = createSession(key, userId);
+            session = sessions.putIfAbsent(key, created);
+            if (session == null) {
+                session = created;
+                try {
+                    created.start(generation.get());
+                } catch (RuntimeException e) {
+                    // 校验失败等同步异常：结束已附着的连接，当前请求按原方式处理
+                    sessions.remove(key, created);
+                    created.fail(e);
+                    throw e;
+                }
+            }
+        } else {
+            log.info("接回生成会话：{}，lastSeq：{}", key, lastSeq);
+        }
+        ThrowUtils.throwIf(!session.isOwnedBy(userId), ErrorCode.NO_AUTH_ERROR, "无权限访问该生成会话");
+        return toServerSentEvents(requestId, session.attach(lastSeq));
+    }
+
+    private GenerationSession createSession(String key, Long userId) {
+        long retentionSeconds = generationSessionConfig.getRetentionSeconds();
+        return new GenerationSession(
+                key,
+                userId,
+                generationSessionConfig.getBufferSize(),
+                TimeUnit.SECONDS.toMillis(generationSessionConfig.getDetachTimeoutSeconds()),
+                retentionSeconds,
+                generationSessionConfig.isRedisSpill() ? redisSessionEventStore : null,
+                // 结束后保留一段时间用于重放
+                session -> Schedulers.parallel().schedule(() -> sessions.remove(key, session), retentionSeconds, TimeUnit.SECONDS),
+                session -> sessions.remove(key, session));
+    }
+
+    /**
+     * 从 Redis 重放会话，只有会话所属用户可以重放，没有完整记录时以业务错误结束
+     */
+    private Flux<SessionEvent> replayFromStore(String key, Long userId, long lastSeq) {
+        List<SessionEvent> events = new ArrayList<>();
+        if (generationSessionConfig.isRedisSpill()) {
+            Long ownerId = redisSessionEventStore.readOwner(key);
+            if (ownerId != null) {
+                ThrowUtils.throwIf(!ownerId.equals(userId), ErrorCode.NO_AUTH_ERROR, "无权限访问该生成会话");
+                events.addAll(redisSessionEventStore.read(key, lastSeq + 1, Long.MAX_VALUE));
+            }
+        }
+        if (events.isEmpty() || !events.getLast().isTerminal()) {
+            log.warn("生成会话不存在或已过期：{}", key);
+            long seq = events.isEmpty() ? lastSeq + 1 : events.getLast().seq() + 1;
+            events.add(new SessionEvent(seq, SessionEvent.BUSINESS_ERROR,
+                    GenerationSession.errorJson(ErrorCode.NOT_FOUND_ERROR.getCode(), "生成会话已过期，请重新发送")));
+        }
+        return Flux.fromIterable(events);
+    }
+
+    private static Flux<ServerSentEvent<String>> toServerSentEvents(String requestId, Flux<SessionEvent> events) {
+        return events.map(event -> ServerSentEvent.<String>builder()
+                .id(requestId + ":" + event.seq())
+                .event(event.event())
+                .data(event.data())
+                .build());
+    }
+}
@@ -0,0 +1,88 @@
+package com.zcw.voya.core.session;
+
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 生成会话事件的 Redis 溢写存储
+ * 每个会话一个 list，元素按序号连续追加，下标 = 序号 - 1；会话所属用户单独保存，重放前校验
+ */
+@Slf4j
+@Component
+public class RedisSessionEventStore {
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    private static final String OWNER_SUFFIX = ":owner";
+
+    /**
+     * 追加事件
+     *
+     * @param key        会话 key
+     * @param userId     会话所属用户ID
+     * @param events     按序号连续的事件
+     * @param ttlSeconds 过期时间（秒）
+     */
+    public void append(String key, Long userId, List<SessionEvent> events, long ttlSeconds) {
+        if (events.isEmpty()) {
+            return;
+        }
+        try {
+            List<String> values = events.stream().map(SessionEvent::encode).toList();
+            // 先写所属用户，保证能读到事件时一定能校验归属
+            stringRedisTemplate.opsForValue().set(key + OWNER_SUFFIX, String.valueOf(userId), ttlSeconds, TimeUnit.SECONDS);
+            stringRedisTemplate.opsForList().rightPushAll(key, values);
+            stringRedisTemplate.expire(key, ttlSeconds, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            // 溢写失败只影响断线重放，不影响生成本身
+            log.warn("生成会话事件溢写失败，key：{}，{}", key, e.getMessage());
+        }
+    }
+
+    /**
+     * 读取会话所属用户
+     *
+     * @param key 会话 key
+     * @return 用户ID，不存在或读取失败返回 null
+     */
+    public Long readOwner(String key) {
+        try {
+            String value = stringRedisTemplate.opsForValue().get(key + OWNER_SUFFIX);
+            return value == null ? null : Long.valueOf(value);
+        } catch (Exception e) {
+            log.warn("读取生成会话所属用户失败，key：{}，{}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 读取序号在 [fromSeq, toSeq] 范围内的事件
+     *
+     * @param key     会话 key
+     * @param fromSeq 起始序号（包含）
+     * @param toSeq   结束序号（包含），Long.MAX_VALUE 表示读到末尾
+     * @return 事件列表，读取失败返回空列表
+     */
+    public List<SessionEvent> read(String key, long fromSeq, long toSeq) {
+        try {
+            long end = toSeq == Long.MAX_VALUE ? -1 : toSeq - 1;
+            List<String> values = stringRedisTemplate.opsForList().range(key, fromSeq - 1, end);
+            if (values == null) {
+                return List.of();
+            }
+            return values.stream()
+                    .map(SessionEvent::decode)
+                    .filter(event -> event.seq() >= fromSeq && event.seq() <= toSeq)
+                    .toList();
+        } catch (Exception e) {
+            log.warn("读取生成会话事件失败，key：{}，{}", key, e.getMessage());
+            return List.of();
+        }
+    }
+}
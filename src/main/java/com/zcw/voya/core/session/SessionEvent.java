@@ -0,0 +1,43 @@
+package com.zcw.voya.core.session;
+
+/**
+ * 生成会话中的一条 SSE 事件
+ *
+ * @param seq   会话内的序号，从 1 开始
+ * @param event 事件名，普通消息为 null
+ * @param data  已编码的事件数据
+ */
+public record SessionEvent(long seq, String event, String data) {
+
+    /**
+     * 结束事件
+     */
+    public static final String DONE = "done";
+
+    /**
+     * 排队事件，数据为 {"position": n}
+     */
+    public static final String QUEUED = "queued";
+
+    /**
+     * 业务错误事件（避免与标准 error 事件冲突）
+     */
+    public static final String BUSINESS_ERROR = "business-error";
+
+    public boolean isTerminal() {
+        return DONE.equals(event) || BUSINESS_ERROR.equals(event);
+    }
+
+    /**
+     * 编码为 Redis 中保存的字符串：seq\nevent\ndata
+     */
+    String encode() {
+        return seq + "\n" + (event == null ? "" : event) + "\n" + data;
+    }
+
+    static SessionEvent decode(String value) {
+        String[] parts = value.split("\n", 3);
+        String event = parts[1].isEmpty() ? null : parts[1];
+        return new SessionEvent(Long.parseLong(parts[0]), event, parts.length > 2 ? parts[2] : "");
+    }
+}
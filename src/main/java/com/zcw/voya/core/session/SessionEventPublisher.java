@@ -0,0 +1,22 @@
+package com.zcw.voya.core.session;
+
+/**
+ * 向生成会话发布具名事件（如排队位置），不经过生成内容的编码链路
+ * 会话订阅生成流时放入 Reactor Context，生成链路中的组件按需取用，不在会话中时取不到
+ */
+@FunctionalInterface
+public interface SessionEventPublisher {
+
+    /**
+     * Reactor Context 中的 key
+     */
+    String CONTEXT_KEY = SessionEventPublisher.class.getName();
+
+    /**
+     * 发布事件
+     *
+     * @param event 事件名
+     * @param data  已编码的事件数据
+     */
+    void publish(String event, String data);
+}
@@ -0,0 +1,324 @@
+package com.zcw.voya.core.workspace;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * 单个 Vue 项目的内存工作区
+ * 以相对路径（统一使用 / 分隔）为键保存文件内容，工具的读写、修改、删除和目录读取都只操作内存，
+ * 改动过的文件记为脏文件，由 flush 一次性写回磁盘。
+ * 打开时只扫描磁盘上已有文件的路径，内容在第一次读取时才加载（node_modules、dist 等目录不扫描）。
+ * 写回时先写同目录下的临时文件再原子重命名，进程中途崩溃也不会留下写了一半的文件。
+ * 目录树的渲染结果按目录缓存，只有新增或删除文件时才失效，内容覆盖不影响目录结构
+ */
+@Slf4j
+public class ProjectWorkspace {
+
+    /**
+     * 不纳入工作区的目录和文件
+     */
+    static final Set<String> IGNORED_NAMES = Set.of(
+            "node_modules", ".git", "dist", "build", ".DS_Store",
+            ".env", "target", ".mvn", ".idea", ".vscode", "coverage"
+    );
+
+    /**
+     * 目录树中不展示的文件扩展名
+     */
+    private static final Set<String> IGNORED_EXTENSIONS = Set.of(
+            ".log", ".tmp", ".cache", ".lock"
+    );
+
+    private static final String TEMP_SUFFIX = ".voya-tmp";
+
+    private final Path root;
+
+    /**
+     * 相对路径 -> 文件内容，内容为 null 表示磁盘上存在但尚未加载
+     */
+    private final TreeMap<String, String> files = new TreeMap<>();
+
+    /**
+     * 有改动、等待写回的文件
+     */
+    private final Set<String> dirty = new HashSet<>();
+
+    /**
+     * 已删除、等待从磁盘删除的文件
+     */
+    private final Set<String> deleted = new HashSet<>();
+
+    /**
+     * 目录 -> 渲染好的目录树
+     */
+    private final Map<String, String> treeCache = new HashMap<>();
+
+    public ProjectWorkspace(Path root) {
+        this.root = root;
+        scan(root);
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    /**
+     * 规范化工具传入的相对路径，越出项目目录或为绝对路径时返回 null
+     */
+    public String normalize(String relativePath) {
+        if (relativePath == null) {
+            return "";
+        }
+        Path path = Path.of(relativePath.replace('\\', '/')).normalize();
+        if (path.isAbsolute() || path.startsWith("..")) {
+            return null;
+        }
+        return path.toString().replace('\\', '/');
+    }
+
+    public synchronized boolean isFile(String path) {
+        return files.containsKey(path);
+    }
+
+    /**
+     * 目录下是否有文件，空路径表示项目根目录
+     */
+    public synchronized boolean isDirectory(String path) {
+        if (path.isEmpty()) {
+            return !files.isEmpty() || Files.isDirectory(root);
+        }
+        String prefix = path + "/";
+        String next = files.ceilingKey(prefix);
+        return next != null && next.startsWith(prefix);
+    }
+
+    /**
+     * 读取文件内容，文件不存在时返回 null
+     */
+    public synchronized String read(String path) throws IOException {
+        if (!files.containsKey(path)) {
+            return null;
+        }
+        String content = files.get(path);
+        if (content == null) {
+            content = Files.readString(root.resolve(path), StandardCharsets.UTF_8);
+            files.put(path, content);
+        }
+        return content;
+    }
+
+    public synchronized void write(String path, String content) {
+        if (!files.containsKey(path)) {
+            treeCache.clear();
+        }
+        files.put(path, content);
+        dirty.add(path);
+        deleted.remove(path);
+    }
+
+    /**
+     * 删除文件，文件不存在时返回 false
+     */
+    public synchronized boolean delete(String path) {
+        if (!files.containsKey(path)) {
+            return false;
+        }
+        files.remove(path);
+        dirty.remove(path);
+        deleted.add(path);
+        treeCache.clear();
+        return true;
+    }
+
+    /**
+     * 目录下的所有文件路径（相对项目根目录），按路径排序
+     */
+    public synchronized List<String> list(String dir) {
+        if (dir.isEmpty()) {
+            return new ArrayList<>(files.keySet());
+        }
+        String prefix = dir + "/";
+        return files.keySet().stream().filter(path -> path.startsWith(prefix)).toList();
+    }
+
+    /**
+     * 目录树：按深度和路径排序，每个文件一行，按相对目录的深度缩进
+     * 结果缓存到目录结构变化为止
+     */
+    public synchronized String tree(String dir) {
+        return treeCache.computeIfAbsent(dir, this::renderTree);
+    }
+
+    private String renderTree(String dir) {
+        int prefixLength = dir.isEmpty() ? 0 : dir.length() + 1;
+        StringBuilder tree = new StringBuilder();
+        list(dir).stream()
+                .map(path -> path.substring(prefixLength))
+                .filter(path -> IGNORED_EXTENSIONS.stream().noneMatch(path::endsWith))
+                .sorted(Comparator.comparingInt(ProjectWorkspace::depth).thenComparing(Comparator.naturalOrder()))
+                .forEach(path -> tree.append("  ".repeat(depth(path)))
+                        .append(path, path.lastIndexOf('/') + 1, path.length())
+                        .append('\n'));
+        return tree.toString();
+    }
+
+    private static int depth(String relativePath) {
+        int depth = 0;
+        for (int i = 0; i < relativePath.length(); i++) {
+            if (relativePath.charAt(i) == '/') {
+                depth++;
+            }
+        }
+        return depth;
+    }
+
+    /**
+     * 路径是否在工作区之外（位于忽略的目录下，或是写回用的临时文件）
+     */
+    public static boolean isIgnored(String relativePath) {
+        if (relativePath.endsWith(TEMP_SUFFIX)) {
+            return true;
+        }
+        for (String name : relativePath.split("/")) {
+            if (IGNORED_NAMES.contains(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 同步磁盘上的外部改动（如 npm install 或手动修改），由目录监听调用
+     * 有未写回改动的文件以内存为准；其余文件按磁盘当前状态新增、丢弃已加载的内容或移除
+     *
+     * @param path 发生变化的相对路径，可以是文件或目录
+     */
+    public synchronized void refresh(String path) {
+        if (dirty.contains(path) || deleted.contains(path)) {
+            return;
+        }
+        Path target = root.resolve(path);
+        if (Files.isRegularFile(target)) {
+            if (!files.containsKey(path)) {
+                treeCache.clear();
+            }
+            files.put(path, null);
+        } else if (Files.isDirectory(target)) {
+            scan(target);
+        } else {
+            String prefix = path + "/";
+            if (files.keySet().removeIf(key -> !dirty.contains(key) && (key.equals(path) || key.startsWith(prefix)))) {
+                treeCache.clear();
+            }
+        }
+    }
+
+    /**
+     * 重新扫描整个项目目录，用于监听事件丢失（OVERFLOW）后的兜底
+     */
+    public synchronized void rescan() {
+        files.keySet().removeIf(key -> !dirty.contains(key) && !Files.isRegularFile(root.resolve(key)));
+        scan(root);
+    }
+
+    public synchronized boolean hasPendingChanges() {
+        return !dirty.isEmpty() || !deleted.isEmpty();
+    }
+
+    /**
+     * 把改动写回磁盘：每个脏文件写一次，已删除的文件从磁盘删除
+     * 单个文件失败不影响其余文件，失败的文件保留脏标记，下次 flush 时重试
+     *
+     * @return 写回失败的文件数
+     */
+    public synchronized int flush() {
+        int failures = 0;
+        for (String path : new ArrayList<>(dirty)) {
+            try {
+                writeAtomically(root.resolve(path), files.get(path));
+                dirty.remove(path);
+            } catch (IOException e) {
+                failures++;
+                log.error("工作区文件写回失败: {}", root.resolve(path), e);
+            }
+        }
+        for (String path : new ArrayList<>(deleted)) {
+            try {
+                Files.deleteIfExists(root.resolve(path));
+                deleted.remove(path);
+            } catch (IOException e) {
+                failures++;
+                log.error("工作区文件删除失败: {}", root.resolve(path), e);
+            }
+        }
+        return failures;
+    }
+
+    private static void writeAtomically(Path target, String content) throws IOException {
+        Path parent = target.getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, target.getFileName().toString(), TEMP_SUFFIX);
+        try {
+            Files.writeString(temp, content, StandardCharsets.UTF_8);
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * 扫描目录下已有文件的路径（已在工作区中的不覆盖），顺带清理上次崩溃遗留的临时文件
+     */
+    private void scan(Path start) {
+        if (!Files.isDirectory(start)) {
+            return;
+        }
+        treeCache.clear();
+        try {
+            Files.walkFileTree(start, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                    return !dir.equals(root) && IGNORED_NAMES.contains(dir.getFileName().toString())
+                            ? FileVisitResult.SKIP_SUBTREE : FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                    String name = file.getFileName().toString();
+                    if (name.endsWith(TEMP_SUFFIX)) {
+                        Files.deleteIfExists(file);
+                    } else if (!IGNORED_NAMES.contains(name)) {
+                        String path = root.relativize(file).toString().replace('\\', '/');
+                        if (!deleted.contains(path)) {
+                            files.putIfAbsent(path, null);
+                        }
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            log.error("扫描项目目录失败: {}", start, e);
+        }
+    }
+}
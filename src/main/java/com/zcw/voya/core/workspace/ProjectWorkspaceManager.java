@@ -0,0 +1,196 @@
+package com.zcw.voya.core.workspace;
+
+import com.zcw.voya.ai.model.enums.CodeGenTypeEnum;
+import com.zcw.voya.constant.AppConstant;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Vue 项目工作区管理器
+ * 生成期间每个应用持有一个内存工作区，文件工具只读写工作区；
+ * 生成结束（完成、失败或取消）时调用 close 把改动一次性写回 vue_project_{appId} 并释放内存，
+ * 构建和部署前调用 flush，保证磁盘上是最新内容。
+ * 打开的工作区会监听项目目录（不含 node_modules、dist 等忽略目录），外部改动通过 refresh 同步到目录索引
+ */
+@Slf4j
+@Component
+public class ProjectWorkspaceManager {
+
+    private final Map<Long, ProjectWorkspace> workspaces = new ConcurrentHashMap<>();
+
+    /**
+     * 监听 key -> 所属工作区和目录
+     */
+    private final Map<WatchKey, WatchedDir> watchedDirs = new ConcurrentHashMap<>();
+
+    private WatchService watchService;
+
+    private record WatchedDir(ProjectWorkspace workspace, Path dir) {
+    }
+
+    @PostConstruct
+    public void init() {
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            Thread.ofPlatform().daemon().name("project-workspace-watcher").start(this::watchLoop);
+        } catch (IOException e) {
+            log.warn("创建目录监听失败，外部改动不会同步到工作区", e);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+
+    /**
+     * 获取应用的工作区，不存在时从磁盘上的项目目录打开
+     */
+    public ProjectWorkspace open(long appId) {
+        return workspaces.computeIfAbsent(appId, id -> {
+            ProjectWorkspace workspace = new ProjectWorkspace(projectRoot(id));
+            watch(workspace, workspace.getRoot());
+            return workspace;
+        });
+    }
+
+    /**
+     * 把工作区的改动写回磁盘，工作区未打开时什么都不做
+     */
+    public void flush(long appId) {
+        ProjectWorkspace workspace = workspaces.get(appId);
+        if (workspace != null) {
+            boolean rootExisted = Files.isDirectory(workspace.getRoot());
+            flush(appId, workspace);
+            // 新项目第一次写回时才创建项目目录，此时补上监听
+            if (!rootExisted) {
+                watch(workspace, workspace.getRoot());
+            }
+        }
+    }
+
+    /**
+     * 写回改动并释放工作区
+     */
+    public void close(long appId) {
+        ProjectWorkspace workspace = workspaces.remove(appId);
+        if (workspace != null) {
+            flush(appId, workspace);
+            watchedDirs.entrySet().removeIf(entry -> {
+                if (entry.getValue().workspace() != workspace) {
+                    return false;
+                }
+                entry.getKey().cancel();
+                return true;
+            });
+        }
+    }
+
+    private void flush(long appId, ProjectWorkspace workspace) {
+        if (!workspace.hasPendingChanges()) {
+            return;
+        }
+        int failures = workspace.flush();
+        if (failures > 0) {
+            log.warn("应用 {} 的工作区有 {} 个文件写回失败", appId, failures);
+        } else {
+            log.info("应用 {} 的工作区已写回磁盘: {}", appId, workspace.getRoot());
+        }
+    }
+
+    /**
+     * 递归监听目录，跳过忽略的目录
+     */
+    private void watch(ProjectWorkspace workspace, Path start) {
+        if (watchService == null || !Files.isDirectory(start)) {
+            return;
+        }
+        Path root = workspace.getRoot();
+        try {
+            Files.walkFileTree(start, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                    if (!dir.equals(root) && ProjectWorkspace.isIgnored(relativePath(root, dir))) {
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+                    WatchKey key = dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                            StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+                    watchedDirs.put(key, new WatchedDir(workspace, dir));
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (ClosedWatchServiceException e) {
+            // 应用关闭中
+        } catch (IOException e) {
+            log.warn("监听项目目录失败: {}", start, e);
+        }
+    }
+
+    private void watchLoop() {
+        while (true) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (ClosedWatchServiceException | InterruptedException e) {
+                return;
+            }
+            WatchedDir watched = watchedDirs.get(key);
+            if (watched != null) {
+                try {
+                    handleEvents(watched, key);
+                } catch (RuntimeException e) {
+                    log.warn("同步项目目录改动失败: {}", watched.dir(), e);
+                }
+            }
+            if (!key.reset()) {
+                watchedDirs.remove(key);
+            }
+        }
+    }
+
+    private void handleEvents(WatchedDir watched, WatchKey key) {
+        ProjectWorkspace workspace = watched.workspace();
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                workspace.rescan();
+                continue;
+            }
+            Path changed = watched.dir().resolve((Path) event.context());
+            String path = relativePath(workspace.getRoot(), changed);
+            if (ProjectWorkspace.isIgnored(path)) {
+                continue;
+            }
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(changed)) {
+                watch(workspace, changed);
+            }
+            workspace.refresh(path);
+        }
+    }
+
+    private static String relativePath(Path root, Path path) {
+        return root.relativize(path).toString().replace('\\', '/');
+    }
+
+    private static Path projectRoot(long appId) {
+        return Path.of(AppConstant.CODE_OUTPUT_ROOT_DIR, CodeGenTypeEnum.VUE_PROJECT.getValue() + "_" + appId);
+    }
+}
@@ -1,6 +1,7 @@
 package com.zcw.voya.langgraph4j.node;
 
 import com.zcw.voya.ai.model.enums.CodeGenTypeEnum;
+import com.zcw.voya.ai.model.message.StreamMessage;
 import com.zcw.voya.constant.AppConstant;
 import com.zcw.voya.core.AiCodeGeneratorFacade;
 import com.zcw.voya.langgraph4j.model.QualityResult;
@@ -35,7 +36,7 @@ public class CodeGeneratorNode {
             // 先使用固定的 appId (后续再整合到业务中)
             Long appId = 0L;
             // 调用流式代码生成
-            Flux<String> codeStream = codeGeneratorFacade.generateCodeStream(userMessage, generationType, appId);
+            Flux<StreamMessage> codeStream = codeGeneratorFacade.generateCodeStream(userMessage, generationType, appId);
             // 同步等待流式输出完成
             codeStream.blockLast(Duration.ofMinutes(10)); // 最多等待 10 分钟
             // 根据类型设置生成目录
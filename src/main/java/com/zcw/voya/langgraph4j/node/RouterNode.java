@@ -1,8 +1,7 @@
 package com.zcw.voya.langgraph4j.node;
 
-import com.zcw.voya.ai.CodeGenTypeRoutingService;
-import com.zcw.voya.ai.CodeGenTypeRoutingServiceFactory;
 import com.zcw.voya.ai.model.enums.CodeGenTypeEnum;
+import com.zcw.voya.ai.routing.CodeGenTypeRouter;
 import com.zcw.voya.langgraph4j.state.WorkflowContext;
 import com.zcw.voya.util.SpringContextUtil;
 import lombok.extern.slf4j.Slf4j;
@@ -24,11 +23,9 @@ public class RouterNode {
 
             CodeGenTypeEnum generationType;
             try {
-                // 获取AI路由服务
-                CodeGenTypeRoutingServiceFactory factory = SpringContextUtil.getBean(CodeGenTypeRoutingServiceFactory.class);
-                CodeGenTypeRoutingService routingService = factory.createCodeGenTypeRoutingService();
-                // 根据原始提示词进行智能路由
-                generationType = routingService.routeCodeGenType(context.getOriginalPrompt());
+                // 根据原始提示词进行智能路由（带缓存和本地判断）
+                CodeGenTypeRouter router = SpringContextUtil.getBean(CodeGenTypeRouter.class);
+                generationType = router.route(context.getOriginalPrompt());
                 log.info("AI智能路由完成，选择类型: {} ({})", generationType.getValue(), generationType.getText());
             } catch (Exception e) {
                 log.error("AI智能路由失败，使用默认HTML类型: {}", e.getMessage());
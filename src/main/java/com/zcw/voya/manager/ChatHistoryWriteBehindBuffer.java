@@ -0,0 +1,245 @@
+package com.zcw.voya.manager;
+
+import com.zcw.voya.config.ChatHistoryWriteBehindConfig;
+import com.zcw.voya.mapper.ChatHistoryMapper;
+import com.zcw.voya.model.entity.ChatHistory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 对话历史写缓冲
+ * 对话历史先进入有界队列，由后台线程合并成多行 INSERT 批量写入，把数据库往返移出请求和响应流线程。
+ * <p>
+ * 未写入的记录按 appId 建立索引，读历史时与数据库结果合并，保证写后可读；
+ * 队列满时退化为同步写入，应用关闭时刷写全部剩余记录
+ */
+@Slf4j
+@Component
+public class ChatHistoryWriteBehindBuffer {
+
+    private final ChatHistoryMapper chatHistoryMapper;
+
+    private final ChatHistoryWriteBehindConfig config;
+
+    private final BlockingQueue<ChatHistory> queue;
+
+    /**
+     * 尚未写入数据库的记录，按 appId 分组，按入队顺序排列
+     */
+    private final Map<Long, Queue<ChatHistory>> pendingByApp = new ConcurrentHashMap<>();
+
+    /**
+     * 保证同一时刻只有一个批次在写，删除应用历史时也借此等待进行中的批次
+     */
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    private final ScheduledExecutorService flusher;
+
+    private final Counter flushedRowsCounter;
+
+    private final Counter batchCounter;
+
+    private final Counter syncFallbackCounter;
+
+    private final Counter failedRowsCounter;
+
+    public ChatHistoryWriteBehindBuffer(ChatHistoryMapper chatHistoryMapper, ChatHistoryWriteBehindConfig config,
+                                        MeterRegistry meterRegistry) {
+        this.chatHistoryMapper = chatHistoryMapper;
+        this.config = config;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, config.getCapacity()));
+        this.flusher = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("chat-history-flusher").daemon().factory());
+        long interval = Math.max(10, config.getFlushIntervalMs());
+        this.flusher.scheduleWithFixedDelay(this::flushAllQuietly, interval, interval, TimeUnit.MILLISECONDS);
+        Gauge.builder("voya.chat_history.pending", queue, BlockingQueue::size)
+                .description("等待写入的对话历史条数")
+                .register(meterRegistry);
+        this.flushedRowsCounter = Counter.builder("voya.chat_history.flushed")
+                .description("批量写入的对话历史条数")
+                .register(meterRegistry);
+        this.batchCounter = Counter.builder("voya.chat_history.batches")
+                .description("批量写入次数")
+                .register(meterRegistry);
+        this.syncFallbackCounter = Counter.builder("voya.chat_history.sync_fallback")
+                .description("队列已满或未开启时同步写入的条数")
+                .register(meterRegistry);
+        this.failedRowsCounter = Counter.builder("voya.chat_history.failed")
+                .description("写入失败被丢弃的对话历史条数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 写入一条对话历史，入队后立即返回
+     *
+     * @param chatHistory 对话历史
+     * @return 是否成功
+     */
+    public boolean add(ChatHistory chatHistory) {
+        // 数据库 datetime 精度为秒，这里提前截断，保证刷写前后的游标一致
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        chatHistory.setCreateTime(now);
+        chatHistory.setUpdateTime(now);
+        chatHistory.setIsDelete(0);
+        if (!config.isEnabled()) {
+            return insertDirectly(chatHistory);
+        }
+        Long appId = chatHistory.getAppId();
+        pendingByApp.compute(appId, (key, pending) -> {
+            Queue<ChatHistory> result = pending == null ? new ConcurrentLinkedQueue<>() : pending;
+            result.add(chatHistory);
+            return result;
+        });
+        if (!queue.offer(chatHistory)) {
+            removePending(List.of(chatHistory));
+            log.warn("对话历史写入队列已满，改为同步写入，appId：{}", appId);
+            return insertDirectly(chatHistory);
+        }
+        if (queue.size() >= config.getBatchSize() && flushScheduled.compareAndSet(false, true)) {
+            // 攒够一批，不等定时器
+            try {
+                flusher.execute(() -> {
+                    flushScheduled.set(false);
+                    flushAllQuietly();
+                });
+            } catch (RejectedExecutionException e) {
+                flushScheduled.set(false);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 获取应用尚未写入数据库的记录
+     *
+     * @param appId          应用ID
+     * @param lastCreateTime 游标，只返回早于该时间的记录，为空时不限制
+     * @return 未写入的记录，新的在前
+     */
+    public List<ChatHistory> listPending(Long appId, LocalDateTime lastCreateTime) {
+        Queue<ChatHistory> pending = pendingByApp.get(appId);
+        if (pending == null || pending.isEmpty()) {
+            return List.of();
+        }
+        List<ChatHistory> result = new ArrayList<>();
+        for (ChatHistory chatHistory : pending) {
+            if (lastCreateTime == null || chatHistory.getCreateTime().isBefore(lastCreateTime)) {
+                result.add(chatHistory);
+            }
+        }
+        return result.reversed();
+    }
+
+    /**
+     * 丢弃应用尚未写入的记录，并等待进行中的批次完成，之后再删除数据库记录不会被批次覆盖
+     *
+     * @param appId 应用ID
+     */
+    public void discard(Long appId) {
+        flushLock.lock();
+        try {
+            Queue<ChatHistory> pending = pendingByApp.remove(appId);
+            if (pending != null) {
+                queue.removeIf(chatHistory -> appId.equals(chatHistory.getAppId()));
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * 刷写队列中的全部记录
+     */
+    public void flushAll() {
+        flushLock.lock();
+        try {
+            List<ChatHistory> batch = new ArrayList<>(config.getBatchSize());
+            while (queue.drainTo(batch, Math.max(1, config.getBatchSize())) > 0) {
+                writeBatch(batch);
+                removePending(batch);
+                batch.clear();
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushAll();
+        log.info("对话历史写缓冲已关闭，剩余记录已刷写");
+    }
+
+    private void flushAllQuietly() {
+        try {
+            flushAll();
+        } catch (Exception e) {
+            log.error("刷写对话历史失败", e);
+        }
+    }
+
+    /**
+     * 多行 INSERT 写入一批记录，失败时逐条重试，仍失败的记录记录日志后丢弃
+     */
+    private void writeBatch(List<ChatHistory> batch) {
+        try {
+            chatHistoryMapper.insertBatch(batch);
+            batchCounter.increment();
+            flushedRowsCounter.increment(batch.size());
+        } catch (Exception e) {
+            log.error("批量写入对话历史失败，逐条重试，条数：{}", batch.size(), e);
+            for (ChatHistory chatHistory : batch) {
+                try {
+                    chatHistoryMapper.insert(chatHistory);
+                    flushedRowsCounter.increment();
+                } catch (Exception ex) {
+                    failedRowsCounter.increment();
+                    log.error("写入对话历史失败，appId：{}，error：{}", chatHistory.getAppId(), ex.getMessage());
+                }
+            }
+        }
+    }
+
+    private boolean insertDirectly(ChatHistory chatHistory) {
+        syncFallbackCounter.increment();
+        return chatHistoryMapper.insert(chatHistory) > 0;
+    }
+
+    private void removePending(List<ChatHistory> written) {
+        for (ChatHistory chatHistory : written) {
+            pendingByApp.computeIfPresent(chatHistory.getAppId(), (appId, pending) -> {
+                // 按引用删除，刷写后实体的 id 已回填，不能依赖 equals
+                pending.removeIf(item -> item == chatHistory);
+                return pending.isEmpty() ? null : pending;
+            });
+        }
+    }
+}
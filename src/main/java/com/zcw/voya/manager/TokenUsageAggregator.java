@@ -0,0 +1,289 @@
+package com.zcw.voya.manager;
+
+import cn.hutool.core.util.StrUtil;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.zcw.voya.config.TokenUsageConfig;
+import com.zcw.voya.mapper.AppMapper;
+import com.zcw.voya.mapper.TokenUsageMapper;
+import com.zcw.voya.model.entity.App;
+import com.zcw.voya.model.entity.TokenUsage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * token 用量聚合器
+ * 模型调用的用量按天、用户、应用、模型、生成类型在内存中无锁累加（LongAdder），
+ * 由后台线程定时把增量批量累加写入 token_usage 表，同时记录监控指标。
+ * <p>
+ * 计数器只增不减，每个维度记录已写入的数值，写入成功后才推进，写入失败的增量留到下次重试；
+ * 前一天且已全部写入的维度从内存中移除
+ */
+@Slf4j
+@Component
+public class TokenUsageAggregator {
+
+    private static final String UNKNOWN_MODEL = "unknown";
+
+    private final TokenUsageMapper tokenUsageMapper;
+
+    private final AppMapper appMapper;
+
+    private final TokenUsageConfig config;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<UsageKey, UsageCounters> aggregates = new ConcurrentHashMap<>();
+
+    /**
+     * 应用归属缓存，应用的创建用户和生成类型不会变化
+     */
+    private final Cache<Long, AppOwner> appOwners;
+
+    /**
+     * 保证同一时刻只有一个线程在写，已写入的数值只在持有锁时读写
+     */
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private final ScheduledExecutorService flusher;
+
+    private final Counter flushedRowsCounter;
+
+    private final Counter failedFlushCounter;
+
+    public TokenUsageAggregator(TokenUsageMapper tokenUsageMapper, AppMapper appMapper, TokenUsageConfig config,
+                                MeterRegistry meterRegistry) {
+        this.tokenUsageMapper = tokenUsageMapper;
+        this.appMapper = appMapper;
+        this.config = config;
+        this.meterRegistry = meterRegistry;
+        this.appOwners = Caffeine.newBuilder()
+                .maximumSize(config.getAppCacheSize())
+                .expireAfterAccess(Duration.ofMinutes(30))
+                .build();
+        this.flusher = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("token-usage-flusher").daemon().factory());
+        long interval = Math.max(100, config.getFlushIntervalMs());
+        this.flusher.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+        Gauge.builder("voya.token_usage.dimensions", aggregates, Map::size)
+                .description("内存中聚合的用量维度数")
+                .register(meterRegistry);
+        this.flushedRowsCounter = Counter.builder("voya.token_usage.flushed")
+                .description("累加写入的用量行数")
+                .register(meterRegistry);
+        this.failedFlushCounter = Counter.builder("voya.token_usage.flush_failed")
+                .description("用量写入失败的批次数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 记录一次模型调用
+     *
+     * @param memoryId     记忆ID（即应用ID），非应用调用为 null
+     * @param modelName    模型名称
+     * @param inputTokens  输入 token 数，可为 null
+     * @param outputTokens 输出 token 数，可为 null
+     * @param success      是否成功
+     */
+    public void record(Object memoryId, String modelName, Integer inputTokens, Integer outputTokens, boolean success) {
+        long appId = toAppId(memoryId);
+        AppOwner owner = appId > 0 ? resolveOwner(appId) : AppOwner.NONE;
+        String model = StrUtil.blankToDefault(modelName, UNKNOWN_MODEL);
+        long input = inputTokens == null ? 0 : inputTokens;
+        long output = outputTokens == null ? 0 : outputTokens;
+
+        if (config.isPersistEnabled()) {
+            UsageKey key = new UsageKey(LocalDate.now(), owner.userId(), appId, model, owner.codeGenType());
+            UsageCounters counters = aggregates.computeIfAbsent(key, k -> new UsageCounters());
+            counters.requests.increment();
+            if (!success) {
+                counters.errors.increment();
+            }
+            counters.inputTokens.add(input);
+            counters.outputTokens.add(output);
+        }
+
+        // 监控指标不带用户和应用维度，避免标签基数过高
+        String codeGenTypeTag = owner.codeGenType().isEmpty() ? "none" : owner.codeGenType();
+        meterRegistry.counter("voya.llm.requests", "model", model, "codeGenType", codeGenTypeTag,
+                "result", success ? "success" : "error").increment();
+        if (input > 0) {
+            meterRegistry.counter("voya.llm.tokens", "model", model, "codeGenType", codeGenTypeTag,
+                    "type", "input").increment(input);
+        }
+        if (output > 0) {
+            meterRegistry.counter("voya.llm.tokens", "model", model, "codeGenType", codeGenTypeTag,
+                    "type", "output").increment(output);
+        }
+    }
+
+    /**
+     * 把内存中尚未写入的增量累加写入数据库
+     */
+    public void flush() {
+        flushLock.lock();
+        try {
+            List<UsageKey> keys = new ArrayList<>();
+            List<long[]> snapshots = new ArrayList<>();
+            List<TokenUsage> rows = new ArrayList<>();
+            LocalDate today = LocalDate.now();
+            for (Map.Entry<UsageKey, UsageCounters> entry : aggregates.entrySet()) {
+                UsageKey key = entry.getKey();
+                UsageCounters counters = entry.getValue();
+                long[] snapshot = counters.snapshot();
+                TokenUsage row = counters.delta(key, snapshot);
+                if (row == null) {
+                    if (key.statDate().isBefore(today)) {
+                        aggregates.remove(key, counters);
+                    }
+                    continue;
+                }
+                keys.add(key);
+                snapshots.add(snapshot);
+                rows.add(row);
+            }
+            int batchSize = Math.max(1, config.getBatchSize());
+            for (int from = 0; from < rows.size(); from += batchSize) {
+                int to = Math.min(from + batchSize, rows.size());
+                try {
+                    tokenUsageMapper.upsertBatch(rows.subList(from, to));
+                } catch (Exception e) {
+                    // 增量保留在内存中，下次重试
+                    failedFlushCounter.increment();
+                    log.error("写入 token 用量失败，行数：{}，error：{}", to - from, e.getMessage());
+                    continue;
+                }
+                for (int i = from; i < to; i++) {
+                    UsageCounters counters = aggregates.get(keys.get(i));
+                    if (counters != null) {
+                        counters.flushed = snapshots.get(i);
+                    }
+                }
+                flushedRowsCounter.increment(to - from);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        flusher.shutdownNow();
+        flushQuietly();
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("写入 token 用量失败", e);
+        }
+    }
+
+    private AppOwner resolveOwner(long appId) {
+        AppOwner owner = appOwners.getIfPresent(appId);
+        if (owner != null) {
+            return owner;
+        }
+        try {
+            App app = appMapper.selectOneById(appId);
+            owner = app == null ? AppOwner.NONE
+                    : new AppOwner(app.getUserId() == null ? 0 : app.getUserId(), StrUtil.nullToEmpty(app.getCodeGenType()));
+            appOwners.put(appId, owner);
+            return owner;
+        } catch (Exception e) {
+            // 查询失败不缓存，下次重新查询
+            log.warn("查询应用归属失败，appId：{}，error：{}", appId, e.getMessage());
+            return AppOwner.NONE;
+        }
+    }
+
+    private static long toAppId(Object memoryId) {
+        if (memoryId instanceof Number number) {
+            return number.longValue();
+        }
+        if (memoryId != null) {
+            try {
+                return Long.parseLong(memoryId.toString());
+            } catch (NumberFormatException ignored) {
+                // 非应用的记忆ID
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * 用量统计维度
+     */
+    private record UsageKey(LocalDate statDate, long userId, long appId, String modelName, String codeGenType) {
+    }
+
+    /**
+     * 应用归属
+     */
+    private record AppOwner(long userId, String codeGenType) {
+
+        static final AppOwner NONE = new AppOwner(0, "");
+    }
+
+    /**
+     * 一个维度的累计用量
+     */
+    private static final class UsageCounters {
+
+        final LongAdder requests = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final LongAdder inputTokens = new LongAdder();
+        final LongAdder outputTokens = new LongAdder();
+
+        /**
+         * 已写入数据库的数值，只在持有 flushLock 时读写
+         */
+        long[] flushed = new long[4];
+
+        long[] snapshot() {
+            return new long[]{requests.sum(), errors.sum(), inputTokens.sum(), outputTokens.sum()};
+        }
+
+        /**
+         * 计算尚未写入的增量，没有增量时返回 null
+         */
+        TokenUsage delta(UsageKey key, long[] snapshot) {
+            long requestDelta = snapshot[0] - flushed[0];
+            long errorDelta = snapshot[1] - flushed[1];
+            long inputDelta = snapshot[2] - flushed[2];
+            long outputDelta = snapshot[3] - flushed[3];
+            if (requestDelta == 0 && errorDelta == 0 && inputDelta == 0 && outputDelta == 0) {
+                return null;
+            }
+            return TokenUsage.builder()
+                    .statDate(key.statDate())
+                    .userId(key.userId())
+                    .appId(key.appId())
+                    .modelName(key.modelName())
+                    .codeGenType(key.codeGenType())
+                    .requestCount(requestDelta)
+                    .errorCount(errorDelta)
+                    .inputTokens(inputDelta)
+                    .outputTokens(outputDelta)
+                    .totalTokens(inputDelta + outputDelta)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.zcw.voya.mapper;
+
+import com.mybatisflex.core.BaseMapper;
+import com.zcw.voya.model.entity.TokenUsage;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+/**
+ * token 用量 映射层。
+ *
+ * @author zcw
+ */
+public interface TokenUsageMapper extends BaseMapper<TokenUsage> {
+
+    /**
+     * 批量累加用量，同一统计维度已存在时在原有数值上累加
+     *
+     * @param list 用量增量
+     * @return 影响行数
+     */
+    int upsertBatch(@Param("list") List<TokenUsage> list);
+}
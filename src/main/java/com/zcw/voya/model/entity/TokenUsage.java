@@ -0,0 +1,119 @@
+package com.zcw.voya.model.entity;
+
+import com.mybatisflex.annotation.Column;
+import com.mybatisflex.annotation.Id;
+import com.mybatisflex.annotation.KeyType;
+import com.mybatisflex.annotation.Table;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import java.io.Serial;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * token 用量 实体类。
+ * 按天、用户、应用、模型、生成类型聚合，由内存聚合器批量累加写入
+ *
+ * @author zcw
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table("token_usage")
+public class TokenUsage implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * id（批量累加写入由数据库生成）
+     */
+    @Id(keyType = KeyType.Auto)
+    private Long id;
+
+    /**
+     * 统计日期
+     */
+    @Column("statDate")
+    private LocalDate statDate;
+
+    /**
+     * 用户id，0 表示非应用调用
+     */
+    @Column("userId")
+    private Long userId;
+
+    /**
+     * 应用id，0 表示非应用调用
+     */
+    @Column("appId")
+    private Long appId;
+
+    /**
+     * 模型名称
+     */
+    @Column("modelName")
+    private String modelName;
+
+    /**
+     * 代码生成类型
+     */
+    @Column("codeGenType")
+    private String codeGenType;
+
+    /**
+     * 请求次数
+     */
+    @Column("requestCount")
+    private Long requestCount;
+
+    /**
+     * 失败次数
+     */
+    @Column("errorCount")
+    private Long errorCount;
+
+    /**
+     * 输入 token 数
+     */
+    @Column("inputTokens")
+    private Long inputTokens;
+
+    /**
+     * 输出 token 数
+     */
+    @Column("outputTokens")
+    private Long outputTokens;
+
+    /**
+     * 总 token 数
+     */
+    @Column("totalTokens")
+    private Long totalTokens;
+
+    /**
+     * 创建时间
+     */
+    @Column("createTime")
+    private LocalDateTime createTime;
+
+    /**
+     * 更新时间
+     */
+    @Column("updateTime")
+    private LocalDateTime updateTime;
+
+    /**
+     * 是否删除
+     */
+    @Column(value = "isDelete", isLogicDelete = true)
+    private Integer isDelete;
+
+}
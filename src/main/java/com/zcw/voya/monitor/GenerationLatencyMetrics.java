@@ -0,0 +1,137 @@
+package com.zcw.voya.monitor;
+
+import cn.hutool.core.util.StrUtil;
+import com.zcw.voya.ai.model.enums.CodeGenTypeEnum;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 生成链路耗时指标
+ * 在门面层记录一次生成的首字耗时、总耗时和下发字节数，按生成类型和模型打标签。
+ * 与模型层记录的 voya.llm.stream.*（只含上游耗时）对比，差值即为记忆加载、工具执行等自身开销
+ */
+@Component
+public class GenerationLatencyMetrics {
+
+    private static final String UNKNOWN_MODEL = "unknown";
+
+    private final MeterRegistry meterRegistry;
+
+    public GenerationLatencyMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * 开始记录一次生成
+     *
+     * @param type 生成类型
+     * @return 本次生成的记录
+     */
+    public Trace start(CodeGenTypeEnum type) {
+        return new Trace(type);
+    }
+
+    /**
+     * 一次生成的耗时记录，结束时（完成、失败或取消）统一上报，此时才能确定模型名称
+     */
+    public final class Trace {
+
+        private final CodeGenTypeEnum type;
+        private final long startNanos = System.nanoTime();
+        private final AtomicLong firstTokenNanos = new AtomicLong();
+        private final AtomicLong bytes = new AtomicLong();
+        private final AtomicBoolean finished = new AtomicBoolean();
+
+        private Trace(CodeGenTypeEnum type) {
+            this.type = type;
+        }
+
+        /**
+         * 记录一次下发的内容
+         */
+        public void onOutput(String text) {
+            if (text == null || text.isEmpty()) {
+                return;
+            }
+            firstTokenNanos.compareAndSet(0, Math.max(1, System.nanoTime() - startNanos));
+            bytes.addAndGet(utf8Length(text));
+        }
+
+        public void complete(String modelName) {
+            finish(modelName, "success");
+        }
+
+        public void error() {
+            finish(null, "error");
+        }
+
+        public void cancel() {
+            finish(null, "cancelled");
+        }
+
+        private void finish(String modelName, String outcome) {
+            if (!finished.compareAndSet(false, true)) {
+                return;
+            }
+            String model = StrUtil.blankToDefault(modelName, UNKNOWN_MODEL);
+            long ttft = firstTokenNanos.get();
+            if (ttft > 0) {
+                timer("voya.generation.ttft", "生成请求到首个内容下发的耗时", model, null)
+                        .record(ttft, TimeUnit.NANOSECONDS);
+            }
+            timer("voya.generation.duration", "一次生成的总耗时", model, outcome)
+                    .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+            DistributionSummary.builder("voya.generation.bytes")
+                    .description("一次生成下发的内容字节数")
+                    .baseUnit("bytes")
+                    .tag("codeGenType", type.getValue())
+                    .tag("model", model)
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry)
+                    .record(bytes.get());
+        }
+
+        private Timer timer(String name, String description, String model, String outcome) {
+            Timer.Builder builder = Timer.builder(name)
+                    .description(description)
+                    .tag("codeGenType", type.getValue())
+                    .tag("model", model)
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofMillis(10))
+                    .maximumExpectedValue(Duration.ofMinutes(10));
+            if (outcome != null) {
+                builder.tag("outcome", outcome);
+            }
+            return builder.register(meterRegistry);
+        }
+    }
+
+    /**
+     * 计算 UTF-8 编码后的字节数，不产生临时数组
+     */
+    static long utf8Length(CharSequence text) {
+        long length = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < text.length() && Character.isLowSurrogate(text.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+}
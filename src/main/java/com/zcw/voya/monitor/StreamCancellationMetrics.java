@@ -0,0 +1,71 @@
+package com.zcw.voya.monitor;
+
+import com.zcw.voya.ai.model.enums.CodeGenTypeEnum;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 流式生成取消指标
+ * 记录客户端断开导致的取消次数，并估算因此节省的输出 token 数：
+ * 同类型已完成生成的平均输出 token 数 - 取消前已经输出的 token 数
+ */
+@Component
+public class StreamCancellationMetrics {
+
+    private final Map<CodeGenTypeEnum, Counter> cancelledCounters = new EnumMap<>(CodeGenTypeEnum.class);
+    private final Map<CodeGenTypeEnum, Counter> tokensSavedCounters = new EnumMap<>(CodeGenTypeEnum.class);
+    private final Map<CodeGenTypeEnum, LongAdder> completedTokens = new EnumMap<>(CodeGenTypeEnum.class);
+    private final Map<CodeGenTypeEnum, LongAdder> completedCount = new EnumMap<>(CodeGenTypeEnum.class);
+
+    public StreamCancellationMetrics(MeterRegistry meterRegistry) {
+        for (CodeGenTypeEnum type : CodeGenTypeEnum.values()) {
+            cancelledCounters.put(type, Counter.builder("voya.stream.cancelled")
+                    .description("客户端断开后取消的生成次数")
+                    .tag("codeGenType", type.getValue())
+                    .register(meterRegistry));
+            tokensSavedCounters.put(type, Counter.builder("voya.stream.tokens.saved")
+                    .description("取消生成节省的输出 token 数（估算）")
+                    .tag("codeGenType", type.getValue())
+                    .register(meterRegistry));
+            completedTokens.put(type, new LongAdder());
+            completedCount.put(type, new LongAdder());
+        }
+    }
+
+    /**
+     * 记录一次完整的生成
+     *
+     * @param type         生成类型
+     * @param outputTokens 输出 token 数
+     */
+    public void recordCompleted(CodeGenTypeEnum type, Integer outputTokens) {
+        if (outputTokens == null || outputTokens <= 0) {
+            return;
+        }
+        completedTokens.get(type).add(outputTokens);
+        completedCount.get(type).increment();
+    }
+
+    /**
+     * 记录一次取消
+     *
+     * @param type            生成类型
+     * @param deliveredTokens 取消前已输出的 token 数（按增量片段数估算）
+     */
+    public void recordCancelled(CodeGenTypeEnum type, long deliveredTokens) {
+        cancelledCounters.get(type).increment();
+        long count = completedCount.get(type).sum();
+        if (count == 0) {
+            return;
+        }
+        long average = completedTokens.get(type).sum() / count;
+        if (average > deliveredTokens) {
+            tokensSavedCounters.get(type).increment(average - deliveredTokens);
+        }
+    }
+}
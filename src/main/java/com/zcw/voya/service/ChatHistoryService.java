@@ -3,10 +3,11 @@ package com.zcw.voya.service;
 import com.mybatisflex.core.paginate.Page;
 import com.mybatisflex.core.query.QueryWrapper;
 import com.mybatisflex.core.service.IService;
+import com.zcw.voya.ai.model.enums.CodeGenTypeEnum;
 import com.zcw.voya.model.dto.chat.ChatHistoryQueryRequest;
 import com.zcw.voya.model.entity.ChatHistory;
 import com.zcw.voya.model.entity.User;
-import dev.langchain4j.memory.chat.MessageWindowChatMemory;
+import dev.langchain4j.memory.ChatMemory;
 
 import java.time.LocalDateTime;
 
@@ -30,7 +31,18 @@ public interface ChatHistoryService extends IService<ChatHistory> {
 
     Page<ChatHistory> listChatHistoryByPage(Long appId, int pageSize, LocalDateTime lastCreateTime, User loginUser);
 
-    int loadHistoryToMemory(Long appId, MessageWindowChatMemory chatMemory, int maxMessages);
+    int loadHistoryToMemory(Long appId, ChatMemory chatMemory, int maxMessages);
+
+    /**
+     * 加载对话历史到记忆中，AI 回复中的代码块替换成引用，并在最后一条 AI 回复后附上工作目录中的最新文件
+     *
+     * @param appId       应用id
+     * @param chatMemory  对话记忆
+     * @param maxMessages 最大加载条数
+     * @param codeGenType 生成类型，为 null 时原样加载
+     * @return 加载的条数
+     */
+    int loadHistoryToMemory(Long appId, ChatMemory chatMemory, int maxMessages, CodeGenTypeEnum codeGenType);
 
     /**
      * 删除对话历史
@@ -0,0 +1,45 @@
+package com.zcw.voya.service;
+
+import com.mybatisflex.core.service.IService;
+import com.zcw.voya.model.entity.TokenUsage;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * token 用量 服务层。
+ *
+ * @author zcw
+ */
+public interface TokenUsageService extends IService<TokenUsage> {
+
+    /**
+     * 按应用汇总用量，按总 token 数降序
+     *
+     * @param startDate 开始日期（含）
+     * @param endDate   结束日期（含）
+     * @param limit     最大条数
+     * @return 每个应用的用量（statDate、modelName 为空）
+     */
+    List<TokenUsage> listTopApps(LocalDate startDate, LocalDate endDate, int limit);
+
+    /**
+     * 按用户汇总用量，按总 token 数降序
+     *
+     * @param startDate 开始日期（含）
+     * @param endDate   结束日期（含）
+     * @param limit     最大条数
+     * @return 每个用户的用量（statDate、appId、modelName、codeGenType 为空）
+     */
+    List<TokenUsage> listTopUsers(LocalDate startDate, LocalDate endDate, int limit);
+
+    /**
+     * 查询应用每天、每个模型的用量
+     *
+     * @param appId     应用id
+     * @param startDate 开始日期（含）
+     * @param endDate   结束日期（含）
+     * @return 用量明细，日期新的在前
+     */
+    List<TokenUsage> listAppUsage(Long appId, LocalDate startDate, LocalDate endDate);
+}
@@ -8,16 +8,16 @@ import cn.hutool.core.util.StrUtil;
 import com.mybatisflex.core.query.QueryWrapper;
 import com.mybatisflex.core.paginate.Page;
 import com.mybatisflex.spring.service.impl.ServiceImpl;
-import com.zcw.voya.ai.AppNameGeneratorService;
-import com.zcw.voya.ai.AppNameGeneratorServiceFactory;
-import com.zcw.voya.ai.CodeGenTypeRoutingService;
-import com.zcw.voya.ai.CodeGenTypeRoutingServiceFactory;
+import com.zcw.voya.ai.AppCreationPlanner;
 import com.zcw.voya.ai.model.enums.CodeGenTypeEnum;
+import com.zcw.voya.ai.model.message.StreamMessage;
 import com.zcw.voya.constant.AppConstant;
 import com.zcw.voya.constant.UserConstant;
 import com.zcw.voya.core.AiCodeGeneratorFacade;
+import com.zcw.voya.core.admission.AdmissionPriority;
 import com.zcw.voya.core.build.VueProjectBuilder;
 import com.zcw.voya.core.handler.StreamHandlerExecutor;
+import com.zcw.voya.core.workspace.ProjectWorkspaceManager;
 import com.zcw.voya.exception.BusinessException;
 import com.zcw.voya.exception.ErrorCode;
 import com.zcw.voya.exception.ThrowUtils;
@@ -31,6 +31,8 @@ import com.zcw.voya.model.enums.UserQuotaTypeEnum;
 import com.zcw.voya.model.vo.AppVO;
 import com.zcw.voya.mapper.AppMapper;
 import com.zcw.voya.model.vo.UserVO;
+import com.zcw.voya.ratelimiter.annotation.RateLimit;
+import com.zcw.voya.ratelimiter.enums.RateLimitType;
 import com.zcw.voya.service.AppService;
 import com.zcw.voya.service.ChatHistoryService;
 import com.zcw.voya.service.ScreenShotService;
@@ -79,15 +81,19 @@ public class AppServiceImpl extends ServiceImpl<AppMapper, App> implements AppSe
     private VueProjectBuilder vueProjectBuilder;
 
     @Resource
-    private ScreenShotService screenShotService;
+    private ProjectWorkspaceManager projectWorkspaceManager;
 
     @Resource
-    private CodeGenTypeRoutingServiceFactory codeGenTypeRoutingServiceFactory;
+    private ScreenShotService screenShotService;
 
     @Resource
-    private AppNameGeneratorServiceFactory appNameGeneratorServiceFactory;
+    private AppCreationPlanner appCreationPlanner;
 
+    /**
+     * 只在开始新的生成时调用，SSE 重连接回已有会话不经过这里，因此不计入限流
+     */
     @Override
+    @RateLimit(limitType = RateLimitType.USER,rate = 5, rateInterval = 60,message = "请求过于频繁，请稍后再试")
     public Flux<String> chatToGenCode(Long appId, String message, User loginUser) {
         // 查询应用信息
         App app = this.getById(appId);
@@ -103,14 +109,17 @@ public class AppServiceImpl extends ServiceImpl<AppMapper, App> implements AppSe
         String codeGenType = app.getCodeGenType();
         CodeGenTypeEnum codeGenTypeEnum = CodeGenTypeEnum.getEnumByValue(codeGenType);
         ThrowUtils.throwIf(codeGenTypeEnum == null, ErrorCode.PARAMS_ERROR, "不支持的代码生成类型");
-        // 保存用户消息
-        boolean saved = chatHistoryService.addChatHistory(appId, message, ChatHistoryMessageTypeEnum.USER.getValue(), loginUser.getId());
-        ThrowUtils.throwIf(!saved, ErrorCode.OPERATION_ERROR, "保存用户消息失败");
-        // 扣减对话额度
-        boolean updated = userService.updateUserBalance(UserQuotaTypeEnum.CHAT_APP.getValue(), loginUser, -1);
-        ThrowUtils.throwIf(!updated, ErrorCode.OPERATION_ERROR, "更新用户额度失败");
-        // 调用ai生成代码
-        Flux<String> flux = aiCodeGeneratorFacade.generateCodeStream(message, codeGenTypeEnum, appId);
+        // 管理员 > 精选应用 > 普通，模型繁忙时按此优先级排队
+        AdmissionPriority priority = AdmissionPriority.of(loginUser, app);
+        // 获得准入后才保存用户消息、扣减额度，排队被拒绝的请求不计费
+        Flux<StreamMessage> flux = aiCodeGeneratorFacade.generateCodeStream(message, codeGenTypeEnum, appId, priority, () -> {
+            // 保存用户消息
+            boolean saved = chatHistoryService.addChatHistory(appId, message, ChatHistoryMessageTypeEnum.USER.getValue(), loginUser.getId());
+            ThrowUtils.throwIf(!saved, ErrorCode.OPERATION_ERROR, "保存用户消息失败");
+            // 扣减对话额度
+            boolean updated = userService.updateUserBalance(UserQuotaTypeEnum.CHAT_APP.getValue(), loginUser, -1);
+            ThrowUtils.throwIf(!updated, ErrorCode.OPERATION_ERROR, "更新用户额度失败");
+        });
         // 收集AI响应的内容,并保存对话记录
         return streamHandlerExecutor.doExecute(flux, chatHistoryService, appId, loginUser, codeGenTypeEnum);
     }
@@ -137,6 +146,8 @@ public class AppServiceImpl extends ServiceImpl<AppMapper, App> implements AppSe
         // 单独处理vue项目
         CodeGenTypeEnum codeGenTypeEnum = CodeGenTypeEnum.getEnumByValue(codeGenType);
         if (codeGenTypeEnum == CodeGenTypeEnum.VUE_PROJECT) {
+            // 正在生成时先把内存工作区的改动写回磁盘
+            projectWorkspaceManager.flush(appId);
             // 构建
             boolean success = vueProjectBuilder.buildProject(sourceDirPath);
             ThrowUtils.throwIf(!success, ErrorCode.SYSTEM_ERROR, "构建Vue项目失败，请检查代码和依赖");
@@ -177,18 +188,12 @@ public class AppServiceImpl extends ServiceImpl<AppMapper, App> implements AppSe
         // 校验用户剩余额度
         Integer createAppLimit = loginUser.getCreateAppLimit();
         ThrowUtils.throwIf(createAppLimit <= 0, ErrorCode.NoCreateQuotaLeft);
-        // 路由选择生成类型
+        // 并行路由选择生成类型、生成应用名称
         String initPrompt = appAddRequest.getInitPrompt();
-        CodeGenTypeRoutingService codeGenTypeRoutingService = codeGenTypeRoutingServiceFactory.createCodeGenTypeRoutingService();
-        CodeGenTypeEnum codeGenTypeEnum = codeGenTypeRoutingService.routeCodeGenType(initPrompt);
-        ThrowUtils.throwIf(codeGenTypeEnum == null, ErrorCode.PARAMS_ERROR, "不支持的代码生成类型");
-        // 生成应用名称
-        AppNameGeneratorService appNameGeneratorService = appNameGeneratorServiceFactory.createAppNameGeneratorService();
-        String appName = appNameGeneratorService.generateAppName(appAddRequest.getInitPrompt());
-        if (StrUtil.isBlank(appName)) {
-            // 生成应用名称为空则使用提示词前12位
-            appName = initPrompt.substring(0, Math.min(initPrompt.length(), 12));
-        }
+        ThrowUtils.throwIf(StrUtil.isBlank(initPrompt), ErrorCode.PARAMS_ERROR, "初始化提示词不能为空");
+        AppCreationPlanner.AppCreationPlan plan = appCreationPlanner.plan(initPrompt);
+        CodeGenTypeEnum codeGenTypeEnum = plan.codeGenType();
+        String appName = plan.appName();
         // 创建应用
         App app = App.builder()
                 .appName(appName)
@@ -5,8 +5,14 @@ import cn.hutool.core.util.StrUtil;
 import com.mybatisflex.core.paginate.Page;
 import com.mybatisflex.core.query.QueryWrapper;
 import com.mybatisflex.spring.service.impl.ServiceImpl;
+import com.zcw.voya.ai.memory.ChatMemoryHydrator;
+import com.zcw.voya.ai.memory.CodeBlockElider;
+import com.zcw.voya.ai.model.enums.CodeGenTypeEnum;
+import com.zcw.voya.config.ChatMemoryConfig;
+import com.zcw.voya.constant.AppConstant;
 import com.zcw.voya.exception.ErrorCode;
 import com.zcw.voya.exception.ThrowUtils;
+import com.zcw.voya.manager.ChatHistoryWriteBehindBuffer;
 import com.zcw.voya.model.dto.chat.ChatHistoryQueryRequest;
 import com.zcw.voya.model.entity.ChatHistory;
 import com.zcw.voya.mapper.ChatHistoryMapper;
@@ -15,13 +21,19 @@ import com.zcw.voya.model.enums.ChatHistoryMessageTypeEnum;
 import com.zcw.voya.service.ChatHistoryService;
 import dev.langchain4j.data.message.AiMessage;
 import dev.langchain4j.data.message.UserMessage;
-import dev.langchain4j.memory.chat.MessageWindowChatMemory;
+import dev.langchain4j.memory.ChatMemory;
 import dev.langchain4j.model.openai.internal.chat.AssistantMessage;
+import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.nio.file.Path;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * 对话历史 服务层实现。
@@ -32,6 +44,15 @@ import java.util.List;
 @Slf4j
 public class ChatHistoryServiceImpl extends ServiceImpl<ChatHistoryMapper, ChatHistory> implements ChatHistoryService {
 
+    @Resource
+    private ChatHistoryWriteBehindBuffer chatHistoryWriteBehindBuffer;
+
+    @Resource
+    private ChatMemoryHydrator chatMemoryHydrator;
+
+    @Resource
+    private ChatMemoryConfig chatMemoryConfig;
+
     @Override
     public boolean addChatHistory(Long appId, String message, String messageType, Long userId) {
         ThrowUtils.throwIf(appId == null, ErrorCode.PARAMS_ERROR, "appId不能为空");
@@ -41,14 +62,14 @@ public class ChatHistoryServiceImpl extends ServiceImpl<ChatHistoryMapper, ChatH
         // 验证消息类型是否有效
         ChatHistoryMessageTypeEnum typeEnum = ChatHistoryMessageTypeEnum.getEnumByValue(messageType);
         ThrowUtils.throwIf(typeEnum == null, ErrorCode.PARAMS_ERROR, "typeEnum错误");
-        // 保存
+        // 保存（异步批量写入）
         ChatHistory chatHistory = ChatHistory.builder()
                 .appId(appId)
                 .message(message)
                 .messageType(messageType)
                 .userId(userId)
                 .build();
-        return this.save(chatHistory);
+        return chatHistoryWriteBehindBuffer.add(chatHistory);
     }
 
     @Override
@@ -62,29 +83,57 @@ public class ChatHistoryServiceImpl extends ServiceImpl<ChatHistoryMapper, ChatH
         chatHistoryQueryRequest.setAppId(appId);
         chatHistoryQueryRequest.setLastCreateTime(lastCreateTime);
         QueryWrapper queryWrapper = getQueryWrapper(chatHistoryQueryRequest);
-        // 查询
-        return page(Page.of(1, pageSize), queryWrapper);
+        // 查询，并合并尚未写入数据库的记录
+        Page<ChatHistory> page = page(Page.of(1, pageSize), queryWrapper);
+        List<ChatHistory> pending = chatHistoryWriteBehindBuffer.listPending(appId, lastCreateTime);
+        if (!pending.isEmpty()) {
+            int recordCount = page.getRecords().size();
+            List<ChatHistory> merged = mergePending(page.getRecords(), pending, pageSize);
+            page.setRecords(merged);
+            if (page.getTotalRow() >= 0) {
+                page.setTotalRow(page.getTotalRow() + Math.max(0, merged.size() - recordCount));
+            }
+        }
+        return page;
+    }
+
+    @Override
+    public int loadHistoryToMemory(Long appId, ChatMemory chatMemory, int maxMessages) {
+        return loadHistoryToMemory(appId, chatMemory, maxMessages, null);
     }
 
     @Override
-    public int loadHistoryToMemory(Long appId, MessageWindowChatMemory chatMemory, int maxMessages) {
+    public int loadHistoryToMemory(Long appId, ChatMemory chatMemory, int maxMessages, CodeGenTypeEnum codeGenType) {
         QueryWrapper queryWrapper = QueryWrapper.create()
                 .eq(ChatHistory::getAppId, appId)
                 .orderBy(ChatHistory::getCreateTime, false)
                 .limit(1, maxMessages);
 
-        List<ChatHistory> chatHistories = this.list(queryWrapper);
+        List<ChatHistory> chatHistories = mergePending(this.list(queryWrapper),
+                chatHistoryWriteBehindBuffer.listPending(appId, null), maxMessages);
         if (CollUtil.isEmpty(chatHistories)) {
             return 0;
         }
         // 翻转列表，确保顺序正确，老的在前新的在后
         chatHistories = chatHistories.reversed();
+        boolean elide = codeGenType != null && chatMemoryConfig.isElideCodeBlocks();
+        // 历史中的代码只是旧版本，最新文件只在最后一条 AI 回复后附上一次
+        int lastAiIndex = -1;
+        if (elide) {
+            for (int i = chatHistories.size() - 1; i >= 0; i--) {
+                if (ChatHistoryMessageTypeEnum.AI.getValue().equals(chatHistories.get(i).getMessageType())) {
+                    lastAiIndex = i;
+                    break;
+                }
+            }
+        }
         // 按时间顺序添加到记忆中
         int loadedCount = 0;
         // 清理历史缓存
         chatMemory.clear();
         try {
-            for (ChatHistory chatHistory : chatHistories) {
+            for (int i = 0; i < chatHistories.size(); i++) {
+                ChatHistory chatHistory = chatHistories.get(i);
                 if (ChatHistoryMessageTypeEnum.USER.getValue().equals(chatHistory.getMessageType())) {
                     // 用户消息
                     chatMemory.add(UserMessage.from(chatHistory.getMessage()));
@@ -92,7 +141,14 @@ public class ChatHistoryServiceImpl extends ServiceImpl<ChatHistoryMapper, ChatH
                 }
                 if (ChatHistoryMessageTypeEnum.AI.getValue().equals(chatHistory.getMessageType())) {
                     // AI回复的助手消息
-                    chatMemory.add(AiMessage.from(chatHistory.getMessage()));
+                    String message = chatHistory.getMessage();
+                    if (elide) {
+                        message = CodeBlockElider.elide(message);
+                        if (i == lastAiIndex) {
+                            message = appendWorkspaceSnapshot(message, appId, codeGenType);
+                        }
+                    }
+                    chatMemory.add(AiMessage.from(message));
                     loadedCount++;
                 }
             }
@@ -107,11 +163,54 @@ public class ChatHistoryServiceImpl extends ServiceImpl<ChatHistoryMapper, ChatH
     @Override
     public boolean deleteById(Long appId) {
         ThrowUtils.throwIf(appId == null, ErrorCode.PARAMS_ERROR, "appId不能为空");
+        // 先丢弃未写入的记录，避免删除后又被批量写入
+        chatHistoryWriteBehindBuffer.discard(appId);
+        // 历史被删除，Redis 中的对话记忆随之失效
+        chatMemoryHydrator.invalidate(appId);
         QueryWrapper queryWrapper = QueryWrapper.create()
                 .eq(ChatHistory::getAppId, appId);
         return this.remove(queryWrapper);
     }
 
+    /**
+     * 在消息后附上工作目录中的最新文件，目录不存在时原样返回
+     */
+    private String appendWorkspaceSnapshot(String message, Long appId, CodeGenTypeEnum codeGenType) {
+        Path dir = Path.of(AppConstant.CODE_OUTPUT_ROOT_DIR, codeGenType.getValue() + "_" + appId);
+        String snapshot = CodeBlockElider.snapshot(dir, codeGenType,
+                chatMemoryConfig.getWorkspaceSnapshotMaxTokens(codeGenType.getValue()));
+        return StrUtil.isBlank(snapshot) ? message : message + "\n\n" + snapshot;
+    }
+
+    /**
+     * 合并数据库记录与尚未写入的记录，按创建时间降序取前 limit 条
+     * 批次写入后、移出缓冲区前的短暂窗口内两边可能都有同一条记录，按 id 去重
+     *
+     * @param persisted 数据库记录，新的在前
+     * @param pending   未写入的记录，新的在前
+     * @param limit     最大条数
+     * @return 合并后的记录，新的在前
+     */
+    private List<ChatHistory> mergePending(List<ChatHistory> persisted, List<ChatHistory> pending, int limit) {
+        if (CollUtil.isEmpty(pending)) {
+            return persisted;
+        }
+        Set<Long> persistedIds = new HashSet<>();
+        for (ChatHistory chatHistory : persisted) {
+            persistedIds.add(chatHistory.getId());
+        }
+        // 未写入的记录更新，放在前面；排序是稳定的，同一秒内仍排在前面
+        List<ChatHistory> merged = new ArrayList<>(pending.size() + persisted.size());
+        for (ChatHistory chatHistory : pending) {
+            if (chatHistory.getId() == null || !persistedIds.contains(chatHistory.getId())) {
+                merged.add(chatHistory);
+            }
+        }
+        merged.addAll(persisted);
+        merged.sort(Comparator.comparing(ChatHistory::getCreateTime, Comparator.nullsLast(Comparator.reverseOrder())));
+        return merged.size() > limit ? new ArrayList<>(merged.subList(0, limit)) : merged;
+    }
+
     /**
      * 获取查询包装类
      *
@@ -0,0 +1,97 @@
+package com.zcw.voya.service.impl;
+
+import com.mybatisflex.core.query.QueryWrapper;
+import com.mybatisflex.spring.service.impl.ServiceImpl;
+import com.zcw.voya.exception.ErrorCode;
+import com.zcw.voya.exception.ThrowUtils;
+import com.zcw.voya.manager.TokenUsageAggregator;
+import com.zcw.voya.mapper.TokenUsageMapper;
+import com.zcw.voya.model.entity.TokenUsage;
+import com.zcw.voya.service.TokenUsageService;
+import jakarta.annotation.Resource;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static com.mybatisflex.core.query.QueryMethods.column;
+import static com.mybatisflex.core.query.QueryMethods.sum;
+
+/**
+ * token 用量 服务层实现。
+ * 查询前先把内存中的增量写入数据库，保证读到最新的用量
+ *
+ * @author zcw
+ */
+@Service
+public class TokenUsageServiceImpl extends ServiceImpl<TokenUsageMapper, TokenUsage> implements TokenUsageService {
+
+    /**
+     * 单次查询的最大天数
+     */
+    private static final long MAX_QUERY_DAYS = 366;
+
+    private static final int MAX_LIMIT = 100;
+
+    @Resource
+    private TokenUsageAggregator tokenUsageAggregator;
+
+    @Override
+    public List<TokenUsage> listTopApps(LocalDate startDate, LocalDate endDate, int limit) {
+        validate(startDate, endDate, limit);
+        tokenUsageAggregator.flush();
+        QueryWrapper queryWrapper = QueryWrapper.create()
+                .select(column("appId"), column("userId"), column("codeGenType"),
+                        sum("requestCount").as("requestCount"),
+                        sum("errorCount").as("errorCount"),
+                        sum("inputTokens").as("inputTokens"),
+                        sum("outputTokens").as("outputTokens"),
+                        sum("totalTokens").as("totalTokens"))
+                .between("statDate", startDate, endDate)
+                .gt("appId", 0)
+                .groupBy("appId", "userId", "codeGenType")
+                .orderBy("totalTokens", false)
+                .limit(limit);
+        return this.list(queryWrapper);
+    }
+
+    @Override
+    public List<TokenUsage> listTopUsers(LocalDate startDate, LocalDate endDate, int limit) {
+        validate(startDate, endDate, limit);
+        tokenUsageAggregator.flush();
+        QueryWrapper queryWrapper = QueryWrapper.create()
+                .select(column("userId"),
+                        sum("requestCount").as("requestCount"),
+                        sum("errorCount").as("errorCount"),
+                        sum("inputTokens").as("inputTokens"),
+                        sum("outputTokens").as("outputTokens"),
+                        sum("totalTokens").as("totalTokens"))
+                .between("statDate", startDate, endDate)
+                .gt("userId", 0)
+                .groupBy("userId")
+                .orderBy("totalTokens", false)
+                .limit(limit);
+        return this.list(queryWrapper);
+    }
+
+    @Override
+    public List<TokenUsage> listAppUsage(Long appId, LocalDate startDate, LocalDate endDate) {
+        ThrowUtils.throwIf(appId == null || appId <= 0, ErrorCode.PARAMS_ERROR, "应用id不合法");
+        validate(startDate, endDate, 1);
+        tokenUsageAggregator.flush();
+        QueryWrapper queryWrapper = QueryWrapper.create()
+                .eq(TokenUsage::getAppId, appId)
+                .between(TokenUsage::getStatDate, startDate, endDate)
+                .orderBy(TokenUsage::getStatDate, false)
+                .orderBy(TokenUsage::getTotalTokens, false);
+        return this.list(queryWrapper);
+    }
+
+    private void validate(LocalDate startDate, LocalDate endDate, int limit) {
+        ThrowUtils.throwIf(startDate == null || endDate == null, ErrorCode.PARAMS_ERROR, "日期不能为空");
+        ThrowUtils.throwIf(startDate.isAfter(endDate), ErrorCode.PARAMS_ERROR, "开始日期不能晚于结束日期");
+        ThrowUtils.throwIf(ChronoUnit.DAYS.between(startDate, endDate) >= MAX_QUERY_DAYS, ErrorCode.PARAMS_ERROR, "查询范围过大");
+        ThrowUtils.throwIf(limit <= 0 || limit > MAX_LIMIT, ErrorCode.PARAMS_ERROR, "条数不合法");
+    }
+}
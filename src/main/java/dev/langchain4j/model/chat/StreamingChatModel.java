@@ -9,6 +9,7 @@ import dev.langchain4j.model.chat.request.ChatRequest;
 import dev.langchain4j.model.chat.request.ChatRequestParameters;
 import dev.langchain4j.model.chat.request.DefaultChatRequestParameters;
 import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.StreamingCancellation;
 import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
 
 import java.util.List;
@@ -42,6 +43,11 @@ public interface StreamingChatModel {
 
         List<ChatModelListener> listeners = listeners();
         Map<Object, Object> attributes = new ConcurrentHashMap<>();
+        StreamingCancellation cancellation = handler.cancellation();
+        if (cancellation != null && cancellation.memoryId() != null) {
+            // lets listeners attribute every call of the stream (including tool follow-ups) to its conversation
+            attributes.put(StreamingCancellation.MEMORY_ID_ATTRIBUTE, cancellation.memoryId());
+        }
 
         StreamingChatResponseHandler observingHandler = new StreamingChatResponseHandler() {
 
@@ -71,6 +77,11 @@ public interface StreamingChatModel {
                 ChatModelListenerUtils.onError(error, finalChatRequest, provider(), attributes, listeners);
                 handler.onError(error);
             }
+
+            @Override
+            public StreamingCancellation cancellation() {
+                return handler.cancellation();
+            }
         };
 
         onRequest(finalChatRequest, provider(), attributes, listeners);
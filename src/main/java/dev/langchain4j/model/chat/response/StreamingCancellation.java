@@ -0,0 +1,123 @@
+package dev.langchain4j.model.chat.response;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A cancellation signal shared by all model calls that belong to one logical stream
+ * (e.g. the initial call and the follow-up calls made after tool executions).
+ * <p>
+ * Once cancelled, handlers stop forwarding partial responses and stop executing tools,
+ * and every registered callback (typically closing the HTTP response body) is run exactly once.
+ */
+public class StreamingCancellation {
+
+    /**
+     * Key of the chat model listener attribute holding the memory id of the stream, if known.
+     */
+    public static final String MEMORY_ID_ATTRIBUTE = "memoryId";
+
+    private static final ThreadLocal<StreamingCancellation> CURRENT = new ThreadLocal<>();
+
+    private final List<Runnable> callbacks = new CopyOnWriteArrayList<>();
+
+    private volatile boolean cancelled;
+
+    private final Object memoryId;
+
+    public StreamingCancellation() {
+        this(null);
+    }
+
+    /**
+     * @param memoryId the memory id of the conversation the stream belongs to, may be {@code null}
+     */
+    public StreamingCancellation(Object memoryId) {
+        this.memoryId = memoryId;
+    }
+
+    /**
+     * @return the memory id of the conversation the stream belongs to, or {@code null}
+     */
+    public Object memoryId() {
+        return memoryId;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Cancels the stream. Subsequent invocations have no effect.
+     */
+    public void cancel() {
+        synchronized (this) {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+        }
+        for (Runnable callback : callbacks) {
+            runQuietly(callback);
+        }
+        callbacks.clear();
+    }
+
+    /**
+     * Registers a callback to be run on cancellation. Runs it immediately if already cancelled.
+     *
+     * @param callback the callback
+     * @return an action that deregisters the callback, for callers whose work ends before the stream does
+     */
+    public Runnable onCancel(Runnable callback) {
+        synchronized (this) {
+            if (!cancelled) {
+                callbacks.add(callback);
+                return () -> callbacks.remove(callback);
+            }
+        }
+        runQuietly(callback);
+        return () -> {
+        };
+    }
+
+    /**
+     * Makes the given cancellation visible to the HTTP client for the duration of the call,
+     * so that it can abort the underlying response stream.
+     *
+     * @param cancellation the cancellation, may be {@code null}
+     * @param action       the action that starts the HTTP call
+     */
+    public static void runWith(StreamingCancellation cancellation, Runnable action) {
+        if (cancellation == null) {
+            action.run();
+            return;
+        }
+        StreamingCancellation previous = CURRENT.get();
+        CURRENT.set(cancellation);
+        try {
+            action.run();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    /**
+     * @return the cancellation bound to the current thread by {@link #runWith}, or {@code null}
+     */
+    public static StreamingCancellation current() {
+        return CURRENT.get();
+    }
+
+    private static void runQuietly(Runnable callback) {
+        try {
+            callback.run();
+        } catch (Exception ignored) {
+            // best effort
+        }
+    }
+}
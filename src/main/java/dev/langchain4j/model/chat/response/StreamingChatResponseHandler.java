@@ -52,6 +52,17 @@ public interface StreamingChatResponseHandler {
      */
     void onCompleteResponse(ChatResponse completeResponse);
 
+    /**
+     * Returns the cancellation signal of the stream this handler belongs to.
+     * Model implementations should stop forwarding events once it is cancelled
+     * and may use it to abort the underlying HTTP call.
+     *
+     * @return the cancellation, or {@code null} if the stream cannot be cancelled
+     */
+    default StreamingCancellation cancellation() {
+        return null;
+    }
+
     /**
      * This method is invoked when an error occurs during streaming.
      *
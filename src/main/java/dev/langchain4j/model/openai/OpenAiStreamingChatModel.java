@@ -12,6 +12,7 @@ import dev.langchain4j.model.chat.request.ChatRequest;
 import dev.langchain4j.model.chat.request.ChatRequestParameters;
 import dev.langchain4j.model.chat.request.DefaultChatRequestParameters;
 import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.StreamingCancellation;
 import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
 import dev.langchain4j.model.openai.internal.OpenAiClient;
 import dev.langchain4j.model.openai.internal.chat.*;
@@ -119,15 +120,24 @@ public class OpenAiStreamingChatModel implements StreamingChatModel {
                                 .build())
                         .build();
 
-        OpenAiStreamingResponseBuilder openAiResponseBuilder = new OpenAiStreamingResponseBuilder();
+        OpenAiStreamingResponseBuilder openAiResponseBuilder =
+                new OpenAiStreamingResponseBuilder(expectedContentLength(parameters.maxOutputTokens()));
         ToolExecutionRequestBuilder toolBuilder = new ToolExecutionRequestBuilder();
+        StreamingCancellation cancellation = handler.cancellation();
+        StreamingLatencyRecorder latency = new StreamingLatencyRecorder(parameters.modelName());
 
-        client.chatCompletion(openAiRequest)
+        // the HTTP client picks up the cancellation from the calling thread and closes the response body on cancel
+        StreamingCancellation.runWith(cancellation, () -> client.chatCompletion(openAiRequest)
                 .onPartialResponse(partialResponse -> {
+                    if (cancellation != null && cancellation.isCancelled()) {
+                        return;
+                    }
+                    latency.onChunk();
                     openAiResponseBuilder.append(partialResponse);
                     handle(partialResponse, toolBuilder, handler);
                 })
                 .onComplete(() -> {
+                    latency.onComplete();
                     if (toolBuilder.hasToolExecutionRequests()) {
                         try {
                             handler.onCompleteToolExecutionRequest(toolBuilder.index(), toolBuilder.build());
@@ -143,10 +153,23 @@ public class OpenAiStreamingChatModel implements StreamingChatModel {
                     }
                 })
                 .onError(throwable -> {
+                    latency.onError();
                     RuntimeException mappedException = ExceptionMapper.DEFAULT.mapException(throwable);
                     withLoggingExceptions(() -> handler.onError(mappedException));
                 })
-                .execute();
+                .execute());
+    }
+
+    /**
+     * Sizes the content buffer from the output token limit (roughly 3 characters per token of code),
+     * so that long generations regrow it less often; capped so that concurrent streams
+     * do not reserve too much memory up front.
+     */
+    private static int expectedContentLength(Integer maxOutputTokens) {
+        if (maxOutputTokens == null || maxOutputTokens <= 0) {
+            return 4096;
+        }
+        return (int) Math.min(Math.max(4096L, maxOutputTokens * 3L), 32 * 1024);
     }
 
     private static void handle(ChatCompletionResponse partialResponse,
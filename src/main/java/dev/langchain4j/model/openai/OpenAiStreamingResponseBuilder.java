@@ -11,40 +11,57 @@ import dev.langchain4j.model.openai.internal.shared.Usage;
 import dev.langchain4j.model.output.FinishReason;
 import dev.langchain4j.model.output.TokenUsage;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.Objects;
 
 import static dev.langchain4j.internal.Utils.isNullOrBlank;
 import static dev.langchain4j.internal.Utils.isNullOrEmpty;
 import static dev.langchain4j.model.openai.internal.OpenAiUtils.finishReasonFrom;
 import static dev.langchain4j.model.openai.internal.OpenAiUtils.tokenUsageFrom;
 import static java.util.Collections.singletonList;
-import static java.util.stream.Collectors.toList;
 
 /**
- * This class needs to be thread safe because it is called when a streaming result comes back
- * and there is no guarantee that this thread will be the same as the one that initiated the request,
- * in fact it almost certainly won't be.
+ * Assembles the streamed chunks of one response.
+ * <p>
+ * Chunks of a stream are delivered one after another (the HTTP client serializes the callbacks, which also
+ * establishes happens-before between them), so the builder has a single writer and uses plain fields and
+ * unsynchronized, pre-sized {@link StringBuilder}s instead of {@code StringBuffer}s, atomics and concurrent maps.
+ * Must not be shared between streams.
  */
 @Internal
 public class OpenAiStreamingResponseBuilder {
 
-    private final StringBuffer contentBuilder = new StringBuffer();
+    private static final int DEFAULT_CONTENT_CAPACITY = 4096;
 
-    private final StringBuffer toolNameBuilder = new StringBuffer();
-    private final StringBuffer toolArgumentsBuilder = new StringBuffer();
+    private final StringBuilder contentBuilder;
 
-    private final Map<Integer, ToolExecutionRequestBuilder> indexToToolExecutionRequestBuilder = new ConcurrentHashMap<>();
+    private StringBuilder toolNameBuilder;
+    private StringBuilder toolArgumentsBuilder;
 
-    private final AtomicReference<String> id = new AtomicReference<>();
-    private final AtomicReference<Long> created = new AtomicReference<>();
-    private final AtomicReference<String> model = new AtomicReference<>();
-    private final AtomicReference<String> serviceTier = new AtomicReference<>();
-    private final AtomicReference<String> systemFingerprint = new AtomicReference<>();
-    private final AtomicReference<TokenUsage> tokenUsage = new AtomicReference<>();
-    private final AtomicReference<FinishReason> finishReason = new AtomicReference<>();
+    /**
+     * Tool calls in order of first appearance; a response rarely has more than a few.
+     */
+    private final List<ToolExecutionRequestBuilder> toolExecutionRequestBuilders = new ArrayList<>(2);
+
+    private String id;
+    private Long created;
+    private String model;
+    private String serviceTier;
+    private String systemFingerprint;
+    private TokenUsage tokenUsage;
+    private FinishReason finishReason;
+
+    public OpenAiStreamingResponseBuilder() {
+        this(DEFAULT_CONTENT_CAPACITY);
+    }
+
+    /**
+     * @param expectedContentLength expected length of the text content, used to pre-size the buffer
+     */
+    public OpenAiStreamingResponseBuilder(int expectedContentLength) {
+        this.contentBuilder = new StringBuilder(Math.max(16, expectedContentLength));
+    }
 
     public void append(ChatCompletionResponse partialResponse) {
         if (partialResponse == null) {
@@ -52,24 +69,24 @@ public class OpenAiStreamingResponseBuilder {
         }
 
         if (!isNullOrBlank(partialResponse.id())) {
-            this.id.set(partialResponse.id());
+            this.id = partialResponse.id();
         }
         if (partialResponse.created() != null) {
-            this.created.set(partialResponse.created());
+            this.created = partialResponse.created();
         }
         if (!isNullOrBlank(partialResponse.model())) {
-            this.model.set(partialResponse.model());
+            this.model = partialResponse.model();
         }
         if (!isNullOrBlank(partialResponse.serviceTier())) {
-            this.serviceTier.set(partialResponse.serviceTier());
+            this.serviceTier = partialResponse.serviceTier();
         }
         if (!isNullOrBlank(partialResponse.systemFingerprint())) {
-            this.systemFingerprint.set(partialResponse.systemFingerprint());
+            this.systemFingerprint = partialResponse.systemFingerprint();
         }
 
         Usage usage = partialResponse.usage();
         if (usage != null) {
-            this.tokenUsage.set(tokenUsageFrom(usage));
+            this.tokenUsage = tokenUsageFrom(usage);
         }
 
         List<ChatCompletionChoice> choices = partialResponse.choices();
@@ -84,7 +101,7 @@ public class OpenAiStreamingResponseBuilder {
 
         String finishReason = chatCompletionChoice.finishReason();
         if (finishReason != null) {
-            this.finishReason.set(finishReasonFrom(finishReason));
+            this.finishReason = finishReasonFrom(finishReason);
         }
 
         Delta delta = chatCompletionChoice.delta();
@@ -101,35 +118,39 @@ public class OpenAiStreamingResponseBuilder {
             FunctionCall functionCall = delta.functionCall();
 
             if (functionCall.name() != null) {
+                if (toolNameBuilder == null) {
+                    toolNameBuilder = new StringBuilder();
+                }
                 this.toolNameBuilder.append(functionCall.name());
             }
 
             if (functionCall.arguments() != null) {
+                if (toolArgumentsBuilder == null) {
+                    toolArgumentsBuilder = new StringBuilder(ToolExecutionRequestBuilder.ARGUMENTS_CAPACITY);
+                }
                 this.toolArgumentsBuilder.append(functionCall.arguments());
             }
         }
 
-        if (delta.toolCalls() != null) {
-            System.out.println("OLOLO " + delta.toolCalls()); // TODO
-
-            for (ToolCall toolCall : delta.toolCalls()) {
-
-                ToolExecutionRequestBuilder builder = this.indexToToolExecutionRequestBuilder.computeIfAbsent(
-                        toolCall.index(),
-                        idx -> new ToolExecutionRequestBuilder()
-                );
+        List<ToolCall> toolCalls = delta.toolCalls();
+        if (toolCalls != null) {
+            for (int i = 0; i < toolCalls.size(); i++) {
+                ToolCall toolCall = toolCalls.get(i);
+                ToolExecutionRequestBuilder builder = toolExecutionRequestBuilder(toolCall.index());
 
                 if (toolCall.id() != null) {
-                    builder.idBuilder.append(toolCall.id());
+                    builder.appendId(toolCall.id());
                 }
 
                 FunctionCall functionCall = toolCall.function();
+                if (functionCall == null) {
+                    continue;
+                }
                 if (functionCall.name() != null) {
-                    builder.nameBuilder.append(functionCall.name());
+                    builder.appendName(functionCall.name());
                 }
-
                 if (functionCall.arguments() != null) {
-                    builder.argumentsBuilder.append(functionCall.arguments());
+                    builder.appendArguments(functionCall.arguments());
                 }
             }
         }
@@ -142,7 +163,7 @@ public class OpenAiStreamingResponseBuilder {
 
         Usage usage = partialResponse.usage();
         if (usage != null) {
-            this.tokenUsage.set(tokenUsageFrom(usage));
+            this.tokenUsage = tokenUsageFrom(usage);
         }
 
         List<CompletionChoice> choices = partialResponse.choices();
@@ -157,7 +178,7 @@ public class OpenAiStreamingResponseBuilder {
 
         String finishReason = completionChoice.finishReason();
         if (finishReason != null) {
-            this.finishReason.set(finishReasonFrom(finishReason));
+            this.finishReason = finishReasonFrom(finishReason);
         }
 
         String token = completionChoice.text();
@@ -166,25 +187,41 @@ public class OpenAiStreamingResponseBuilder {
         }
     }
 
+    /**
+     * Finds the builder of the tool call with the given index, checking the most recent one first
+     * since consecutive chunks almost always continue the same call.
+     */
+    private ToolExecutionRequestBuilder toolExecutionRequestBuilder(Integer index) {
+        int size = toolExecutionRequestBuilders.size();
+        for (int i = size - 1; i >= 0; i--) {
+            ToolExecutionRequestBuilder builder = toolExecutionRequestBuilders.get(i);
+            if (Objects.equals(builder.index, index)) {
+                return builder;
+            }
+        }
+        ToolExecutionRequestBuilder builder = new ToolExecutionRequestBuilder(index);
+        toolExecutionRequestBuilders.add(builder);
+        return builder;
+    }
+
     public ChatResponse build() {
 
         OpenAiChatResponseMetadata chatResponseMetadata = OpenAiChatResponseMetadata.builder()
-                .id(id.get())
-                .modelName(model.get())
-                .tokenUsage(tokenUsage.get())
-                .finishReason(finishReason.get())
-                .created(created.get())
-                .serviceTier(serviceTier.get())
-                .systemFingerprint(systemFingerprint.get())
+                .id(id)
+                .modelName(model)
+                .tokenUsage(tokenUsage)
+                .finishReason(finishReason)
+                .created(created)
+                .serviceTier(serviceTier)
+                .systemFingerprint(systemFingerprint)
                 .build();
 
         String text = contentBuilder.toString();
 
-        String toolName = toolNameBuilder.toString();
-        if (!toolName.isEmpty()) {
+        if (toolNameBuilder != null && !toolNameBuilder.isEmpty()) {
             ToolExecutionRequest toolExecutionRequest = ToolExecutionRequest.builder()
-                    .name(toolName)
-                    .arguments(toolArgumentsBuilder.toString())
+                    .name(toolNameBuilder.toString())
+                    .arguments(toolArgumentsBuilder == null ? "" : toolArgumentsBuilder.toString())
                     .build();
 
             AiMessage aiMessage = isNullOrBlank(text) ?
@@ -197,14 +234,11 @@ public class OpenAiStreamingResponseBuilder {
                     .build();
         }
 
-        if (!indexToToolExecutionRequestBuilder.isEmpty()) {
-            List<ToolExecutionRequest> toolExecutionRequests = indexToToolExecutionRequestBuilder.values().stream()
-                    .map(it -> ToolExecutionRequest.builder()
-                            .id(it.idBuilder.toString())
-                            .name(it.nameBuilder.toString())
-                            .arguments(it.argumentsBuilder.toString())
-                            .build())
-                    .collect(toList());
+        if (!toolExecutionRequestBuilders.isEmpty()) {
+            List<ToolExecutionRequest> toolExecutionRequests = new ArrayList<>(toolExecutionRequestBuilders.size());
+            for (ToolExecutionRequestBuilder builder : toolExecutionRequestBuilders) {
+                toolExecutionRequests.add(builder.build());
+            }
 
             AiMessage aiMessage = isNullOrBlank(text) ?
                     AiMessage.from(toolExecutionRequests) :
@@ -229,8 +263,39 @@ public class OpenAiStreamingResponseBuilder {
 
     private static class ToolExecutionRequestBuilder {
 
-        private final StringBuffer idBuilder = new StringBuffer();
-        private final StringBuffer nameBuilder = new StringBuffer();
-        private final StringBuffer argumentsBuilder = new StringBuffer();
+        private static final int ARGUMENTS_CAPACITY = 256;
+
+        private final Integer index;
+        private String id;
+        private String name;
+        private StringBuilder argumentsBuilder;
+
+        private ToolExecutionRequestBuilder(Integer index) {
+            this.index = index;
+        }
+
+        // ids and names normally arrive in one piece; concatenate in the rare case they are split
+        private void appendId(String fragment) {
+            id = id == null ? fragment : id + fragment;
+        }
+
+        private void appendName(String fragment) {
+            name = name == null ? fragment : name + fragment;
+        }
+
+        private void appendArguments(String fragment) {
+            if (argumentsBuilder == null) {
+                argumentsBuilder = new StringBuilder(ARGUMENTS_CAPACITY);
+            }
+            argumentsBuilder.append(fragment);
+        }
+
+        private ToolExecutionRequest build() {
+            return ToolExecutionRequest.builder()
+                    .id(id == null ? "" : id)
+                    .name(name == null ? "" : name)
+                    .arguments(argumentsBuilder == null ? "" : argumentsBuilder.toString())
+                    .build();
+        }
     }
 }
@@ -0,0 +1,82 @@
+package dev.langchain4j.model.openai;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static dev.langchain4j.internal.Utils.isNullOrBlank;
+
+/**
+ * Records provider-side latency of one streaming call: time to the first chunk, the gaps between chunks
+ * and the total duration, tagged by model name.
+ * <p>
+ * Meters are registered in {@link Metrics#globalRegistry}, which Spring Boot links to its own registry.
+ * Chunk callbacks of one call arrive sequentially, so the state needs no synchronization.
+ */
+class StreamingLatencyRecorder {
+
+    private static final Duration MIN_EXPECTED = Duration.ofMillis(1);
+    private static final Duration MAX_EXPECTED = Duration.ofMinutes(5);
+
+    private final String modelName;
+    private final Timer interChunkTimer;
+    private final long startNanos = System.nanoTime();
+    private long lastChunkNanos;
+    private boolean chunkReceived;
+    private boolean finished;
+
+    StreamingLatencyRecorder(String modelName) {
+        this.modelName = isNullOrBlank(modelName) ? "unknown" : modelName;
+        this.interChunkTimer = Timer.builder("voya.llm.stream.inter_chunk")
+                .description("Gap between consecutive chunks of a streaming response")
+                .tag("model", this.modelName)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(100_000))
+                .maximumExpectedValue(Duration.ofSeconds(30))
+                .register(Metrics.globalRegistry);
+    }
+
+    void onChunk() {
+        long now = System.nanoTime();
+        if (!chunkReceived) {
+            chunkReceived = true;
+            timer("voya.llm.stream.ttft", "Time from sending the request to the first chunk", null)
+                    .record(now - startNanos, TimeUnit.NANOSECONDS);
+        } else {
+            interChunkTimer.record(now - lastChunkNanos, TimeUnit.NANOSECONDS);
+        }
+        lastChunkNanos = now;
+    }
+
+    void onComplete() {
+        finish("success");
+    }
+
+    void onError() {
+        finish("error");
+    }
+
+    private void finish(String outcome) {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        timer("voya.llm.stream.duration", "Total duration of a streaming call", outcome)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private Timer timer(String name, String description, String outcome) {
+        Timer.Builder builder = Timer.builder(name)
+                .description(description)
+                .tag("model", modelName)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(MIN_EXPECTED)
+                .maximumExpectedValue(MAX_EXPECTED);
+        if (outcome != null) {
+            builder.tag("outcome", outcome);
+        }
+        return builder.register(Metrics.globalRegistry);
+    }
+}
@@ -12,16 +12,25 @@ import dev.langchain4j.guardrail.OutputGuardrailRequest;
 import dev.langchain4j.memory.ChatMemory;
 import dev.langchain4j.model.chat.request.ChatRequest;
 import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.StreamingCancellation;
 import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
 import dev.langchain4j.model.output.TokenUsage;
 import dev.langchain4j.service.tool.ToolExecution;
 import dev.langchain4j.service.tool.ToolExecutor;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
@@ -57,6 +66,8 @@ class AiServiceStreamingResponseHandler implements StreamingChatResponseHandler
     private final Map<String, ToolExecutor> toolExecutors;
     private final List<String> responseBuffer = new ArrayList<>();
     private final boolean hasOutputGuardrails;
+    private final StreamingCancellation cancellation;
+    private final ParallelToolExecution parallelToolExecution;
 
     AiServiceStreamingResponseHandler(
             ChatExecutor chatExecutor,
@@ -73,7 +84,9 @@ class AiServiceStreamingResponseHandler implements StreamingChatResponseHandler
             List<ToolSpecification> toolSpecifications,
             Map<String, ToolExecutor> toolExecutors,
             GuardrailRequestParams commonGuardrailParams,
-            Object methodKey) {
+            Object methodKey,
+            StreamingCancellation cancellation,
+            ParallelToolExecution parallelToolExecution) {
         this.chatExecutor = ensureNotNull(chatExecutor, "chatExecutor");
         this.context = ensureNotNull(context, "context");
         this.memoryId = ensureNotNull(memoryId, "memoryId");
@@ -93,10 +106,85 @@ class AiServiceStreamingResponseHandler implements StreamingChatResponseHandler
         this.toolSpecifications = copy(toolSpecifications);
         this.toolExecutors = copy(toolExecutors);
         this.hasOutputGuardrails = context.guardrailService().hasOutputGuardrails(methodKey);
+        this.cancellation = ensureNotNull(cancellation, "cancellation");
+        this.parallelToolExecution = ensureNotNull(parallelToolExecution, "parallelToolExecution");
+    }
+
+    /**
+     * Executes the tool and records its duration, tagged by tool name and outcome.
+     */
+    private String executeTool(ToolExecutor toolExecutor, ToolExecutionRequest toolExecutionRequest) {
+        long start = System.nanoTime();
+        String outcome = "error";
+        try {
+            String result = toolExecutor.execute(toolExecutionRequest, memoryId);
+            outcome = "success";
+            return result;
+        } finally {
+            Timer.builder("voya.llm.tool.duration")
+                    .description("Duration of a tool execution requested by the model")
+                    .tag("tool", String.valueOf(toolExecutionRequest.name()))
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofMillis(1))
+                    .maximumExpectedValue(Duration.ofMinutes(5))
+                    .register(Metrics.globalRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Executes a batch planned by {@link ParallelToolExecution}: a single call runs on the calling thread, several calls
+     * run concurrently on virtual threads. Returns the results in request order.
+     */
+    private List<String> executeTools(List<ToolExecutionRequest> batch) {
+        if (batch.size() == 1) {
+            ToolExecutionRequest toolExecutionRequest = batch.get(0);
+            return List.of(executeTool(toolExecutors.get(toolExecutionRequest.name()), toolExecutionRequest));
+        }
+        LOG.debug("Executing {} tool calls concurrently", batch.size());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<String>> futures = new ArrayList<>(batch.size());
+            for (ToolExecutionRequest toolExecutionRequest : batch) {
+                ToolExecutor toolExecutor = toolExecutors.get(toolExecutionRequest.name());
+                futures.add(executor.submit(() -> executeTool(toolExecutor, toolExecutionRequest)));
+            }
+            List<String> results = new ArrayList<>(batch.size());
+            for (Future<String> future : futures) {
+                results.add(await(future));
+            }
+            return results;
+        }
+    }
+
+    private static String await(Future<String> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            // rethrow as the sequential execution would have
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    @Override
+    public StreamingCancellation cancellation() {
+        return cancellation;
     }
 
     @Override
     public void onPartialResponse(String partialResponse) {
+        if (cancellation.isCancelled()) {
+            return;
+        }
         // If we're using output guardrails, then buffer the partial response until the guardrails have completed
         if (hasOutputGuardrails) {
             responseBuffer.add(partialResponse);
@@ -107,30 +195,46 @@ class AiServiceStreamingResponseHandler implements StreamingChatResponseHandler
 
     @Override
     public void onPartialToolExecutionRequest(int index, ToolExecutionRequest partialToolExecutionRequest) {
+        if (cancellation.isCancelled()) {
+            return;
+        }
         // If we're using output guardrails, then buffer the partial response until the guardrails have completed
         partialToolExecutionRequestHandler.accept(index, partialToolExecutionRequest);
     }
 
     @Override
     public void onCompleteResponse(ChatResponse completeResponse) {
+        if (cancellation.isCancelled()) {
+            // the consumer is gone: do not execute tools nor start another round,
+            // and keep unanswered tool calls out of the memory
+            LOG.debug("Stream cancelled, skipping tool execution and follow-up requests");
+            return;
+        }
         AiMessage aiMessage = completeResponse.aiMessage();
         addToMemory(aiMessage);
 
         if (aiMessage.hasToolExecutionRequests()) {
-            for (ToolExecutionRequest toolExecutionRequest : aiMessage.toolExecutionRequests()) {
-                String toolName = toolExecutionRequest.name();
-                ToolExecutor toolExecutor = toolExecutors.get(toolName);
-                String toolExecutionResult = toolExecutor.execute(toolExecutionRequest, memoryId);
-                ToolExecutionResultMessage toolExecutionResultMessage =
-                        ToolExecutionResultMessage.from(toolExecutionRequest, toolExecutionResult);
-                addToMemory(toolExecutionResultMessage);
-
-                if (toolExecutionHandler != null) {
-                    ToolExecution toolExecution = ToolExecution.builder()
-                            .request(toolExecutionRequest)
-                            .result(toolExecutionResult)
-                            .build();
-                    toolExecutionHandler.accept(toolExecution);
+            for (List<ToolExecutionRequest> batch : parallelToolExecution.plan(aiMessage.toolExecutionRequests())) {
+                if (cancellation.isCancelled()) {
+                    LOG.debug("Stream cancelled, skipping remaining tool executions");
+                    return;
+                }
+                List<String> toolExecutionResults = executeTools(batch);
+                // results go to the memory and to the stream in the order the model requested them
+                for (int i = 0; i < batch.size(); i++) {
+                    ToolExecutionRequest toolExecutionRequest = batch.get(i);
+                    String toolExecutionResult = toolExecutionResults.get(i);
+                    ToolExecutionResultMessage toolExecutionResultMessage =
+                            ToolExecutionResultMessage.from(toolExecutionRequest, toolExecutionResult);
+                    addToMemory(toolExecutionResultMessage);
+
+                    if (toolExecutionHandler != null) {
+                        ToolExecution toolExecution = ToolExecution.builder()
+                                .request(toolExecutionRequest)
+                                .result(toolExecutionResult)
+                                .build();
+                        toolExecutionHandler.accept(toolExecution);
+                    }
                 }
             }
 
@@ -154,7 +258,9 @@ class AiServiceStreamingResponseHandler implements StreamingChatResponseHandler
                     toolSpecifications,
                     toolExecutors,
                     commonGuardrailParams,
-                    methodKey);
+                    methodKey,
+                    cancellation,
+                    parallelToolExecution);
 
             context.streamingChatModel.chat(chatRequest, handler);
         } else {
@@ -217,6 +323,11 @@ class AiServiceStreamingResponseHandler implements StreamingChatResponseHandler
 
     @Override
     public void onError(Throwable error) {
+        if (cancellation.isCancelled()) {
+            // expected after the response body has been closed on cancellation
+            LOG.debug("Ignored error after cancellation", error);
+            return;
+        }
         if (errorHandler != null) {
             try {
                 errorHandler.accept(error);
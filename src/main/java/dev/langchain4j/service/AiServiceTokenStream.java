@@ -10,6 +10,7 @@ import dev.langchain4j.memory.ChatMemory;
 import dev.langchain4j.memory.chat.MessageWindowChatMemory;
 import dev.langchain4j.model.chat.request.ChatRequest;
 import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.StreamingCancellation;
 import dev.langchain4j.model.output.TokenUsage;
 import dev.langchain4j.rag.content.Content;
 import dev.langchain4j.service.tool.ToolExecution;
@@ -35,6 +36,7 @@ public class AiServiceTokenStream implements TokenStream {
     private final Object memoryId;
     private final GuardrailRequestParams commonGuardrailParams;
     private final Object methodKey;
+    private final StreamingCancellation cancellation;
 
     private Consumer<String> partialResponseHandler;
     private Consumer<List<Content>> contentsHandler;
@@ -43,6 +45,7 @@ public class AiServiceTokenStream implements TokenStream {
     private Consumer<Throwable> errorHandler;
     private BiConsumer<Integer, ToolExecutionRequest> partialToolExecutionRequestHandler;
     private BiConsumer<Integer, ToolExecutionRequest> completeToolExecutionRequestHandler;
+    private ParallelToolExecution parallelToolExecution = ParallelToolExecution.DISABLED;
 
     private int onPartialResponseInvoked;
     private int onCompleteResponseInvoked;
@@ -67,6 +70,7 @@ public class AiServiceTokenStream implements TokenStream {
         this.memoryId = ensureNotNull(parameters.memoryId(), "memoryId");
         this.commonGuardrailParams = parameters.commonGuardrailParams();
         this.methodKey = parameters.methodKey();
+        this.cancellation = new StreamingCancellation(memoryId);
     }
 
     @Override
@@ -123,6 +127,12 @@ public class AiServiceTokenStream implements TokenStream {
         return this;
     }
 
+    @Override
+    public TokenStream parallelToolExecution(ParallelToolExecution parallelToolExecution) {
+        this.parallelToolExecution = ensureNotNull(parallelToolExecution, "parallelToolExecution");
+        return this;
+    }
+
     @Override
     public void start() {
         validateConfiguration();
@@ -152,7 +162,9 @@ public class AiServiceTokenStream implements TokenStream {
                 toolSpecifications,
                 toolExecutors,
                 commonGuardrailParams,
-                methodKey);
+                methodKey,
+                cancellation,
+                parallelToolExecution);
 
         if (contentsHandler != null && retrievedContents != null) {
             contentsHandler.accept(retrievedContents);
@@ -161,6 +173,11 @@ public class AiServiceTokenStream implements TokenStream {
         context.streamingChatModel.chat(chatRequest, handler);
     }
 
+    @Override
+    public void cancel() {
+        cancellation.cancel();
+    }
+
     private void validateConfiguration() {
         if (onPartialResponseInvoked != 1) {
             throw new IllegalConfigurationException("onPartialResponse must be invoked on TokenStream exactly 1 time");
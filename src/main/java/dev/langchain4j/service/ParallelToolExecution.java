@@ -0,0 +1,96 @@
+package dev.langchain4j.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Opt-in parallel execution of the tool calls requested in a single model response.
+ * <p>
+ * Only the tools this instance is created with are run concurrently. Each one is registered together with the name of
+ * its conflict argument, i.e. the argument identifying the resource it touches (for example a file path). Consecutive
+ * calls of registered tools that target different resources form one batch and run on virtual threads. A call that
+ * targets a resource already used in the current batch, or a call of any other tool, ends the batch, so dependent calls
+ * keep their relative order. Results are always reported in the original request order.
+ * <p>
+ * Set per stream via {@link TokenStream#parallelToolExecution(ParallelToolExecution)}; streams default to
+ * {@link #DISABLED}.
+ */
+public final class ParallelToolExecution {
+
+    /**
+     * Every tool call runs on its own, one after another.
+     */
+    public static final ParallelToolExecution DISABLED = new ParallelToolExecution(Map.of());
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    /**
+     * tool name -> name of the argument identifying the resource the tool touches
+     */
+    private final Map<String, String> conflictArguments;
+
+    /**
+     * @param isolatedTools tool name -> name of its conflict argument
+     */
+    public ParallelToolExecution(Map<String, String> isolatedTools) {
+        this.conflictArguments = Map.copyOf(isolatedTools);
+    }
+
+    /**
+     * Splits the tool calls of one response into batches that are executed one after another; calls within a batch
+     * may run concurrently. With no isolated tools every batch holds a single call.
+     */
+    List<List<ToolExecutionRequest>> plan(List<ToolExecutionRequest> requests) {
+        List<List<ToolExecutionRequest>> batches = new ArrayList<>();
+        List<ToolExecutionRequest> batch = new ArrayList<>();
+        Set<String> conflictKeys = new HashSet<>();
+        for (ToolExecutionRequest request : requests) {
+            String conflictKey = conflictKey(request);
+            if (conflictKey == null || conflictKeys.contains(conflictKey)) {
+                if (!batch.isEmpty()) {
+                    batches.add(batch);
+                    batch = new ArrayList<>();
+                    conflictKeys.clear();
+                }
+                if (conflictKey == null) {
+                    batches.add(List.of(request));
+                    continue;
+                }
+            }
+            batch.add(request);
+            conflictKeys.add(conflictKey);
+        }
+        if (!batch.isEmpty()) {
+            batches.add(batch);
+        }
+        return batches;
+    }
+
+    /**
+     * Normalized value of the conflict argument, or null if the call must not run concurrently with others.
+     */
+    private String conflictKey(ToolExecutionRequest request) {
+        String argumentName = conflictArguments.get(request.name());
+        if (argumentName == null || request.arguments() == null) {
+            return null;
+        }
+        try {
+            JsonNode value = OBJECT_MAPPER.readTree(request.arguments()).path(argumentName);
+            if (!value.isTextual() || value.asText().isBlank()) {
+                return null;
+            }
+            return Path.of(value.asText().replace('\\', '/')).normalize().toString();
+        } catch (Exception e) {
+            // malformed arguments or path: let the tool report the error, just don't run it concurrently
+            return null;
+        }
+    }
+}
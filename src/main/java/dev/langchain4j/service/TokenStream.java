@@ -74,10 +74,30 @@ public interface TokenStream {
      */
     TokenStream ignoreErrors();
 
+    /**
+     * Lets the tool calls of one model response run concurrently as planned by the given
+     * {@link ParallelToolExecution}. By default every tool call runs on its own, one after another.
+     *
+     * @param parallelToolExecution which tools may run concurrently
+     * @return token stream instance used to configure or start stream processing
+     */
+    default TokenStream parallelToolExecution(ParallelToolExecution parallelToolExecution) {
+        return this;
+    }
+
     /**
      * Completes the current token stream building and starts processing.
      * <p>
      * Will send a request to LLM and start response streaming.
      */
     void start();
+
+    /**
+     * Cancels the stream: partial responses are no longer delivered, pending tool executions and
+     * follow-up requests are skipped, and the underlying HTTP response is closed when the HTTP client supports it.
+     * <p>
+     * Does nothing if the implementation does not support cancellation.
+     */
+    default void cancel() {
+    }
 }
@@ -0,0 +1,217 @@
+package com.zcw.voya.ai;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.zcw.voya.ai.http.CancellableHttpClientBuilder;
+import com.zcw.voya.ai.memory.ChatMemoryHydrator;
+import com.zcw.voya.ai.model.enums.CodeGenTypeEnum;
+import com.zcw.voya.ai.tools.BaseTool;
+import com.zcw.voya.ai.tools.ExitTool;
+import com.zcw.voya.ai.tools.FileDeleteTool;
+import com.zcw.voya.ai.tools.FileDirReadTool;
+import com.zcw.voya.ai.tools.FileModifyTool;
+import com.zcw.voya.ai.tools.FileReadTool;
+import com.zcw.voya.ai.tools.FileWriteTool;
+import com.zcw.voya.ai.tools.ToolManager;
+import com.zcw.voya.config.AiServiceConfig;
+import com.zcw.voya.config.ChatMemoryConfig;
+import com.zcw.voya.service.ChatHistoryService;
+import com.zcw.voya.util.SpringContextUtil;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.memory.ChatMemory;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.StreamingChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
+import dev.langchain4j.model.openai.OpenAiStreamingChatModel;
+import dev.langchain4j.store.memory.chat.InMemoryChatMemoryStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 共用实例模式：同一生成类型的所有应用共用一个代理，对话记忆按 appId 缓存，互不影响
+ */
+@Slf4j
+class AiCodeGeneratorServiceFactoryTest {
+
+    private final InMemoryChatMemoryStore chatMemoryStore = new InMemoryChatMemoryStore();
+
+    /**
+     * 从 MySQL 加载历史的次数，即新建对话记忆的次数
+     */
+    private final AtomicInteger historyLoads = new AtomicInteger();
+
+    private static final StreamingChatModel STUB_MODEL = new StreamingChatModel() {
+        @Override
+        public void chat(ChatRequest chatRequest, StreamingChatResponseHandler handler) {
+            handler.onPartialResponse("ok");
+            handler.onCompleteResponse(ChatResponse.builder().aiMessage(AiMessage.from("ok")).build());
+        }
+    };
+
+    @Test
+    void sharedProxyKeepsMemoriesPerApp() {
+        AiCodeGeneratorServiceFactory factory = factory(true, () -> STUB_MODEL);
+
+        AiCodeGeneratorService first = factory.getAiCodeGeneratorService(1L, CodeGenTypeEnum.HTML);
+        AiCodeGeneratorService second = factory.getAiCodeGeneratorService(2L, CodeGenTypeEnum.HTML);
+        assertSame(first, second);
+        assertNotSame(first, factory.getAiCodeGeneratorService(1L, CodeGenTypeEnum.MULTI_FILE));
+
+        generate(first, 1L, "做一个课程表网页");
+        generate(second, 2L, "做一个个人博客");
+        generate(first, 1L, "把标题改成蓝色");
+
+        assertEquals(List.of("做一个课程表网页", "把标题改成蓝色"), userTexts(1L));
+        assertEquals(List.of("做一个个人博客"), userTexts(2L));
+        Cache<String, ChatMemory> chatMemoryCache = chatMemoryCache(factory);
+        assertNotSame(chatMemoryCache.getIfPresent("HTML_1"), chatMemoryCache.getIfPresent("HTML_2"));
+        assertEquals(2, historyLoads.get());
+    }
+
+    @Test
+    void evictedMemoryIsRecreated() {
+        AiCodeGeneratorServiceFactory factory = factory(true, () -> STUB_MODEL);
+        AiCodeGeneratorService service = factory.getAiCodeGeneratorService(1L, CodeGenTypeEnum.HTML);
+        generate(service, 1L, "做一个课程表网页");
+        Cache<String, ChatMemory> chatMemoryCache = chatMemoryCache(factory);
+        ChatMemory evicted = chatMemoryCache.getIfPresent("HTML_1");
+        assertNotNull(evicted);
+
+        chatMemoryCache.invalidate("HTML_1");
+        assertNull(chatMemoryCache.getIfPresent("HTML_1"));
+
+        // 再次调用时重新创建记忆并加载历史
+        generate(service, 1L, "把标题改成蓝色");
+        assertNotSame(evicted, chatMemoryCache.getIfPresent("HTML_1"));
+        assertEquals(2, historyLoads.get());
+    }
+
+    /**
+     * 1000 个活跃应用下两种模式的堆占用对比，结果受 GC 时机影响，默认跳过：
+     * mvn test -Dtest=AiCodeGeneratorServiceFactoryTest -Dvoya.heaptest=true
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "voya.heaptest", matches = "true")
+    void heapUnderActiveApps() throws InterruptedException {
+        int activeApps = Integer.getInteger("voya.heaptest.apps", 1000);
+        long perApp = usedHeapFor(factory(false, AiCodeGeneratorServiceFactoryTest::openAiModel), activeApps, false);
+        long shared = usedHeapFor(factory(true, AiCodeGeneratorServiceFactoryTest::openAiModel), activeApps, true);
+
+        log.info("{} 个活跃应用（VUE_PROJECT）：每应用实例 {} KB，共用实例 {} KB", activeApps, perApp / 1024, shared / 1024);
+        assertTrue(shared < perApp, "共用实例的堆占用应小于每应用实例");
+    }
+
+    /**
+     * 为每个应用取得服务和对话记忆后的堆增量（每应用实例在创建服务时已创建记忆）
+     */
+    private static long usedHeapFor(AiCodeGeneratorServiceFactory factory, int activeApps, boolean sharedProxy)
+            throws InterruptedException {
+        long baseline = usedHeap();
+        List<AiCodeGeneratorService> services = new ArrayList<>(activeApps);
+        for (long appId = 1; appId <= activeApps; appId++) {
+            services.add(factory.getAiCodeGeneratorService(appId, CodeGenTypeEnum.VUE_PROJECT));
+            if (sharedProxy) {
+                ReflectionTestUtils.invokeMethod(factory, "getChatMemory", appId, CodeGenTypeEnum.VUE_PROJECT);
+            }
+        }
+        long used = usedHeap() - baseline;
+        assertEquals(activeApps, services.size());
+        return used;
+    }
+
+    private AiCodeGeneratorServiceFactory factory(boolean sharedProxy, Supplier<StreamingChatModel> prototype) {
+        GenericApplicationContext context = new GenericApplicationContext();
+        context.registerBean("streamingChatModelPrototype", StreamingChatModel.class, prototype,
+                definition -> definition.setScope("prototype"));
+        context.registerBean("reasoningStreamingChatModelPrototype", StreamingChatModel.class, prototype,
+                definition -> definition.setScope("prototype"));
+        context.refresh();
+        new SpringContextUtil().setApplicationContext(context);
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        AiServiceConfig aiServiceConfig = new AiServiceConfig();
+        aiServiceConfig.setSharedProxy(sharedProxy);
+        ToolManager toolManager = new ToolManager();
+        ReflectionTestUtils.setField(toolManager, "tools", new BaseTool[]{new FileWriteTool(), new FileReadTool(),
+                new FileModifyTool(), new FileDeleteTool(), new FileDirReadTool(), new ExitTool()});
+        ReflectionTestUtils.setField(toolManager, "aiServiceConfig", aiServiceConfig);
+        toolManager.init();
+        // 未注入 Redis，加载时总是回源到下面的 ChatHistoryService
+        ChatMemoryHydrator chatMemoryHydrator = new ChatMemoryHydrator();
+        ReflectionTestUtils.setField(chatMemoryHydrator, "meterRegistry", meterRegistry);
+        ChatHistoryService chatHistoryService = (ChatHistoryService) Proxy.newProxyInstance(
+                ChatHistoryService.class.getClassLoader(), new Class<?>[]{ChatHistoryService.class},
+                (proxy, method, args) -> {
+                    if ("loadHistoryToMemory".equals(method.getName())) {
+                        historyLoads.incrementAndGet();
+                        return 0;
+                    }
+                    return method.getReturnType() == boolean.class ? Boolean.TRUE : null;
+                });
+
+        AiCodeGeneratorServiceFactory factory = new AiCodeGeneratorServiceFactory();
+        ReflectionTestUtils.setField(factory, "openAiChatModel", new ChatModel() {
+        });
+        ReflectionTestUtils.setField(factory, "chatHistoryService", chatHistoryService);
+        ReflectionTestUtils.setField(factory, "redisChatMemoryStore", chatMemoryStore);
+        ReflectionTestUtils.setField(factory, "chatMemoryHydrator", chatMemoryHydrator);
+        ReflectionTestUtils.setField(factory, "aiServiceConfig", aiServiceConfig);
+        ReflectionTestUtils.setField(factory, "toolManager", toolManager);
+        ReflectionTestUtils.setField(factory, "chatMemoryConfig", new ChatMemoryConfig());
+        ReflectionTestUtils.setField(factory, "meterRegistry", meterRegistry);
+        factory.init();
+        return factory;
+    }
+
+    private static void generate(AiCodeGeneratorService service, long appId, String prompt) {
+        service.generateHtmlCodeStream(appId, prompt)
+                .onPartialResponse(partialResponse -> {
+                })
+                .onError(error -> fail(error))
+                .start();
+    }
+
+    private List<String> userTexts(long appId) {
+        return chatMemoryStore.getMessages(appId).stream()
+                .filter(UserMessage.class::isInstance)
+                .map(message -> ((UserMessage) message).singleText())
+                .toList();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Cache<String, ChatMemory> chatMemoryCache(AiCodeGeneratorServiceFactory factory) {
+        return (Cache<String, ChatMemory>) ReflectionTestUtils.getField(factory, "chatMemoryCache");
+    }
+
+    private static StreamingChatModel openAiModel() {
+        return OpenAiStreamingChatModel.builder()
+                .apiKey("test")
+                .baseUrl("http://localhost:1/v1")
+                .modelName("test")
+                .httpClientBuilder(new CancellableHttpClientBuilder())
+                .build();
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
@@ -16,13 +16,13 @@ class AiCodeGeneratorServiceTest {
 
     @Test
     void generateHtmlCode() {
-        HtmlCodeResult result = aiCodeGeneratorService.generateHtmlCode("做一个菜谱网页,不超过50行代码");
+        HtmlCodeResult result = aiCodeGeneratorService.generateHtmlCode(1L, "做一个菜谱网页,不超过50行代码");
         Assertions.assertNotNull(result);
     }
 
     @Test
     void generateMultiFileCode() {
-        String result = String.valueOf(aiCodeGeneratorService.generateHtmlCode("做一个菜谱网页"));
+        String result = String.valueOf(aiCodeGeneratorService.generateHtmlCode(1L, "做一个菜谱网页"));
         Assertions.assertNotNull(result);
     }
 }
\ No newline at end of file
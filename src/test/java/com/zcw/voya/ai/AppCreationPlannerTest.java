@@ -0,0 +1,86 @@
+package com.zcw.voya.ai;
+
+import com.zcw.voya.ai.model.enums.CodeGenTypeEnum;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 创建应用前的路由和命名：两个桩模型都要等到对方也开始后才返回，以此确认两个调用是并行的
+ */
+class AppCreationPlannerTest {
+
+    private static final String PROMPT = "做一个电商管理系统，包含用户管理";
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 在屏障处等待另一个调用，两个调用同时进行时才能返回结果
+     */
+    private static <T> Function<String, T> rendezvousModel(CyclicBarrier barrier, T result) {
+        return prompt -> {
+            try {
+                barrier.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            } catch (BrokenBarrierException | TimeoutException e) {
+                throw new IllegalStateException("calls did not run concurrently", e);
+            }
+            return result;
+        };
+    }
+
+    @Test
+    void routesAndNamesConcurrently() {
+        CyclicBarrier barrier = new CyclicBarrier(2);
+        AppCreationPlanner.AppCreationPlan plan = AppCreationPlanner.plan(PROMPT,
+                rendezvousModel(barrier, CodeGenTypeEnum.VUE_PROJECT),
+                rendezvousModel(barrier, "电商后台"),
+                Duration.ofSeconds(10), Duration.ofSeconds(10), executor);
+
+        // 串行执行时第一个调用在屏障处超时，结果会是默认值
+        assertEquals(CodeGenTypeEnum.VUE_PROJECT, plan.codeGenType());
+        assertEquals("电商后台", plan.appName());
+    }
+
+    @Test
+    void timeoutAndFailureFallBack() throws InterruptedException {
+        CountDownLatch cancelled = new CountDownLatch(1);
+        Function<String, CodeGenTypeEnum> hangingRouter = prompt -> {
+            try {
+                // 永远不会完成，只能被取消
+                new CountDownLatch(1).await();
+            } catch (InterruptedException e) {
+                cancelled.countDown();
+            }
+            return CodeGenTypeEnum.VUE_PROJECT;
+        };
+        Function<String, String> failingNamer = prompt -> {
+            throw new IllegalStateException("model unavailable");
+        };
+        AppCreationPlanner.AppCreationPlan plan = AppCreationPlanner.plan(PROMPT, hangingRouter, failingNamer,
+                Duration.ofMillis(100), Duration.ofMillis(100), executor);
+
+        assertEquals(CodeGenTypeEnum.HTML, plan.codeGenType());
+        assertEquals(PROMPT.substring(0, AppCreationPlanner.NAME_FALLBACK_LENGTH), plan.appName());
+        // 超时的调用被取消，不会一直占着线程
+        assertTrue(cancelled.await(5, TimeUnit.SECONDS));
+    }
+}
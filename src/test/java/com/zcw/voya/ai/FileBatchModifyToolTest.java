@@ -0,0 +1,66 @@
+package com.zcw.voya.ai;
+
+import com.zcw.voya.ai.model.FileEdit;
+import com.zcw.voya.ai.tools.FileBatchModifyTool;
+import com.zcw.voya.core.workspace.ProjectWorkspace;
+import com.zcw.voya.core.workspace.ProjectWorkspaceManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileBatchModifyToolTest {
+
+    /**
+     * 不存在的应用目录，工作区只在内存中
+     */
+    private static final long APP_ID = Long.MAX_VALUE;
+
+    private final ProjectWorkspaceManager projectWorkspaceManager = new ProjectWorkspaceManager();
+    private final FileBatchModifyTool tool = new FileBatchModifyTool();
+    private ProjectWorkspace workspace;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(tool, "projectWorkspaceManager", projectWorkspaceManager);
+        workspace = projectWorkspaceManager.open(APP_ID);
+        workspace.write("src/App.vue", "<h1>标题</h1><p>正文</p>");
+        workspace.write("src/style.css", "h1 { color: red; }");
+    }
+
+    @Test
+    void appliesEditsAcrossFiles() throws Exception {
+        String result = tool.modifyFiles(List.of(
+                edit("src/App.vue", "标题", "新标题"),
+                edit("src/style.css", "red", "blue"),
+                edit("src/App.vue", "新标题", "最终标题")), APP_ID);
+
+        assertTrue(result.startsWith("批量修改成功"), result);
+        assertEquals("<h1>最终标题</h1><p>正文</p>", workspace.read("src/App.vue"));
+        assertEquals("h1 { color: blue; }", workspace.read("src/style.css"));
+    }
+
+    @Test
+    void leavesAllFilesUntouchedWhenAnyEditFails() throws Exception {
+        String result = tool.modifyFiles(List.of(
+                edit("src/App.vue", "标题", "新标题"),
+                edit("src/style.css", "green", "blue"),
+                edit("src/Missing.vue", "a", "b")), APP_ID);
+
+        assertTrue(result.startsWith("批量修改失败"), result);
+        assertTrue(result.contains("3. src/Missing.vue：错误：文件不存在"), result);
+        assertEquals("<h1>标题</h1><p>正文</p>", workspace.read("src/App.vue"));
+        assertEquals("h1 { color: red; }", workspace.read("src/style.css"));
+    }
+
+    private static FileEdit edit(String path, String oldContent, String newContent) {
+        FileEdit edit = new FileEdit();
+        edit.setRelativeFilePath(path);
+        edit.setOldContent(oldContent);
+        edit.setNewContent(newContent);
+        return edit;
+    }
+}
@@ -0,0 +1,186 @@
+package com.zcw.voya.ai.failover;
+
+import com.zcw.voya.config.LlmFailoverConfig;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.chat.StreamingChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.StreamingCancellation;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HedgingStreamingChatModelTest {
+
+    private static final ChatRequest REQUEST = ChatRequest.builder().messages(UserMessage.from("hi")).build();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final LlmEndpointRegistry registry = new LlmEndpointRegistry();
+    private final StubModel primary = new StubModel();
+    private final StubModel backup = new StubModel();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(registry, "llmFailoverConfig", new LlmFailoverConfig());
+        ReflectionTestUtils.setField(registry, "meterRegistry", meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        registry.destroy();
+    }
+
+    @Test
+    void hedgesAfterFirstTokenDeadline() {
+        HedgingStreamingChatModel model = model(50, health("primary", 3, 30_000));
+        RecordingHandler handler = new RecordingHandler();
+
+        model.chat(REQUEST, handler);
+        assertEquals(1, primary.calls.size());
+        assertEquals(0, backup.calls.size());
+
+        await(() -> backup.calls.size() == 1);
+        assertFalse(primary.calls.getFirst().cancellation().isCancelled());
+        assertEquals(1.0, meterRegistry.get("voya.llm.failover").tag("event", "hedge").counter().count());
+    }
+
+    @Test
+    void firstStreamWinsAndLoserIsCancelled() {
+        HedgingStreamingChatModel model = model(50, health("primary", 3, 30_000));
+        RecordingHandler handler = new RecordingHandler();
+        model.chat(REQUEST, handler);
+        await(() -> backup.calls.size() == 1);
+
+        StreamingChatResponseHandler primaryStream = primary.calls.getFirst();
+        StreamingChatResponseHandler backupStream = backup.calls.getFirst();
+        respond(backupStream, "backup");
+        // 落败的一路已被取消，之后的输出不再转发
+        assertTrue(primaryStream.cancellation().isCancelled());
+        respond(primaryStream, "primary");
+
+        assertEquals(List.of("backup", "complete"), handler.events);
+        // 竞速结束后注销了在整个流上登记的取消回调
+        assertEquals(List.of(), ReflectionTestUtils.getField(handler.cancellation, "callbacks"));
+    }
+
+    @Test
+    void failsOverOnErrorBeforeFirstToken() {
+        HedgingStreamingChatModel model = model(60_000, health("primary", 3, 30_000));
+        primary.behavior = stream -> stream.onError(new RuntimeException("503"));
+        backup.behavior = stream -> respond(stream, "backup");
+        RecordingHandler handler = new RecordingHandler();
+
+        model.chat(REQUEST, handler);
+
+        assertEquals(List.of("backup", "complete"), handler.events);
+        assertEquals(1.0, meterRegistry.get("voya.llm.failover").tag("event", "failover").counter().count());
+    }
+
+    @Test
+    void breakerOpensAndHalfOpens() throws InterruptedException {
+        LlmEndpointHealth primaryHealth = health("primary", 1, TimeUnit.MILLISECONDS.toNanos(200));
+        HedgingStreamingChatModel model = model(60_000, primaryHealth);
+        primary.behavior = stream -> stream.onError(new RuntimeException("503"));
+        backup.behavior = stream -> respond(stream, "backup");
+
+        model.chat(REQUEST, new RecordingHandler());
+        assertEquals(LlmEndpointHealth.State.OPEN, primaryHealth.getState());
+
+        // 熔断期间不再请求主端点
+        RecordingHandler whileOpen = new RecordingHandler();
+        model.chat(REQUEST, whileOpen);
+        assertEquals(1, primary.calls.size());
+        assertEquals(List.of("backup", "complete"), whileOpen.events);
+
+        // 熔断到期后放行一个试探请求，试探成功后恢复
+        Thread.sleep(250);
+        assertEquals(LlmEndpointHealth.State.HALF_OPEN, primaryHealth.getState());
+        primary.behavior = stream -> respond(stream, "primary");
+        backup.behavior = stream -> stream.onError(new RuntimeException("503"));
+        RecordingHandler trial = new RecordingHandler();
+        model.chat(REQUEST, trial);
+
+        assertEquals(2, primary.calls.size());
+        assertEquals(List.of("primary", "complete"), trial.events);
+        assertEquals(LlmEndpointHealth.State.CLOSED, primaryHealth.getState());
+    }
+
+    private HedgingStreamingChatModel model(long firstTokenTimeoutMs, LlmEndpointHealth primaryHealth) {
+        return new HedgingStreamingChatModel(List.of(
+                new HedgingStreamingChatModel.Endpoint(primary, primaryHealth),
+                new HedgingStreamingChatModel.Endpoint(backup, health("backup", 3, 30_000))
+        ), registry, firstTokenTimeoutMs, 2);
+    }
+
+    private static LlmEndpointHealth health(String name, int failureThreshold, long openDurationNanos) {
+        return new LlmEndpointHealth(name, failureThreshold, openDurationNanos);
+    }
+
+    private static void respond(StreamingChatResponseHandler handler, String text) {
+        handler.onPartialResponse(text);
+        handler.onCompleteResponse(ChatResponse.builder().aiMessage(AiMessage.from(text)).build());
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not met in time");
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * 记录每次调用的回调，由测试决定何时、如何响应
+     */
+    private static final class StubModel implements StreamingChatModel {
+
+        final List<StreamingChatResponseHandler> calls = new CopyOnWriteArrayList<>();
+
+        volatile Consumer<StreamingChatResponseHandler> behavior = handler -> {
+        };
+
+        @Override
+        public void chat(ChatRequest chatRequest, StreamingChatResponseHandler handler) {
+            calls.add(handler);
+            behavior.accept(handler);
+        }
+    }
+
+    private static final class RecordingHandler implements StreamingChatResponseHandler {
+
+        final List<String> events = new CopyOnWriteArrayList<>();
+        final StreamingCancellation cancellation = new StreamingCancellation(1L);
+
+        @Override
+        public void onPartialResponse(String partialResponse) {
+            events.add(partialResponse);
+        }
+
+        @Override
+        public void onCompleteResponse(ChatResponse completeResponse) {
+            events.add("complete");
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            events.add("error:" + error.getMessage());
+        }
+
+        @Override
+        public StreamingCancellation cancellation() {
+            return cancellation;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.zcw.voya.ai.memory;
+
+import com.zcw.voya.ai.model.enums.CodeGenTypeEnum;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CodeBlockEliderTest {
+
+    @Test
+    void replacesCodeBlocksWithReferences() {
+        String html = "<html>\n<body></body>\n</html>\n";
+        String text = "这是页面：\n```html\n" + html + "```\n样式如下：\n```css\nbody { margin: 0; }\n```\n完成";
+        String elided = CodeBlockElider.elide(text);
+        assertFalse(elided.contains("<body>"));
+        assertTrue(elided.contains("[已省略 index.html：3 行，sha=" + CodeBlockElider.shortSha(html)));
+        assertTrue(elided.contains("[已省略 style.css：1 行"));
+        assertTrue(elided.startsWith("这是页面："));
+        assertTrue(elided.endsWith("完成"));
+    }
+
+    @Test
+    void keepsTextWithoutCompleteCodeBlocks() {
+        assertEquals("没有代码", CodeBlockElider.elide("没有代码"));
+        // 被截断的回复没有闭合的代码块，保持原样
+        String truncated = "```html\n<html>";
+        assertEquals(truncated, CodeBlockElider.elide(truncated));
+        assertNull(CodeBlockElider.elide(null));
+    }
+
+    @Test
+    void snapshotAttachesNativeFilesOrListsVueFiles(@TempDir Path dir) throws IOException {
+        assertNull(CodeBlockElider.snapshot(dir.resolve("missing"), CodeGenTypeEnum.HTML, 1000));
+
+        Files.writeString(dir.resolve("index.html"), "<html></html>");
+        String snapshot = CodeBlockElider.snapshot(dir, CodeGenTypeEnum.HTML, 1000);
+        assertNotNull(snapshot);
+        assertTrue(snapshot.contains("```html\n<html></html>\n```"));
+        // 超出 token 上限时只列出文件
+        String listed = CodeBlockElider.snapshot(dir, CodeGenTypeEnum.HTML, 10);
+        assertFalse(listed.contains("<html>"));
+        assertTrue(listed.contains("- index.html（1 行"));
+
+        Files.createDirectories(dir.resolve("src"));
+        Files.createDirectories(dir.resolve("node_modules/vue"));
+        Files.writeString(dir.resolve("src/App.vue"), "<template>\n</template>\n");
+        Files.writeString(dir.resolve("node_modules/vue/index.js"), "ignored");
+        String listing = CodeBlockElider.snapshot(dir, CodeGenTypeEnum.VUE_PROJECT, 1000);
+        assertTrue(listing.contains("- src/App.vue（2 行"));
+        assertFalse(listing.contains("node_modules"));
+    }
+
+    @Test
+    void countsLines() {
+        assertEquals(0, CodeBlockElider.lineCount(""));
+        assertEquals(1, CodeBlockElider.lineCount("a"));
+        assertEquals(2, CodeBlockElider.lineCount("a\nb\n"));
+    }
+}
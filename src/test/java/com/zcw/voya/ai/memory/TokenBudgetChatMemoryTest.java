@@ -0,0 +1,190 @@
+package com.zcw.voya.ai.memory;
+
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.store.memory.chat.InMemoryChatMemoryStore;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBudgetChatMemoryTest {
+
+    private static String text(int tokens) {
+        return "abcd".repeat(tokens);
+    }
+
+    @Test
+    void evictsOldestTurnsButKeepsSystemMessage() {
+        TokenBudgetChatMemory memory = new TokenBudgetChatMemory(1L, new InMemoryChatMemoryStore(), 300, 50, null, null, 8000);
+        memory.add(SystemMessage.from("system"));
+        for (int i = 0; i < 5; i++) {
+            memory.add(UserMessage.from("user" + i + text(50)));
+            memory.add(AiMessage.from("ai" + i + text(50)));
+        }
+        List<ChatMessage> messages = memory.messages();
+        assertInstanceOf(SystemMessage.class, messages.getFirst());
+        int total = messages.stream().mapToInt(ChatMessageTokenEstimator::estimate).sum();
+        assertTrue(total <= 300, "total tokens " + total);
+        // 最新的一轮对话仍在记忆中
+        assertTrue(((AiMessage) messages.getLast()).text().startsWith("ai4"));
+    }
+
+    @Test
+    void evictsToolResultsTogetherWithRequest() {
+        ToolExecutionRequest request = ToolExecutionRequest.builder().id("1").name("writeFile").arguments("{}").build();
+        List<ChatMessage> messages = new ArrayList<>(List.of(
+                SystemMessage.from("system"),
+                AiMessage.from(List.of(request)),
+                ToolExecutionResultMessage.from(request, text(100)),
+                UserMessage.from("next")
+        ));
+        List<ChatMessage> evicted = TokenBudgetChatMemory.ensureCapacity(messages, 50, 50);
+        assertEquals(2, evicted.size());
+        assertEquals(List.of(SystemMessage.from("system"), UserMessage.from("next")), messages);
+    }
+
+    @Test
+    void neverLeavesToolResultWithoutRequest() {
+        ToolExecutionRequest request = ToolExecutionRequest.builder().id("1").name("writeFile").arguments("{}").build();
+        List<ChatMessage> messages = new ArrayList<>(List.of(
+                SystemMessage.from("system"),
+                AiMessage.from(List.of(request)),
+                ToolExecutionResultMessage.from(request, text(100))
+        ));
+        // 即使只剩系统消息，工具结果也和请求一起移出
+        assertEquals(2, TokenBudgetChatMemory.ensureCapacity(messages, 10, 50).size());
+        assertEquals(List.of(SystemMessage.from("system")), messages);
+
+        // 请求已被移出后才写入的工具结果
+        TokenBudgetChatMemory memory = new TokenBudgetChatMemory(1L, new InMemoryChatMemoryStore(), 50, 50, null, null, 8000);
+        memory.add(SystemMessage.from("system"));
+        memory.add(UserMessage.from("user"));
+        memory.add(AiMessage.from(text(100), List.of(request)));
+        memory.add(ToolExecutionResultMessage.from(request, "ok"));
+        assertEquals(List.of(SystemMessage.from("system"), UserMessage.from("user")), memory.messages());
+    }
+
+    @Test
+    void keepsLatestUserMessageDuringToolLoop() {
+        List<ChatMessage> messages = new ArrayList<>(List.of(
+                SystemMessage.from("system"),
+                UserMessage.from("old"),
+                AiMessage.from("old answer"),
+                UserMessage.from("current")
+        ));
+        for (int i = 0; i < 10; i++) {
+            ToolExecutionRequest request = ToolExecutionRequest.builder()
+                    .id(String.valueOf(i)).name("writeFile").arguments("{}").build();
+            messages.add(AiMessage.from(List.of(request)));
+            messages.add(ToolExecutionResultMessage.from(request, "file" + i + text(50)));
+        }
+        TokenBudgetChatMemory.ensureCapacity(messages, 200, 50);
+
+        assertEquals(SystemMessage.from("system"), messages.get(0));
+        assertEquals(UserMessage.from("current"), messages.get(1));
+        // 只移出本轮较早的工具调用，请求和结果成对保留
+        assertTrue(((ToolExecutionResultMessage) messages.getLast()).text().startsWith("file9"));
+        for (int i = 2; i < messages.size(); i += 2) {
+            assertInstanceOf(AiMessage.class, messages.get(i));
+            assertInstanceOf(ToolExecutionResultMessage.class, messages.get(i + 1));
+        }
+        int total = messages.stream().mapToInt(ChatMessageTokenEstimator::estimate).sum();
+        assertTrue(total <= 200, "total tokens " + total);
+    }
+
+    @Test
+    void keepsLatestUserMessageEvenIfOverBudget() {
+        List<ChatMessage> messages = new ArrayList<>(List.of(UserMessage.from(text(500))));
+        assertTrue(TokenBudgetChatMemory.ensureCapacity(messages, 10, 50).isEmpty());
+        assertEquals(1, messages.size());
+    }
+
+    @Test
+    void enforcesMaxMessages() {
+        List<ChatMessage> messages = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            messages.add(UserMessage.from("m" + i));
+        }
+        List<ChatMessage> evicted = TokenBudgetChatMemory.ensureCapacity(messages, 10_000, 4);
+        assertEquals(6, evicted.size());
+        assertEquals(UserMessage.from("m6"), messages.getFirst());
+    }
+
+    @Test
+    void replacesChangedSystemMessage() {
+        TokenBudgetChatMemory memory = new TokenBudgetChatMemory(1L, new InMemoryChatMemoryStore(), 1000, 50, null, null, 8000);
+        memory.add(SystemMessage.from("v1"));
+        memory.add(UserMessage.from("hi"));
+        memory.add(SystemMessage.from("v2"));
+        assertEquals(List.of(SystemMessage.from("v2"), UserMessage.from("hi")), memory.messages());
+    }
+
+    @Test
+    void summarizesOncePerTurnDuringToolLoop() {
+        RecordingSummarizer summarizer = new RecordingSummarizer();
+        TokenBudgetChatMemory memory = new TokenBudgetChatMemory(1L, new InMemoryChatMemoryStore(), 200, 50, summarizer, null, 8000);
+        runToolLoop(memory);
+        // 工具调用循环中只移出消息，不压缩
+        assertTrue(summarizer.batches.isEmpty());
+
+        memory.add(AiMessage.from("done"));
+        assertEquals(1, summarizer.batches.size());
+        assertTrue(summarizer.batches.getFirst().size() > 2);
+    }
+
+    @Test
+    void discardsSummaryFinishedAfterClear() {
+        RecordingSummarizer summarizer = new RecordingSummarizer();
+        TokenBudgetChatMemory memory = new TokenBudgetChatMemory(1L, new InMemoryChatMemoryStore(), 200, 50, summarizer, null, 8000);
+        runToolLoop(memory);
+        memory.add(AiMessage.from("done"));
+
+        memory.clear();
+        // 清空前提交的压缩任务此时才完成
+        summarizer.callbacks.getFirst().accept("old summary");
+        assertTrue(memory.messages().isEmpty());
+    }
+
+    private static void runToolLoop(TokenBudgetChatMemory memory) {
+        memory.add(SystemMessage.from("system"));
+        memory.add(UserMessage.from("current"));
+        for (int i = 0; i < 10; i++) {
+            ToolExecutionRequest request = ToolExecutionRequest.builder()
+                    .id(String.valueOf(i)).name("writeFile").arguments("{}").build();
+            memory.add(AiMessage.from(List.of(request)));
+            memory.add(ToolExecutionResultMessage.from(request, "file" + i + text(50)));
+        }
+    }
+
+    /**
+     * 记录每次提交的压缩，不调用模型和 Redis
+     */
+    private static final class RecordingSummarizer extends ChatMemorySummarizer {
+
+        final List<List<ChatMessage>> batches = new ArrayList<>();
+        final List<Consumer<String>> callbacks = new ArrayList<>();
+
+        @Override
+        public void summarizeAsync(Object memoryId, List<ChatMessage> evicted, Consumer<String> onUpdated) {
+            batches.add(evicted);
+            callbacks.add(onUpdated);
+        }
+
+        @Override
+        public String getSummary(Object memoryId) {
+            return null;
+        }
+
+        @Override
+        public void deleteSummary(Object memoryId) {
+        }
+    }
+}
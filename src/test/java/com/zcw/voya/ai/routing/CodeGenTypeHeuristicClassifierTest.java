@@ -0,0 +1,36 @@
+package com.zcw.voya.ai.routing;
+
+import com.zcw.voya.ai.model.enums.CodeGenTypeEnum;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CodeGenTypeHeuristicClassifierTest {
+
+    private final CodeGenTypeHeuristicClassifier classifier = new CodeGenTypeHeuristicClassifier();
+
+    private CodeGenTypeEnum classify(String prompt) {
+        return classifier.classify(CodeGenTypeRouter.normalize(prompt));
+    }
+
+    @Test
+    void confidentCases() {
+        assertEquals(CodeGenTypeEnum.HTML, classify("做一个简单的个人介绍页面"));
+        assertEquals(CodeGenTypeEnum.MULTI_FILE, classify("做一个公司官网，需要首页、关于我们、联系我们三个页面"));
+        assertEquals(CodeGenTypeEnum.VUE_PROJECT, classify("做一个电商管理系统，包含用户管理、商品管理、订单管理，需要路由和状态管理"));
+        assertEquals(CodeGenTypeEnum.VUE_PROJECT, classify("用 Vue 做一个 Admin 后台"));
+    }
+
+    @Test
+    void ambiguousCasesGoToModel() {
+        assertNull(classify("做一个菜谱网页"));
+        // 简单与复杂特征冲突
+        assertNull(classify("做一个简单的后台管理系统"));
+        assertNull(classify(""));
+    }
+
+    @Test
+    void normalizeIgnoresCaseAndWhitespace() {
+        assertEquals(CodeGenTypeRouter.normalize("  做一个 Vue\n项目 "), CodeGenTypeRouter.normalize("做一个vue项目"));
+    }
+}
@@ -1,6 +1,8 @@
 package com.zcw.voya.core;
 
 import com.zcw.voya.ai.model.enums.CodeGenTypeEnum;
+import com.zcw.voya.ai.model.message.AiResponseMessage;
+import com.zcw.voya.ai.model.message.StreamMessage;
 import jakarta.annotation.Resource;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -9,6 +11,7 @@ import reactor.core.publisher.Flux;
 
 import java.io.File;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -26,22 +29,25 @@ class AiCodeGeneratorFacadeTest {
 
     @Test
     void generateCodeStream() {
-        Flux<String> stream = aiCodeGeneratorFacade.generateCodeStream("做一个课程表网页，不超过50行", CodeGenTypeEnum.HTML,0L);
+        Flux<StreamMessage> stream = aiCodeGeneratorFacade.generateCodeStream("做一个课程表网页，不超过50行", CodeGenTypeEnum.HTML,0L);
         // 阻塞等待所有数据收集完成
-        List<String> block = stream.collectList().block();
+        List<StreamMessage> block = stream.collectList().block();
         Assertions.assertNotNull(block);
     }
 
     @Test
     void generateVueProjectCodeStream() {
-        Flux<String> codeStream = aiCodeGeneratorFacade.generateCodeStream(
+        Flux<StreamMessage> codeStream = aiCodeGeneratorFacade.generateCodeStream(
                 "简单的任务记录网站，总代码量不超过 200 行",
                 CodeGenTypeEnum.VUE_PROJECT, 1L);
         // 阻塞等待所有数据收集完成
-        List<String> result = codeStream.collectList().block();
+        List<StreamMessage> result = codeStream.collectList().block();
         // 验证结果
         Assertions.assertNotNull(result);
-        String completeContent = String.join("", result);
+        String completeContent = result.stream()
+                .filter(AiResponseMessage.class::isInstance)
+                .map(message -> ((AiResponseMessage) message).data())
+                .collect(Collectors.joining());
         Assertions.assertNotNull(completeContent);
     }
 
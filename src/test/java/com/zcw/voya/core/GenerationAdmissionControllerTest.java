@@ -0,0 +1,94 @@
+package com.zcw.voya.core;
+
+import com.zcw.voya.config.GenerationAdmissionConfig;
+import com.zcw.voya.core.admission.AdmissionPriority;
+import com.zcw.voya.core.admission.GenerationAdmissionController;
+import com.zcw.voya.core.session.SessionEvent;
+import com.zcw.voya.core.session.SessionEventPublisher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.util.context.Context;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GenerationAdmissionControllerTest {
+
+    private static GenerationAdmissionController controller(int limit, int maxQueueSize) {
+        GenerationAdmissionConfig config = new GenerationAdmissionConfig();
+        config.setMaxConcurrentStreams(Map.of("streaming", limit));
+        config.setMaxQueueSize(maxQueueSize);
+        return new GenerationAdmissionController(config, new SimpleMeterRegistry());
+    }
+
+    private static Disposable subscribe(Flux<String> flux, List<String> received, List<String> events, String name) {
+        SessionEventPublisher publisher = (event, data) -> events.add(name + ":" + event + ":" + data);
+        return flux.subscribe(received::add, error -> received.add(name + ":error"), () -> {
+        }, Context.of(SessionEventPublisher.CONTEXT_KEY, publisher));
+    }
+
+    @Test
+    void queuedRequestsStartByPriorityWhenPermitReleased() {
+        GenerationAdmissionController controller = controller(1, 10);
+        List<String> received = new CopyOnWriteArrayList<>();
+        List<String> events = new CopyOnWriteArrayList<>();
+        Sinks.Many<String> running = Sinks.many().unicast().onBackpressureBuffer();
+
+        subscribe(controller.admit("streaming", AdmissionPriority.NORMAL, running::asFlux), received, events, "first");
+        subscribe(controller.admit("streaming", AdmissionPriority.NORMAL, () -> Flux.just("normal")), received, events, "normal");
+        subscribe(controller.admit("streaming", AdmissionPriority.ADMIN, () -> Flux.just("admin")), received, events, "admin");
+
+        assertTrue(received.isEmpty());
+        assertTrue(events.contains("normal:" + SessionEvent.QUEUED + ":{\"position\":1}"));
+        // 管理员插到普通请求前面
+        assertTrue(events.contains("normal:" + SessionEvent.QUEUED + ":{\"position\":2}"));
+        assertTrue(events.contains("admin:" + SessionEvent.QUEUED + ":{\"position\":1}"));
+
+        running.tryEmitComplete();
+        assertEquals(List.of("admin", "normal"), received);
+    }
+
+    @Test
+    void rejectWhenQueueFullAndCancelWhileQueued() {
+        GenerationAdmissionController controller = controller(1, 1);
+        List<String> received = new CopyOnWriteArrayList<>();
+        List<String> events = new CopyOnWriteArrayList<>();
+        Sinks.Many<String> running = Sinks.many().unicast().onBackpressureBuffer();
+
+        subscribe(controller.admit("streaming", AdmissionPriority.NORMAL, running::asFlux), received, events, "first");
+        Disposable queued = subscribe(controller.admit("streaming", AdmissionPriority.NORMAL, () -> Flux.just("queued")),
+                received, events, "queued");
+        subscribe(controller.admit("streaming", AdmissionPriority.NORMAL, () -> Flux.just("rejected")), received, events, "rejected");
+        assertEquals(List.of("rejected:error"), received);
+
+        // 排队时取消，归还额度后不会再开始
+        queued.dispose();
+        running.tryEmitComplete();
+        List<String> after = new CopyOnWriteArrayList<>();
+        subscribe(controller.admit("streaming", AdmissionPriority.NORMAL, () -> Flux.just("next")), after, events, "next");
+        assertEquals(List.of("next"), after);
+        assertEquals(List.of("rejected:error"), received);
+    }
+
+    @Test
+    void higherPriorityEvictsLowestWhenQueueFull() {
+        GenerationAdmissionController controller = controller(1, 1);
+        List<String> received = new CopyOnWriteArrayList<>();
+        List<String> events = new CopyOnWriteArrayList<>();
+        Sinks.Many<String> running = Sinks.many().unicast().onBackpressureBuffer();
+
+        subscribe(controller.admit("streaming", AdmissionPriority.NORMAL, running::asFlux), received, events, "first");
+        subscribe(controller.admit("streaming", AdmissionPriority.NORMAL, () -> Flux.just("normal")), received, events, "normal");
+        subscribe(controller.admit("streaming", AdmissionPriority.FEATURED, () -> Flux.just("featured")), received, events, "featured");
+        assertEquals(List.of("normal:error"), received);
+
+        running.tryEmitComplete();
+        assertEquals(List.of("normal:error", "featured"), received);
+    }
+}
@@ -0,0 +1,107 @@
+package com.zcw.voya.core;
+
+import cn.hutool.core.io.FileUtil;
+import com.zcw.voya.config.NpmDependencyStoreConfig;
+import com.zcw.voya.core.build.NpmDependencyStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NpmDependencyStoreTest {
+
+    private static final String PACKAGE_JSON = """
+            {"name": "%s", "dependencies": {"vue": "^3.5.0", "vue-router": "^4.4.0"}, "devDependencies": {"vite": "^6.0.0"}}
+            """;
+
+    @TempDir
+    Path tempDir;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final AtomicInteger installs = new AtomicInteger();
+
+    /**
+     * 模拟 npm install：在目录下生成 node_modules
+     */
+    private final Predicate<File> installer = dir -> {
+        installs.incrementAndGet();
+        try {
+            Path vue = Files.createDirectories(dir.toPath().resolve("node_modules/vue"));
+            Files.writeString(vue.resolve("index.js"), "export default {}");
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    };
+
+    @Test
+    void installsOnceForProjectsWithSameDependencies() throws Exception {
+        NpmDependencyStore store = new NpmDependencyStore(config("symlink"), meterRegistry);
+        Path first = project("vue_project_1", "first");
+        // 项目名不同，依赖相同
+        Path second = project("vue_project_2", "second");
+
+        assertEquals(NpmDependencyStore.Result.LINKED, store.materialize(first.toFile(), installer));
+        assertEquals(NpmDependencyStore.Result.LINKED, store.materialize(second.toFile(), installer));
+
+        assertEquals(1, installs.get());
+        assertTrue(Files.isSymbolicLink(second.resolve("node_modules")));
+        assertEquals("export default {}", Files.readString(second.resolve("node_modules/vue/index.js")));
+        assertEquals(1.0, meterRegistry.get("voya.build.npm.store").tag("outcome", "hit").counter().count());
+        assertEquals(1.0, meterRegistry.get("voya.build.npm.store").tag("outcome", "miss").counter().count());
+    }
+
+    @Test
+    void hardLinksFilesAndReportsInstallFailure() throws Exception {
+        NpmDependencyStore store = new NpmDependencyStore(config("hardlink"), meterRegistry);
+        Path project = project("vue_project_3", "third");
+
+        assertEquals(NpmDependencyStore.Result.INSTALL_FAILED, store.materialize(project.toFile(), dir -> false));
+        assertEquals(NpmDependencyStore.Result.LINKED, store.materialize(project.toFile(), installer));
+
+        Path linked = project.resolve("node_modules/vue/index.js");
+        assertFalse(Files.isSymbolicLink(project.resolve("node_modules")));
+        assertEquals("export default {}", Files.readString(linked));
+    }
+
+    @Test
+    void reinstallsEntryWhoseNodeModulesIsMissing() throws Exception {
+        NpmDependencyStore store = new NpmDependencyStore(config("hardlink"), meterRegistry);
+        Path first = project("vue_project_4", "first");
+        Path second = project("vue_project_5", "second");
+
+        assertEquals(NpmDependencyStore.Result.LINKED, store.materialize(first.toFile(), installer));
+        try (Stream<Path> entries = Files.list(tempDir.resolve("npm_store"))) {
+            Path entry = entries.findFirst().orElseThrow();
+            FileUtil.del(entry.resolve("node_modules"));
+        }
+        assertEquals(NpmDependencyStore.Result.LINKED, store.materialize(second.toFile(), installer));
+
+        assertEquals(2, installs.get());
+        assertEquals("export default {}", Files.readString(second.resolve("node_modules/vue/index.js")));
+    }
+
+    private NpmDependencyStoreConfig config(String linkMode) {
+        NpmDependencyStoreConfig config = new NpmDependencyStoreConfig();
+        config.setStoreDir(tempDir.resolve("npm_store").toString());
+        config.setLinkMode(linkMode);
+        return config;
+    }
+
+    private Path project(String dirName, String name) throws IOException {
+        Path project = Files.createDirectories(tempDir.resolve(dirName));
+        Files.writeString(project.resolve("package.json"), PACKAGE_JSON.formatted(name));
+        return project;
+    }
+}
@@ -0,0 +1,89 @@
+package com.zcw.voya.core;
+
+import com.zcw.voya.core.workspace.ProjectWorkspace;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProjectWorkspaceTest {
+
+    @TempDir
+    Path root;
+
+    @Test
+    void writesStayInMemoryUntilFlush() throws Exception {
+        ProjectWorkspace workspace = new ProjectWorkspace(root);
+        workspace.write("src/App.vue", "<template>首页</template>");
+        workspace.write("src/App.vue", "<template>首页 v2</template>");
+
+        assertFalse(Files.exists(root.resolve("src/App.vue")));
+        assertEquals("<template>首页 v2</template>", workspace.read("src/App.vue"));
+        assertTrue(workspace.isDirectory("src"));
+
+        assertEquals(0, workspace.flush());
+        assertEquals("<template>首页 v2</template>", Files.readString(root.resolve("src/App.vue"), StandardCharsets.UTF_8));
+        assertFalse(workspace.hasPendingChanges());
+        try (var files = Files.list(root.resolve("src"))) {
+            assertEquals(1, files.count(), "不应残留临时文件");
+        }
+    }
+
+    @Test
+    void opensExistingProjectAndAppliesDeletes() throws Exception {
+        Files.createDirectories(root.resolve("src/pages"));
+        Files.createDirectories(root.resolve("node_modules/vue"));
+        Files.writeString(root.resolve("package.json"), "{}");
+        Files.writeString(root.resolve("src/pages/Home.vue"), "<template>旧首页</template>");
+        Files.writeString(root.resolve("node_modules/vue/index.js"), "");
+
+        ProjectWorkspace workspace = new ProjectWorkspace(root);
+        assertEquals(List.of("package.json", "src/pages/Home.vue"), workspace.list(""));
+        assertEquals("<template>旧首页</template>", workspace.read("src/pages/Home.vue"));
+
+        assertTrue(workspace.delete("src/pages/Home.vue"));
+        assertNull(workspace.read("src/pages/Home.vue"));
+        assertTrue(Files.exists(root.resolve("src/pages/Home.vue")));
+        workspace.flush();
+        assertFalse(Files.exists(root.resolve("src/pages/Home.vue")));
+    }
+
+    @Test
+    void treeIsCachedUntilStructureChanges() throws Exception {
+        Files.createDirectories(root.resolve("src/pages"));
+        Files.writeString(root.resolve("package.json"), "{}");
+        Files.writeString(root.resolve("src/pages/Home.vue"), "");
+        Files.writeString(root.resolve("npm-debug.log"), "");
+
+        ProjectWorkspace workspace = new ProjectWorkspace(root);
+        String tree = workspace.tree("");
+        assertEquals("package.json\n    Home.vue\n", tree);
+        workspace.write("package.json", "{\"name\":\"demo\"}");
+        assertSame(tree, workspace.tree(""), "覆盖内容不应使目录树失效");
+
+        workspace.write("src/App.vue", "");
+        assertEquals("App.vue\n  Home.vue\n", workspace.tree("src"));
+
+        // 外部新增和删除的文件通过 refresh 同步
+        Files.writeString(root.resolve("src/pages/About.vue"), "");
+        workspace.refresh("src/pages/About.vue");
+        Files.delete(root.resolve("src/pages/Home.vue"));
+        workspace.refresh("src/pages/Home.vue");
+        assertEquals("About.vue\n", workspace.tree("src/pages"));
+        assertTrue(ProjectWorkspace.isIgnored("node_modules/vue/index.js"));
+    }
+
+    @Test
+    void rejectsPathsOutsideProject() {
+        ProjectWorkspace workspace = new ProjectWorkspace(root);
+        assertNull(workspace.normalize("../other/App.vue"));
+        assertNull(workspace.normalize(root.resolve("App.vue").toAbsolutePath().toString()));
+        assertEquals("src/App.vue", workspace.normalize("./src/../src/App.vue"));
+        assertEquals("", workspace.normalize(null));
+    }
+}
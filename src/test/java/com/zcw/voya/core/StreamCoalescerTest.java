@@ -0,0 +1,58 @@
+package com.zcw.voya.core;
+
+import com.zcw.voya.ai.model.message.AiResponseMessage;
+import com.zcw.voya.ai.model.message.StreamMessage;
+import com.zcw.voya.ai.model.message.ToolRequestMessage;
+import com.zcw.voya.config.StreamCoalesceConfig;
+import com.zcw.voya.core.handler.StreamCoalescer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamCoalescerTest {
+
+    private static StreamCoalescer coalescer(SimpleMeterRegistry registry, long maxDelayMs, int maxBytes) {
+        StreamCoalesceConfig config = new StreamCoalesceConfig();
+        config.setMaxDelayMs(maxDelayMs);
+        config.setMaxBytes(maxBytes);
+        return new StreamCoalescer(config, registry);
+    }
+
+    @Test
+    void flushOnToolEventAndComplete() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ToolRequestMessage tool = new ToolRequestMessage("1", "writeFile", "{}");
+        Flux<StreamMessage> source = Flux.just(
+                new AiResponseMessage("a"), new AiResponseMessage("b"), new AiResponseMessage("c"),
+                tool, new AiResponseMessage("d"));
+        List<StreamMessage> result = coalescer(registry, 10_000, 1024).coalesce(source).collectList().block();
+        assertEquals(List.of(new AiResponseMessage("a"), new AiResponseMessage("bc"), tool, new AiResponseMessage("d")), result);
+        assertEquals(4, registry.get("voya.sse.deltas").counter().count());
+        assertEquals(3, registry.get("voya.sse.frames").tag("type", "text").counter().count());
+        assertEquals(1, registry.get("voya.sse.frames").tag("type", "tool").counter().count());
+    }
+
+    @Test
+    void flushWhenMaxBytesReached() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        Flux<StreamMessage> source = Flux.just(
+                new AiResponseMessage("a"), new AiResponseMessage("bb"), new AiResponseMessage("cc"), new AiResponseMessage("d"));
+        List<StreamMessage> result = coalescer(registry, 10_000, 4).coalesce(source).collectList().block();
+        assertEquals(List.of(new AiResponseMessage("a"), new AiResponseMessage("bbcc"), new AiResponseMessage("d")), result);
+    }
+
+    @Test
+    void flushWhenMaxDelayElapsed() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        Flux<StreamMessage> source = Flux.concat(
+                Flux.just(new AiResponseMessage("a"), new AiResponseMessage("b")),
+                Flux.<StreamMessage>just(new AiResponseMessage("c")).delaySubscription(Duration.ofMillis(300)));
+        List<StreamMessage> result = coalescer(registry, 20, 1024).coalesce(source).collectList().block();
+        assertEquals(List.of(new AiResponseMessage("a"), new AiResponseMessage("b"), new AiResponseMessage("c")), result);
+    }
+}
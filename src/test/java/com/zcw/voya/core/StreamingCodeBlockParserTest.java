@@ -0,0 +1,111 @@
+package com.zcw.voya.core;
+
+import com.zcw.voya.ai.model.MultiFileCodeResult;
+import com.zcw.voya.core.parser.CodeBlockListener;
+import com.zcw.voya.core.parser.MultiFileCodeParser;
+import com.zcw.voya.core.parser.StreamingCodeBlockParser;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamingCodeBlockParserTest {
+
+    private static final String MULTI_FILE_CONTENT = """
+            创建一个完整的网页，用 `code` 标记行内代码：
+            ```html
+             <!DOCTYPE html>
+            <html>
+            <head>
+                <title>多文件示例</title>
+                <link rel="stylesheet" href="style.css">
+            </head>
+            <body>
+                <h1>欢迎使用</h1>
+                <script src="script.js"></script>
+            </body>
+            </html>
+            ```
+            ```css
+            h1 {
+                color: blue;
+                text-align: center;
+            }
+            ```
+            ```javascript
+            console.log(`页面加载完成 ${1 + 1}`);
+            ```
+            文件创建完成！
+            """;
+
+    /**
+     * 在任意位置切分输出，结果都应与正则解析器一致
+     */
+    @Test
+    void parseAcrossChunkBoundaries() {
+        MultiFileCodeResult expected = new MultiFileCodeParser().parser(MULTI_FILE_CONTENT);
+        for (int split = 0; split <= MULTI_FILE_CONTENT.length(); split++) {
+            RecordingListener listener = new RecordingListener();
+            StreamingCodeBlockParser parser = new StreamingCodeBlockParser(listener);
+            parser.append(MULTI_FILE_CONTENT.substring(0, split));
+            parser.append(MULTI_FILE_CONTENT.substring(split));
+            parser.finish();
+            assertEquals(expected.getHtmlCode(), listener.blocks.get("html"), "split at " + split);
+            assertEquals(expected.getCssCode(), listener.blocks.get("css"), "split at " + split);
+            assertEquals(expected.getJsCode(), listener.blocks.get("javascript"), "split at " + split);
+        }
+    }
+
+    @Test
+    void parseCharByChar() {
+        RecordingListener listener = new RecordingListener();
+        StreamingCodeBlockParser parser = new StreamingCodeBlockParser(listener);
+        for (char c : MULTI_FILE_CONTENT.toCharArray()) {
+            parser.append(String.valueOf(c));
+        }
+        parser.finish();
+        assertEquals(3, listener.blocks.size());
+        assertTrue(listener.text.toString().contains("`code`"));
+    }
+
+    @Test
+    void closeUnterminatedBlockOnFinish() {
+        RecordingListener listener = new RecordingListener();
+        StreamingCodeBlockParser parser = new StreamingCodeBlockParser(listener);
+        parser.append("```html\n<html></html>");
+        parser.finish();
+        assertEquals("<html></html>", listener.blocks.get("html"));
+        assertEquals(1, listener.ended);
+    }
+
+    private static class RecordingListener implements CodeBlockListener {
+
+        private final Map<String, String> blocks = new LinkedHashMap<>();
+        private final StringBuilder current = new StringBuilder();
+        private final StringBuilder text = new StringBuilder();
+        private int ended;
+
+        @Override
+        public void onBlockStart(String language) {
+            current.setLength(0);
+        }
+
+        @Override
+        public void onBlockContent(CharSequence content) {
+            current.append(content);
+        }
+
+        @Override
+        public void onBlockEnd(String language) {
+            blocks.putIfAbsent(language, current.toString());
+            ended++;
+        }
+
+        @Override
+        public void onText(CharSequence text) {
+            this.text.append(text);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.zcw.voya.core;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.util.StrUtil;
+import com.zcw.voya.ai.model.enums.CodeGenTypeEnum;
+import com.zcw.voya.constant.AppConstant;
+import com.zcw.voya.core.parser.CodeParserExecutor;
+import com.zcw.voya.core.saver.CodeFileSaverExecutor;
+import com.zcw.voya.core.saver.StreamingCodeFileSaver;
+import com.zcw.voya.exception.BusinessException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 按不同 chunk 大小流式保存，落盘结果应与整段解析后保存完全一致
+ */
+class StreamingCodeFileSaverTest {
+
+    private static final long EXPECTED_APP_ID = 990_000_001L;
+    private static final long ACTUAL_APP_ID = 990_000_002L;
+
+    private static final int[] CHUNK_SIZES = {1, 2, 3, 7, 64, Integer.MAX_VALUE};
+
+    private static final String HTML_CONTENT = """
+            这是一个简单的页面：
+            ```html
+
+              <!DOCTYPE html>
+            <html>
+            <body>
+                <h1>Hello `World`!</h1>
+            </body>
+            </html>
+            \t
+            ```
+            ```html
+            <p>第二个代码块会被忽略</p>
+            ```
+            页面生成完毕
+            """;
+
+    private static final String MULTI_FILE_CONTENT = """
+            先给出样式：
+            ```css
+
+
+              h1 {
+                color: blue;
+            }
+
+            ```
+            ```html
+             <!DOCTYPE html>
+            <html>
+            <head>
+                <link rel="stylesheet" href="style.css">
+            </head>
+            <body>
+                <h1>欢迎使用</h1>
+                <script src="script.js"></script>
+            </body>
+            </html>
+            ```
+            ```javascript
+            console.log(`页面加载完成 ${1 + 1}`);
+              \s
+            ```
+            ```js
+            console.log('第二个脚本会被忽略');
+            ```
+            文件创建完成！
+            """;
+
+    @AfterEach
+    void cleanUp() {
+        for (CodeGenTypeEnum type : new CodeGenTypeEnum[]{CodeGenTypeEnum.HTML, CodeGenTypeEnum.MULTI_FILE}) {
+            FileUtil.del(outputDir(type, EXPECTED_APP_ID));
+            FileUtil.del(outputDir(type, ACTUAL_APP_ID));
+        }
+    }
+
+    @Test
+    void saveHtmlBlock() {
+        assertSameOutput(HTML_CONTENT, CodeGenTypeEnum.HTML);
+    }
+
+    @Test
+    void saveWholeContentWithoutHtmlBlock() {
+        assertSameOutput("""
+                <!DOCTYPE html>
+                <html><body>没有围栏的页面</body></html>
+                ```css
+                h1 { color: red; }
+                ```
+                """, CodeGenTypeEnum.HTML);
+    }
+
+    @Test
+    void saveWholeContentWhenHtmlBlockIsEmpty() {
+        assertSameOutput("""
+                空代码块：
+                ```html
+                \s
+                ```
+                <html><body>块外的页面</body></html>
+                """, CodeGenTypeEnum.HTML);
+    }
+
+    @Test
+    void saveWholeContentWhenHtmlBlockIsUnterminated() {
+        assertSameOutput("输出被截断：\n```html\n<html><body>未闭合", CodeGenTypeEnum.HTML);
+    }
+
+    @Test
+    void saveEmptyContent() {
+        assertSameOutput("", CodeGenTypeEnum.HTML);
+    }
+
+    @Test
+    void saveMultiFileBlocksVerbatim() {
+        assertSameOutput(MULTI_FILE_CONTENT, CodeGenTypeEnum.MULTI_FILE);
+    }
+
+    @Test
+    void saveNothingWithoutMultiFileHtml() {
+        String content = """
+                ```css
+                h1 { color: blue; }
+                ```
+                ```html
+                ```
+                """;
+        Object result = CodeParserExecutor.executeParser(content, CodeGenTypeEnum.MULTI_FILE);
+        assertThrows(BusinessException.class,
+                () -> CodeFileSaverExecutor.executorSaver(result, CodeGenTypeEnum.MULTI_FILE, EXPECTED_APP_ID));
+        for (int chunkSize : CHUNK_SIZES) {
+            assertNull(saveStreaming(content, CodeGenTypeEnum.MULTI_FILE, chunkSize));
+            assertTrue(readFiles(outputDir(CodeGenTypeEnum.MULTI_FILE, ACTUAL_APP_ID)).isEmpty(),
+                    "chunk size " + chunkSize);
+        }
+    }
+
+    private static void assertSameOutput(String content, CodeGenTypeEnum type) {
+        Object result = CodeParserExecutor.executeParser(content, type);
+        File expectedDir = CodeFileSaverExecutor.executorSaver(result, type, EXPECTED_APP_ID);
+        Map<String, String> expected = readFiles(expectedDir);
+        for (int chunkSize : CHUNK_SIZES) {
+            File actualDir = saveStreaming(content, type, chunkSize);
+            assertNotNull(actualDir, "chunk size " + chunkSize);
+            assertEquals(expected, readFiles(actualDir), "chunk size " + chunkSize);
+            FileUtil.del(actualDir);
+        }
+    }
+
+    private static File saveStreaming(String content, CodeGenTypeEnum type, int chunkSize) {
+        StreamingCodeFileSaver saver = new StreamingCodeFileSaver(type, ACTUAL_APP_ID);
+        for (int i = 0; i < content.length(); i += chunkSize) {
+            saver.append(content.substring(i, (int) Math.min(content.length(), (long) i + chunkSize)));
+        }
+        return saver.complete();
+    }
+
+    /**
+     * 读取目录下所有文件（包括临时文件），文件名到内容
+     */
+    private static Map<String, String> readFiles(File dir) {
+        Map<String, String> files = new TreeMap<>();
+        File[] children = dir.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                files.put(child.getName(), FileUtil.readUtf8String(child));
+            }
+        }
+        return files;
+    }
+
+    private static File outputDir(CodeGenTypeEnum type, long appId) {
+        return new File(AppConstant.CODE_OUTPUT_ROOT_DIR, StrUtil.format("{}_{}", type.getValue(), appId));
+    }
+}
@@ -0,0 +1,125 @@
+package com.zcw.voya.core.session;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GenerationSessionTest {
+
+    @Test
+    void replayMissedEventsThenFollowLiveOnes() {
+        Sinks.Many<String> upstream = Sinks.many().unicast().onBackpressureBuffer();
+        GenerationSession session = new GenerationSession("test", 1L, 16, 60_000, 60, null, s -> {}, s -> {});
+        session.start(upstream.asFlux());
+        upstream.tryEmitNext("a");
+        upstream.tryEmitNext("b");
+        upstream.tryEmitNext("c");
+
+        // 客户端已收到序号 1，重连后应补发 2、3，再接收实时事件
+        var resumed = session.attach(1).collectList().toFuture();
+        upstream.tryEmitNext("d");
+        upstream.tryEmitComplete();
+
+        List<SessionEvent> events = resumed.join();
+        assertEquals(List.of(2L, 3L, 4L, 5L), events.stream().map(SessionEvent::seq).toList());
+        assertEquals("b", events.getFirst().data());
+        assertEquals(SessionEvent.DONE, events.getLast().event());
+
+        // 已完成的会话重连直接重放并结束
+        List<SessionEvent> replayed = session.attach(3).collectList().block(Duration.ofSeconds(1));
+        assertEquals(List.of(4L, 5L), replayed.stream().map(SessionEvent::seq).toList());
+    }
+
+    @Test
+    void cancelUpstreamAfterDetachTimeout() throws InterruptedException {
+        Sinks.Many<String> upstream = Sinks.many().unicast().onBackpressureBuffer();
+        CountDownLatch cancelled = new CountDownLatch(1);
+        GenerationSession session = new GenerationSession("test", 1L, 16, 50, 60, null, s -> {}, s -> cancelled.countDown());
+        session.start(upstream.asFlux());
+        Disposable client = session.attach(0).subscribe();
+        upstream.tryEmitNext("a");
+        client.dispose();
+
+        assertTrue(cancelled.await(1, TimeUnit.SECONDS));
+        assertEquals(0, upstream.currentSubscriberCount());
+    }
+
+    @Test
+    void keepGeneratingWhenClientReconnectsInTime() throws InterruptedException {
+        Sinks.Many<String> upstream = Sinks.many().unicast().onBackpressureBuffer();
+        CountDownLatch cancelled = new CountDownLatch(1);
+        GenerationSession session = new GenerationSession("test", 1L, 16, 200, 60, null, s -> {}, s -> cancelled.countDown());
+        session.start(upstream.asFlux());
+        session.attach(0).subscribe().dispose();
+        Disposable reconnected = session.attach(0).subscribe();
+
+        assertFalse(cancelled.await(400, TimeUnit.MILLISECONDS));
+        assertEquals(1, upstream.currentSubscriberCount());
+        reconnected.dispose();
+    }
+
+    @Test
+    void attachDoesNotWaitForRedisSpill() throws Exception {
+        CountDownLatch spilling = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        BlockingEventStore store = new BlockingEventStore(spilling, release);
+        Sinks.Many<String> upstream = Sinks.many().unicast().onBackpressureBuffer();
+        GenerationSession session = new GenerationSession("test", 1L, 4, 60_000, 60, store, s -> {}, s -> {});
+        session.start(upstream.asFlux());
+
+        // 第 5 个事件触发溢写，生成线程阻塞在 Redis 写入上
+        CompletableFuture<Void> emitting = CompletableFuture.runAsync(() ->
+                List.of("a", "b", "c", "d", "e").forEach(upstream::tryEmitNext));
+        assertTrue(spilling.await(1, TimeUnit.SECONDS));
+
+        // 溢写未完成时重连，仍能拿到全部事件
+        List<SessionEvent> replayed = session.attach(0).take(5).collectList().block(Duration.ofSeconds(1));
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), replayed.stream().map(SessionEvent::seq).toList());
+
+        release.countDown();
+        emitting.get(1, TimeUnit.SECONDS);
+        assertEquals(List.of(1L, 2L), store.events.stream().map(SessionEvent::seq).toList());
+    }
+
+    /**
+     * 内存中的溢写存储，写入时阻塞到测试放行
+     */
+    private static final class BlockingEventStore extends RedisSessionEventStore {
+
+        final List<SessionEvent> events = new CopyOnWriteArrayList<>();
+
+        private final CountDownLatch spilling;
+
+        private final CountDownLatch release;
+
+        BlockingEventStore(CountDownLatch spilling, CountDownLatch release) {
+            this.spilling = spilling;
+            this.release = release;
+        }
+
+        @Override
+        public void append(String key, Long userId, List<SessionEvent> events, long ttlSeconds) {
+            spilling.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            this.events.addAll(events);
+        }
+
+        @Override
+        public List<SessionEvent> read(String key, long fromSeq, long toSeq) {
+            return events.stream().filter(event -> event.seq() >= fromSeq && event.seq() <= toSeq).toList();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.zcw.voya.loadtest;
+
+import cn.hutool.core.util.StrUtil;
+import com.zcw.voya.ai.model.enums.CodeGenTypeEnum;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 生成链路端到端压测
+ * 启动本地 OpenAI 桩服务，把所有模型指向它，再用 SSE 客户端并发调用生成接口，不消耗真实 token。
+ * 仍需要本地的 MySQL 和 Redis。默认跳过，运行方式：
+ * <pre>
+ * mvn test -Dtest=GenerationLoadTest -Dvoya.loadtest=true \
+ *     -Dvoya.loadtest.clients=50 -Dvoya.loadtest.requests=1 -Dvoya.loadtest.types=HTML,MULTI_FILE,VUE_PROJECT \
+ *     -Dvoya.loadtest.tokensPerSecond=60 -Dvoya.loadtest.firstTokenMs=500 -Dvoya.loadtest.transcripts=/path/to/recordings
+ * </pre>
+ * 录制目录中放 {场景}.sse 文件即可替换内置响应，场景见 {@link StubTranscripts}
+ */
+@Slf4j
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@EnabledIfSystemProperty(named = "voya.loadtest", matches = "true")
+class GenerationLoadTest {
+
+    private static OpenAiStubServer stubServer;
+
+    @LocalServerPort
+    private int port;
+
+    @DynamicPropertySource
+    static void stubModels(DynamicPropertyRegistry registry) throws IOException {
+        String transcripts = System.getProperty("voya.loadtest.transcripts");
+        stubServer = new OpenAiStubServer(0,
+                new StubTranscripts(StrUtil.isBlank(transcripts) ? null : Path.of(transcripts)),
+                Long.getLong("voya.loadtest.firstTokenMs", 300),
+                Double.parseDouble(System.getProperty("voya.loadtest.tokensPerSecond", "60"))).start();
+        for (String model : List.of("chat-model", "streaming-chat-model", "reasoner-chat-model", "simple-task-model")) {
+            String prefix = "langchain4j.open-ai." + model;
+            registry.add(prefix + ".base-url", stubServer::baseUrl);
+            registry.add(prefix + ".api-key", () -> "stub-key");
+            registry.add(prefix + ".model-name", () -> "stub-model");
+        }
+        // 压测时不打印每次请求和响应
+        registry.add("langchain4j.open-ai.streaming-chat-model.log-requests", () -> "false");
+        registry.add("langchain4j.open-ai.streaming-chat-model.log-responses", () -> "false");
+    }
+
+    @AfterAll
+    static void stopStub() {
+        if (stubServer != null) {
+            stubServer.close();
+        }
+    }
+
+    @Test
+    void concurrentGeneration() throws InterruptedException {
+        int clients = Integer.getInteger("voya.loadtest.clients", 20);
+        int requests = Integer.getInteger("voya.loadtest.requests", 1);
+        List<CodeGenTypeEnum> types = Arrays.stream(System.getProperty("voya.loadtest.types", "HTML,MULTI_FILE,VUE_PROJECT").split(","))
+                .map(String::trim)
+                .map(CodeGenTypeEnum::valueOf)
+                .toList();
+        SseLoadHarness.Report report = new SseLoadHarness("http://127.0.0.1:" + port).run(clients, requests, types);
+        log.info("压测结果\n{}桩服务请求 {} 次，下发分片 {} 个", report.format(), stubServer.getRequests(), stubServer.getStreamedChunks());
+        assertEquals(0, report.failed(), report.format());
+    }
+}
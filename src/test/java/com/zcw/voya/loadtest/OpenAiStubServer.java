@@ -0,0 +1,225 @@
+package com.zcw.voya.loadtest;
+
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.json.JSONArray;
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 本地 OpenAI 兼容桩服务
+ * 实现 /chat/completions 的流式与非流式协议（含工具调用），按系统提示词识别场景并回放对应的响应，
+ * 首个分片前等待固定延迟，之后按设定的 token 速率逐片下发。只监听本机回环地址，完全离线运行
+ * <p>
+ * Vue 项目按对话轮次回放：第一轮写文件，工具结果返回后调用 exit，exit 之后输出总结
+ */
+@Slf4j
+public class OpenAiStubServer implements AutoCloseable {
+
+    private final StubTranscripts transcripts;
+    private final long firstTokenLatencyMs;
+    private final long chunkIntervalNanos;
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong streamedChunks = new AtomicLong();
+
+    /**
+     * @param port                端口，0 表示随机端口
+     * @param transcripts         回放的响应
+     * @param firstTokenLatencyMs 首个分片前的延迟
+     * @param tokensPerSecond     每秒下发的分片数，不大于 0 时不限速
+     */
+    public OpenAiStubServer(int port, StubTranscripts transcripts, long firstTokenLatencyMs, double tokensPerSecond) throws IOException {
+        this.transcripts = transcripts;
+        this.firstTokenLatencyMs = firstTokenLatencyMs;
+        this.chunkIntervalNanos = tokensPerSecond > 0 ? (long) (1_000_000_000L / tokensPerSecond) : 0;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 1024);
+        this.server.createContext("/", this::handle);
+        this.server.setExecutor(executor);
+    }
+
+    public OpenAiStubServer start() {
+        server.start();
+        log.info("OpenAI 桩服务已启动：{}", baseUrl());
+        return this;
+    }
+
+    /**
+     * 模型配置使用的 base-url
+     */
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/v1";
+    }
+
+    public long getRequests() {
+        return requests.get();
+    }
+
+    public long getStreamedChunks() {
+        return streamedChunks.get();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"POST".equals(exchange.getRequestMethod()) || !exchange.getRequestURI().getPath().endsWith("/chat/completions")) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            requests.incrementAndGet();
+            JSONObject request = JSONUtil.parseObj(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            JSONArray messages = request.getJSONArray("messages");
+            String systemPrompt = systemPrompt(messages);
+            if (request.getBool("stream", false)) {
+                stream(exchange, transcripts.get(streamScenario(systemPrompt, messages)));
+            } else {
+                complete(exchange, request.getStr("model"), reply(systemPrompt, lastUserMessage(messages)));
+            }
+        } catch (IOException e) {
+            // 客户端取消生成时会断开连接
+            log.debug("桩服务连接已断开：{}", e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void stream(HttpExchange exchange, List<String> frames) throws IOException, InterruptedException {
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+        exchange.sendResponseHeaders(200, 0);
+        OutputStream out = exchange.getResponseBody();
+        if (firstTokenLatencyMs > 0) {
+            Thread.sleep(firstTokenLatencyMs);
+        }
+        long next = System.nanoTime();
+        for (String frame : frames) {
+            if (chunkIntervalNanos > 0) {
+                long wait = next - System.nanoTime();
+                if (wait > 0) {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                }
+                next += chunkIntervalNanos;
+            }
+            out.write(("data: " + frame + "\n\n").getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            streamedChunks.incrementAndGet();
+        }
+        out.write("data: [DONE]\n\n".getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private void complete(HttpExchange exchange, String model, String content) throws IOException, InterruptedException {
+        if (firstTokenLatencyMs > 0) {
+            Thread.sleep(firstTokenLatencyMs);
+        }
+        byte[] body = new JSONObject()
+                .set("id", "chatcmpl-stub")
+                .set("object", "chat.completion")
+                .set("created", System.currentTimeMillis() / 1000)
+                .set("model", StrUtil.blankToDefault(model, "stub-model"))
+                .set("choices", new JSONArray().put(new JSONObject()
+                        .set("index", 0)
+                        .set("message", new JSONObject().set("role", "assistant").set("content", content))
+                        .set("finish_reason", "stop")))
+                .set("usage", new JSONObject().set("prompt_tokens", 200).set("completion_tokens", 10).set("total_tokens", 210))
+                .toString()
+                .getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    /**
+     * 根据系统提示词选择流式场景
+     */
+    static String streamScenario(String systemPrompt, JSONArray messages) {
+        if (systemPrompt.contains("Vue3")) {
+            Set<String> calledTools = toolsCalledSinceLastUserMessage(messages);
+            if (calledTools.isEmpty()) {
+                return StubTranscripts.VUE_PROJECT;
+            }
+            return calledTools.contains("exit") ? StubTranscripts.VUE_PROJECT_FINAL : StubTranscripts.VUE_PROJECT_EXIT;
+        }
+        if (systemPrompt.contains("三个核心文件")) {
+            return StubTranscripts.MULTI_FILE;
+        }
+        return StubTranscripts.HTML;
+    }
+
+    /**
+     * 非流式调用：路由、应用名称和记忆摘要
+     */
+    static String reply(String systemPrompt, String userMessage) {
+        if (systemPrompt.contains("路由")) {
+            String prompt = userMessage.toLowerCase();
+            if (prompt.contains("vue") || prompt.contains("管理系统")) {
+                return "VUE_PROJECT";
+            }
+            return prompt.contains("官网") || prompt.contains("多页面") ? "MULTI_FILE" : "HTML";
+        }
+        if (systemPrompt.contains("总结提炼")) {
+            return "压测应用";
+        }
+        return "用户要求生成网站，已完成生成。";
+    }
+
+    private static String systemPrompt(JSONArray messages) {
+        for (int i = 0; i < messages.size(); i++) {
+            JSONObject message = messages.getJSONObject(i);
+            if ("system".equals(message.getStr("role"))) {
+                return StrUtil.nullToEmpty(message.getStr("content"));
+            }
+        }
+        return "";
+    }
+
+    private static String lastUserMessage(JSONArray messages) {
+        for (int i = messages.size() - 1; i >= 0; i--) {
+            JSONObject message = messages.getJSONObject(i);
+            if ("user".equals(message.getStr("role"))) {
+                Object content = message.get("content");
+                return content == null ? "" : content.toString();
+            }
+        }
+        return "";
+    }
+
+    private static Set<String> toolsCalledSinceLastUserMessage(JSONArray messages) {
+        Set<String> names = new HashSet<>();
+        for (int i = messages.size() - 1; i >= 0; i--) {
+            JSONObject message = messages.getJSONObject(i);
+            String role = message.getStr("role");
+            if ("user".equals(role)) {
+                break;
+            }
+            JSONArray toolCalls = "assistant".equals(role) ? message.getJSONArray("tool_calls") : null;
+            if (toolCalls != null) {
+                for (int j = 0; j < toolCalls.size(); j++) {
+                    names.add(toolCalls.getJSONObject(j).getJSONObject("function").getStr("name"));
+                }
+            }
+        }
+        return names;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,68 @@
+package com.zcw.voya.loadtest;
+
+import dev.langchain4j.agent.tool.ToolSpecification;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
+import dev.langchain4j.model.openai.OpenAiStreamingChatModel;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OpenAiStubServerTest {
+
+    private static ChatResponse chat(OpenAiStubServer stub, ChatRequest request) throws Exception {
+        OpenAiStreamingChatModel model = OpenAiStreamingChatModel.builder()
+                .baseUrl(stub.baseUrl())
+                .apiKey("stub-key")
+                .modelName("stub-model")
+                .build();
+        CompletableFuture<ChatResponse> future = new CompletableFuture<>();
+        model.chat(request, new StreamingChatResponseHandler() {
+            @Override
+            public void onPartialResponse(String partialResponse) {
+            }
+
+            @Override
+            public void onCompleteResponse(ChatResponse completeResponse) {
+                future.complete(completeResponse);
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                future.completeExceptionally(error);
+            }
+        });
+        return future.get(30, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void replayHtmlAsStreamingText() throws Exception {
+        try (OpenAiStubServer stub = new OpenAiStubServer(0, new StubTranscripts(null), 0, 0).start()) {
+            ChatResponse response = chat(stub, ChatRequest.builder()
+                    .messages(SystemMessage.from("你是一位资深的 Web 前端开发专家"), UserMessage.from("做一个简单的个人主页"))
+                    .build());
+            assertTrue(response.aiMessage().text().contains("```html"));
+            assertNotNull(response.tokenUsage());
+        }
+    }
+
+    @Test
+    void replayVueProjectAsToolCalls() throws Exception {
+        try (OpenAiStubServer stub = new OpenAiStubServer(0, new StubTranscripts(null), 0, 0).start()) {
+            ChatResponse response = chat(stub, ChatRequest.builder()
+                    .messages(SystemMessage.from("你是一位资深的 Vue3 前端架构师"), UserMessage.from("做一个Vue后台管理系统"))
+                    .toolSpecifications(ToolSpecification.builder().name("writeFile").build(),
+                            ToolSpecification.builder().name("exit").build())
+                    .build());
+            assertTrue(response.aiMessage().hasToolExecutionRequests());
+            assertEquals(5, response.aiMessage().toolExecutionRequests().size());
+            assertEquals("writeFile", response.aiMessage().toolExecutionRequests().getFirst().name());
+        }
+    }
+}
@@ -0,0 +1,373 @@
+package com.zcw.voya.loadtest;
+
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import com.zcw.voya.ai.model.enums.CodeGenTypeEnum;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * 生成接口的 SSE 压测
+ * 每个客户端注册并登录一个独立用户（避免按用户限流），创建一个指定类型的应用，
+ * 然后依次发起若干次 /app/chat/gen/code，读取 SSE 直到 done 或 business-error。
+ * 所有客户端同时开始，结束后按生成类型汇总吞吐、首字耗时、总耗时，并报告进程的堆内存和线程数峰值
+ * <p>
+ * 堆内存和线程数取自当前 JVM，与被测服务同进程运行时才有意义
+ */
+@Slf4j
+public class SseLoadHarness {
+
+    /**
+     * 命中本地关键词路由的提示词，创建的应用类型确定
+     */
+    private static final Map<CodeGenTypeEnum, String> PROMPTS = Map.of(
+            CodeGenTypeEnum.HTML, "做一个简单的个人主页",
+            CodeGenTypeEnum.MULTI_FILE, "做一个公司官网，包含关于我们、联系我们多个页面",
+            CodeGenTypeEnum.VUE_PROJECT, "做一个Vue后台管理系统，包含用户管理"
+    );
+
+    private static final String PASSWORD = "loadtest123";
+
+    private final String baseUrl;
+    private final HttpClient httpClient;
+
+    public SseLoadHarness(String baseUrl) {
+        this.baseUrl = baseUrl;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+    }
+
+    /**
+     * 执行压测
+     *
+     * @param clientsPerType    每种生成类型的并发客户端数
+     * @param requestsPerClient 每个客户端依次发起的生成次数（同一用户每分钟最多 5 次）
+     * @param types             参与压测的生成类型
+     * @return 压测结果
+     */
+    public Report run(int clientsPerType, int requestsPerClient, List<CodeGenTypeEnum> types) throws InterruptedException {
+        String runId = Long.toString(System.currentTimeMillis() % 2_176_782_336L, 36);
+        Map<CodeGenTypeEnum, TypeStats> stats = new EnumMap<>(CodeGenTypeEnum.class);
+        types.forEach(type -> stats.put(type, new TypeStats()));
+        ResourceSampler sampler = new ResourceSampler();
+        int clients = clientsPerType * types.size();
+        CountDownLatch ready = new CountDownLatch(clients);
+        CountDownLatch go = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(clients);
+        long startNanos;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            int index = 0;
+            for (CodeGenTypeEnum type : types) {
+                for (int i = 0; i < clientsPerType; i++) {
+                    String account = "lt" + runId + (index++);
+                    executor.submit(() -> {
+                        boolean prepared = false;
+                        try {
+                            Client client = prepare(account, type);
+                            prepared = true;
+                            ready.countDown();
+                            go.await();
+                            for (int r = 0; r < requestsPerClient; r++) {
+                                stats.get(type).add(client.generate(r));
+                            }
+                        } catch (Exception e) {
+                            log.warn("压测客户端 {} 失败：{}", account, e.getMessage());
+                            stats.get(type).add(Result.failed(e.getMessage()));
+                            if (!prepared) {
+                                ready.countDown();
+                            }
+                        } finally {
+                            done.countDown();
+                        }
+                    });
+                }
+            }
+            ready.await();
+            log.info("{} 个客户端准备完成，开始压测", clients);
+            sampler.start();
+            startNanos = System.nanoTime();
+            go.countDown();
+            done.await();
+        }
+        long elapsedNanos = System.nanoTime() - startNanos;
+        sampler.stop();
+        return new Report(stats, elapsedNanos, sampler);
+    }
+
+    /**
+     * 注册、登录并创建应用
+     */
+    private Client prepare(String account, CodeGenTypeEnum type) throws IOException, InterruptedException {
+        JSONObject register = new JSONObject().set("userAccount", account).set("userPassword", PASSWORD).set("checkPassword", PASSWORD);
+        postJson("/user/register", register, null);
+        HttpResponse<String> login = postJson("/user/login",
+                new JSONObject().set("userAccount", account).set("userPassword", PASSWORD), null);
+        String cookie = login.headers().allValues("Set-Cookie").stream()
+                .map(value -> value.split(";", 2)[0])
+                .reduce((a, b) -> a + "; " + b)
+                .orElseThrow(() -> new IllegalStateException("登录未返回 Cookie"));
+        HttpResponse<String> created = postJson("/app/add", new JSONObject().set("initPrompt", PROMPTS.get(type)), cookie);
+        Long appId = JSONUtil.parseObj(created.body()).getLong("data");
+        if (appId == null) {
+            throw new IllegalStateException("创建应用失败：" + created.body());
+        }
+        return new Client(cookie, appId);
+    }
+
+    private HttpResponse<String> postJson(String path, JSONObject body, String cookie) throws IOException, InterruptedException {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(60))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body.toString()));
+        if (cookie != null) {
+            builder.header("Cookie", cookie);
+        }
+        HttpResponse<String> response = httpClient.send(builder.build(), HttpResponse.BodyHandlers.ofString());
+        JSONObject result = JSONUtil.parseObj(response.body());
+        if (result.getInt("code", -1) != 0) {
+            throw new IllegalStateException(path + " 失败：" + response.body());
+        }
+        return response;
+    }
+
+    /**
+     * 一个已登录、已创建应用的客户端
+     */
+    private final class Client {
+
+        private final String cookie;
+        private final long appId;
+
+        Client(String cookie, long appId) {
+            this.cookie = cookie;
+            this.appId = appId;
+        }
+
+        /**
+         * 发起一次生成并读完 SSE
+         */
+        Result generate(int round) throws IOException, InterruptedException {
+            String message = URLEncoder.encode("第 " + (round + 1) + " 次修改：调整页面配色", StandardCharsets.UTF_8);
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/app/chat/gen/code?appId=" + appId + "&message=" + message))
+                    .timeout(Duration.ofMinutes(10))
+                    .header("Accept", "text/event-stream")
+                    .header("Cookie", cookie)
+                    .GET()
+                    .build();
+            long start = System.nanoTime();
+            HttpResponse<Stream<String>> response = httpClient.send(request, HttpResponse.BodyHandlers.ofLines());
+            if (response.statusCode() != 200) {
+                return Result.failed("HTTP " + response.statusCode());
+            }
+            long firstDataNanos = 0;
+            long bytes = 0;
+            int events = 0;
+            int queuedEvents = 0;
+            String event = null;
+            try (Stream<String> lines = response.body()) {
+                Iterator<String> iterator = lines.iterator();
+                while (iterator.hasNext()) {
+                    String line = iterator.next();
+                    if (line.startsWith("event:")) {
+                        event = line.substring(6).trim();
+                    } else if (line.startsWith("data:")) {
+                        String data = line.substring(5);
+                        if ("done".equals(event)) {
+                            return Result.ok(firstDataNanos, System.nanoTime() - start, bytes, events, queuedEvents);
+                        }
+                        if ("business-error".equals(event)) {
+                            return Result.failed(data);
+                        }
+                        if ("queued".equals(event)) {
+                            queuedEvents++;
+                        } else {
+                            if (firstDataNanos == 0) {
+                                firstDataNanos = System.nanoTime() - start;
+                            }
+                            bytes += data.length();
+                            events++;
+                        }
+                    } else if (line.isEmpty()) {
+                        event = null;
+                    }
+                }
+            }
+            return Result.failed("连接在结束事件前关闭");
+        }
+    }
+
+    /**
+     * 一次生成的结果
+     */
+    public record Result(boolean success, long ttftNanos, long durationNanos, long bytes, int events, int queuedEvents,
+                         String error) {
+
+        static Result ok(long ttftNanos, long durationNanos, long bytes, int events, int queuedEvents) {
+            return new Result(true, ttftNanos, durationNanos, bytes, events, queuedEvents, null);
+        }
+
+        static Result failed(String error) {
+            return new Result(false, 0, 0, 0, 0, 0, error);
+        }
+    }
+
+    /**
+     * 单个生成类型的结果汇总
+     */
+    public static final class TypeStats {
+
+        private final List<Result> results = Collections.synchronizedList(new ArrayList<>());
+
+        void add(Result result) {
+            results.add(result);
+        }
+
+        public List<Result> results() {
+            synchronized (results) {
+                return new ArrayList<>(results);
+            }
+        }
+
+        public long succeeded() {
+            return results().stream().filter(Result::success).count();
+        }
+
+        public long failed() {
+            return results().stream().filter(result -> !result.success()).count();
+        }
+
+        /**
+         * 成功请求的首字耗时分位数（毫秒）
+         */
+        public double ttftMillis(double quantile) {
+            return percentile(results().stream().filter(Result::success).mapToLong(Result::ttftNanos).sorted().toArray(), quantile);
+        }
+
+        /**
+         * 成功请求的总耗时分位数（毫秒）
+         */
+        public double durationMillis(double quantile) {
+            return percentile(results().stream().filter(Result::success).mapToLong(Result::durationNanos).sorted().toArray(), quantile);
+        }
+
+        public long bytes() {
+            return results().stream().mapToLong(Result::bytes).sum();
+        }
+
+        public long queuedEvents() {
+            return results().stream().mapToLong(Result::queuedEvents).sum();
+        }
+
+        private static double percentile(long[] sorted, double quantile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(quantile * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(sorted.length - 1, index))] / 1_000_000.0;
+        }
+    }
+
+    /**
+     * 压测期间定时采样堆内存和线程数
+     */
+    private static final class ResourceSampler {
+
+        private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("load-harness-sampler").daemon().factory());
+        private final AtomicLong peakHeapBytes = new AtomicLong();
+        private final AtomicInteger peakThreads = new AtomicInteger();
+        private long startHeapBytes;
+        private int startThreads;
+
+        void start() {
+            startHeapBytes = memory.getHeapMemoryUsage().getUsed();
+            startThreads = threads.getThreadCount();
+            scheduler.scheduleAtFixedRate(this::sample, 0, 200, TimeUnit.MILLISECONDS);
+        }
+
+        void stop() {
+            sample();
+            scheduler.shutdownNow();
+        }
+
+        private void sample() {
+            peakHeapBytes.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+            peakThreads.accumulateAndGet(threads.getThreadCount(), Math::max);
+        }
+    }
+
+    /**
+     * 压测结果
+     */
+    public static final class Report {
+
+        private final Map<CodeGenTypeEnum, TypeStats> stats;
+        private final long elapsedNanos;
+        private final ResourceSampler sampler;
+
+        Report(Map<CodeGenTypeEnum, TypeStats> stats, long elapsedNanos, ResourceSampler sampler) {
+            this.stats = stats;
+            this.elapsedNanos = elapsedNanos;
+            this.sampler = sampler;
+        }
+
+        public Map<CodeGenTypeEnum, TypeStats> stats() {
+            return stats;
+        }
+
+        public long failed() {
+            return stats.values().stream().mapToLong(TypeStats::failed).sum();
+        }
+
+        public String format() {
+            double seconds = elapsedNanos / 1_000_000_000.0;
+            StringBuilder report = new StringBuilder();
+            report.append(String.format("压测耗时 %.1f s%n", seconds));
+            report.append(String.format("%-12s %6s %6s %9s %9s %9s %9s %9s %10s %7s%n",
+                    "类型", "成功", "失败", "吞吐/s", "TTFT p50", "TTFT p99", "耗时 p50", "耗时 p99", "字节/s", "排队事件"));
+            stats.forEach((type, typeStats) -> report.append(String.format("%-12s %6d %6d %9.2f %9.0f %9.0f %9.0f %9.0f %10.0f %7d%n",
+                    type.getValue(), typeStats.succeeded(), typeStats.failed(), typeStats.succeeded() / seconds,
+                    typeStats.ttftMillis(0.5), typeStats.ttftMillis(0.99),
+                    typeStats.durationMillis(0.5), typeStats.durationMillis(0.99),
+                    typeStats.bytes() / seconds, typeStats.queuedEvents())));
+            report.append(String.format("堆内存 %d MB -> 峰值 %d MB，线程数 %d -> 峰值 %d%n",
+                    sampler.startHeapBytes >> 20, sampler.peakHeapBytes.get() >> 20,
+                    sampler.startThreads, sampler.peakThreads.get()));
+            stats.forEach((type, typeStats) -> typeStats.results().stream()
+                    .filter(result -> !result.success())
+                    .limit(3)
+                    .forEach(result -> report.append(type.getValue()).append(" 失败示例：").append(result.error()).append('\n')));
+            return report.toString();
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.zcw.voya.loadtest;
+
+import cn.hutool.json.JSONArray;
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 桩服务回放的模型响应
+ * 每个场景是一组 chat.completion.chunk 的 JSON（即 SSE 中 data: 后面的内容）。
+ * 优先读取录制目录下的 {场景}.sse 文件（用 curl -N 直接保存的上游响应），没有时使用内置的合成响应：
+ * 正文每片 1~6 个字符，工具参数每片 4~16 个字符，使用固定种子，每次运行相同
+ */
+public class StubTranscripts {
+
+    public static final String HTML = "html";
+    public static final String MULTI_FILE = "multi_file";
+    public static final String VUE_PROJECT = "vue_project";
+    public static final String VUE_PROJECT_EXIT = "vue_project_exit";
+    public static final String VUE_PROJECT_FINAL = "vue_project_final";
+
+    private static final String HTML_SAMPLE = """
+            <!DOCTYPE html>
+            <html lang="zh-CN">
+            <head>
+              <meta charset="UTF-8">
+              <title>个人主页</title>
+              <style>
+                body { margin: 0; font-family: -apple-system, "PingFang SC", sans-serif; background: #f7f7f9; }
+                .card { border-radius: 12px; box-shadow: 0 2px 12px rgba(0, 0, 0, .08); padding: 24px; }
+              </style>
+            </head>
+            <body>
+              <main class="container"><section class="card"><h1>你好，我是一名前端工程师</h1></section></main>
+              <script>document.querySelectorAll('.card').forEach(c => c.addEventListener('click', () => c.classList.toggle('active')));</script>
+            </body>
+            </html>
+            """;
+
+    private static final String CSS_SAMPLE = """
+            .header { display: flex; justify-content: space-between; align-items: center; padding: 16px 48px; }
+            .nav a { margin-left: 24px; color: #333; text-decoration: none; }
+            .hero { padding: 96px 48px; background: linear-gradient(135deg, #4f46e5, #06b6d4); color: #fff; }
+            """;
+
+    private static final String JS_SAMPLE = """
+            document.querySelectorAll('.nav a').forEach(link => link.addEventListener('click', event => {
+              event.preventDefault();
+              document.querySelector(link.getAttribute('href')).scrollIntoView({ behavior: 'smooth' });
+            }));
+            """;
+
+    private static final String VUE_SAMPLE = """
+            <template>
+              <div class="todo-list">
+                <input v-model="draft" @keyup.enter="add" placeholder="添加待办" />
+                <ul><li v-for="item in items" :key="item.id" :class="{ done: item.done }" @click="toggle(item)">{{ item.title }}</li></ul>
+              </div>
+            </template>
+            <script setup>
+            import { ref } from 'vue'
+            const draft = ref('')
+            const items = ref([])
+            const add = () => { if (draft.value.trim()) { items.value.push({ id: Date.now(), title: draft.value, done: false }); draft.value = '' } }
+            const toggle = (item) => { item.done = !item.done }
+            </script>
+            """;
+
+    private final Path recordingDir;
+
+    private final Map<String, List<String>> cache = new ConcurrentHashMap<>();
+
+    /**
+     * @param recordingDir 录制目录，为 null 时只使用内置响应
+     */
+    public StubTranscripts(Path recordingDir) {
+        this.recordingDir = recordingDir;
+    }
+
+    /**
+     * 获取场景的响应分片
+     */
+    public List<String> get(String scenario) {
+        return cache.computeIfAbsent(scenario, key -> {
+            if (recordingDir != null) {
+                Path file = recordingDir.resolve(key + ".sse");
+                if (Files.isRegularFile(file)) {
+                    return load(file);
+                }
+            }
+            return builtIn(key);
+        });
+    }
+
+    /**
+     * 读取录制的 SSE 响应，只保留 data 行，忽略 [DONE]
+     */
+    static List<String> load(Path file) {
+        try {
+            List<String> frames = new ArrayList<>();
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                if (line.startsWith("data:")) {
+                    String data = line.substring(5).trim();
+                    if (!data.isEmpty() && !"[DONE]".equals(data)) {
+                        frames.add(data);
+                    }
+                }
+            }
+            return frames;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static List<String> builtIn(String scenario) {
+        Random random = new Random(42);
+        List<String> frames = new ArrayList<>();
+        switch (scenario) {
+            case HTML -> {
+                appendContent(frames, "好的，下面是完整的页面代码。\n\n```html\n" + repeat(HTML_SAMPLE, 6000) + "\n```\n", random);
+                appendFinish(frames, "stop");
+            }
+            case MULTI_FILE -> {
+                appendContent(frames, "好的，下面是三个文件的代码。\n\n```html\n" + repeat(HTML_SAMPLE, 3000)
+                        + "\n```\n\n```css\n" + repeat(CSS_SAMPLE, 2000)
+                        + "\n```\n\n```js\n" + repeat(JS_SAMPLE, 1500) + "\n```\n", random);
+                appendFinish(frames, "stop");
+            }
+            case VUE_PROJECT -> {
+                appendContent(frames, "好的，我来创建这个项目的文件结构。", random);
+                String[] files = {"package.json", "index.html", "src/main.js", "src/App.vue", "src/components/TodoList.vue"};
+                for (int i = 0; i < files.length; i++) {
+                    String content = files[i].endsWith(".vue") ? repeat(VUE_SAMPLE, 3000)
+                            : files[i].endsWith(".json") ? "{\"name\":\"stub-app\",\"private\":true,\"scripts\":{\"build\":\"vite build\"}}"
+                            : repeat(JS_SAMPLE, 400);
+                    appendToolCall(frames, i, "writeFile", JSONUtil.toJsonStr(Map.of("relativeFilePath", files[i], "content", content)), random);
+                }
+                appendFinish(frames, "tool_calls");
+            }
+            case VUE_PROJECT_EXIT -> {
+                appendToolCall(frames, 0, "exit", "{}", random);
+                appendFinish(frames, "tool_calls");
+            }
+            case VUE_PROJECT_FINAL -> {
+                appendContent(frames, "项目已创建完成，包含首页和待办组件，可以直接构建运行。", random);
+                appendFinish(frames, "stop");
+            }
+            default -> throw new IllegalArgumentException("未知场景：" + scenario);
+        }
+        return frames;
+    }
+
+    private static void appendContent(List<String> frames, String text, Random random) {
+        for (int from = 0; from < text.length(); ) {
+            int to = Math.min(text.length(), from + 1 + random.nextInt(6));
+            frames.add(chunk(new JSONObject().set("content", text.substring(from, to)), null));
+            from = to;
+        }
+    }
+
+    private static void appendToolCall(List<String> frames, int index, String name, String arguments, Random random) {
+        frames.add(chunk(toolDelta(new JSONObject()
+                .set("index", index)
+                .set("id", "call_stub_" + index)
+                .set("type", "function")
+                .set("function", new JSONObject().set("name", name).set("arguments", ""))), null));
+        for (int from = 0; from < arguments.length(); ) {
+            int to = Math.min(arguments.length(), from + 4 + random.nextInt(13));
+            frames.add(chunk(toolDelta(new JSONObject()
+                    .set("index", index)
+                    .set("function", new JSONObject().set("arguments", arguments.substring(from, to)))), null));
+            from = to;
+        }
+    }
+
+    private static JSONObject toolDelta(JSONObject toolCall) {
+        return new JSONObject().set("tool_calls", new JSONArray().put(toolCall));
+    }
+
+    private static void appendFinish(List<String> frames, String finishReason) {
+        int completionTokens = frames.size();
+        frames.add(chunk(new JSONObject(), finishReason));
+        frames.add(new JSONObject()
+                .set("id", "chatcmpl-stub")
+                .set("object", "chat.completion.chunk")
+                .set("model", "stub-model")
+                .set("choices", new JSONArray())
+                .set("usage", new JSONObject()
+                        .set("prompt_tokens", 1200)
+                        .set("completion_tokens", completionTokens)
+                        .set("total_tokens", 1200 + completionTokens))
+                .toString());
+    }
+
+    private static String chunk(JSONObject delta, String finishReason) {
+        JSONObject choice = new JSONObject().set("index", 0).set("delta", delta);
+        if (finishReason != null) {
+            choice.set("finish_reason", finishReason);
+        }
+        return new JSONObject()
+                .set("id", "chatcmpl-stub")
+                .set("object", "chat.completion.chunk")
+                .set("created", 1_700_000_000L)
+                .set("model", "stub-model")
+                .set("choices", new JSONArray().put(choice))
+                .toString();
+    }
+
+    private static String repeat(String sample, int targetChars) {
+        StringBuilder text = new StringBuilder(targetChars + sample.length());
+        while (text.length() < targetChars) {
+            text.append(sample);
+        }
+        return text.substring(0, targetChars);
+    }
+}
@@ -0,0 +1,117 @@
+package dev.langchain4j.service;
+
+import dev.langchain4j.agent.tool.Tool;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.memory.chat.MessageWindowChatMemory;
+import dev.langchain4j.model.chat.StreamingChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
+import dev.langchain4j.model.output.TokenUsage;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static dev.langchain4j.service.ParallelToolExecutionTest.fileCall;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AiServiceStreamingResponseHandlerTest {
+
+    interface Assistant {
+
+        TokenStream chat(@MemoryId Long memoryId, @UserMessage String message);
+    }
+
+    /**
+     * The first file waits until the second one has been written, so it can only finish if both run concurrently,
+     * and it finishes last.
+     */
+    public static class FileTools {
+
+        final CountDownLatch secondWritten = new CountDownLatch(1);
+
+        @Tool
+        public String writeFile(String relativeFilePath, String content) {
+            if (relativeFilePath.endsWith("a.vue")) {
+                try {
+                    return "a concurrent=" + secondWritten.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return "a interrupted";
+                }
+            }
+            if (relativeFilePath.endsWith("b.vue")) {
+                secondWritten.countDown();
+            }
+            return relativeFilePath.substring(relativeFilePath.length() - 5, relativeFilePath.length() - 4);
+        }
+    }
+
+    /**
+     * Requests three file writes on the first call and answers with text once the tool results are in.
+     */
+    static class ToolCallingModel implements StreamingChatModel {
+
+        final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public void chat(ChatRequest chatRequest, StreamingChatResponseHandler handler) {
+            AiMessage aiMessage = calls.getAndIncrement() == 0
+                    ? AiMessage.from(List.of(
+                    fileCall("1", "writeFile", "src/a.vue"),
+                    fileCall("2", "writeFile", "src/b.vue"),
+                    fileCall("3", "writeFile", "src/c.vue")))
+                    : AiMessage.from("done");
+            if (aiMessage.text() != null) {
+                handler.onPartialResponse(aiMessage.text());
+            }
+            handler.onCompleteResponse(ChatResponse.builder()
+                    .aiMessage(aiMessage)
+                    .tokenUsage(new TokenUsage(1, 1))
+                    .build());
+        }
+    }
+
+    @Test
+    void reportsConcurrentToolResultsInRequestOrder() throws Exception {
+        MessageWindowChatMemory memory = MessageWindowChatMemory.withMaxMessages(20);
+        FileTools tools = new FileTools();
+        Assistant assistant = AiServices.builder(Assistant.class)
+                .streamingChatModel(new ToolCallingModel())
+                .chatMemoryProvider(memoryId -> memory)
+                .tools(tools)
+                .build();
+        List<String> executed = new CopyOnWriteArrayList<>();
+        CompletableFuture<ChatResponse> completed = new CompletableFuture<>();
+
+        assistant.chat(1L, "write the files")
+                .parallelToolExecution(new ParallelToolExecution(Map.of("writeFile", "relativeFilePath")))
+                .onPartialResponse(partial -> {
+                })
+                .onToolExecuted(execution -> executed.add(execution.request().id() + "=" + execution.result()))
+                .onCompleteResponse(completed::complete)
+                .onError(completed::completeExceptionally)
+                .start();
+
+        assertEquals("done", completed.get(10, TimeUnit.SECONDS).aiMessage().text());
+        assertEquals(List.of("1=a concurrent=true", "2=b", "3=c"), executed);
+        // the results directly follow the message requesting them, in request order
+        List<ChatMessage> messages = memory.messages();
+        int requestIndex = 0;
+        while (!(messages.get(requestIndex) instanceof AiMessage aiMessage && aiMessage.hasToolExecutionRequests())) {
+            requestIndex++;
+        }
+        List<String> resultIds = messages.subList(requestIndex + 1, requestIndex + 4).stream()
+                .map(message -> ((ToolExecutionResultMessage) message).id())
+                .toList();
+        assertEquals(List.of("1", "2", "3"), resultIds);
+    }
+}
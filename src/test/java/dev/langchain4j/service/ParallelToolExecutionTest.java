@@ -0,0 +1,64 @@
+package dev.langchain4j.service;
+
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ParallelToolExecutionTest {
+
+    private final ParallelToolExecution parallelToolExecution = new ParallelToolExecution(Map.of(
+            "writeFile", "relativeFilePath",
+            "modifyFile", "relativeFilePath"
+    ));
+
+    @Test
+    void batchesConsecutiveCallsOnDifferentFiles() {
+        ToolExecutionRequest a = fileCall("1", "writeFile", "src/a.vue");
+        ToolExecutionRequest b = fileCall("2", "writeFile", "src/b.vue");
+        ToolExecutionRequest c = fileCall("3", "modifyFile", "src/c.vue");
+
+        assertEquals(List.of(List.of(a, b, c)), parallelToolExecution.plan(List.of(a, b, c)));
+    }
+
+    @Test
+    void splitsBatchOnSameNormalizedPath() {
+        ToolExecutionRequest write = fileCall("1", "writeFile", "./src/a.vue");
+        ToolExecutionRequest other = fileCall("2", "writeFile", "src/b.vue");
+        ToolExecutionRequest modify = fileCall("3", "modifyFile", "src/a.vue");
+
+        assertEquals(List.of(List.of(write, other), List.of(modify)),
+                parallelToolExecution.plan(List.of(write, other, modify)));
+    }
+
+    @Test
+    void nonIsolatedToolClosesBatch() {
+        ToolExecutionRequest a = fileCall("1", "writeFile", "src/a.vue");
+        ToolExecutionRequest exit = ToolExecutionRequest.builder().id("2").name("exit").arguments("{}").build();
+        ToolExecutionRequest b = fileCall("3", "writeFile", "src/b.vue");
+        // calls with unparsable arguments run on their own as well
+        ToolExecutionRequest malformed = ToolExecutionRequest.builder().id("4").name("writeFile").arguments("{").build();
+
+        assertEquals(List.of(List.of(a), List.of(exit), List.of(b), List.of(malformed)),
+                parallelToolExecution.plan(List.of(a, exit, b, malformed)));
+    }
+
+    @Test
+    void disabledRunsEveryCallOnItsOwn() {
+        ToolExecutionRequest a = fileCall("1", "writeFile", "src/a.vue");
+        ToolExecutionRequest b = fileCall("2", "writeFile", "src/b.vue");
+
+        assertEquals(List.of(List.of(a), List.of(b)), ParallelToolExecution.DISABLED.plan(List.of(a, b)));
+    }
+
+    static ToolExecutionRequest fileCall(String id, String tool, String path) {
+        return ToolExecutionRequest.builder()
+                .id(id)
+                .name(tool)
+                .arguments("{\"relativeFilePath\":\"" + path + "\",\"content\":\"x\"}")
+                .build();
+    }
+}